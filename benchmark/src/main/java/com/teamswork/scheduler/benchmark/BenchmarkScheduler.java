@@ -0,0 +1,125 @@
+package com.teamswork.scheduler.benchmark;
+
+import com.atlassian.jira.cluster.ClusterNodeProperties;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
+import com.atlassian.scheduler.caesium.impl.MemoryClusteredJobDao;
+import com.atlassian.scheduler.caesium.spi.CaesiumSchedulerConfiguration;
+import com.atlassian.scheduler.core.impl.MemoryRunDetailsDao;
+import com.teamswork.scheduler.component.EnhancedJiraCaesiumSchedulerConfiguration;
+import com.teamswork.scheduler.refresh.ClusteredJobRefresher;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Boots a real Caesium scheduler on in-memory DAOs, the same way Jira does with its stock 4 worker threads,
+ * then adds extra thread groups the same way SchedulerConfigurator does.
+ */
+final class BenchmarkScheduler implements AutoCloseable {
+    private static final int STOCK_WORKER_THREADS = 4;
+
+    private final CaesiumSchedulerService service;
+
+    private BenchmarkScheduler(final CaesiumSchedulerService service) {
+        this.service = service;
+    }
+
+    /**
+     * Start a scheduler with the stock thread group plus the requested extra thread groups.
+     * @param extraGroups the number of extra thread groups to start.
+     * @param threadsPerGroup the threads in each extra group.
+     * @return the started scheduler.
+     */
+    static BenchmarkScheduler start(final int extraGroups, final int threadsPerGroup) throws Exception {
+        final CaesiumSchedulerService service = new CaesiumSchedulerService(stockConfiguration(),
+                new MemoryRunDetailsDao(), new MemoryClusteredJobDao());
+        service.start();
+
+        if (extraGroups > 0) {
+            final Field config = CaesiumSchedulerService.class.getDeclaredField("config");
+            config.setAccessible(true);
+            config.set(service, new EnhancedJiraCaesiumSchedulerConfiguration(applicationProperties(),
+                    clusterNodeProperties(), clusteredJobRefresher()).withWorkerThreadCount(threadsPerGroup));
+
+            final Field started = CaesiumSchedulerService.class.getDeclaredField("started");
+            started.setAccessible(true);
+            for (int i = 0; i < extraGroups; i++) {
+                service.standby();
+                ((AtomicBoolean) started.get(service)).set(false);
+                service.start();
+            }
+        }
+        return new BenchmarkScheduler(service);
+    }
+
+    CaesiumSchedulerService getService() {
+        return service;
+    }
+
+    @Override
+    public void close() {
+        service.shutdown();
+    }
+
+    private static CaesiumSchedulerConfiguration stockConfiguration() {
+        return new CaesiumSchedulerConfiguration() {
+            @Override
+            public TimeZone getDefaultTimeZone() {
+                return TimeZone.getDefault();
+            }
+
+            @Override
+            public int refreshClusteredJobsIntervalInMinutes() {
+                return 0;
+            }
+
+            @Override
+            public int workerThreadCount() {
+                return STOCK_WORKER_THREADS;
+            }
+
+            @Override
+            public boolean useQuartzJobDataMapMigration() {
+                return false;
+            }
+
+            @Override
+            public boolean useFineGrainedSchedules() {
+                return false;
+            }
+        };
+    }
+
+    private static ApplicationProperties applicationProperties() {
+        return (ApplicationProperties) Proxy.newProxyInstance(BenchmarkScheduler.class.getClassLoader(),
+                new Class<?>[]{ApplicationProperties.class},
+                (proxy, method, args) -> defaultValue(method.getReturnType()));
+    }
+
+    private static ClusterNodeProperties clusterNodeProperties() {
+        return (ClusterNodeProperties) Proxy.newProxyInstance(BenchmarkScheduler.class.getClassLoader(),
+                new Class<?>[]{ClusterNodeProperties.class},
+                (proxy, method, args) -> defaultValue(method.getReturnType()));
+    }
+
+    /**
+     * A refresher that is never started, so it only supplies the default refresh settings. The node is not
+     * clustered, so the configuration does not ask it for a refresh interval.
+     */
+    private static ClusteredJobRefresher clusteredJobRefresher() {
+        return new ClusteredJobRefresher(null, null, null, null, null, null, null);
+    }
+
+    private static Object defaultValue(final Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type.isPrimitive() && type != void.class) {
+            return 0;
+        }
+        return null;
+    }
+}
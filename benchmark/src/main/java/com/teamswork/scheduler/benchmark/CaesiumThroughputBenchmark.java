@@ -0,0 +1,109 @@
+package com.teamswork.scheduler.benchmark;
+
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.SchedulerServiceException;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.config.RunMode;
+import com.atlassian.scheduler.config.Schedule;
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how many synthetic jobs per second Caesium completes with 0-4 extra thread groups of 1-16 threads,
+ * and how late those jobs start (scheduling latency).
+ * Each invocation schedules a batch of run-once clustered jobs, all due now, and waits for the batch to finish,
+ * so the reported throughput is jobs completed per second. Scheduling latency percentiles are printed at the
+ * end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class CaesiumThroughputBenchmark {
+    private static final int BATCH_SIZE = 200;
+    private static final JobRunnerKey JOB_RUNNER_KEY = JobRunnerKey.of("jes-benchmark");
+    private static final String SCHEDULED_AT = "scheduledAtNanos";
+
+    @Param({"0", "1", "2", "3", "4"})
+    public int extraGroups;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threadsPerGroup;
+
+    @Param({"CPU_BOUND", "SLEEP_BOUND", "MIXED"})
+    public SyntheticWorkload workload;
+
+    private final LatencyHistogram schedulingLatency = new LatencyHistogram();
+    private final AtomicLong sequence = new AtomicLong();
+    private BenchmarkScheduler scheduler;
+    private volatile CountDownLatch batch;
+
+    @Setup(Level.Trial)
+    public void startScheduler() throws Exception {
+        scheduler = BenchmarkScheduler.start(extraGroups, threadsPerGroup);
+        scheduler.getService().registerJobRunner(JOB_RUNNER_KEY, request -> {
+            final long scheduledAt = (Long) request.getJobConfig().getParameters().get(SCHEDULED_AT);
+            schedulingLatency.record((System.nanoTime() - scheduledAt) / 1000L);
+            try {
+                workload.run(sequence.incrementAndGet());
+                return JobRunnerResponse.success();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return JobRunnerResponse.aborted("Interrupted");
+            } finally {
+                batch.countDown();
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void stopScheduler() {
+        final LatencyHistogram.Snapshot latency = schedulingLatency.snapshot();
+        System.out.printf("%n[scheduling latency] extraGroups=%d threadsPerGroup=%d workload=%s jobs=%d " +
+                        "p50=%dus p95=%dus p99=%dus max=%dus%n",
+                extraGroups, threadsPerGroup, workload, latency.getTotalCount(),
+                latency.getValueAtPercentile(50), latency.getValueAtPercentile(95),
+                latency.getValueAtPercentile(99), latency.getMax());
+        scheduler.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void completeJobs() throws SchedulerServiceException, InterruptedException {
+        batch = new CountDownLatch(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final Serializable scheduledAt = System.nanoTime();
+            scheduler.getService().scheduleJob(JobId.of("jes-benchmark-" + i), JobConfig.forJobRunnerKey(JOB_RUNNER_KEY)
+                    .withRunMode(RunMode.RUN_ONCE_PER_CLUSTER)
+                    .withSchedule(Schedule.runOnce(new Date()))
+                    .withParameters(Collections.singletonMap(SCHEDULED_AT, scheduledAt)));
+        }
+        if (!batch.await(5, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Batch did not complete within 5 minutes, " + batch.getCount() + " jobs left.");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.teamswork.scheduler.benchmark;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The synthetic jobs run by the benchmarks.
+ */
+public enum SyntheticWorkload {
+    /**
+     * Burns roughly a millisecond of CPU, like a job crunching data it already has in memory.
+     */
+    CPU_BOUND {
+        @Override
+        void run(final long sequence) {
+            Blackhole.consumeCPU(CPU_TOKENS);
+        }
+    },
+    /**
+     * Sleeps for 10ms, like a job waiting on the database or a remote service.
+     */
+    SLEEP_BOUND {
+        @Override
+        void run(final long sequence) throws InterruptedException {
+            Thread.sleep(SLEEP_MILLIS);
+        }
+    },
+    /**
+     * Alternates between the two.
+     */
+    MIXED {
+        @Override
+        void run(final long sequence) throws InterruptedException {
+            if (sequence % 2 == 0) {
+                CPU_BOUND.run(sequence);
+            } else {
+                SLEEP_BOUND.run(sequence);
+            }
+        }
+    };
+
+    private static final long CPU_TOKENS = 250_000L;
+    private static final long SLEEP_MILLIS = 10L;
+
+    abstract void run(long sequence) throws InterruptedException;
+}
@@ -0,0 +1,20 @@
+package com.teamswork.scheduler.api;
+
+/**
+ * What a partition can ask about the run it is part of.
+ */
+public interface PartitionContext {
+
+    /**
+     * @return the position of this partition in the list returned by PartitionedJob.partition.
+     */
+    int getPartitionIndex();
+
+    int getPartitionCount();
+
+    /**
+     * @return true once the scheduler has been paused or the plugin disabled. A partition should stop as soon as it
+     * can; partitions that have not started will not be run.
+     */
+    boolean isCancelled();
+}
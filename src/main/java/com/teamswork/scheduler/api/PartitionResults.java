@@ -0,0 +1,34 @@
+package com.teamswork.scheduler.api;
+
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * The outcome of every partition of a run, handed to PartitionedJob.merge.
+ * @param <R> the result of running one partition.
+ */
+public interface PartitionResults<R> {
+
+    /**
+     * @return the result of each partition, in partition order. The result of a partition that failed or was not run
+     * because the run was cancelled is null.
+     */
+    List<R> getResults();
+
+    /**
+     * @return what each failed partition threw, by partition index.
+     */
+    SortedMap<Integer, Throwable> getFailures();
+
+    int getPartitionCount();
+
+    /**
+     * @return the number of partitions that were run, whether or not they succeeded.
+     */
+    int getCompleted();
+
+    /**
+     * @return true if the run was cancelled before every partition had been run.
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,60 @@
+package com.teamswork.scheduler.api;
+
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+
+import java.util.List;
+
+/**
+ * A scheduled job whose work can be split into partitions that run in parallel, e.g. one partition per project or
+ * per range of issue ids. Run it with a PartitionedJobRunner from the job's own JobRunner.
+ * runPartition is called on several threads at once, so it must not share mutable state between partitions
+ * without synchronizing. Partitions should check PartitionContext.isCancelled() between items.
+ * @param <P> the partition, e.g. a project key.
+ * @param <R> the result of running one partition.
+ */
+public interface PartitionedJob<P, R> {
+
+    /**
+     * Split the work of this run into partitions. Called once, on the scheduler worker running the job.
+     * @param request the request the job was run with.
+     * @return the partitions, in the order their results are to be merged.
+     */
+    List<P> partition(JobRunnerRequest request);
+
+    /**
+     * Run one partition.
+     * @param partition the partition.
+     * @param context the partition's position in the run, and whether the run has been cancelled.
+     * @return the partition's result.
+     * @throws Exception if the partition failed. The other partitions carry on.
+     */
+    R runPartition(P partition, PartitionContext context) throws Exception;
+
+    /**
+     * Merge the partition results into the outcome of the job run. Called once, on the scheduler worker running the job.
+     * By default the run succeeds if every partition did, is aborted if it was cancelled, and fails otherwise.
+     * @param request the request the job was run with.
+     * @param results the result of each partition.
+     * @return the outcome reported to the scheduler.
+     */
+    default JobRunnerResponse merge(final JobRunnerRequest request, final PartitionResults<R> results) {
+        if (results.isCancelled()) {
+            return JobRunnerResponse.aborted("Cancelled after " + results.getCompleted() + " of "
+                    + results.getPartitionCount() + " partitions");
+        }
+        if (!results.getFailures().isEmpty()) {
+            final Throwable first = results.getFailures().values().iterator().next();
+            return JobRunnerResponse.failed(results.getFailures().size() + " of " + results.getPartitionCount()
+                    + " partitions failed, the first with: " + first);
+        }
+        return JobRunnerResponse.success(results.getPartitionCount() + " partitions completed");
+    }
+
+    /**
+     * @return the most partitions of one run to run at once, including the one on the scheduler worker.
+     */
+    default int getParallelism() {
+        return 4;
+    }
+}
@@ -0,0 +1,31 @@
+package com.teamswork.scheduler.api;
+
+import com.atlassian.scheduler.JobRunner;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+
+/**
+ * Runs the partitions of a PartitionedJob in parallel on the enhanced scheduler's partition threads, and merges their
+ * results into one job outcome. Exported as an OSGi service; import it with @ComponentImport.
+ * The scheduler worker running the job runs partitions too, so a run makes progress even when every partition thread
+ * is busy. While the heap is under pressure a run gets no extra threads.
+ * Pausing the scheduler cancels the runs in progress: no more partitions are started and the job is aborted.
+ */
+public interface PartitionedJobRunner {
+
+    /**
+     * Run a partitioned job. Call this from the job's JobRunner.runJob; it returns when every partition has finished.
+     * @param request the request the job is being run with.
+     * @param job the job.
+     * @return the merged outcome of the partitions.
+     */
+    <P, R> JobRunnerResponse run(JobRunnerRequest request, PartitionedJob<P, R> job);
+
+    /**
+     * @param job the job.
+     * @return a JobRunner to register with the SchedulerService that runs the job through this runner.
+     */
+    default <P, R> JobRunner asJobRunner(final PartitionedJob<P, R> job) {
+        return request -> run(request, job);
+    }
+}
@@ -0,0 +1,270 @@
+package com.teamswork.scheduler.capacity;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.AdmissionSettings;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.service.JobRequeuer;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_ADMISSION_KEY;
+
+/**
+ * Stops giving new jobs to the extra Caesium thread groups while the heap is under pressure, so more concurrent jobs
+ * do not push the node into back-to-back full collections. Pressure is the heap in use after the last collection,
+ * read from the heap MemoryPoolMXBeans, and the share of recent time spent in GC, read from the
+ * GarbageCollectorMXBeans. Both are sampled every second and whenever a collector reports a collection.
+ * While throttled, a worker of an extra group that picks up a job defers it back to the queue and is then held
+ * until the throttle lifts (see InstrumentedJobRunner), so the extra groups stop taking work rather than deferring
+ * job after job, and Caesium-1 and the worker pools carry on as before. A held worker is let go after MAX_HOLD_MILLIS
+ * so it is not mistaken for a stuck job, and is parked on a blocker so a drain can retire it. This is opt-in.
+ * Settings are stored in ApplicationProperties under SCHEDULER_ADMISSION_KEY.
+ */
+@Named
+public class AdmissionController extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(AdmissionController.class);
+    private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+    private static final long SAMPLE_INTERVAL_MILLIS = 1000L;
+    static final long DEFER_DELAY_MILLIS = 2000L;
+    static final int MAX_DEFERRALS = 30;
+    static final long MAX_HOLD_MILLIS = 60 * 1000L;
+
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+    private final JobRequeuer jobRequeuer;
+    private final MemoryPressure pressure = new MemoryPressure();
+    private final LongAdder deferredRuns = new LongAdder();
+    private final Object hold = new Object();
+    private final NotificationListener gcListener = this::onGc;
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private volatile AdmissionSettings settings = new AdmissionSettings();
+    private volatile boolean throttled;
+    private ScheduledExecutorService executor;
+
+    public AdmissionController(@ComponentImport final EventPublisher eventPublisher,
+                               @ComponentImport final ApplicationProperties applicationProperties,
+                               @ComponentImport final I18nHelper i18nHelper,
+                               final JobRequeuer jobRequeuer) {
+        super(eventPublisher);
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+        this.jobRequeuer = jobRequeuer;
+    }
+
+    @Override
+    protected synchronized void onAppStart() {
+        try {
+            settings = parse(applicationProperties.getText(SCHEDULER_ADMISSION_KEY));
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) collector).addNotificationListener(gcListener,
+                            notification -> GC_NOTIFICATION.equals(notification.getType()), null);
+                    emitters.add((NotificationEmitter) collector);
+                }
+            }
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "JES-admission");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::sample, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (final Exception e) {
+            log.error("Error starting the admission controller. ", e);
+        }
+    }
+
+    @Override
+    protected synchronized void onAppShutdown() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (final ListenerNotFoundException e) {
+                log.debug("GC listener was already removed.");
+            }
+        }
+        emitters.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        throttled = false;
+    }
+
+    /**
+     * Called on the job execution path, so this is a single volatile read unless the node is throttled.
+     * @param thread the worker thread.
+     * @return true if the thread belongs to an extra Caesium thread group and the extra groups are throttled.
+     */
+    public boolean isThrottled(final Thread thread) {
+        if (!throttled) {
+            return false;
+        }
+        final ThreadGroup group = thread.getThreadGroup();
+        return group != null && group.getName().startsWith(SchedulerConfigurator.defaultThreadGroupPrefix)
+                && !SchedulerConfigurator.defaultThreadGroup.equals(group.getName());
+    }
+
+    /**
+     * Keep a throttled worker from going back to the queue for more work, until the throttle lifts, the worker is
+     * interrupted or MAX_HOLD_MILLIS has passed. Called on the worker's thread once it has deferred its job.
+     */
+    public void holdWhileThrottled() {
+        final Thread thread = Thread.currentThread();
+        final long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_HOLD_MILLIS);
+        long left;
+        while (isThrottled(thread) && !thread.isInterrupted() && (left = until - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(hold, Math.min(left, TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL_MILLIS)));
+        }
+    }
+
+    /**
+     * Put a run picked up by a throttled worker back on the queue.
+     * @return true if the run was deferred; false if it has been deferred too often and should run now.
+     */
+    public boolean defer(final JobRunnerRequest request, final JobRunnerKey jobRunnerKey) {
+        if (jobRequeuer.defer(request, jobRunnerKey, DEFER_DELAY_MILLIS, "memory pressure", MAX_DEFERRALS)) {
+            deferredRuns.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public AdmissionSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Validate, store and apply the settings. Turning the controller off lifts any throttle straight away.
+     */
+    public OperationResult configure(final AdmissionSettings newSettings) {
+        if (!isPercent(newSettings.getHeapThresholdPercent()) || !isPercent(newSettings.getGcTimeThresholdPercent())
+                || newSettings.getHeapResumePercent() < 1
+                || newSettings.getHeapResumePercent() > newSettings.getHeapThresholdPercent()
+                || newSettings.getGcTimeResumePercent() < 1
+                || newSettings.getGcTimeResumePercent() > newSettings.getGcTimeThresholdPercent()) {
+            return new OperationResult(false, i18nHelper.getText("jes.admission.invalid.thresholds"));
+        }
+        if (newSettings.getWindowSeconds() < 5 || newSettings.getWindowSeconds() > 600) {
+            return new OperationResult(false, i18nHelper.getText("jes.admission.invalid.window"));
+        }
+        applicationProperties.setText(SCHEDULER_ADMISSION_KEY, format(newSettings));
+        settings = newSettings;
+        sample();
+        return new OperationResult(true, i18nHelper.getText(newSettings.isEnabled() ?
+                "jes.admission.enabled" : "jes.admission.disabled"));
+    }
+
+    public MemoryPressure getPressure() {
+        return pressure;
+    }
+
+    /**
+     * @return the runs deferred by throttled workers since the plugin was enabled.
+     */
+    public long getDeferredRuns() {
+        return deferredRuns.sum();
+    }
+
+    private void onGc(final Notification notification, final Object handback) {
+        sample();
+    }
+
+    private synchronized void sample() {
+        try {
+            long totalGcMillis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                totalGcMillis += Math.max(0L, collector.getCollectionTime());
+            }
+            long usedAfterGc = 0;
+            long max = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) {
+                    continue;
+                }
+                final MemoryUsage afterGc = pool.getCollectionUsage();
+                if (afterGc != null && afterGc.getMax() > 0) {
+                    usedAfterGc += afterGc.getUsed();
+                    max += afterGc.getMax();
+                }
+            }
+            final long now = System.currentTimeMillis();
+            if (pressure.sample(now, totalGcMillis, usedAfterGc, max, settings)) {
+                throttled = pressure.isThrottled();
+                if (throttled) {
+                    log.warn("Heap under pressure ({}% in use after GC, {}% of time in GC): extra scheduler "
+                            + "thread groups throttled.", pressure.getHeapAfterGcPercent(),
+                            Math.round(pressure.getGcTimePercent()));
+                } else {
+                    log.info("Heap pressure has eased: extra scheduler thread groups resumed after {}ms throttled "
+                            + "in all.", pressure.getThrottledMillis(now));
+                }
+            }
+        } catch (final Exception e) {
+            log.error("Error sampling the heap pressure. ", e);
+        }
+    }
+
+    private static boolean isPercent(final int value) {
+        return value >= 1 && value <= 100;
+    }
+
+    private static String format(final AdmissionSettings settings) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("enabled", settings.isEnabled());
+        values.put("heapThresholdPercent", settings.getHeapThresholdPercent());
+        values.put("heapResumePercent", settings.getHeapResumePercent());
+        values.put("gcTimeThresholdPercent", settings.getGcTimeThresholdPercent());
+        values.put("gcTimeResumePercent", settings.getGcTimeResumePercent());
+        values.put("windowSeconds", settings.getWindowSeconds());
+        return SettingsText.format(values);
+    }
+
+    private static AdmissionSettings parse(final String text) {
+        final AdmissionSettings settings = new AdmissionSettings();
+        for (Map.Entry<String, String> entry : SettingsText.parse(text).entrySet()) {
+            try {
+                final String value = entry.getValue();
+                switch (entry.getKey()) {
+                    case "enabled": settings.setEnabled(Boolean.parseBoolean(value)); break;
+                    case "heapThresholdPercent": settings.setHeapThresholdPercent(Integer.parseInt(value)); break;
+                    case "heapResumePercent": settings.setHeapResumePercent(Integer.parseInt(value)); break;
+                    case "gcTimeThresholdPercent": settings.setGcTimeThresholdPercent(Integer.parseInt(value)); break;
+                    case "gcTimeResumePercent": settings.setGcTimeResumePercent(Integer.parseInt(value)); break;
+                    case "windowSeconds": settings.setWindowSeconds(Integer.parseInt(value)); break;
+                    default: log.warn("Ignoring unknown admission setting: {}", entry.getKey());
+                }
+            } catch (NumberFormatException e) {
+                log.error("Ignoring invalid admission setting: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return settings;
+    }
+}
@@ -0,0 +1,89 @@
+package com.teamswork.scheduler.capacity;
+
+import com.teamswork.scheduler.model.AutoscalerSettings;
+
+/**
+ * The scaling rules of the autoscaler, kept free of the scheduler so they can be tested.
+ * Capacity is added only after the lag threshold has been breached for scaleUpSamples consecutive samples,
+ * and handed back only after scaleDownSamples consecutive samples under the utilisation threshold.
+ * No change is made within cooldownSeconds of the last one, except to bring capacity back within the min/max bounds.
+ */
+public class AutoscalerPolicy {
+
+    public enum Action {
+        NONE,
+        SCALE_UP,
+        SCALE_DOWN
+    }
+
+    static final int MAX_STEP_THREADS = 16;
+
+    private final AutoscalerSettings settings;
+    private int samplesOverLag;
+    private int samplesUnderUtilised;
+    private long lastScaledAt;
+    private boolean scaled;
+
+    public AutoscalerPolicy(final AutoscalerSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Take a sample and decide what, if anything, to do.
+     * @param lagP95Millis the p95 scheduling lag since the last sample.
+     * @param utilisationPercent the percentage of Caesium workers busy.
+     * @param extraThreads the number of extra threads currently running.
+     * @param now the current time in millis.
+     * @return the action to take. Call {@link #scaled(long)} once it has been taken.
+     */
+    public Action evaluate(final long lagP95Millis, final int utilisationPercent, final int extraThreads, final long now) {
+        if (lagP95Millis > settings.getLagThresholdMillis()) {
+            samplesOverLag++;
+            samplesUnderUtilised = 0;
+        } else if (utilisationPercent < settings.getLowUtilisationPercent()) {
+            samplesUnderUtilised++;
+            samplesOverLag = 0;
+        } else {
+            samplesOverLag = 0;
+            samplesUnderUtilised = 0;
+        }
+
+        if (extraThreads < settings.getMinExtraThreads()) {
+            return Action.SCALE_UP;
+        }
+        if (extraThreads > settings.getMaxExtraThreads()) {
+            return Action.SCALE_DOWN;
+        }
+        if (scaled && now - lastScaledAt < settings.getCooldownSeconds() * 1000L) {
+            return Action.NONE;
+        }
+        if (samplesOverLag >= settings.getScaleUpSamples() && extraThreads < settings.getMaxExtraThreads()) {
+            return Action.SCALE_UP;
+        }
+        if (samplesUnderUtilised >= settings.getScaleDownSamples() && extraThreads > settings.getMinExtraThreads()) {
+            return Action.SCALE_DOWN;
+        }
+        return Action.NONE;
+    }
+
+    /**
+     * Record that a scaling action was taken, or attempted, starting the cooldown and the sample counts again.
+     * @param now the current time in millis.
+     */
+    public void scaled(final long now) {
+        scaled = true;
+        lastScaledAt = now;
+        samplesOverLag = 0;
+        samplesUnderUtilised = 0;
+    }
+
+    /**
+     * @param extraThreads the number of extra threads currently running.
+     * @return the number of threads to add in the next extra thread group.
+     */
+    public int threadsToAdd(final int extraThreads) {
+        final int belowMin = settings.getMinExtraThreads() - extraThreads;
+        final int headroom = settings.getMaxExtraThreads() - extraThreads;
+        return Math.max(1, Math.min(Math.max(settings.getStepThreads(), belowMin), Math.min(headroom, MAX_STEP_THREADS)));
+    }
+}
@@ -0,0 +1,136 @@
+package com.teamswork.scheduler.capacity;
+
+import com.teamswork.scheduler.model.CapacitySchedule;
+import com.teamswork.scheduler.model.CapacityTransition;
+import com.teamswork.scheduler.model.CapacityWindow;
+
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Works out how many extra scheduler threads a capacity schedule wants at a given time.
+ * A window covers its start minute up to, but not including, its end minute; a window that ends before it starts
+ * runs over midnight and one that ends when it starts covers the whole day. Where windows overlap the largest wins.
+ * A window's threads are wanted from prewarmMinutes before it starts, so they are running when its jobs come due.
+ * Times are wall clock times in the zone of the ZonedDateTime passed in, so a window follows daylight saving changes.
+ */
+public class CapacityPlan {
+    private final int defaultExtraThreads;
+    private final int prewarmMinutes;
+    private final int[] startMinutes;
+    private final int[] endMinutes;
+    private final int[] extraThreads;
+
+    /**
+     * @throws IllegalArgumentException if a window's start or end is not a HH:mm time.
+     */
+    public CapacityPlan(final CapacitySchedule schedule) {
+        this.defaultExtraThreads = schedule.getDefaultExtraThreads();
+        this.prewarmMinutes = schedule.getPrewarmMinutes();
+        final List<CapacityWindow> windows = schedule.getWindows();
+        this.startMinutes = new int[windows.size()];
+        this.endMinutes = new int[windows.size()];
+        this.extraThreads = new int[windows.size()];
+        for (int i = 0; i < windows.size(); i++) {
+            startMinutes[i] = minuteOfDay(windows.get(i).getStart());
+            endMinutes[i] = minuteOfDay(windows.get(i).getEnd());
+            extraThreads[i] = windows.get(i).getExtraThreads();
+        }
+    }
+
+    /**
+     * @return the minute of the day of a HH:mm time.
+     * @throws IllegalArgumentException if the time is missing or not a HH:mm time.
+     */
+    public static int minuteOfDay(final String time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Missing time");
+        }
+        try {
+            final LocalTime localTime = LocalTime.parse(time.trim());
+            return localTime.getHour() * 60 + localTime.getMinute();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Not a HH:mm time: " + time, e);
+        }
+    }
+
+    /**
+     * @return the extra threads the windows in effect at the time want, ignoring pre-warming.
+     */
+    public int inEffectAt(final ZonedDateTime time) {
+        final int minute = time.getHour() * 60 + time.getMinute();
+        int threads = defaultExtraThreads;
+        for (int i = 0; i < startMinutes.length; i++) {
+            if (covers(startMinutes[i], endMinutes[i], minute)) {
+                threads = Math.max(threads, extraThreads[i]);
+            }
+        }
+        return threads;
+    }
+
+    /**
+     * @return the extra threads that should be running at the time, including those pre-warmed for a window
+     * that starts within prewarmMinutes.
+     */
+    public int targetAt(final ZonedDateTime time) {
+        return Math.max(inEffectAt(time), inEffectAt(time.plusMinutes(prewarmMinutes)));
+    }
+
+    /**
+     * @return each change in the target from the minute after the time given up to hours later, oldest first.
+     */
+    public List<Transition> upcoming(final ZonedDateTime from, final int hours) {
+        final List<Transition> transitions = new ArrayList<>();
+        ZonedDateTime time = from.truncatedTo(ChronoUnit.MINUTES);
+        int previous = targetAt(time);
+        for (int minute = 0; minute < hours * 60; minute++) {
+            time = time.plusMinutes(1);
+            final int target = targetAt(time);
+            if (target != previous) {
+                transitions.add(new Transition(time, target));
+                previous = target;
+            }
+        }
+        return transitions;
+    }
+
+    private static boolean covers(final int start, final int end, final int minute) {
+        if (start == end) {
+            return true;
+        }
+        return start < end ? minute >= start && minute < end : minute >= start || minute < end;
+    }
+
+    /**
+     * A change in the target at a point in time.
+     */
+    public static final class Transition {
+        private final ZonedDateTime at;
+        private final int extraThreads;
+
+        Transition(final ZonedDateTime at, final int extraThreads) {
+            this.at = at;
+            this.extraThreads = extraThreads;
+        }
+
+        public ZonedDateTime getAt() {
+            return at;
+        }
+
+        public int getExtraThreads() {
+            return extraThreads;
+        }
+
+        public CapacityTransition toModel() {
+            final CapacityTransition transition = new CapacityTransition();
+            transition.setAt(at.toInstant().toEpochMilli());
+            transition.setLocalTime(at.toLocalDateTime().toString());
+            transition.setExtraThreads(extraThreads);
+            return transition;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.teamswork.scheduler.capacity;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
+import com.atlassian.scheduler.core.LifecycleAwareSchedulerService;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.RestoreSettings;
+import com.teamswork.scheduler.model.RestoreStatus;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_RESTORE_KEY;
+
+/**
+ * Puts the extra thread groups back when the plugin is enabled, so a node is not left at Jira's stock 4 threads
+ * after a restart until someone runs the reconfigure and start steps again. This is opt-in.
+ * On a background thread it waits for the scheduler to reach STARTED, reconfigures it, starts the extra thread
+ * groups that are missing and checks each new Caesium-N group is running. How long the node took to reach full
+ * capacity is recorded. Settings are stored in ApplicationProperties under SCHEDULER_RESTORE_KEY.
+ */
+@Named
+public class CapacityRestorer extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(CapacityRestorer.class);
+    public static final int MAX_THREAD_GROUPS = 8;
+    private static final long POLL_MILLIS = 1000L;
+
+    public enum State {
+        DISABLED,
+        WAITING,
+        RESTORING,
+        RESTORED,
+        FAILED,
+        TIMED_OUT
+    }
+
+    private final SchedulerConfigurator schedulerConfigurator;
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+    private volatile RestoreStatus status = newStatus(new RestoreSettings(), 0L, State.DISABLED);
+    private ExecutorService executor;
+
+    public CapacityRestorer(final SchedulerConfigurator schedulerConfigurator,
+                            @ComponentImport final EventPublisher eventPublisher,
+                            @ComponentImport final ApplicationProperties applicationProperties,
+                            @ComponentImport final I18nHelper i18nHelper) {
+        super(eventPublisher);
+        this.schedulerConfigurator = schedulerConfigurator;
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+    }
+
+    @Override
+    protected synchronized void onAppStart() {
+        final long enabledAt = System.currentTimeMillis();
+        try {
+            final RestoreSettings settings = getSettings();
+            status = newStatus(settings, enabledAt, settings.isEnabled() ? State.WAITING : State.DISABLED);
+            if (!settings.isEnabled()) {
+                log.debug("Capacity restore is disabled.");
+                return;
+            }
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "JES-restore");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.execute(() -> restore(settings, enabledAt, () -> LifecycleAwareSchedulerService.State.STARTED
+                    .equals(ComponentAccessor.getComponent(CaesiumSchedulerService.class).getState())));
+        } catch (final Exception e) {
+            log.error("Error starting the capacity restore. ", e);
+        }
+    }
+
+    @Override
+    protected synchronized void onAppShutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public RestoreSettings getSettings() {
+        return parse(applicationProperties.getText(SCHEDULER_RESTORE_KEY));
+    }
+
+    /**
+     * @return the settings and the outcome of the restore when the plugin was last enabled.
+     */
+    public RestoreStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Validate and store the settings. They take effect the next time the plugin is enabled.
+     */
+    public OperationResult configure(final RestoreSettings settings) {
+        if (settings.getThreadGroups() < 1 || settings.getThreadGroups() > MAX_THREAD_GROUPS) {
+            return new OperationResult(false, i18nHelper.getText("jes.restore.invalid.groups", MAX_THREAD_GROUPS));
+        }
+        if (settings.getTimeoutSeconds() < 10 || settings.getTimeoutSeconds() > 3600) {
+            return new OperationResult(false, i18nHelper.getText("jes.restore.invalid.timeout"));
+        }
+        applicationProperties.setText(SCHEDULER_RESTORE_KEY, format(settings));
+        return new OperationResult(true, i18nHelper.getText(settings.isEnabled() ?
+                "jes.restore.enabled" : "jes.restore.disabled"));
+    }
+
+    /**
+     * Runs on the restore thread. The status is built on a private copy and each step is published as a new,
+     * complete RestoreStatus, so getStatus never returns one that is still being changed.
+     * @param schedulerStarted true once the scheduler has reached STARTED.
+     * @return the final status, which is also published.
+     */
+    public RestoreStatus restore(final RestoreSettings settings, final long enabledAt,
+                                 final BooleanSupplier schedulerStarted) {
+        final RestoreStatus progress = newStatus(settings, enabledAt, State.WAITING);
+        publish(progress);
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(settings.getTimeoutSeconds());
+        try {
+            if (!await(schedulerStarted, deadline)) {
+                return finish(progress, State.TIMED_OUT, i18nHelper.getText("jes.restore.scheduler.not.started",
+                        settings.getTimeoutSeconds()));
+            }
+            progress.setSchedulerStartedAt(System.currentTimeMillis());
+            progress.setState(State.RESTORING.name());
+            publish(progress);
+
+            final int missing = settings.getThreadGroups() - schedulerConfigurator.getExtraThreadGroups().size();
+            if (missing > 0 && !schedulerConfigurator.isSchedulerReconfigured()) {
+                final OperationResult result = schedulerConfigurator.replaceSchedulerConfiguration();
+                if (!result.isSuccess()) {
+                    return finish(progress, State.FAILED, result.getMessage());
+                }
+            }
+            final List<String> restored = new ArrayList<>();
+            for (int i = 0; i < missing; i++) {
+                final Set<String> before = new HashSet<>(schedulerConfigurator.getExtraThreadGroups().keySet());
+                final OperationResult result = schedulerConfigurator.startSchedulerWithExtraThreadGroup();
+                if (!result.isSuccess()) {
+                    return finish(progress, State.FAILED, result.getMessage());
+                }
+                final List<String> started = new ArrayList<>();
+                if (!await(() -> {
+                    started.clear();
+                    started.addAll(schedulerConfigurator.getExtraThreadGroups().keySet());
+                    started.removeAll(before);
+                    return !started.isEmpty();
+                }, deadline)) {
+                    return finish(progress, State.TIMED_OUT, i18nHelper.getText("jes.restore.group.not.running",
+                            settings.getTimeoutSeconds()));
+                }
+                restored.addAll(started);
+                progress.setThreadGroups(new ArrayList<>(restored));
+                publish(progress);
+            }
+
+            final long now = System.currentTimeMillis();
+            progress.setFullCapacityAt(now);
+            progress.setTimeToFullCapacityMillis(now - enabledAt);
+            progress.setNodeUptimeAtFullCapacityMillis(ManagementFactory.getRuntimeMXBean().getUptime());
+            return finish(progress, State.RESTORED, i18nHelper.getText("jes.restore.completed",
+                    schedulerConfigurator.getExtraThreadGroups().size(), progress.getTimeToFullCapacityMillis()));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return finish(progress, State.FAILED, i18nHelper.getText("jes.restore.interrupted"));
+        } catch (final Exception e) {
+            log.error("Error restoring the scheduler capacity. ", e);
+            return finish(progress, State.FAILED, e.getMessage());
+        }
+    }
+
+    private RestoreStatus finish(final RestoreStatus progress, final State state, final String message) {
+        progress.setState(state.name());
+        progress.setMessage(message);
+        if (state == State.RESTORED) {
+            log.info("Scheduler capacity restored: {}", message);
+        } else {
+            log.warn("Scheduler capacity not restored: {}", message);
+        }
+        return publish(progress);
+    }
+
+    /**
+     * Publish a copy of the progress so far; the restore thread keeps changing its own.
+     */
+    private RestoreStatus publish(final RestoreStatus progress) {
+        final RestoreStatus published = new RestoreStatus();
+        published.setSettings(progress.getSettings());
+        published.setState(progress.getState());
+        published.setMessage(progress.getMessage());
+        published.setPluginEnabledAt(progress.getPluginEnabledAt());
+        published.setSchedulerStartedAt(progress.getSchedulerStartedAt());
+        published.setFullCapacityAt(progress.getFullCapacityAt());
+        published.setTimeToFullCapacityMillis(progress.getTimeToFullCapacityMillis());
+        published.setNodeUptimeAtFullCapacityMillis(progress.getNodeUptimeAtFullCapacityMillis());
+        published.setThreadGroups(new ArrayList<>(progress.getThreadGroups()));
+        status = published;
+        return published;
+    }
+
+    private static boolean await(final BooleanSupplier condition, final long deadline) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+        return true;
+    }
+
+    private static RestoreStatus newStatus(final RestoreSettings settings, final long enabledAt, final State state) {
+        final RestoreStatus restoreStatus = new RestoreStatus();
+        restoreStatus.setSettings(settings);
+        restoreStatus.setPluginEnabledAt(enabledAt);
+        restoreStatus.setState(state.name());
+        return restoreStatus;
+    }
+
+    private static String format(final RestoreSettings settings) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("enabled", settings.isEnabled());
+        values.put("threadGroups", settings.getThreadGroups());
+        values.put("timeoutSeconds", settings.getTimeoutSeconds());
+        return SettingsText.format(values);
+    }
+
+    private static RestoreSettings parse(final String text) {
+        final RestoreSettings settings = new RestoreSettings();
+        for (Map.Entry<String, String> entry : SettingsText.parse(text).entrySet()) {
+            try {
+                final String value = entry.getValue();
+                switch (entry.getKey()) {
+                    case "enabled": settings.setEnabled(Boolean.parseBoolean(value)); break;
+                    case "threadGroups": settings.setThreadGroups(Integer.parseInt(value)); break;
+                    case "timeoutSeconds": settings.setTimeoutSeconds(Integer.parseInt(value)); break;
+                    default: log.warn("Ignoring unknown capacity restore setting: {}", entry.getKey());
+                }
+            } catch (NumberFormatException e) {
+                log.error("Ignoring invalid capacity restore setting: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return settings;
+    }
+}
@@ -0,0 +1,331 @@
+package com.teamswork.scheduler.capacity;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.teamswork.scheduler.component.EnhancedJiraCaesiumSchedulerConfiguration;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.CapacityChange;
+import com.teamswork.scheduler.model.CapacitySchedule;
+import com.teamswork.scheduler.model.CapacityScheduleStatus;
+import com.teamswork.scheduler.model.CapacityWindow;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_CAPACITY_SCHEDULE_KEY;
+
+/**
+ * Sizes the extra scheduler thread groups to a time of day capacity schedule, e.g. 12 extra threads from 00:00 to
+ * 05:00 for the nightly batch and 2 otherwise. Times are in the scheduler's default time zone. A window's threads
+ * are added prewarmMinutes before it starts; when it ends, the newest extra thread groups are retired, whole and
+ * drained, for as long as that does not take the node under the target. Checked every CHECK_SECONDS on a thread of
+ * our own. Every change made is logged and the most recent are kept for the REST resource. The autoscaler also
+ * adds and retires extra thread groups, so the schedule cannot be enabled while the autoscaler is; see ScalingOwner.
+ * Settings are stored in ApplicationProperties under SCHEDULER_CAPACITY_SCHEDULE_KEY.
+ */
+@Named
+public class CapacityScheduler extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(CapacityScheduler.class);
+    private static final int MAX_CHANGES = 100;
+    private static final int MAX_EXTRA_THREADS = 256;
+    private static final int MAX_GROUP_THREADS = 16;
+    private static final int MAX_PREWARM_MINUTES = 60;
+    private static final int UPCOMING_HOURS = 24;
+    private static final long CHECK_SECONDS = 30L;
+    private static final long DRAIN_TIMEOUT_MILLIS = 60 * 1000L;
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+
+    private final SchedulerConfigurator schedulerConfigurator;
+    private final EnhancedJiraCaesiumSchedulerConfiguration enhancedConfig;
+    private final ScalingOwner scalingOwner;
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+    private final Deque<CapacityChange> changes = new ArrayDeque<>();
+
+    private volatile ScheduledExecutorService executor;
+    private volatile CapacitySchedule schedule = new CapacitySchedule();
+    private volatile CapacityPlan plan = new CapacityPlan(schedule);
+
+    public CapacityScheduler(final SchedulerConfigurator schedulerConfigurator,
+                             final EnhancedJiraCaesiumSchedulerConfiguration enhancedConfig,
+                             final ScalingOwner scalingOwner,
+                             @ComponentImport final EventPublisher eventPublisher,
+                             @ComponentImport final ApplicationProperties applicationProperties,
+                             @ComponentImport final I18nHelper i18nHelper) {
+        super(eventPublisher);
+        this.schedulerConfigurator = schedulerConfigurator;
+        this.enhancedConfig = enhancedConfig;
+        this.scalingOwner = scalingOwner;
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            apply(getSchedule());
+        } catch (final Exception e) {
+            log.error("Error starting the capacity schedule. ", e);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        try {
+            stop();
+            scalingOwner.release(ScalingOwner.Scaler.CAPACITY_SCHEDULE);
+        } catch (final Throwable t) {
+            log.error("Error shutting down the capacity schedule " + t.getMessage());
+        }
+    }
+
+    /**
+     * Validate, store and apply a new capacity schedule.
+     * @param newSchedule the schedule.
+     * @return the outcome of the operation.
+     */
+    public OperationResult configure(final CapacitySchedule newSchedule) {
+        if (newSchedule.getDefaultExtraThreads() < 0 || newSchedule.getDefaultExtraThreads() > MAX_EXTRA_THREADS) {
+            return new OperationResult(false, i18nHelper.getText("jes.capacity.invalid.threads", MAX_EXTRA_THREADS));
+        }
+        if (newSchedule.getPrewarmMinutes() < 0 || newSchedule.getPrewarmMinutes() > MAX_PREWARM_MINUTES) {
+            return new OperationResult(false, i18nHelper.getText("jes.capacity.invalid.prewarm", MAX_PREWARM_MINUTES));
+        }
+        if (newSchedule.getWindows() == null) {
+            newSchedule.setWindows(new ArrayList<>());
+        }
+        for (CapacityWindow window : newSchedule.getWindows()) {
+            if (window.getExtraThreads() < 0 || window.getExtraThreads() > MAX_EXTRA_THREADS) {
+                return new OperationResult(false, i18nHelper.getText("jes.capacity.invalid.threads", MAX_EXTRA_THREADS));
+            }
+            try {
+                CapacityPlan.minuteOfDay(window.getStart());
+                CapacityPlan.minuteOfDay(window.getEnd());
+            } catch (IllegalArgumentException e) {
+                return new OperationResult(false, i18nHelper.getText("jes.capacity.invalid.time",
+                        window.getStart(), window.getEnd()));
+            }
+        }
+
+        if (newSchedule.isEnabled() && !scalingOwner.claim(ScalingOwner.Scaler.CAPACITY_SCHEDULE)) {
+            return new OperationResult(false, i18nHelper.getText("jes.capacity.autoscaler.enabled"));
+        }
+
+        applicationProperties.setText(SCHEDULER_CAPACITY_SCHEDULE_KEY, format(newSchedule));
+        apply(newSchedule);
+        return new OperationResult(true, i18nHelper.getText(newSchedule.isEnabled()
+                ? "jes.capacity.enabled" : "jes.capacity.disabled"));
+    }
+
+    /**
+     * @return the stored schedule, or an empty, disabled one if none has been stored.
+     */
+    public CapacitySchedule getSchedule() {
+        return parse(applicationProperties.getText(SCHEDULER_CAPACITY_SCHEDULE_KEY));
+    }
+
+    /**
+     * @return the schedule, the target now, the changes planned over the next day and those made, newest first.
+     */
+    public CapacityScheduleStatus getStatus() {
+        final ZonedDateTime now = ZonedDateTime.now(getZoneId());
+        final CapacityPlan plan = this.plan;
+        final CapacityScheduleStatus status = new CapacityScheduleStatus();
+        status.setSchedule(schedule);
+        status.setTimeZone(now.getZone().getId());
+        status.setTargetExtraThreads(plan.targetAt(now));
+        status.setExtraThreads(schedulerConfigurator.getExtraThreadCount());
+        status.setUpcoming(plan.upcoming(now, UPCOMING_HOURS).stream()
+                .map(CapacityPlan.Transition::toModel)
+                .collect(Collectors.toList()));
+        synchronized (changes) {
+            status.setChanges(new ArrayList<>(changes));
+        }
+        return status;
+    }
+
+    private synchronized void apply(final CapacitySchedule newSchedule) {
+        stop();
+        schedule = newSchedule;
+        try {
+            plan = new CapacityPlan(newSchedule);
+        } catch (IllegalArgumentException e) {
+            log.error("Ignoring invalid capacity schedule: {}", e.getMessage());
+            schedule = new CapacitySchedule();
+            plan = new CapacityPlan(schedule);
+            scalingOwner.release(ScalingOwner.Scaler.CAPACITY_SCHEDULE);
+            return;
+        }
+        if (!newSchedule.isEnabled()) {
+            scalingOwner.release(ScalingOwner.Scaler.CAPACITY_SCHEDULE);
+            log.debug("Capacity schedule is disabled.");
+            return;
+        }
+        if (!scalingOwner.claim(ScalingOwner.Scaler.CAPACITY_SCHEDULE)) {
+            // Both were stored as enabled, e.g. before they were made exclusive. The autoscaler keeps the groups.
+            log.error("The capacity schedule is enabled but not started, because the autoscaler is enabled too. "
+                    + "Disable one of them.");
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "JES-capacity");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::check, 0L, CHECK_SECONDS, TimeUnit.SECONDS);
+        log.info("Capacity schedule started: {}", format(newSchedule));
+    }
+
+    /**
+     * Interrupts a check in progress, e.g. one waiting on a drain, and waits for it to end so two capacity threads
+     * never change the thread groups at once. check() takes no lock on this, so holding it here is safe.
+     */
+    private synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("The capacity check did not stop within {}s.", STOP_TIMEOUT_SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+            log.info("Capacity schedule stopped.");
+        }
+    }
+
+    /**
+     * Runs on the capacity thread only. Not synchronized, since draining a thread group can take a while.
+     * Threads are added in groups of at most MAX_GROUP_THREADS until the target is reached; one group is retired
+     * per check.
+     */
+    private void check() {
+        try {
+            final long now = System.currentTimeMillis();
+            final int target = plan.targetAt(ZonedDateTime.now(getZoneId()));
+            final int extraThreads = schedulerConfigurator.getExtraThreadCount();
+            if (extraThreads < target) {
+                OperationResult result;
+                int current = extraThreads;
+                // Enough groups to reach the target, and no more, should a started group not show up in the count.
+                int attempts = (target - extraThreads + MAX_GROUP_THREADS - 1) / MAX_GROUP_THREADS;
+                do {
+                    result = schedulerConfigurator.addExtraThreads(Math.min(MAX_GROUP_THREADS, target - current));
+                    current = schedulerConfigurator.getExtraThreadCount();
+                } while (result.isSuccess() && current < target && --attempts > 0
+                        && !Thread.currentThread().isInterrupted());
+                record(now, target, extraThreads, current, result);
+            } else if (extraThreads > target) {
+                final Map.Entry<String, Integer> newest = schedulerConfigurator.getExtraThreadGroups().lastEntry();
+                if (newest == null || extraThreads - newest.getValue() < target) {
+                    // Thread groups are retired whole; retiring this one would take us under the target.
+                    return;
+                }
+                final OperationResult result = schedulerConfigurator.retireThreadGroup(newest.getKey(), DRAIN_TIMEOUT_MILLIS);
+                record(now, target, extraThreads, schedulerConfigurator.getExtraThreadCount(), result);
+            }
+        } catch (final Exception e) {
+            log.error("Error applying the capacity schedule. ", e);
+        }
+    }
+
+    private void record(final long now, final int target, final int before, final int after,
+                        final OperationResult result) {
+        final CapacityChange change = new CapacityChange();
+        change.setTimestamp(now);
+        change.setTargetExtraThreads(target);
+        change.setExtraThreadsBefore(before);
+        change.setExtraThreadsAfter(after);
+        change.setSuccess(result.isSuccess());
+        change.setMessage(result.getMessage());
+        synchronized (changes) {
+            final CapacityChange last = changes.peekFirst();
+            if (!result.isSuccess() && last != null && !last.isSuccess() && before == after
+                    && String.valueOf(result.getMessage()).equals(last.getMessage())) {
+                // e.g. the scheduler is not started yet; one entry is enough until something changes.
+                return;
+            }
+            changes.addFirst(change);
+            while (changes.size() > MAX_CHANGES) {
+                changes.removeLast();
+            }
+        }
+        log.info("Capacity schedule change: target {}, extra threads {} -> {}: {}", target, before, after,
+                result.getMessage());
+    }
+
+    private ZoneId getZoneId() {
+        final TimeZone timeZone = enhancedConfig.getDefaultTimeZone();
+        return (timeZone != null ? timeZone : TimeZone.getDefault()).toZoneId();
+    }
+
+    private static String format(final CapacitySchedule schedule) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("enabled", schedule.isEnabled());
+        values.put("defaultExtraThreads", schedule.getDefaultExtraThreads());
+        values.put("prewarmMinutes", schedule.getPrewarmMinutes());
+        values.put("windows", schedule.getWindows().stream()
+                .map(window -> window.getStart().trim() + "-" + window.getEnd().trim() + "/" + window.getExtraThreads())
+                .collect(Collectors.joining(",")));
+        return SettingsText.format(values);
+    }
+
+    private static CapacitySchedule parse(final String text) {
+        final CapacitySchedule schedule = new CapacitySchedule();
+        for (Map.Entry<String, String> entry : SettingsText.parse(text).entrySet()) {
+            try {
+                final String value = entry.getValue();
+                switch (entry.getKey()) {
+                    case "enabled": schedule.setEnabled(Boolean.parseBoolean(value)); break;
+                    case "defaultExtraThreads": schedule.setDefaultExtraThreads(Integer.parseInt(value)); break;
+                    case "prewarmMinutes": schedule.setPrewarmMinutes(Integer.parseInt(value)); break;
+                    case "windows": schedule.setWindows(parseWindows(value)); break;
+                    default: log.warn("Ignoring unknown capacity schedule setting: {}", entry.getKey());
+                }
+            } catch (NumberFormatException e) {
+                log.error("Ignoring invalid capacity schedule setting: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return schedule;
+    }
+
+    private static List<CapacityWindow> parseWindows(final String value) {
+        final List<CapacityWindow> windows = new ArrayList<>();
+        for (String text : value.split(",")) {
+            final int dash = text.indexOf('-');
+            final int slash = text.lastIndexOf('/');
+            if (dash < 0 || slash < dash) {
+                if (!text.trim().isEmpty()) {
+                    log.error("Ignoring invalid capacity window: {}", text);
+                }
+                continue;
+            }
+            final CapacityWindow window = new CapacityWindow();
+            window.setStart(text.substring(0, dash).trim());
+            window.setEnd(text.substring(dash + 1, slash).trim());
+            window.setExtraThreads(Integer.parseInt(text.substring(slash + 1).trim()));
+            windows.add(window);
+        }
+        return windows;
+    }
+}
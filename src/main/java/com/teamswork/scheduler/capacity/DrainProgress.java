@@ -0,0 +1,59 @@
+package com.teamswork.scheduler.capacity;
+
+/**
+ * How far the drain of a thread group has got.
+ */
+public class DrainProgress {
+    private final String threadGroupName;
+    private final int inFlightJobs;
+    private final int threadsRemaining;
+    private final boolean finished;
+
+    public DrainProgress(final String threadGroupName, final int inFlightJobs, final int threadsRemaining,
+                         final boolean finished) {
+        this.threadGroupName = threadGroupName;
+        this.inFlightJobs = inFlightJobs;
+        this.threadsRemaining = threadsRemaining;
+        this.finished = finished;
+    }
+
+    public String getThreadGroupName() {
+        return threadGroupName;
+    }
+
+    /**
+     * @return the number of workers in the group still running a job.
+     */
+    public int getInFlightJobs() {
+        return inFlightJobs;
+    }
+
+    /**
+     * @return the number of workers in the group still alive.
+     */
+    public int getThreadsRemaining() {
+        return threadsRemaining;
+    }
+
+    public boolean isRetired() {
+        return threadsRemaining == 0;
+    }
+
+    /**
+     * @return true once the drain has ended: the group has retired, or timed out with threadsRemaining workers left
+     * in service.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    @Override
+    public String toString() {
+        return "DrainProgress{" +
+                "threadGroupName='" + threadGroupName + '\'' +
+                ", inFlightJobs=" + inFlightJobs +
+                ", threadsRemaining=" + threadsRemaining +
+                ", finished=" + finished +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package com.teamswork.scheduler.capacity;
+
+import com.teamswork.scheduler.model.AdmissionSettings;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides from heap occupancy after GC and the share of recent time spent in GC whether the extra thread groups
+ * should be throttled. Throttling starts when either figure reaches its threshold and ends only when both are below
+ * their resume levels, so the groups do not flap on and off around a single threshold. Counts the times throttling
+ * started and the time spent throttled.
+ */
+public class MemoryPressure {
+    private final Deque<long[]> gcSamples = new ArrayDeque<>();
+    private int heapAfterGcPercent;
+    private double gcTimePercent;
+    private boolean throttled;
+    private long throttledSince;
+    private long throttledMillis;
+    private long throttleEvents;
+
+    /**
+     * Take a sample and re-evaluate.
+     * @param now the time of the sample, in millis.
+     * @param totalGcMillis the time spent in GC since the JVM started.
+     * @param heapUsedAfterGc the heap in use after the last collection, in bytes.
+     * @param heapMax the most heap the JVM may use, in bytes; 0 or less if unknown.
+     * @param settings the thresholds.
+     * @return true if the throttle was switched on or off by this sample.
+     */
+    public synchronized boolean sample(final long now, final long totalGcMillis, final long heapUsedAfterGc,
+                                       final long heapMax, final AdmissionSettings settings) {
+        heapAfterGcPercent = heapMax > 0 ? (int) (heapUsedAfterGc * 100 / heapMax) : 0;
+        gcSamples.addLast(new long[]{now, totalGcMillis});
+        final long windowStart = now - TimeUnit.SECONDS.toMillis(settings.getWindowSeconds());
+        // Keep one sample at or before the start of the window to measure from.
+        while (gcSamples.size() > 1) {
+            final long[] second = secondSample();
+            if (second[0] > windowStart) {
+                break;
+            }
+            gcSamples.removeFirst();
+        }
+        final long[] oldest = gcSamples.peekFirst();
+        final long elapsed = now - oldest[0];
+        gcTimePercent = elapsed > 0 ? Math.min(100.0, (totalGcMillis - oldest[1]) * 100.0 / elapsed) : 0.0;
+
+        if (!throttled && settings.isEnabled() && (heapAfterGcPercent >= settings.getHeapThresholdPercent()
+                || gcTimePercent >= settings.getGcTimeThresholdPercent())) {
+            throttled = true;
+            throttledSince = now;
+            throttleEvents++;
+            return true;
+        }
+        if (throttled && (!settings.isEnabled() || heapAfterGcPercent < settings.getHeapResumePercent()
+                && gcTimePercent < settings.getGcTimeResumePercent())) {
+            throttled = false;
+            throttledMillis += now - throttledSince;
+            return true;
+        }
+        return false;
+    }
+
+    private long[] secondSample() {
+        final long[] first = gcSamples.removeFirst();
+        final long[] second = gcSamples.peekFirst();
+        gcSamples.addFirst(first);
+        return second;
+    }
+
+    public synchronized boolean isThrottled() {
+        return throttled;
+    }
+
+    public synchronized int getHeapAfterGcPercent() {
+        return heapAfterGcPercent;
+    }
+
+    public synchronized double getGcTimePercent() {
+        return gcTimePercent;
+    }
+
+    public synchronized long getThrottleEvents() {
+        return throttleEvents;
+    }
+
+    /**
+     * @param now the time now, in millis.
+     * @return the time spent throttled, including the current spell.
+     */
+    public synchronized long getThrottledMillis(final long now) {
+        return throttledMillis + (throttled ? now - throttledSince : 0L);
+    }
+}
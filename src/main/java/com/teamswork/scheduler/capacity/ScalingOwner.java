@@ -0,0 +1,46 @@
+package com.teamswork.scheduler.capacity;
+
+import javax.inject.Named;
+
+/**
+ * Makes sure only one of the SchedulerAutoscaler and the CapacityScheduler adds and retires extra thread groups,
+ * since each would undo the other's changes. A scaler claims ownership when it is enabled and releases it when it
+ * is disabled or the plugin stops; enabling the other one while it is held is refused.
+ */
+@Named
+public class ScalingOwner {
+    public enum Scaler {
+        AUTOSCALER,
+        CAPACITY_SCHEDULE
+    }
+
+    private Scaler owner;
+
+    /**
+     * @param scaler the scaler being enabled.
+     * @return true if the scaler now owns the extra thread groups, false if the other one does.
+     */
+    public synchronized boolean claim(final Scaler scaler) {
+        if (owner != null && owner != scaler) {
+            return false;
+        }
+        owner = scaler;
+        return true;
+    }
+
+    /**
+     * @param scaler the scaler being disabled. Does nothing if it is not the owner.
+     */
+    public synchronized void release(final Scaler scaler) {
+        if (owner == scaler) {
+            owner = null;
+        }
+    }
+
+    /**
+     * @return the scaler that owns the extra thread groups, or null if neither is enabled.
+     */
+    public synchronized Scaler getOwner() {
+        return owner;
+    }
+}
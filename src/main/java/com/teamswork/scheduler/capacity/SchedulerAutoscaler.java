@@ -0,0 +1,280 @@
+package com.teamswork.scheduler.capacity;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+import com.teamswork.scheduler.model.AutoscalerSettings;
+import com.teamswork.scheduler.model.AutoscalerStatus;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.ScalingDecision;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_AUTOSCALER_KEY;
+
+/**
+ * Adds and removes extra scheduler thread groups based on how late Caesium workers are picking up due jobs.
+ * Samples are taken on a thread of our own rather than as a scheduled job, since a scheduler that is falling behind
+ * would also run the autoscaler late. Capacity is handed back by retiring the newest extra thread group, which is
+ * drained rather than stopped. Settings are stored in ApplicationProperties under SCHEDULER_AUTOSCALER_KEY.
+ * Every decision is logged and the most recent are kept for the REST resource. The capacity schedule also adds and
+ * retires extra thread groups, so the autoscaler cannot be enabled while it is; see ScalingOwner.
+ */
+@Named
+public class SchedulerAutoscaler extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(SchedulerAutoscaler.class);
+    private static final int MAX_DECISIONS = 100;
+    private static final int MAX_EXTRA_THREADS = 256;
+    private static final long DRAIN_TIMEOUT_MILLIS = 60 * 1000L;
+
+    private final SchedulerConfigurator schedulerConfigurator;
+    private final SchedulerMetricsService metricsService;
+    private final ScalingOwner scalingOwner;
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+    private final Deque<ScalingDecision> decisions = new ArrayDeque<>();
+
+    private volatile ScheduledExecutorService executor;
+    private volatile AutoscalerSettings settings = new AutoscalerSettings();
+    private volatile AutoscalerPolicy policy;
+    private volatile LatencyHistogram.Snapshot previousLag;
+    private volatile long lastLagP95Millis;
+    private volatile int lastUtilisationPercent;
+
+    public SchedulerAutoscaler(final SchedulerConfigurator schedulerConfigurator,
+                               final SchedulerMetricsService metricsService,
+                               final ScalingOwner scalingOwner,
+                               @ComponentImport final EventPublisher eventPublisher,
+                               @ComponentImport final ApplicationProperties applicationProperties,
+                               @ComponentImport final I18nHelper i18nHelper) {
+        super(eventPublisher);
+        this.schedulerConfigurator = schedulerConfigurator;
+        this.metricsService = metricsService;
+        this.scalingOwner = scalingOwner;
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            apply(getSettings());
+        } catch (final Exception e) {
+            log.error("Error starting the scheduler autoscaler. ", e);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        try {
+            stop();
+            scalingOwner.release(ScalingOwner.Scaler.AUTOSCALER);
+        } catch (final Throwable t) {
+            log.error("Error shutting down the scheduler autoscaler " + t.getMessage());
+        }
+    }
+
+    /**
+     * Validate, store and apply new autoscaler settings.
+     * @param newSettings the settings.
+     * @return the outcome of the operation.
+     */
+    public OperationResult configure(final AutoscalerSettings newSettings) {
+        if (newSettings.getMinExtraThreads() < 0 || newSettings.getMaxExtraThreads() > MAX_EXTRA_THREADS
+                || newSettings.getMinExtraThreads() > newSettings.getMaxExtraThreads()) {
+            return new OperationResult(false, i18nHelper.getText("jes.autoscaler.invalid.bounds", MAX_EXTRA_THREADS));
+        }
+        if (newSettings.getStepThreads() < 1 || newSettings.getStepThreads() > AutoscalerPolicy.MAX_STEP_THREADS) {
+            return new OperationResult(false, i18nHelper.getText("jes.autoscaler.invalid.step"));
+        }
+        if (newSettings.getLagThresholdMillis() < 100 || newSettings.getLowUtilisationPercent() < 0
+                || newSettings.getLowUtilisationPercent() > 100) {
+            return new OperationResult(false, i18nHelper.getText("jes.autoscaler.invalid.thresholds"));
+        }
+        if (newSettings.getSampleIntervalSeconds() < 5 || newSettings.getSampleIntervalSeconds() > 300
+                || newSettings.getScaleUpSamples() < 1 || newSettings.getScaleDownSamples() < 1
+                || newSettings.getCooldownSeconds() < 0) {
+            return new OperationResult(false, i18nHelper.getText("jes.autoscaler.invalid.timing"));
+        }
+
+        if (newSettings.isEnabled() && !scalingOwner.claim(ScalingOwner.Scaler.AUTOSCALER)) {
+            return new OperationResult(false, i18nHelper.getText("jes.autoscaler.capacity.enabled"));
+        }
+
+        applicationProperties.setText(SCHEDULER_AUTOSCALER_KEY, format(newSettings));
+        apply(newSettings);
+        return new OperationResult(true, i18nHelper.getText(newSettings.isEnabled()
+                ? "jes.autoscaler.enabled" : "jes.autoscaler.disabled"));
+    }
+
+    /**
+     * @return the stored settings, or the defaults if none have been stored.
+     */
+    public AutoscalerSettings getSettings() {
+        return parse(applicationProperties.getText(SCHEDULER_AUTOSCALER_KEY));
+    }
+
+    /**
+     * @return the current settings, the last sample taken and the recent scaling decisions, newest first.
+     */
+    public AutoscalerStatus getStatus() {
+        final AutoscalerStatus status = new AutoscalerStatus();
+        status.setSettings(settings);
+        status.setRunning(executor != null);
+        status.setExtraThreads(schedulerConfigurator.getExtraThreadCount());
+        status.setLastLagP95Millis(lastLagP95Millis);
+        status.setLastUtilisationPercent(lastUtilisationPercent);
+        synchronized (decisions) {
+            status.setDecisions(new ArrayList<>(decisions));
+        }
+        return status;
+    }
+
+    private synchronized void apply(final AutoscalerSettings newSettings) {
+        stop();
+        settings = newSettings;
+        policy = new AutoscalerPolicy(newSettings);
+        previousLag = null;
+        if (!newSettings.isEnabled()) {
+            scalingOwner.release(ScalingOwner.Scaler.AUTOSCALER);
+            log.debug("Scheduler autoscaler is disabled.");
+            return;
+        }
+        if (!scalingOwner.claim(ScalingOwner.Scaler.AUTOSCALER)) {
+            // Both were stored as enabled, e.g. before they were made exclusive. The capacity schedule keeps the groups.
+            log.error("The scheduler autoscaler is enabled but not started, because the capacity schedule is enabled "
+                    + "too. Disable one of them.");
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "JES-autoscaler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::sample, newSettings.getSampleIntervalSeconds(),
+                newSettings.getSampleIntervalSeconds(), TimeUnit.SECONDS);
+        log.info("Scheduler autoscaler started: {}", newSettings);
+    }
+
+    private synchronized void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+            log.info("Scheduler autoscaler stopped.");
+        }
+    }
+
+    /**
+     * Runs on the autoscaler thread only. Not synchronized, since draining a thread group can take a while.
+     */
+    private void sample() {
+        final AutoscalerPolicy policy = this.policy;
+        try {
+            final LatencyHistogram.Snapshot lag = metricsService.getSchedulingLag().snapshot();
+            final LatencyHistogram.Snapshot window = previousLag == null ? lag : lag.since(previousLag);
+            previousLag = lag;
+
+            final int threads = schedulerConfigurator.getSchedulerThreadCount();
+            final int extraThreads = schedulerConfigurator.getExtraThreadCount();
+            lastLagP95Millis = window.getValueAtPercentile(95) / 1000L;
+            lastUtilisationPercent = threads == 0 ? 0 : Math.min(100, metricsService.getSchedulerJobsInFlight() * 100 / threads);
+
+            final long now = System.currentTimeMillis();
+            final AutoscalerPolicy.Action action = policy.evaluate(lastLagP95Millis, lastUtilisationPercent, extraThreads, now);
+            if (action == AutoscalerPolicy.Action.SCALE_UP) {
+                final int threadsToAdd = policy.threadsToAdd(extraThreads);
+                final OperationResult result = schedulerConfigurator.addExtraThreads(threadsToAdd);
+                policy.scaled(now);
+                record(now, action, extraThreads, schedulerConfigurator.getExtraThreadCount(), result);
+            } else if (action == AutoscalerPolicy.Action.SCALE_DOWN) {
+                final Map.Entry<String, Integer> newest = schedulerConfigurator.getExtraThreadGroups().lastEntry();
+                if (newest == null || (extraThreads <= settings.getMaxExtraThreads()
+                        && extraThreads - newest.getValue() < settings.getMinExtraThreads())) {
+                    // Thread groups are retired whole; retiring this one would take us under the minimum.
+                    return;
+                }
+                final OperationResult result = schedulerConfigurator.retireThreadGroup(newest.getKey(), DRAIN_TIMEOUT_MILLIS);
+                policy.scaled(System.currentTimeMillis());
+                record(now, action, extraThreads, schedulerConfigurator.getExtraThreadCount(), result);
+            }
+        } catch (final Exception e) {
+            log.error("Error sampling the scheduler for the autoscaler. ", e);
+        }
+    }
+
+    private void record(final long now, final AutoscalerPolicy.Action action, final int before, final int after,
+                        final OperationResult result) {
+        final ScalingDecision decision = new ScalingDecision();
+        decision.setTimestamp(now);
+        decision.setAction(action.name());
+        decision.setLagP95Millis(lastLagP95Millis);
+        decision.setUtilisationPercent(lastUtilisationPercent);
+        decision.setExtraThreadsBefore(before);
+        decision.setExtraThreadsAfter(after);
+        decision.setSuccess(result.isSuccess());
+        decision.setMessage(result.getMessage());
+        synchronized (decisions) {
+            decisions.addFirst(decision);
+            while (decisions.size() > MAX_DECISIONS) {
+                decisions.removeLast();
+            }
+        }
+        log.info("Scheduler autoscaler decision: {}", decision);
+    }
+
+    private static String format(final AutoscalerSettings settings) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("enabled", settings.isEnabled());
+        values.put("minExtraThreads", settings.getMinExtraThreads());
+        values.put("maxExtraThreads", settings.getMaxExtraThreads());
+        values.put("stepThreads", settings.getStepThreads());
+        values.put("lagThresholdMillis", settings.getLagThresholdMillis());
+        values.put("lowUtilisationPercent", settings.getLowUtilisationPercent());
+        values.put("sampleIntervalSeconds", settings.getSampleIntervalSeconds());
+        values.put("scaleUpSamples", settings.getScaleUpSamples());
+        values.put("scaleDownSamples", settings.getScaleDownSamples());
+        values.put("cooldownSeconds", settings.getCooldownSeconds());
+        return SettingsText.format(values);
+    }
+
+    private static AutoscalerSettings parse(final String text) {
+        final AutoscalerSettings settings = new AutoscalerSettings();
+        for (Map.Entry<String, String> entry : SettingsText.parse(text).entrySet()) {
+            try {
+                final String value = entry.getValue();
+                switch (entry.getKey()) {
+                    case "enabled": settings.setEnabled(Boolean.parseBoolean(value)); break;
+                    case "minExtraThreads": settings.setMinExtraThreads(Integer.parseInt(value)); break;
+                    case "maxExtraThreads": settings.setMaxExtraThreads(Integer.parseInt(value)); break;
+                    case "stepThreads": settings.setStepThreads(Integer.parseInt(value)); break;
+                    case "lagThresholdMillis": settings.setLagThresholdMillis(Long.parseLong(value)); break;
+                    case "lowUtilisationPercent": settings.setLowUtilisationPercent(Integer.parseInt(value)); break;
+                    case "sampleIntervalSeconds": settings.setSampleIntervalSeconds(Integer.parseInt(value)); break;
+                    case "scaleUpSamples": settings.setScaleUpSamples(Integer.parseInt(value)); break;
+                    case "scaleDownSamples": settings.setScaleDownSamples(Integer.parseInt(value)); break;
+                    case "cooldownSeconds": settings.setCooldownSeconds(Integer.parseInt(value)); break;
+                    default: log.warn("Ignoring unknown autoscaler setting: {}", entry.getKey());
+                }
+            } catch (NumberFormatException e) {
+                log.error("Ignoring invalid autoscaler setting: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return settings;
+    }
+}
@@ -0,0 +1,231 @@
+package com.teamswork.scheduler.capacity;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+import com.teamswork.scheduler.service.ThreadGroupUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Retires the workers of a Caesium thread group without Thread.stop().
+ * While a group is retiring, its workers are flagged: a flagged worker finishes the job it has claimed (see
+ * InstrumentedJobRunner), and once it is idle on the scheduler queue it is interrupted, which ends Caesium's worker
+ * loop. A worker counts as idle when it is not running a job and has been parked on the same object for two checks
+ * in a row, so one part way through claiming a job is left alone.
+ * Drains run on the JES-retirement thread and are polled through getDrain, so callers are never blocked. If the group
+ * has not emptied by the timeout, the drain stops and the group is left partially retired: the workers that have
+ * already exited are not replaced, and those still alive go back to taking jobs.
+ */
+@Named
+public class WorkerRetirement extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(WorkerRetirement.class);
+    private static final long POLL_MILLIS = 250;
+
+    private final SchedulerMetricsService metricsService;
+    private final ThreadGroupUtils threadGroupUtils;
+    private final Set<ThreadGroup> retiring = new CopyOnWriteArraySet<>();
+    private final Map<String, Drain> drains = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    public WorkerRetirement(final SchedulerMetricsService metricsService, final ThreadGroupUtils threadGroupUtils,
+                            @ComponentImport final EventPublisher eventPublisher) {
+        super(eventPublisher);
+        this.metricsService = metricsService;
+        this.threadGroupUtils = threadGroupUtils;
+    }
+
+    @Override
+    protected synchronized void onAppStart() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "JES-retirement");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    protected synchronized void onAppShutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        for (Drain drain : drains.values()) {
+            finish(drain, drain.getProgress());
+        }
+        retiring.clear();
+    }
+
+    /**
+     * Called on the job execution path, so this is a single volatile read unless a drain is under way.
+     * @param thread the worker thread.
+     * @return true if the worker belongs to a retiring thread group.
+     */
+    public boolean isRetiring(final Thread thread) {
+        return !retiring.isEmpty() && retiring.contains(thread.getThreadGroup());
+    }
+
+    /**
+     * Start draining the workers of a thread group, or return the drain already under way.
+     * @param threadGroupName the thread group, e.g. Caesium-3.
+     * @param timeoutMillis how long to wait for the workers to exit before leaving the rest in service.
+     * @return the drain.
+     */
+    public synchronized Drain retire(final String threadGroupName, final long timeoutMillis) {
+        final Drain existing = drains.get(threadGroupName);
+        if (existing != null && !existing.isFinished()) {
+            return existing;
+        }
+        final ThreadGroup group = threadGroupUtils.getThreadGroupByName(threadGroupName);
+        final Drain drain = new Drain(threadGroupName, group, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        drains.put(threadGroupName, drain);
+        if (group == null) {
+            finish(drain, new DrainProgress(threadGroupName, 0, 0, true));
+            return drain;
+        }
+        if (executor == null) {
+            finish(drain, new DrainProgress(threadGroupName, 0, group.activeCount(), true));
+            return drain;
+        }
+
+        log.info("Retiring scheduler thread group {}.", threadGroupName);
+        retiring.add(group);
+        drain.task = executor.scheduleWithFixedDelay(() -> check(drain), 0L, POLL_MILLIS, TimeUnit.MILLISECONDS);
+        return drain;
+    }
+
+    /**
+     * @param threadGroupName the thread group.
+     * @return the drain under way, or the last one, of the group; null if it has not been retired.
+     */
+    public Drain getDrain(final String threadGroupName) {
+        return drains.get(threadGroupName);
+    }
+
+    /**
+     * Runs on the retirement thread.
+     */
+    private void check(final Drain drain) {
+        try {
+            final DrainProgress progress = nudge(drain);
+            if (progress.isRetired() || System.nanoTime() - drain.deadline >= 0) {
+                finish(drain, progress);
+            } else {
+                drain.progress = progress;
+                log.debug("Draining scheduler thread group: {}", progress);
+            }
+        } catch (final Exception e) {
+            log.error("Error draining scheduler thread group {}. ", drain.threadGroupName, e);
+            finish(drain, drain.getProgress());
+        }
+    }
+
+    private void finish(final Drain drain, final DrainProgress progress) {
+        if (drain.group != null) {
+            retiring.remove(drain.group);
+        }
+        if (drain.task != null) {
+            drain.task.cancel(false);
+        }
+        final DrainProgress finished = new DrainProgress(drain.threadGroupName, progress.getInFlightJobs(),
+                progress.getThreadsRemaining(), true);
+        drain.progress = finished;
+        if (drain.result.complete(finished) && drain.group != null) {
+            if (finished.isRetired()) {
+                metricsService.forgetThreadGroup(drain.threadGroupName);
+                log.info("Scheduler thread group {} retired.", drain.threadGroupName);
+            } else {
+                log.warn("Scheduler thread group {} did not drain in time and is partially retired: {} of its {} "
+                        + "workers remain in service, {} of them running a job.", drain.threadGroupName,
+                        finished.getThreadsRemaining(), drain.threads, finished.getInFlightJobs());
+            }
+        }
+    }
+
+    /**
+     * Count the group's workers, interrupting those that have stayed idle since the last check.
+     */
+    private DrainProgress nudge(final Drain drain) {
+        final ThreadGroup group = drain.group;
+        final Thread[] threads = new Thread[group.activeCount() + 1];
+        final int count = group.enumerate(threads, false);
+        final Map<Thread, Object> parked = new HashMap<>();
+        int alive = 0;
+        int inFlight = 0;
+        for (int i = 0; i < count; i++) {
+            final Thread thread = threads[i];
+            if (!thread.isAlive()) {
+                continue;
+            }
+            alive++;
+            if (metricsService.isBusy(thread)) {
+                inFlight++;
+                continue;
+            }
+            final Object blocker = LockSupport.getBlocker(thread);
+            if (blocker == null) {
+                continue;
+            }
+            if (drain.parked.get(thread) == blocker) {
+                thread.interrupt();
+            }
+            parked.put(thread, blocker);
+        }
+        drain.parked = parked;
+        return new DrainProgress(drain.threadGroupName, inFlight, alive, false);
+    }
+
+    /**
+     * The retirement of one thread group.
+     */
+    public static final class Drain {
+        private final String threadGroupName;
+        private final ThreadGroup group;
+        private final long deadline;
+        private final int threads;
+        private final CompletableFuture<DrainProgress> result = new CompletableFuture<>();
+        private volatile DrainProgress progress;
+        private volatile Map<Thread, Object> parked = new HashMap<>();
+        private volatile ScheduledFuture<?> task;
+
+        private Drain(final String threadGroupName, final ThreadGroup group, final long deadline) {
+            this.threadGroupName = threadGroupName;
+            this.group = group;
+            this.deadline = deadline;
+            this.threads = group != null ? group.activeCount() : 0;
+            this.progress = new DrainProgress(threadGroupName, 0, threads, false);
+        }
+
+        /**
+         * @return how far the drain has got; finished once the group has retired or the drain has timed out.
+         */
+        public DrainProgress getProgress() {
+            return progress;
+        }
+
+        public boolean isFinished() {
+            return result.isDone();
+        }
+
+        /**
+         * @return completed with the final progress when the drain finishes.
+         */
+        public CompletableFuture<DrainProgress> getResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.teamswork.scheduler.cluster;
+
+/**
+ * The scheduler operations that can be run on every node at once.
+ */
+public enum ClusterCommand {
+    /** Report the node's state only. */
+    STATUS,
+    /** Set the extra thread count and swap in the enhanced scheduler configuration. */
+    RECONFIGURE,
+    /** Start the scheduler with an extra thread group of the configured size. */
+    START_WITH_CONFIGURATION,
+    /** Resume a paused scheduler. */
+    START,
+    /** Pause the scheduler. */
+    PAUSE,
+    /** Add an extra thread group of the given size to a running scheduler. */
+    ADD_THREADS
+}
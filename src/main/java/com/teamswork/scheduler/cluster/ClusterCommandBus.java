@@ -0,0 +1,35 @@
+package com.teamswork.scheduler.cluster;
+
+import java.util.Collection;
+
+/**
+ * Sends short text messages to the other nodes in the cluster. Backed by Jira's ClusterMessagingService,
+ * so channel names are limited to 20 characters and messages to 200.
+ */
+public interface ClusterCommandBus {
+    int MAX_CHANNEL_LENGTH = 20;
+    int MAX_MESSAGE_LENGTH = 200;
+
+    interface Listener {
+        void onMessage(String channel, String message, String senderNodeId);
+    }
+
+    void register(String channel, Listener listener);
+
+    void unregister(String channel, Listener listener);
+
+    /**
+     * Send a message to every other node listening on the channel. Messages are not sent back to this node.
+     */
+    void send(String channel, String message);
+
+    /**
+     * @return the id of this node.
+     */
+    String getLocalNodeId();
+
+    /**
+     * @return the ids of the live nodes in the cluster, including this one.
+     */
+    Collection<String> getLiveNodeIds();
+}
@@ -0,0 +1,309 @@
+package com.teamswork.scheduler.cluster;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.model.ClusterConfiguration;
+import com.teamswork.scheduler.model.NodeConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a scheduler command on every live node and collects each node's state afterwards.
+ * The command is broadcast on COMMAND_CHANNEL and run on this node at the same time. Each other node runs it on a
+ * thread of its own, so the messaging thread is not held while thread groups are started or paused, and replies on
+ * REPLY_CHANNEL. Nodes that do not reply before the timeout are reported as not responded.
+ * A request can be submitted without waiting for the replies; it is then followed by its id until RETAIN_MILLIS
+ * after its timeout.
+ * Messages are limited to 200 characters, so they are '|' separated text rather than JSON.
+ */
+@Named
+public class ClusterCoordinator extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(ClusterCoordinator.class);
+    static final String COMMAND_CHANNEL = "jes-command";
+    static final String REPLY_CHANNEL = "jes-reply";
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30 * 1000L;
+    private static final long RETAIN_MILLIS = 5 * 60 * 1000L;
+    private static final int MAX_REQUESTS = 100;
+    private static final String SEPARATOR = "|";
+
+    private final ClusterCommandBus bus;
+    private final NodeCommandHandler handler;
+    private final Map<String, PendingRequest> pending = new ConcurrentHashMap<>();
+    private final ClusterCommandBus.Listener commandListener = this::onCommand;
+    private final ClusterCommandBus.Listener replyListener = this::onReply;
+
+    private volatile ExecutorService executor;
+
+    public ClusterCoordinator(@ComponentImport final EventPublisher eventPublisher,
+                              final ClusterCommandBus bus,
+                              final NodeCommandHandler handler) {
+        super(eventPublisher);
+        this.bus = bus;
+        this.handler = handler;
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            start();
+        } catch (final Exception e) {
+            log.error("Error registering cluster message listeners. ", e);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        stop();
+    }
+
+    /**
+     * Start listening for commands and replies from other nodes.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "JES-cluster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        bus.register(COMMAND_CHANNEL, commandListener);
+        bus.register(REPLY_CHANNEL, replyListener);
+    }
+
+    /**
+     * Stop listening. Requests still waiting for replies are released with what they have.
+     */
+    public synchronized void stop() {
+        bus.unregister(COMMAND_CHANNEL, commandListener);
+        bus.unregister(REPLY_CHANNEL, replyListener);
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        for (PendingRequest request : pending.values()) {
+            request.release();
+        }
+    }
+
+    /**
+     * Run the command on every live node, this one included, and wait for the other nodes to reply.
+     * @param command the command.
+     * @param threads the thread count, for commands that take one.
+     * @param timeoutMillis how long to wait for the other nodes.
+     * @return one entry per live node, this node first.
+     */
+    public ClusterConfiguration execute(final ClusterCommand command, final int threads, final long timeoutMillis) {
+        final ClusterConfiguration submitted = submit(command, threads, timeoutMillis);
+        final PendingRequest request = pending.get(submitted.getRequestId());
+        if (request == null) {
+            return submitted;
+        }
+        request.await(timeoutMillis);
+        return request.toConfiguration(submitted.getRequestId());
+    }
+
+    /**
+     * Run the command on this node and send it to the other live nodes, without waiting for them to reply.
+     * @param command the command.
+     * @param threads the thread count, for commands that take one.
+     * @param timeoutMillis how long the other nodes have to reply.
+     * @return this node's entry and the replies so far. Follow the rest with getRequest.
+     */
+    public ClusterConfiguration submit(final ClusterCommand command, final int threads, final long timeoutMillis) {
+        prune();
+        final String localNodeId = bus.getLocalNodeId();
+        final List<String> remoteNodeIds = new ArrayList<>(bus.getLiveNodeIds());
+        remoteNodeIds.remove(localNodeId);
+
+        final String requestId = UUID.randomUUID().toString();
+        final PendingRequest request = new PendingRequest(command, remoteNodeIds, timeoutMillis);
+        pending.put(requestId, request);
+        if (!remoteNodeIds.isEmpty()) {
+            bus.send(COMMAND_CHANNEL, requestId + SEPARATOR + command.name() + SEPARATOR + threads);
+        }
+        request.local = runLocally(command, threads);
+        return request.toConfiguration(requestId);
+    }
+
+    /**
+     * @param requestId the id of a submitted request.
+     * @return the replies so far, or null if the request is unknown or was finished long enough ago to be dropped.
+     */
+    public ClusterConfiguration getRequest(final String requestId) {
+        final PendingRequest request = requestId == null ? null : pending.get(requestId);
+        return request == null || request.local == null ? null : request.toConfiguration(requestId);
+    }
+
+    /**
+     * Drop requests RETAIN_MILLIS after their timeout, and the oldest if there are still too many.
+     */
+    private void prune() {
+        final long now = System.currentTimeMillis();
+        pending.values().removeIf(request -> now > request.deadline + RETAIN_MILLIS);
+        while (pending.size() >= MAX_REQUESTS) {
+            pending.entrySet().stream()
+                    .min((a, b) -> Long.compare(a.getValue().deadline, b.getValue().deadline))
+                    .ifPresent(oldest -> pending.remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    private NodeConfiguration runLocally(final ClusterCommand command, final int threads) {
+        NodeConfiguration node;
+        try {
+            node = handler.execute(command, threads);
+        } catch (final RuntimeException e) {
+            log.error("Error running cluster command {} on this node. ", command, e);
+            node = new NodeConfiguration();
+            node.setMessage(String.valueOf(e.getMessage()));
+        }
+        node.setNodeId(bus.getLocalNodeId());
+        node.setResponded(true);
+        return node;
+    }
+
+    private void onCommand(final String channel, final String message, final String senderNodeId) {
+        final String[] parts = message.split("\\" + SEPARATOR, -1);
+        final ClusterCommand command;
+        final int threads;
+        try {
+            command = ClusterCommand.valueOf(parts[1]);
+            threads = Integer.parseInt(parts[2]);
+        } catch (final RuntimeException e) {
+            log.warn("Ignoring malformed cluster command from {}: {}", senderNodeId, message);
+            return;
+        }
+        final ExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        log.info("Running cluster command {} from node {}.", command, senderNodeId);
+        current.execute(() -> bus.send(REPLY_CHANNEL, encodeReply(parts[0], runLocally(command, threads))));
+    }
+
+    private void onReply(final String channel, final String message, final String senderNodeId) {
+        final NodeConfiguration node = decodeReply(message);
+        if (node == null) {
+            log.warn("Ignoring malformed cluster reply from {}: {}", senderNodeId, message);
+            return;
+        }
+        final PendingRequest request = pending.get(message.substring(0, message.indexOf(SEPARATOR)));
+        if (request != null) {
+            request.reply(node);
+        }
+    }
+
+    /**
+     * requestId|nodeId|success|running|reconfigured|extraThreadsRunning|extraThreadsToConfigure|message.
+     * The message is last and is cut short so the whole reply fits in a cluster message.
+     */
+    static String encodeReply(final String requestId, final NodeConfiguration node) {
+        final String head = requestId + SEPARATOR + node.getNodeId() + SEPARATOR + node.isSuccess()
+                + SEPARATOR + node.isSchedulerRunning() + SEPARATOR + node.isSchedulerReconfigured()
+                + SEPARATOR + node.getExtraThreadsRunning() + SEPARATOR + node.getExtraThreadsToConfigure() + SEPARATOR;
+        final String message = node.getMessage() == null ? "" : node.getMessage().replace(SEPARATOR, "/");
+        final int room = Math.max(0, ClusterCommandBus.MAX_MESSAGE_LENGTH - head.length());
+        return head + (message.length() > room ? message.substring(0, room) : message);
+    }
+
+    static NodeConfiguration decodeReply(final String reply) {
+        final String[] parts = reply.split("\\" + SEPARATOR, 8);
+        if (parts.length < 8) {
+            return null;
+        }
+        try {
+            final NodeConfiguration node = new NodeConfiguration(parts[1]);
+            node.setResponded(true);
+            node.setSuccess(Boolean.parseBoolean(parts[2]));
+            node.setSchedulerRunning(Boolean.parseBoolean(parts[3]));
+            node.setSchedulerReconfigured(Boolean.parseBoolean(parts[4]));
+            node.setExtraThreadsRunning(Integer.parseInt(parts[5]));
+            node.setExtraThreadsToConfigure(Integer.parseInt(parts[6]));
+            node.setMessage(parts[7]);
+            return node;
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class PendingRequest {
+        private final ClusterCommand command;
+        private final Collection<String> expected;
+        private final Map<String, NodeConfiguration> replies = new ConcurrentHashMap<>();
+        private final CountDownLatch latch;
+        private final long deadline;
+        private volatile NodeConfiguration local;
+        private volatile boolean timeoutLogged;
+
+        private PendingRequest(final ClusterCommand command, final Collection<String> expected, final long timeoutMillis) {
+            this.command = command;
+            this.expected = expected;
+            this.latch = new CountDownLatch(expected.size());
+            this.deadline = System.currentTimeMillis() + timeoutMillis;
+        }
+
+        /**
+         * This node first, then the other nodes in the order they were asked. Until every node has replied or the
+         * timeout has passed, nodes yet to reply are reported as not responded and the request as not complete.
+         */
+        private ClusterConfiguration toConfiguration(final String requestId) {
+            final boolean complete = latch.getCount() == 0 || System.currentTimeMillis() >= deadline;
+            final ClusterConfiguration result = new ClusterConfiguration();
+            result.setRequestId(requestId);
+            result.setCommand(command.name());
+            result.setComplete(complete);
+            result.getNodes().add(local);
+            for (String nodeId : expected) {
+                final NodeConfiguration node = replies.get(nodeId);
+                if (node != null) {
+                    result.getNodes().add(node);
+                } else {
+                    if (complete && !timeoutLogged) {
+                        log.warn("Node {} did not reply to {} in time.", nodeId, command);
+                    }
+                    final NodeConfiguration missing = new NodeConfiguration(nodeId);
+                    missing.setResponded(false);
+                    result.getNodes().add(missing);
+                }
+            }
+            timeoutLogged |= complete;
+            result.setSuccess(complete
+                    && result.getNodes().stream().allMatch(node -> node.isResponded() && node.isSuccess()));
+            return result;
+        }
+
+        private void reply(final NodeConfiguration node) {
+            if (expected.contains(node.getNodeId()) && replies.putIfAbsent(node.getNodeId(), node) == null) {
+                latch.countDown();
+            }
+        }
+
+        private void await(final long timeoutMillis) {
+            try {
+                latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void release() {
+            while (latch.getCount() > 0) {
+                latch.countDown();
+            }
+        }
+    }
+}
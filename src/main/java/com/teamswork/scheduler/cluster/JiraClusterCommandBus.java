@@ -0,0 +1,68 @@
+package com.teamswork.scheduler.cluster;
+
+import com.atlassian.jira.cluster.ClusterManager;
+import com.atlassian.jira.cluster.ClusterMessageConsumer;
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.jira.cluster.Node;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+
+import javax.inject.Named;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * ClusterCommandBus over Jira's ClusterMessagingService. On a server (non-clustered) instance this node is the
+ * only live node and nothing is sent.
+ */
+@Named
+public class JiraClusterCommandBus implements ClusterCommandBus {
+    static final String STANDALONE_NODE_ID = "standalone";
+
+    private final ClusterMessagingService clusterMessagingService;
+    private final ClusterManager clusterManager;
+    private final Map<Listener, ClusterMessageConsumer> consumers = new ConcurrentHashMap<>();
+
+    public JiraClusterCommandBus(@ComponentImport final ClusterMessagingService clusterMessagingService,
+                                 @ComponentImport final ClusterManager clusterManager) {
+        this.clusterMessagingService = clusterMessagingService;
+        this.clusterManager = clusterManager;
+    }
+
+    @Override
+    public void register(final String channel, final Listener listener) {
+        final ClusterMessageConsumer consumer = listener::onMessage;
+        consumers.put(listener, consumer);
+        clusterMessagingService.registerListener(channel, consumer);
+    }
+
+    @Override
+    public void unregister(final String channel, final Listener listener) {
+        final ClusterMessageConsumer consumer = consumers.remove(listener);
+        if (consumer != null) {
+            clusterMessagingService.unregisterListener(channel, consumer);
+        }
+    }
+
+    @Override
+    public void send(final String channel, final String message) {
+        if (clusterManager.isClustered()) {
+            clusterMessagingService.sendRemote(channel, message);
+        }
+    }
+
+    @Override
+    public String getLocalNodeId() {
+        return clusterManager.isClustered() ? clusterManager.getNodeId() : STANDALONE_NODE_ID;
+    }
+
+    @Override
+    public Collection<String> getLiveNodeIds() {
+        if (!clusterManager.isClustered()) {
+            return Collections.singleton(STANDALONE_NODE_ID);
+        }
+        return clusterManager.findLiveNodes().stream().map(Node::getNodeId).collect(Collectors.toList());
+    }
+}
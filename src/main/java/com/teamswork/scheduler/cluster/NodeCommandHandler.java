@@ -0,0 +1,16 @@
+package com.teamswork.scheduler.cluster;
+
+import com.teamswork.scheduler.model.NodeConfiguration;
+
+/**
+ * Runs a cluster command on this node.
+ */
+public interface NodeCommandHandler {
+
+    /**
+     * @param command the command.
+     * @param threads the thread count, for commands that take one.
+     * @return the outcome and this node's state afterwards. The node id is filled in by the caller.
+     */
+    NodeConfiguration execute(ClusterCommand command, int threads);
+}
@@ -0,0 +1,53 @@
+package com.teamswork.scheduler.cluster;
+
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.CurrentConfiguration;
+import com.teamswork.scheduler.model.NodeConfiguration;
+import com.teamswork.scheduler.model.OperationResult;
+
+import javax.inject.Named;
+
+/**
+ * Runs cluster commands against this node's scheduler, the same way the node level REST operations do.
+ */
+@Named
+public class SchedulerNodeCommandHandler implements NodeCommandHandler {
+
+    private final SchedulerConfigurator schedulerConfigurator;
+
+    public SchedulerNodeCommandHandler(final SchedulerConfigurator schedulerConfigurator) {
+        this.schedulerConfigurator = schedulerConfigurator;
+    }
+
+    @Override
+    public NodeConfiguration execute(final ClusterCommand command, final int threads) {
+        final OperationResult result = run(command, threads);
+        final CurrentConfiguration configuration = schedulerConfigurator.getCurrentConfiguration();
+        final NodeConfiguration node = new NodeConfiguration();
+        node.setSuccess(result.isSuccess());
+        node.setMessage(result.getMessage());
+        node.setSchedulerRunning(configuration.isSchedulerRunning());
+        node.setSchedulerReconfigured(configuration.isSchedulerReconfigured());
+        node.setExtraThreadsToConfigure(configuration.getExtraThreadsToConfigure());
+        node.setExtraThreadsRunning(schedulerConfigurator.getExtraThreadCount());
+        return node;
+    }
+
+    private OperationResult run(final ClusterCommand command, final int threads) {
+        switch (command) {
+            case RECONFIGURE:
+                final OperationResult result = schedulerConfigurator.configureThreadCount(threads);
+                return result.isSuccess() ? schedulerConfigurator.replaceSchedulerConfiguration() : result;
+            case START_WITH_CONFIGURATION:
+                return schedulerConfigurator.startSchedulerWithExtraThreadGroup();
+            case START:
+                return schedulerConfigurator.startScheduler();
+            case PAUSE:
+                return schedulerConfigurator.pauseScheduler();
+            case ADD_THREADS:
+                return schedulerConfigurator.addExtraThreads(threads);
+            default:
+                return new OperationResult(true, "");
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.teamswork.scheduler.component;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
+import com.atlassian.scheduler.caesium.spi.CaesiumSchedulerConfiguration;
+import com.atlassian.scheduler.caesium.spi.ClusteredJobDao;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.core.AbstractSchedulerService;
+import com.atlassian.scheduler.core.spi.RunDetailsDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Caesium internals we reach by reflection, looked up once when the plugin starts rather than on every call.
+ * The config and started fields live on the superclass of the scheduler service we get from ComponentAccessor,
+ * and FACTORY_COUNTER is the static counter WorkerThreadFactory uses to number the Caesium-N thread groups.
+ * The clustered job DAO, needed only to measure the clustered job refresh, and the run details DAO, a field of
+ * AbstractSchedulerService needed only for write-behind, are looked up the first time they are used; if one cannot
+ * be found only the feature that uses it is lost.
+ * The clustered job refresh job is scheduled by Caesium under ids it keeps to itself; we read them if we can
+ * and fall back to the names Caesium has always used.
+ */
+@Named
+public class CaesiumInternals extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(CaesiumInternals.class);
+    private static final String WORKER_THREAD_FACTORY = "com.atlassian.scheduler.caesium.impl.WorkerThreadFactory";
+    private static final String REFRESH_JOB = CaesiumSchedulerService.class.getName() + ".refreshClusteredJobs";
+
+    private volatile Handles handles;
+    private final OptionalField clusteredJobDao = new OptionalField(CaesiumSchedulerService.class, "clusteredJobDao");
+    private final OptionalField runDetailsDao = new OptionalField(AbstractSchedulerService.class, "runDetailsDao");
+
+    public CaesiumInternals(@ComponentImport final EventPublisher eventPublisher) {
+        super(eventPublisher);
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            getHandles();
+        } catch (final Exception e) {
+            log.error("Error resolving the caesium scheduler internals. ", e);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        handles = null;
+        clusteredJobDao.reset();
+        runDetailsDao.reset();
+    }
+
+    /**
+     * @param service the scheduler service.
+     * @return the configuration the scheduler reads when it starts worker threads.
+     */
+    public CaesiumSchedulerConfiguration getConfig(final CaesiumSchedulerService service) throws Throwable {
+        return (CaesiumSchedulerConfiguration) getHandles().configGetter.invoke(service);
+    }
+
+    /**
+     * Replace the configuration the scheduler reads when it starts worker threads.
+     * @param service the scheduler service.
+     * @param config the new configuration.
+     */
+    public void setConfig(final CaesiumSchedulerService service, final CaesiumSchedulerConfiguration config) throws Throwable {
+        getHandles().configSetter.invoke(service, config);
+    }
+
+    /**
+     * @param service the scheduler service.
+     * @return the flag the scheduler uses to decide whether start() needs to start worker threads.
+     */
+    public AtomicBoolean getStarted(final CaesiumSchedulerService service) throws Throwable {
+        return (AtomicBoolean) getHandles().startedGetter.invoke(service);
+    }
+
+    /**
+     * @param service the scheduler service.
+     * @return the DAO the scheduler reads and updates clustered jobs through.
+     */
+    public ClusteredJobDao getClusteredJobDao(final CaesiumSchedulerService service) throws Throwable {
+        return (ClusteredJobDao) clusteredJobDao.getter().invoke(service);
+    }
+
+    /**
+     * Replace the DAO the scheduler reads and updates clustered jobs through.
+     * @param service the scheduler service.
+     * @param clusteredJobDao the new DAO.
+     */
+    public void setClusteredJobDao(final CaesiumSchedulerService service, final ClusteredJobDao clusteredJobDao) throws Throwable {
+        this.clusteredJobDao.setter().invoke(service, clusteredJobDao);
+    }
+
+    /**
+     * @param service the scheduler service.
+     * @return the DAO the scheduler records the outcome of every job run through.
+     */
+    public RunDetailsDao getRunDetailsDao(final CaesiumSchedulerService service) throws Throwable {
+        return (RunDetailsDao) runDetailsDao.getter().invoke(service);
+    }
+
+    /**
+     * Replace the DAO the scheduler records the outcome of every job run through.
+     * @param service the scheduler service.
+     * @param runDetailsDao the new DAO.
+     */
+    public void setRunDetailsDao(final CaesiumSchedulerService service, final RunDetailsDao runDetailsDao) throws Throwable {
+        this.runDetailsDao.setter().invoke(service, runDetailsDao);
+    }
+
+    /**
+     * @return the id of the local job Caesium uses to refresh the clustered jobs.
+     */
+    public JobId getRefreshJobId() throws ReflectiveOperationException {
+        return getHandles().refreshJobId;
+    }
+
+    /**
+     * @return the key of the job runner Caesium uses to refresh the clustered jobs.
+     */
+    public JobRunnerKey getRefreshJobRunnerKey() throws ReflectiveOperationException {
+        return getHandles().refreshJobRunnerKey;
+    }
+
+    /**
+     * @return the number of Caesium thread groups created so far, or 1 if that cannot be read.
+     */
+    public int getThreadGroupCount() {
+        try {
+            return getHandles().factoryCounter.get();
+        } catch (final Exception e) {
+            log.error("Error getting the thread group count: {}", e.getMessage());
+            return 1;
+        }
+    }
+
+    private Handles getHandles() throws ReflectiveOperationException {
+        Handles resolved = handles;
+        if (resolved == null) {
+            synchronized (this) {
+                resolved = handles;
+                if (resolved == null) {
+                    resolved = new Handles();
+                    handles = resolved;
+                    log.debug("Resolved the caesium scheduler internals.");
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private static final class Handles {
+        private final MethodHandle configGetter;
+        private final MethodHandle configSetter;
+        private final MethodHandle startedGetter;
+        private final AtomicInteger factoryCounter;
+        private final JobId refreshJobId;
+        private final JobRunnerKey refreshJobRunnerKey;
+
+        private Handles() throws ReflectiveOperationException {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            final Class<?> serviceClass = CaesiumSchedulerService.class;
+
+            // config is final, but an accessible instance field can still be written through a setter handle.
+            final Field config = serviceClass.getDeclaredField("config");
+            config.setAccessible(true);
+            configGetter = lookup.unreflectGetter(config);
+            configSetter = lookup.unreflectSetter(config);
+
+            final Field started = serviceClass.getDeclaredField("started");
+            started.setAccessible(true);
+            startedGetter = lookup.unreflectGetter(started);
+
+            final Field counter = Class.forName(WORKER_THREAD_FACTORY, true, serviceClass.getClassLoader())
+                    .getDeclaredField("FACTORY_COUNTER");
+            counter.setAccessible(true);
+            factoryCounter = (AtomicInteger) counter.get(null);
+
+            refreshJobId = readStatic(serviceClass, "REFRESH_JOB_ID", JobId.class, JobId.of(REFRESH_JOB));
+            refreshJobRunnerKey = readStatic(serviceClass, "REFRESH_JOB_RUNNER_KEY", JobRunnerKey.class,
+                    JobRunnerKey.of(REFRESH_JOB));
+        }
+
+        private static <T> T readStatic(final Class<?> owner, final String name, final Class<T> type, final T fallback) {
+            try {
+                final Field field = owner.getDeclaredField(name);
+                field.setAccessible(true);
+                return type.cast(field.get(null));
+            } catch (final ReflectiveOperationException | RuntimeException e) {
+                log.debug("Using the default value for {}.{}: {}", owner.getSimpleName(), name, fallback);
+                return fallback;
+            }
+        }
+    }
+
+    /**
+     * A field only some features need. Looked up on first use; a failed lookup is kept, so it is only tried once
+     * until the plugin restarts.
+     */
+    private static final class OptionalField {
+        private final Class<?> owner;
+        private final String name;
+        private MethodHandle getter;
+        private MethodHandle setter;
+        private ReflectiveOperationException failure;
+
+        private OptionalField(final Class<?> owner, final String name) {
+            this.owner = owner;
+            this.name = name;
+        }
+
+        private MethodHandle getter() throws ReflectiveOperationException {
+            resolve();
+            return getter;
+        }
+
+        private MethodHandle setter() throws ReflectiveOperationException {
+            resolve();
+            return setter;
+        }
+
+        private synchronized void resolve() throws ReflectiveOperationException {
+            if (getter == null && failure == null) {
+                try {
+                    final Field field = owner.getDeclaredField(name);
+                    field.setAccessible(true);
+                    getter = MethodHandles.lookup().unreflectGetter(field);
+                    setter = MethodHandles.lookup().unreflectSetter(field);
+                } catch (final ReflectiveOperationException | RuntimeException e) {
+                    log.warn("Unable to reach {}.{}; the features that use it are disabled.", owner.getSimpleName(), name);
+                    failure = e instanceof ReflectiveOperationException ?
+                            (ReflectiveOperationException) e : new ReflectiveOperationException(e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private synchronized void reset() {
+            getter = null;
+            setter = null;
+            failure = null;
+        }
+    }
+}
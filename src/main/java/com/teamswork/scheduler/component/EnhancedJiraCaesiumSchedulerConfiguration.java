@@ -5,6 +5,8 @@ import com.atlassian.jira.config.properties.APKeys;
 import com.atlassian.jira.config.properties.ApplicationProperties;
 import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
 import com.atlassian.scheduler.caesium.spi.CaesiumSchedulerConfiguration;
+import com.teamswork.scheduler.refresh.ClusteredJobRefresher;
+import com.teamswork.scheduler.refresh.RefreshIntervalPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,21 +18,26 @@ import static com.teamswork.scheduler.component.SchedulerInitializer.*;
 /**
  * Enhanced Jira Caesium Scheduler Configuration.
  * Allows for the configuration of the Jira Caesium Scheduler threads via ApplicationProperties.
+ * The clustered job refresh interval and fine-grained schedules flag come from the ClusteredJobRefresher settings.
+ * A thread group of another size is started with a copy from withWorkerThreadCount, so the configured thread count,
+ * which is shared by the cluster, is never rewritten for it.
  */
 @Named
 public class EnhancedJiraCaesiumSchedulerConfiguration implements CaesiumSchedulerConfiguration {
     private static final Logger log = LoggerFactory.getLogger(EnhancedJiraCaesiumSchedulerConfiguration.class);
-    private static final int REFRESH_INTERVAL_IN_MINUTES = 5;
     private int workerThreadCount;
 
     private final ApplicationProperties applicationProperties;
     private final ClusterNodeProperties clusterNodeProperties;
+    private final ClusteredJobRefresher clusteredJobRefresher;
 
     public EnhancedJiraCaesiumSchedulerConfiguration(
             @ComponentImport final ApplicationProperties applicationProperties,
-            @ComponentImport final ClusterNodeProperties clusterNodeProperties) {
+            @ComponentImport final ClusterNodeProperties clusterNodeProperties,
+            final ClusteredJobRefresher clusteredJobRefresher) {
         this.applicationProperties = applicationProperties;
         this.clusterNodeProperties = clusterNodeProperties;
+        this.clusteredJobRefresher = clusteredJobRefresher;
         workerThreadCount = getWorkerThreadCount();
     }
 
@@ -42,7 +49,7 @@ public class EnhancedJiraCaesiumSchedulerConfiguration implements CaesiumSchedul
 
     @Override
     public int refreshClusteredJobsIntervalInMinutes() {
-        return isClustered() ? REFRESH_INTERVAL_IN_MINUTES : 0;
+        return isClustered() ? RefreshIntervalPolicy.initialIntervalMinutes(clusteredJobRefresher.getSettings()) : 0;
     }
 
     @Override
@@ -55,9 +62,43 @@ public class EnhancedJiraCaesiumSchedulerConfiguration implements CaesiumSchedul
         return true;
     }
 
+    /**
+     * @param threads the number of threads in the thread group to start.
+     * @return this configuration, but with the given worker thread count.
+     */
+    public CaesiumSchedulerConfiguration withWorkerThreadCount(final int threads) {
+        final EnhancedJiraCaesiumSchedulerConfiguration configuration = this;
+        return new CaesiumSchedulerConfiguration() {
+            @Override
+            public TimeZone getDefaultTimeZone() {
+                return configuration.getDefaultTimeZone();
+            }
+
+            @Override
+            public int refreshClusteredJobsIntervalInMinutes() {
+                return configuration.refreshClusteredJobsIntervalInMinutes();
+            }
+
+            @Override
+            public int workerThreadCount() {
+                return threads;
+            }
+
+            @Override
+            public boolean useQuartzJobDataMapMigration() {
+                return configuration.useQuartzJobDataMapMigration();
+            }
+
+            @Override
+            public boolean useFineGrainedSchedules() {
+                return configuration.useFineGrainedSchedules();
+            }
+        };
+    }
+
     @Override
     public boolean useFineGrainedSchedules() {
-        return false;
+        return clusteredJobRefresher.getSettings().isFineGrainedSchedules();
     }
 
     private boolean isClustered() {
@@ -0,0 +1,131 @@
+package com.teamswork.scheduler.component;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.JobRunner;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.capacity.AdmissionController;
+import com.teamswork.scheduler.capacity.WorkerRetirement;
+import com.teamswork.scheduler.history.ExecutionHistory;
+import com.teamswork.scheduler.limit.ConcurrencyLimiter;
+import com.teamswork.scheduler.limit.RunCoalescer;
+import com.teamswork.scheduler.pool.WorkerPoolManager;
+import com.teamswork.scheduler.refresh.ClusteredJobProfiler;
+import com.teamswork.scheduler.runner.HandedOffRunRecorder;
+import com.teamswork.scheduler.runner.InstrumentedJobRunner;
+import com.teamswork.scheduler.service.JobDueTimeTracker;
+import com.teamswork.scheduler.service.JobRequeuer;
+import com.teamswork.scheduler.service.ResourceAccountingService;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+import com.teamswork.scheduler.watchdog.HungJobWatchdog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+
+import static com.teamswork.scheduler.component.Plugin.PLUGIN_KEY;
+
+/**
+ * Wraps every registered JobRunner in an InstrumentedJobRunner so job executions can be measured.
+ * Runners registered after this has run (e.g. by a plugin being enabled later) are picked up the next
+ * time instrumentJobRunners is called, which JobScheduler does periodically. The same call starts tracking the due
+ * times of jobs that ran without being tracked.
+ */
+@Named
+public class JobRunnerInstrumenter {
+    private static final Logger log = LoggerFactory.getLogger(JobRunnerInstrumenter.class);
+
+    private final SchedulerService schedulerService;
+    private final SchedulerMetricsService metricsService;
+    private final JobDueTimeTracker dueTimeTracker;
+    private final WorkerPoolManager workerPoolManager;
+    private final WorkerRetirement workerRetirement;
+    private final JobRequeuer jobRequeuer;
+    private final ExecutionHistory executionHistory;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final ResourceAccountingService resourceAccounting;
+    private final RunCoalescer runCoalescer;
+    private final HungJobWatchdog watchdog;
+    private final AdmissionController admissionController;
+    private final ClusteredJobProfiler clusteredJobProfiler;
+    private final HandedOffRunRecorder handedOffRunRecorder;
+
+    public JobRunnerInstrumenter(@ComponentImport final SchedulerService schedulerService,
+                                 final SchedulerMetricsService metricsService,
+                                 final JobDueTimeTracker dueTimeTracker,
+                                 final WorkerPoolManager workerPoolManager,
+                                 final WorkerRetirement workerRetirement,
+                                 final JobRequeuer jobRequeuer,
+                                 final ExecutionHistory executionHistory,
+                                 final ConcurrencyLimiter concurrencyLimiter,
+                                 final ResourceAccountingService resourceAccounting,
+                                 final RunCoalescer runCoalescer,
+                                 final HungJobWatchdog watchdog,
+                                 final AdmissionController admissionController,
+                                 final ClusteredJobProfiler clusteredJobProfiler,
+                                 final HandedOffRunRecorder handedOffRunRecorder) {
+        this.schedulerService = schedulerService;
+        this.metricsService = metricsService;
+        this.dueTimeTracker = dueTimeTracker;
+        this.workerPoolManager = workerPoolManager;
+        this.workerRetirement = workerRetirement;
+        this.jobRequeuer = jobRequeuer;
+        this.executionHistory = executionHistory;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.resourceAccounting = resourceAccounting;
+        this.runCoalescer = runCoalescer;
+        this.watchdog = watchdog;
+        this.admissionController = admissionController;
+        this.clusteredJobProfiler = clusteredJobProfiler;
+        this.handedOffRunRecorder = handedOffRunRecorder;
+    }
+
+    /**
+     * Wrap any registered job runners that are not already instrumented.
+     * Our own job runners are left alone.
+     * @return the number of job runners that were wrapped by this call.
+     */
+    public int instrumentJobRunners() {
+        final CaesiumSchedulerService caesiumSchedulerService = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+        int instrumented = 0;
+        for (JobRunnerKey key : schedulerService.getRegisteredJobRunnerKeys()) {
+            if (key.toString().startsWith(PLUGIN_KEY)) {
+                continue;
+            }
+            final JobRunner jobRunner = caesiumSchedulerService.getJobRunner(key);
+            if (jobRunner == null || jobRunner instanceof InstrumentedJobRunner) {
+                continue;
+            }
+            schedulerService.registerJobRunner(key, new InstrumentedJobRunner(key, jobRunner, metricsService,
+                    dueTimeTracker, workerPoolManager, workerRetirement, jobRequeuer, executionHistory,
+                    concurrencyLimiter, resourceAccounting, runCoalescer, watchdog, admissionController, clusteredJobProfiler,
+                    handedOffRunRecorder));
+            dueTimeTracker.seed(key);
+            instrumented++;
+            log.debug("Instrumented job runner: {}", key);
+        }
+        final int seeded = dueTimeTracker.seedPending();
+        if (seeded > 0) {
+            log.debug("Tracking the due times of {} more jobs.", seeded);
+        }
+        return instrumented;
+    }
+
+    /**
+     * Put the original job runners back. Called when the plugin is disabled so that no runner keeps
+     * a reference to our classes.
+     */
+    public void restoreJobRunners() {
+        final CaesiumSchedulerService caesiumSchedulerService = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+        for (JobRunnerKey key : schedulerService.getRegisteredJobRunnerKeys()) {
+            final JobRunner jobRunner = caesiumSchedulerService.getJobRunner(key);
+            if (jobRunner instanceof InstrumentedJobRunner) {
+                schedulerService.registerJobRunner(key, ((InstrumentedJobRunner) jobRunner).getDelegate());
+                dueTimeTracker.forget(key);
+                log.debug("Restored job runner: {}", key);
+            }
+        }
+    }
+}
@@ -2,31 +2,58 @@ package com.teamswork.scheduler.component;
 
 import com.atlassian.event.api.EventPublisher;
 import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.JobRunnerResponse;
 import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.config.RunMode;
+import com.atlassian.scheduler.config.Schedule;
+import com.teamswork.scheduler.service.JobRequeuer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import static com.teamswork.scheduler.component.Plugin.PLUGIN_KEY;
+
 @SuppressWarnings("unused")
 @Component
 public class JobScheduler extends PluginStateListener {
     private static final Logger log = LoggerFactory.getLogger(JobScheduler.class);
+    static final JobRunnerKey INSTRUMENTATION_JOB_RUNNER_KEY = JobRunnerKey.of(PLUGIN_KEY + ".instrumentation");
+    static final JobId INSTRUMENTATION_JOB_ID = JobId.of(PLUGIN_KEY + ".instrumentation");
+    private static final long INSTRUMENTATION_INTERVAL_MILLIS = 60 * 1000L;
 
     private final SchedulerService schedulerService;
+    private final JobRunnerInstrumenter jobRunnerInstrumenter;
+    private final JobRequeuer jobRequeuer;
 
     public JobScheduler(@ComponentImport final EventPublisher eventPublisher,
-                        @ComponentImport final SchedulerService schedulerService) {
+                        @ComponentImport final SchedulerService schedulerService,
+                        final JobRunnerInstrumenter jobRunnerInstrumenter,
+                        final JobRequeuer jobRequeuer) {
         super(eventPublisher);
         this.schedulerService = schedulerService;
+        this.jobRunnerInstrumenter = jobRunnerInstrumenter;
+        this.jobRequeuer = jobRequeuer;
     }
 
     /**
      * Use this method to register job runners and schedule periodic jobs.
+     * Job runners are instrumented straight away, then periodically so runners registered later are picked up.
      */
     @Override
     protected void onAppStart() {
         try{
-
+            schedulerService.registerJobRunner(JobRequeuer.DEFERRED_JOB_RUNNER_KEY, jobRequeuer::runDeferred);
+            log.debug("Instrumented {} job runners.", jobRunnerInstrumenter.instrumentJobRunners());
+            schedulerService.registerJobRunner(INSTRUMENTATION_JOB_RUNNER_KEY, request -> {
+                final int instrumented = jobRunnerInstrumenter.instrumentJobRunners();
+                return JobRunnerResponse.success("Instrumented " + instrumented + " job runners.");
+            });
+            schedulerService.scheduleJob(INSTRUMENTATION_JOB_ID, JobConfig.forJobRunnerKey(INSTRUMENTATION_JOB_RUNNER_KEY)
+                    .withRunMode(RunMode.RUN_LOCALLY)
+                    .withSchedule(Schedule.forInterval(INSTRUMENTATION_INTERVAL_MILLIS, null)));
         } catch( final Exception e){
             log.error("Error registering or running jobs." + e.getMessage());
         }
@@ -38,9 +65,13 @@ public class JobScheduler extends PluginStateListener {
     @Override
     protected void onAppShutdown() {
         try {
+            schedulerService.unscheduleJob(INSTRUMENTATION_JOB_ID);
+            schedulerService.unregisterJobRunner(INSTRUMENTATION_JOB_RUNNER_KEY);
+            schedulerService.unregisterJobRunner(JobRequeuer.DEFERRED_JOB_RUNNER_KEY);
+            jobRunnerInstrumenter.restoreJobRunners();
             log.debug("Unregistered jobs");
         } catch (final Throwable t) {
             log.error("Unable to unregister job runners ", t);
         }
     }
-}
\ No newline at end of file
+}
@@ -10,21 +10,30 @@ import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
 import com.atlassian.scheduler.caesium.spi.CaesiumSchedulerConfiguration;
 import com.atlassian.scheduler.config.JobRunnerKey;
 import com.atlassian.scheduler.core.LifecycleAwareSchedulerService;
+import com.teamswork.scheduler.capacity.AdmissionController;
+import com.teamswork.scheduler.capacity.DrainProgress;
+import com.teamswork.scheduler.capacity.MemoryPressure;
+import com.teamswork.scheduler.capacity.WorkerRetirement;
 import com.teamswork.scheduler.model.CurrentConfiguration;
 import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.pool.WorkerPoolManager;
 import com.teamswork.scheduler.service.ThreadGroupUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Named;
 
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.VarHandle;
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.teamswork.scheduler.utils.StringUtils.extractThreadGroupName;
 import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_THREADS_KEY;
@@ -37,41 +46,55 @@ import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_T
  * 3 - Call the pauseScheduler method to pause the scheduler.
  * 4-  Call the startSchedulerWithExtraThreadGroup method to start the scheduler with an extra thread group.
  * There are convenience methods to start/pause the scheduler.
- * Threads groups can only be attempted to be destroyed when the scheduler is paused.
  * Invoking 'startSchedulerWithExtraThreadGroup' multiple times will create multiple thread groups.
  * Note, this will create at least one extra thread group for the scheduler.
- * There are methods to make an attempt at destroying these but, we don't have good hooks into the thread management
- * aspect of the scheduler. We'd advise not using these as it is highly likely your Jira instance will become unstable.
+ * Extra thread groups can be retired again: their workers finish the job they are running and exit once idle.
  */
 @Named
 @SuppressWarnings("unused")
 public class SchedulerConfigurator {
     private static final Logger log = LoggerFactory.getLogger(SchedulerConfigurator.class);
-    private static final String defaultThreadGroup = "Caesium-1";
-    private static final String defaultThreadGroupPrefix = "Caesium-";
+    public static final String defaultThreadGroup = "Caesium-1";
+    public static final String defaultThreadGroupPrefix = "Caesium-";
     public static final String DELIMITER = ":";
     private static final String STARTED = " Started";
     private static final String PENDING = " Pending";
     private static final String PAUSED = " Paused";
     private static final String DESTROYED = " Destroyed";
+    private static final String DRAINING = " Draining";
+    public static final long DEFAULT_DRAIN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final long STATUS_TTL_NANOS = TimeUnit.SECONDS.toNanos(1);
 
-    private final CaesiumSchedulerConfiguration enhancedConfig;
+    private final EnhancedJiraCaesiumSchedulerConfiguration enhancedConfig;
     private final ApplicationProperties applicationProperties;
     private final ThreadGroupUtils threadGroupUtils;
+    private final WorkerPoolManager workerPoolManager;
+    private final CaesiumInternals caesiumInternals;
+    private final WorkerRetirement workerRetirement;
+    private final AdmissionController admissionController;
     final I18nHelper i18nHelper;
     private boolean schedulerReconfigured = false;
+    private volatile StatusSnapshot statusSnapshot;
 
     // This is a map of thread group names to states.
     private final ConcurrentHashMap<String, String> threadGroupState = new ConcurrentHashMap<>();
 
     public SchedulerConfigurator(final EnhancedJiraCaesiumSchedulerConfiguration enhancedConfig,
                                  final ThreadGroupUtils threadGroupUtils,
+                                 final WorkerPoolManager workerPoolManager,
+                                 final CaesiumInternals caesiumInternals,
+                                 final WorkerRetirement workerRetirement,
+                                 final AdmissionController admissionController,
                                  @ComponentImport ApplicationProperties applicationProperties,
                                  @ComponentImport final I18nHelper i18nHelper) {
         this.enhancedConfig = enhancedConfig;
         this.applicationProperties = applicationProperties;
         this.i18nHelper = i18nHelper;
         this.threadGroupUtils = threadGroupUtils;
+        this.workerPoolManager = workerPoolManager;
+        this.caesiumInternals = caesiumInternals;
+        this.workerRetirement = workerRetirement;
+        this.admissionController = admissionController;
     }
 
     /**
@@ -89,38 +112,24 @@ public class SchedulerConfigurator {
 
     /**
      * Replaces the original configuration of the Jira caesium scheduler with the enhanced configuration.
-     * We must go up a level to the superclass as we get a Jira scheduler back from ComponentAccessor.
      * This sets the schedulerReconfigured flag to true if the configuration was replaced successfully and
      * also increments the current thread group count.
      * @return OperationResult with the details of the configuration.
      */
-    public OperationResult replaceSchedulerConfiguration() {
+    public synchronized OperationResult replaceSchedulerConfiguration() {
         log.debug("Re-configuring the Jira caesium scheduler.");
         log.debug("Unregistering the original configuration of the caesium scheduler and the scheduler.");
         try {
             final CaesiumSchedulerService caesiumSchedulerService = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
-            final Field field = caesiumSchedulerService.getClass().getSuperclass().getDeclaredField("config");
-            field.setAccessible(true);
-
-            if (isJava8()) {
-                // Java 8 approach (uses "modifiers" field, allowed in Java 8)
-                Field modifiersField = Field.class.getDeclaredField("modifiers");
-                modifiersField.setAccessible(true);
-                modifiersField.setInt(field, field.getModifiers() & ~java.lang.reflect.Modifier.FINAL);
-            } else {
-                // Java 9+ approach (uses VarHandle, safe in Java 9+)
-                VarHandle modifiersVarHandle = MethodHandles.privateLookupIn(Field.class, MethodHandles.lookup())
-                        .findVarHandle(Field.class, "modifiers", int.class);
-                modifiersVarHandle.set(field, field.getModifiers() & ~java.lang.reflect.Modifier.FINAL);
-            }
-
-            field.set(caesiumSchedulerService, enhancedConfig);
+            caesiumInternals.setConfig(caesiumSchedulerService, enhancedConfig);
             schedulerReconfigured = true;
             threadGroupState.put(getThreadGroupName(), PENDING);
-        } catch (Exception e) {
+        } catch (Throwable e) {
             log.error("Error re-configuring the caesium scheduler", e);
             schedulerReconfigured = false;
             return new OperationResult(false, i18nHelper.getText("jes.scheduler.failed.to.configure"));
+        } finally {
+            invalidateStatus();
         }
 
         if (schedulerReconfigured) {
@@ -162,6 +171,8 @@ public class SchedulerConfigurator {
             }
         } catch (Exception e) {
             log.error("Error pausing the caesium scheduler: {}", e.getMessage());
+        } finally {
+            invalidateStatus();
         }
         return new OperationResult(true, i18nHelper.getText("jes.scheduler.paused"));
     }
@@ -185,6 +196,8 @@ public class SchedulerConfigurator {
         } catch (Exception e) {
             log.error("Error starting the caesium scheduler: {}", e.getMessage());
             return new OperationResult(false, i18nHelper.getText("jes.caesium.scheduler.failed.to.start"));
+        } finally {
+            invalidateStatus();
         }
 
         return new OperationResult(threadGroupExists(getThreadGroupName()), i18nHelper.getText("jes.scheduler.started"));
@@ -195,16 +208,16 @@ public class SchedulerConfigurator {
      * We'll then manipulate some internal variables in Caesium to get it to start new threads.
      * This isn't ideal, but it's where we are with the lack of API or ability to replace the SchedulerConfiguration
      * object on startup.
+     * Synchronized with addExtraThreads, so a restore, JMX or REST start cannot race an autoscaler or capacity step
+     * over Caesium's thread group counter and worker list, or start with the size of that step's group.
      * @return a message indicating the success or failure of the operation.
      */
-    public OperationResult startSchedulerWithExtraThreadGroup() {
+    public synchronized OperationResult startSchedulerWithExtraThreadGroup() {
         try {
             final CaesiumSchedulerService service = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
             if (schedulerReconfigured) {
                 service.standby();
-                Field field = service.getClass().getSuperclass().getDeclaredField("started");
-                field.setAccessible(true);
-                AtomicBoolean schedulerStarted = (AtomicBoolean) field.get(service);
+                final AtomicBoolean schedulerStarted = caesiumInternals.getStarted(service);
                 schedulerStarted.set(false);
             } else {
                 log.info("The scheduler has not been reconfigured successfully.");
@@ -214,14 +227,86 @@ public class SchedulerConfigurator {
             if (threadGroupExists(getThreadGroupName())) {
                 threadGroupState.put(getThreadGroupName(), STARTED);
             }
-        } catch (Exception e) {
+        } catch (Throwable e) {
             log.error("Error starting the caesium scheduler: " + e.getMessage());
             return new OperationResult(false, i18nHelper.getText("jes.scheduler.failed.to.start"));
+        } finally {
+            invalidateStatus();
         }
 
         return new OperationResult(threadGroupExists(getThreadGroupName()), i18nHelper.getText("jes.scheduler.started"));
     }
 
+    /**
+     * Add an extra thread group with the given number of threads in one step: reconfigures the scheduler if that has
+     * not been done yet, then starts the extra thread group with a configuration of that many threads.
+     * The configured thread count is neither read nor written, so other nodes never see this group's size.
+     * The scheduler must be running; this will not resume a paused scheduler.
+     * @param threads the number of threads in the new thread group.
+     * @return a message indicating the success or failure of the operation.
+     */
+    public synchronized OperationResult addExtraThreads(final int threads) {
+        final CaesiumSchedulerService caesiumSchedulerService = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+        if (!caesiumSchedulerService.getState().equals(LifecycleAwareSchedulerService.State.STARTED)) {
+            return new OperationResult(false, i18nHelper.getText("jes.scheduler.not.running"));
+        }
+        if (threads < 1 || threads > 16) {
+            return new OperationResult(false, i18nHelper.getText("jes.invalid.thread.count"));
+        }
+        if (!schedulerReconfigured) {
+            final OperationResult result = replaceSchedulerConfiguration();
+            if (!result.isSuccess()) {
+                return result;
+            }
+        }
+        try {
+            caesiumInternals.setConfig(caesiumSchedulerService, enhancedConfig.withWorkerThreadCount(threads));
+        } catch (Throwable e) {
+            log.error("Error re-configuring the caesium scheduler", e);
+            return new OperationResult(false, i18nHelper.getText("jes.scheduler.failed.to.configure"));
+        }
+        try {
+            return startSchedulerWithExtraThreadGroup();
+        } finally {
+            // The thread count is only read when a group starts, so later groups go back to the configured count.
+            try {
+                caesiumInternals.setConfig(caesiumSchedulerService, enhancedConfig);
+            } catch (Throwable e) {
+                log.error("Error restoring the caesium scheduler configuration", e);
+            }
+        }
+    }
+
+    /**
+     * Count the live threads in the extra thread groups, i.e. every Caesium thread group bar the default one.
+     * @return the number of extra threads running.
+     */
+    public int getExtraThreadCount() {
+        return getStatusSnapshot().extraThreads;
+    }
+
+    /**
+     * Get the extra thread groups that still have live threads, oldest first.
+     * @return map of thread group name to live thread count.
+     */
+    public NavigableMap<String, Integer> getExtraThreadGroups() {
+        final NavigableMap<String, Integer> groups = new TreeMap<>((a, b) -> Integer.compare(groupNumber(a), groupNumber(b)));
+        for (Map.Entry<String, Integer> group : threadGroupUtils.getThreadCountsByGroup(defaultThreadGroupPrefix).entrySet()) {
+            if (!defaultThreadGroup.equals(group.getKey()) && group.getValue() > 0 && groupNumber(group.getKey()) > 1) {
+                groups.put(group.getKey(), group.getValue());
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Count the live threads in all Caesium thread groups, including the default one.
+     * @return the number of Caesium worker threads running.
+     */
+    public int getSchedulerThreadCount() {
+        return getStatusSnapshot().schedulerThreads;
+    }
+
     /**
      * Has the scheduler been reconfigured?
      * @return true if the scheduler has been reconfigured, false otherwise.
@@ -238,9 +323,7 @@ public class SchedulerConfigurator {
         String configurationDetails = null;
         try {
             final CaesiumSchedulerService caesiumSchedulerService = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
-            Field field = caesiumSchedulerService.getClass().getSuperclass().getDeclaredField("config");
-            field.setAccessible(true);
-            final CaesiumSchedulerConfiguration config = (CaesiumSchedulerConfiguration) field.get(caesiumSchedulerService);
+            final CaesiumSchedulerConfiguration config = caesiumInternals.getConfig(caesiumSchedulerService);
             configurationDetails = "CaesiumSchedulerConfiguration details:{" +
                     ", refreshClusteredJobsIntervalInMinutes=" + config.refreshClusteredJobsIntervalInMinutes() +
                     ", workerThreadCount=" + config.workerThreadCount() +
@@ -248,7 +331,7 @@ public class SchedulerConfigurator {
                     ", useFineGrainedSchedules=" + config.useFineGrainedSchedules() +
                     ", getDefaultTimeZone=" + config.getDefaultTimeZone() +
                     " }";
-        } catch (Exception e) {
+        } catch (Throwable e) {
             log.error("Error getting the caesium scheduler configuration: {}", e.getMessage());
         }
         return configurationDetails;
@@ -256,82 +339,165 @@ public class SchedulerConfigurator {
 
     /**
      * Get the current configuration of this object and the scheduler.
+     * Built from a status snapshot that is shared for up to a second, so frequent polling is cheap.
      * @return a CurrentConfiguration object with the configuration details.
      */
     public CurrentConfiguration getCurrentConfiguration() {
-        final CaesiumSchedulerService caesiumSchedulerService = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+        final StatusSnapshot status = getStatusSnapshot();
         final CurrentConfiguration currentConfiguration = new CurrentConfiguration();
         currentConfiguration.setExtraThreadsToConfigure(enhancedConfig.workerThreadCount());
 
-        if (schedulerReconfigured &&
-                threadGroupExists(getThreadGroupName()) &&
-                !defaultThreadGroup.equals(getThreadGroupName())) {
-            currentConfiguration.setExtraThreadsRunning(enhancedConfig.workerThreadCount());
-        } else {
-            currentConfiguration.setExtraThreadsRunning(0);
-        }
+        final boolean extraThreadGroupStarted = status.threadGroupRunning && !defaultThreadGroup.equals(status.threadGroupName);
+        // Count the threads actually running: the autoscaler and capacity schedules add groups of their own sizes.
+        currentConfiguration.setExtraThreadsRunning(status.schedulerReconfigured ? status.extraThreads : 0);
 
-        currentConfiguration.setSchedulerReconfigured(schedulerReconfigured);
-        currentConfiguration.setThreadGroupName(getThreadGroupName());
-        if (currentConfiguration.getThreadGroupName().equals(defaultThreadGroup)) {
+        currentConfiguration.setSchedulerReconfigured(status.schedulerReconfigured);
+        if (status.threadGroupName.equals(defaultThreadGroup)) {
             currentConfiguration.setThreadGroupName(i18nHelper.getText("jes.thread.group.not.started"));
         } else {
-            currentConfiguration.setThreadGroupName(getThreadGroupName() + DELIMITER + threadGroupState.get(getThreadGroupName()));
+            currentConfiguration.setThreadGroupName(status.threadGroupName + DELIMITER + status.threadGroupState);
         }
-        currentConfiguration.setExtraThreadGroupStarted(threadGroupExists(getThreadGroupName()) && !defaultThreadGroup.equals(getThreadGroupName()));
+        currentConfiguration.setExtraThreadGroupStarted(extraThreadGroupStarted);
         currentConfiguration.setDefaultThreadGroup(defaultThreadGroup);
-        currentConfiguration.setSchedulerRunning(caesiumSchedulerService.getState().equals(LifecycleAwareSchedulerService.State.STARTED));
+        currentConfiguration.setSchedulerRunning(status.schedulerRunning);
+        currentConfiguration.setWorkerPools(workerPoolManager.getStatuses());
+
+        final MemoryPressure pressure = admissionController.getPressure();
+        currentConfiguration.setExtraThreadsThrottled(pressure.isThrottled());
+        currentConfiguration.setThrottleEvents(pressure.getThrottleEvents());
+        currentConfiguration.setThrottledMillis(pressure.getThrottledMillis(System.currentTimeMillis()));
+        currentConfiguration.setThrottleDeferredRuns(admissionController.getDeferredRuns());
+        currentConfiguration.setHeapAfterGcPercent(pressure.getHeapAfterGcPercent());
+        currentConfiguration.setGcTimePercent(Math.round(pressure.getGcTimePercent() * 10) / 10.0);
 
         return currentConfiguration;
     }
 
     /**
-     * Destroy a thread group by name. This is unsafe.
-     * Recommend not using this as it is highly likely your Jira instance will become unstable.
-     * We invoke the deprecated method Thread.stop() to kill the threads.
-     * The scheduler will be paused before the thread group is destroyed, then restarted.
-     * @param threadGroupName The name of the thread group to destroy.
-     * @return a message indicating the success or failure of the operation.
+     * Start retiring an extra thread group by name, allowing it a minute to drain.
+     * @param threadGroupName The name of the thread group to retire.
+     * @return a message indicating whether the retirement was started.
      */
     public OperationResult destroyThreadGroupByName(final String threadGroupName) {
-        log.debug("Destroying the extra thread group in the Caesium scheduler:{}", threadGroupName);
-        pauseScheduler();
+        return destroyThreadGroupByName(threadGroupName, DEFAULT_DRAIN_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Start retiring an extra thread group by name. The workers in the group finish the job they are running and
+     * exit once they are idle. The scheduler keeps running throughout. This returns straight away; the drain is
+     * followed with getRetirement. If the group has not drained by the timeout, the workers still alive stay in
+     * service and the group is left partially retired.
+     * @param threadGroupName The name of the thread group to retire.
+     * @param timeoutMillis How long to allow the group to drain.
+     * @return a message indicating whether the retirement was started.
+     */
+    public OperationResult destroyThreadGroupByName(final String threadGroupName, final long timeoutMillis) {
         final String actualThreadGroupName = extractThreadGroupName(threadGroupName);
+        final OperationResult refused = checkRetirable(actualThreadGroupName);
+        if (refused != null) {
+            return refused;
+        }
+        startRetirement(actualThreadGroupName, timeoutMillis);
+        return new OperationResult(true, i18nHelper.getText("jes.thread.group.retiring", actualThreadGroupName));
+    }
+
+    /**
+     * Retire an extra thread group by name and wait for the drain to finish. Only for callers on a background thread.
+     * @param threadGroupName The name of the thread group to retire.
+     * @param timeoutMillis How long to allow the group to drain.
+     * @return whether the group retired, or the progress made if it was left partially retired.
+     */
+    public OperationResult retireThreadGroup(final String threadGroupName, final long timeoutMillis) {
+        final OperationResult refused = checkRetirable(threadGroupName);
+        if (refused != null) {
+            return refused;
+        }
+        final WorkerRetirement.Drain drain = startRetirement(threadGroupName, timeoutMillis);
         try {
-            if (this.schedulerReconfigured && threadGroupExists(actualThreadGroupName)) {
-                threadGroupState.put(actualThreadGroupName, DESTROYED);
-                destroyThreadGroup(actualThreadGroupName);
-                log.debug("The thread group named: {} has been destroyed successfully.", actualThreadGroupName);
+            return toResult(drain.getResult().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return toResult(drain.getProgress());
+        } catch (ExecutionException e) {
+            return toResult(drain.getProgress());
+        }
+    }
+
+    /**
+     * @param threadGroupName The name of the thread group.
+     * @return the progress of the group's retirement: successful once it has retired.
+     */
+    public OperationResult getRetirement(final String threadGroupName) {
+        final String actualThreadGroupName = extractThreadGroupName(threadGroupName);
+        final WorkerRetirement.Drain drain = workerRetirement.getDrain(actualThreadGroupName);
+        return drain == null ?
+                new OperationResult(false, i18nHelper.getText("jes.thread.group.not.retiring", actualThreadGroupName)) :
+                toResult(drain.getProgress());
+    }
+
+    private OperationResult checkRetirable(final String threadGroupName) {
+        if (groupNumber(threadGroupName) <= 1) {
+            return new OperationResult(false, i18nHelper.getText("jes.thread.group.cannot.retire", threadGroupName));
+        }
+        if (!threadGroupExists(threadGroupName)) {
+            log.warn("Cannot retire the extra thread group {} in the Caesium scheduler because it has not been started.",
+                    threadGroupName);
+            return new OperationResult(false, i18nHelper.getText("jes.thread.group.not.running", threadGroupName));
+        }
+        return null;
+    }
+
+    private WorkerRetirement.Drain startRetirement(final String threadGroupName, final long timeoutMillis) {
+        log.debug("Retiring the extra thread group in the Caesium scheduler:{}", threadGroupName);
+        final String previousState = threadGroupState.put(threadGroupName, DRAINING);
+        invalidateStatus();
+        final WorkerRetirement.Drain drain = workerRetirement.retire(threadGroupName, timeoutMillis);
+        drain.getResult().thenAccept(progress -> {
+            if (progress.isRetired()) {
+                threadGroupState.put(threadGroupName, DESTROYED);
+            } else if (previousState != null && !DRAINING.equals(previousState)) {
+                threadGroupState.put(threadGroupName, previousState);
             } else {
-                log.warn("Cannot destroy the extra thread group in the Caesium scheduler because the scheduler has not" +
-                        " been re-configured or the extra thread group has not been started.");
+                threadGroupState.remove(threadGroupName, DRAINING);
             }
-        } catch (Exception e) {
-            log.error("Error destroying the extra thread group: {}", e.getMessage());
-        }
+            invalidateStatus();
+        });
+        return drain;
+    }
 
-        return new OperationResult(threadGroupExists(threadGroupName), i18nHelper.getText("jes.thread.group.destroyed", threadGroupName));
+    private OperationResult toResult(final DrainProgress progress) {
+        final String name = progress.getThreadGroupName();
+        if (!progress.isFinished()) {
+            return new OperationResult(false, i18nHelper.getText("jes.thread.group.draining", name,
+                    progress.getInFlightJobs(), progress.getThreadsRemaining()));
+        }
+        return progress.isRetired() ?
+                new OperationResult(true, i18nHelper.getText("jes.thread.group.destroyed", name)) :
+                new OperationResult(false, i18nHelper.getText("jes.thread.group.drain.timeout", name,
+                        progress.getInFlightJobs(), progress.getThreadsRemaining()));
     }
 
     /**
-     * Destroy the known extra thread group in the scheduler.
-     * Recommend not using this as it is highly likely your Jira instance will become unstable.
+     * Start retiring the known extra thread group in the scheduler.
      */
     public void destroyExtraSchedulerThreadGroup() {
         destroyThreadGroupByName(getThreadGroupName());
     }
 
     /**
-     * Destroy any extra thread groups in the scheduler. Recommend not using this as it is highly likely your
-     * Jira instance will become unstable.
-     * This will attempt to destroy any groups with the name 'Caesium-' followed by a number greater than 1
-     * and less or equal to the value of threadGroupCount.
+     * Start retiring all extra thread groups in the scheduler. Each is followed with getRetirement.
+     * @return the outcome; unsuccessful if any group could not be retired.
      */
     public OperationResult destroyAllExtraSchedulerThreadGroups() {
-        for (int i = 2; i <= getThreadGroupCount(); i++) {
-            destroyThreadGroupByName(defaultThreadGroupPrefix + i);
+        final List<String> groups = new ArrayList<>(getExtraThreadGroups().keySet());
+        Collections.reverse(groups);
+        for (String group : groups) {
+            final OperationResult result = destroyThreadGroupByName(group);
+            if (!result.isSuccess()) {
+                return result;
+            }
         }
-        return new OperationResult(true, i18nHelper.getText("jes.all.thread.groups.destroyed"));
+        return new OperationResult(true, i18nHelper.getText("jes.all.thread.groups.retiring", groups.size()));
     }
 
     private String getThreadGroupName() {
@@ -339,42 +505,79 @@ public class SchedulerConfigurator {
     }
 
     private int getThreadGroupCount() {
-        int threadGroupCount = 1;
-        try {
-            Class<?> accessHelperClass = Class.forName("com.atlassian.scheduler.caesium.impl.WorkerThreadFactory");
-            Field field = accessHelperClass.getDeclaredField("FACTORY_COUNTER");
-            field.setAccessible(true);
-            AtomicInteger threadCounterValue = (AtomicInteger) field.get(null);
-            threadGroupCount = threadCounterValue.get();
-        } catch (Exception e) {
-            log.error("Error getting the thread count: {}", e.getMessage());
+        return caesiumInternals.getThreadGroupCount();
+    }
+
+    private StatusSnapshot getStatusSnapshot() {
+        final StatusSnapshot status = statusSnapshot;
+        if (status != null && System.nanoTime() - status.takenAt < STATUS_TTL_NANOS) {
+            return status;
         }
-        return threadGroupCount;
+        final StatusSnapshot fresh = takeStatusSnapshot();
+        statusSnapshot = fresh;
+        return fresh;
     }
 
-    private void destroyThreadGroup(final String threadGroupName) {
-        try {
-            final ThreadGroup threadGroup = threadGroupUtils.getThreadGroupByName(threadGroupName);
-            if (threadGroup != null) {
-                Thread[] threads = new Thread[threadGroup.activeCount()];
-                threadGroup.enumerate(threads);
-                for (Thread thread : threads) {
-                    try {
-                        thread.stop();
-                    } catch (Exception e) {
-                        log.error("Error interrupting the thread: {}", e.getMessage());
-                        log.error("Thread name: {}", thread.getName());
-                    }
-                }
-                threadGroup.destroy();
+    private void invalidateStatus() {
+        statusSnapshot = null;
+    }
+
+    /**
+     * Read everything the status calls need with a single walk of the thread groups.
+     */
+    private StatusSnapshot takeStatusSnapshot() {
+        final CaesiumSchedulerService caesiumSchedulerService = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+        final String threadGroupName = getThreadGroupName();
+        final Map<String, Integer> threadCounts = threadGroupUtils.getThreadCountsByGroup(defaultThreadGroupPrefix);
+        int schedulerThreads = 0;
+        int extraThreads = 0;
+        for (Map.Entry<String, Integer> group : threadCounts.entrySet()) {
+            schedulerThreads += group.getValue();
+            if (!defaultThreadGroup.equals(group.getKey())) {
+                extraThreads += group.getValue();
             }
-        } catch (Exception e) {
-            log.error("Error destroying the thread group: {}", e.getMessage());
         }
+        return new StatusSnapshot(System.nanoTime(),
+                caesiumSchedulerService.getState().equals(LifecycleAwareSchedulerService.State.STARTED),
+                schedulerReconfigured, threadGroupName, threadGroupState.get(threadGroupName),
+                threadCounts.getOrDefault(threadGroupName, 0) > 0, schedulerThreads, extraThreads);
     }
 
-    private boolean isJava8() {
-        String version = System.getProperty("java.version");
-        return version.startsWith("1.8");
+    private static int groupNumber(final String threadGroupName) {
+        if (threadGroupName == null || !threadGroupName.startsWith(defaultThreadGroupPrefix)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(threadGroupName.substring(defaultThreadGroupPrefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The scheduler and thread group status at a point in time.
+     */
+    private static final class StatusSnapshot {
+        private final long takenAt;
+        private final boolean schedulerRunning;
+        private final boolean schedulerReconfigured;
+        private final String threadGroupName;
+        private final String threadGroupState;
+        private final boolean threadGroupRunning;
+        private final int schedulerThreads;
+        private final int extraThreads;
+
+        private StatusSnapshot(final long takenAt, final boolean schedulerRunning, final boolean schedulerReconfigured,
+                               final String threadGroupName, final String threadGroupState,
+                               final boolean threadGroupRunning, final int schedulerThreads, final int extraThreads) {
+            this.takenAt = takenAt;
+            this.schedulerRunning = schedulerRunning;
+            this.schedulerReconfigured = schedulerReconfigured;
+            this.threadGroupName = threadGroupName;
+            this.threadGroupState = threadGroupState;
+            this.threadGroupRunning = threadGroupRunning;
+            this.schedulerThreads = schedulerThreads;
+            this.extraThreads = extraThreads;
+        }
     }
 }
\ No newline at end of file
@@ -14,6 +14,21 @@ public class SchedulerInitializer extends PluginStateListener {
     public static final String SCHEDULER_THREADS_VALUE = "2";
     public static final int DEFAULT_THREAD_COUNT = 2;
     public static final String SCHEDULER_THREADS_KEY = "jes-scheduler-threads-key";
+    public static final String SCHEDULER_POOLS_KEY = "jes-scheduler-pools-key";
+    public static final String SCHEDULER_AUTOSCALER_KEY = "jes-scheduler-autoscaler-key";
+    public static final String SCHEDULER_CAPACITY_SCHEDULE_KEY = "jes-scheduler-capacity-schedule-key";
+    public static final String SCHEDULER_REFRESH_KEY = "jes-scheduler-refresh-key";
+    public static final String SCHEDULER_PRIORITIES_KEY = "jes-scheduler-priorities-key";
+    public static final String SCHEDULER_PRIORITY_AGING_KEY = "jes-scheduler-priority-aging-key";
+    public static final String SCHEDULER_LIMITS_KEY = "jes-scheduler-limits-key";
+    public static final String SCHEDULER_COALESCING_KEY = "jes-scheduler-coalescing-key";
+    public static final String SCHEDULER_WATCHDOG_KEY = "jes-scheduler-watchdog-key";
+    public static final String SCHEDULER_RUN_DETAILS_KEY = "jes-scheduler-run-details-key";
+    public static final String SCHEDULER_ADMISSION_KEY = "jes-scheduler-admission-key";
+    public static final String SCHEDULER_ACCOUNTING_KEY = "jes-scheduler-accounting-key";
+    public static final String SCHEDULER_RESTORE_KEY = "jes-scheduler-restore-key";
+    public static final String SCHEDULER_SMOOTHING_KEY = "jes-scheduler-smoothing-key";
+    public static final String SCHEDULER_SMOOTHING_ORIGINALS_KEY = "jes-scheduler-smoothing-originals-key";
 
     private static final Logger log = LoggerFactory.getLogger(SchedulerInitializer.class);
 
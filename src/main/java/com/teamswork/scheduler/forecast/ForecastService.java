@@ -0,0 +1,183 @@
+package com.teamswork.scheduler.forecast;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.ForecastReport;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.WorkerPoolDefinition;
+import com.teamswork.scheduler.pool.WorkerPool;
+import com.teamswork.scheduler.pool.WorkerPoolManager;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+import com.teamswork.scheduler.smoothing.JobSchedule;
+import com.teamswork.scheduler.smoothing.ScheduledJobs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Forecasts the load the scheduled jobs will put on the scheduler over the next hours, and recommends the number
+ * of workers that keeps the p95 lag under a target. Each run time is the runner's mean from our metrics; runners
+ * that have not run yet are assumed to take the mean of every run. A job routed to a worker pool holds its Caesium
+ * worker until the pool has run it, so it counts too, with each pool holding no more workers than its threads and
+ * queue. A VIRTUAL pool's jobs only hold a worker to hand the job over.
+ * The forecast can take a few seconds for tens of thousands of jobs, so it runs on a background thread, one at a
+ * time, and the latest report is kept for the REST resource to return.
+ */
+@Named
+public class ForecastService extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(ForecastService.class);
+    public static final int MAX_HOURS = 168;
+    public static final long MAX_TARGET_LAG_MILLIS = 3600 * 1000L;
+    private static final long DEFAULT_DURATION_MILLIS = 1000L;
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final ScheduledJobs scheduledJobs;
+    private final SchedulerMetricsService metricsService;
+    private final WorkerPoolManager workerPoolManager;
+    private final SchedulerConfigurator schedulerConfigurator;
+    private final I18nHelper i18nHelper;
+    private volatile ForecastReport report = newReport(State.IDLE);
+    private ExecutorService executor;
+
+    public ForecastService(final ScheduledJobs scheduledJobs,
+                           final SchedulerMetricsService metricsService,
+                           final WorkerPoolManager workerPoolManager,
+                           final SchedulerConfigurator schedulerConfigurator,
+                           @ComponentImport final EventPublisher eventPublisher,
+                           @ComponentImport final I18nHelper i18nHelper) {
+        super(eventPublisher);
+        this.scheduledJobs = scheduledJobs;
+        this.metricsService = metricsService;
+        this.workerPoolManager = workerPoolManager;
+        this.schedulerConfigurator = schedulerConfigurator;
+        this.i18nHelper = i18nHelper;
+    }
+
+    @Override
+    protected synchronized void onAppStart() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "JES-forecast");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    protected synchronized void onAppShutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * @return the latest forecast, or its progress if one is running.
+     */
+    public ForecastReport getReport() {
+        return report;
+    }
+
+    /**
+     * Start a forecast on the background thread.
+     * @param hours the horizon, starting now.
+     * @param targetP95LagMillis the p95 lag the recommended workers must meet.
+     */
+    public synchronized OperationResult start(final int hours, final long targetP95LagMillis) {
+        if (hours < 1 || hours > MAX_HOURS) {
+            return new OperationResult(false, i18nHelper.getText("jes.forecast.invalid.hours"));
+        }
+        if (targetP95LagMillis < 0 || targetP95LagMillis > MAX_TARGET_LAG_MILLIS) {
+            return new OperationResult(false, i18nHelper.getText("jes.forecast.invalid.target"));
+        }
+        if (executor == null) {
+            return new OperationResult(false, i18nHelper.getText("jes.forecast.not.started"));
+        }
+        if (State.RUNNING.name().equals(report.getState())) {
+            return new OperationResult(false, i18nHelper.getText("jes.forecast.running"));
+        }
+        final ForecastReport running = newReport(State.RUNNING);
+        running.setHorizonHours(hours);
+        running.setTargetP95LagMillis(targetP95LagMillis);
+        report = running;
+        executor.execute(() -> forecast(running));
+        return new OperationResult(true, i18nHelper.getText("jes.forecast.started", hours));
+    }
+
+    /**
+     * Runs on the forecast thread.
+     */
+    private void forecast(final ForecastReport running) {
+        try {
+            final long startedAt = System.currentTimeMillis();
+            final LoadForecaster forecaster = new LoadForecaster(startedAt, running.getHorizonHours() * 60,
+                    running.getTargetP95LagMillis());
+            final List<JobSchedule> schedules = scheduledJobs.getSchedules();
+            final Map<String, Integer> pools = new HashMap<>();
+            final Map<String, Long> durations = metricsService.getMeanRunTimesMillis();
+            final long assumedDuration = assumedDurationMillis();
+            final int withoutHistory = forecaster.addAll(schedules, durations, assumedDuration,
+                    jobRunnerKey -> poolIndex(forecaster, pools, jobRunnerKey));
+            final int currentWorkers = schedulerConfigurator.getSchedulerThreadCount() > 0 ?
+                    schedulerConfigurator.getSchedulerThreadCount() : LoadForecaster.JIRA_DEFAULT_WORKERS;
+
+            final ForecastReport result = forecaster.forecast(currentWorkers);
+            result.setRequestedAt(running.getRequestedAt());
+            result.setJobsForecast(schedules.size());
+            result.setRunnersWithoutHistory(withoutHistory);
+            result.setAssumedDurationMillis(assumedDuration);
+            result.setComputeMillis(System.currentTimeMillis() - startedAt);
+            result.setState(State.DONE.name());
+            result.setMessage(result.isTargetReachable() ?
+                    i18nHelper.getText("jes.forecast.completed", result.getJobRuns(),
+                            result.getRecommendedWorkers(), result.getRecommendedP95LagMillis()) :
+                    i18nHelper.getText("jes.forecast.unreachable", result.getJobRuns(),
+                            result.getRecommendedWorkers(), result.getRecommendedP95LagMillis()));
+            report = result;
+            log.debug("Forecast completed in {}ms: {}", result.getComputeMillis(), result.getMessage());
+        } catch (final Exception e) {
+            log.error("Error forecasting the scheduler load. ", e);
+            running.setState(State.FAILED.name());
+            running.setMessage(e.getMessage());
+        }
+    }
+
+    /**
+     * @return the index in the forecaster of the pool the runner is routed to, adding the pool the first time.
+     */
+    private int poolIndex(final LoadForecaster forecaster, final Map<String, Integer> pools, final String jobRunnerKey) {
+        final WorkerPool pool = workerPoolManager.getPool(JobRunnerKey.of(jobRunnerKey));
+        if (pool == null) {
+            return LoadForecaster.NO_POOL;
+        }
+        return pools.computeIfAbsent(pool.getName(), name -> pool.getMode() == WorkerPoolDefinition.Mode.VIRTUAL ?
+                forecaster.addPool(0, 0) : forecaster.addPool(pool.getStatus().getThreads(), pool.getQueueSize()));
+    }
+
+    private long assumedDurationMillis() {
+        final double meanMicros = metricsService.getPoolMetrics().getRunTime().snapshot().getMean();
+        return meanMicros > 0 ? Math.round(meanMicros / 1000.0) : DEFAULT_DURATION_MILLIS;
+    }
+
+    private static ForecastReport newReport(final State state) {
+        final ForecastReport report = new ForecastReport();
+        report.setState(state.name());
+        report.setRequestedAt(System.currentTimeMillis());
+        return report;
+    }
+}
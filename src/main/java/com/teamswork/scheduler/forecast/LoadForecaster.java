@@ -0,0 +1,300 @@
+package com.teamswork.scheduler.forecast;
+
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+import com.teamswork.scheduler.model.ForecastReport;
+import com.teamswork.scheduler.smoothing.JobSchedule;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Expands every job's schedule over a horizon and, using each runner's average run time, works out how many jobs
+ * would be running in each minute and how late jobs would start with a given number of workers.
+ * Lag is found by replaying the runs in due time order against N workers, each run taking the worker that is free
+ * first, as Caesium's queue does. The recommendation is the fewest workers whose p95 lag meets the target, found by
+ * a binary search over N. Runs are packed into a single long[] (due offset and runner index) so tens of thousands of
+ * jobs can be forecast in seconds without boxing.
+ * A job routed to a worker pool still takes a Caesium worker, which waits while the pool queues and runs it. The
+ * replay models each pool's threads and queue: a run that finds them all taken is turned away and frees its worker
+ * at once, so no pool holds more than threads + queueSize workers, and the per minute load is capped the same way.
+ */
+public class LoadForecaster {
+    public static final int JIRA_DEFAULT_WORKERS = 4;
+    public static final int MAX_WORKERS = JIRA_DEFAULT_WORKERS + 16 * 8;
+    public static final int NO_POOL = -1;
+    static final int MAX_RUNS = 5000000;
+    private static final int RUNNER_BITS = 24;
+    private static final long RUNNER_MASK = (1L << RUNNER_BITS) - 1;
+    private static final long MINUTE_MILLIS = 60 * 1000L;
+
+    private final long from;
+    private final int minutes;
+    private final long targetP95LagMillis;
+    private final Map<String, Integer> runnerIndexes = new HashMap<>();
+    private long[] durations = new long[64];
+    private int[] runnerPools = new int[64];
+    private int[] poolThreads = new int[4];
+    private int[] poolQueueSizes = new int[4];
+    private int poolCount;
+    private long[] runs = new long[1024];
+    private int runCount;
+    private boolean truncated;
+
+    /**
+     * @param from the start of the horizon.
+     * @param minutes the length of the horizon.
+     * @param targetP95LagMillis the p95 lag the recommendation must meet.
+     */
+    public LoadForecaster(final long from, final int minutes, final long targetP95LagMillis) {
+        this.from = from - from % MINUTE_MILLIS;
+        this.minutes = minutes;
+        this.targetP95LagMillis = targetP95LagMillis;
+    }
+
+    /**
+     * Add a worker pool that jobs can be routed to.
+     * A pool with no threads turns every run away, which is how a pool that hands jobs over without the Caesium
+     * worker waiting looks to Caesium.
+     * @param threads the pool's threads.
+     * @param queueSize how many jobs the pool queues when its threads are busy.
+     * @return the pool's index, to pass to {@link #add(JobSchedule, long, int)}.
+     */
+    public int addPool(final int threads, final int queueSize) {
+        if (poolCount == poolThreads.length) {
+            poolThreads = Arrays.copyOf(poolThreads, poolCount * 2);
+            poolQueueSizes = Arrays.copyOf(poolQueueSizes, poolCount * 2);
+        }
+        poolThreads[poolCount] = Math.max(0, threads);
+        poolQueueSizes[poolCount] = threads > 0 ? Math.max(0, queueSize) : 0;
+        return poolCount++;
+    }
+
+    /**
+     * Add every run of a job in the horizon.
+     * @param schedule the job's schedule.
+     * @param durationMillis how long the job's runs take.
+     */
+    public void add(final JobSchedule schedule, final long durationMillis) {
+        add(schedule, durationMillis, NO_POOL);
+    }
+
+    /**
+     * Add every run of a job in the horizon.
+     * @param schedule the job's schedule.
+     * @param durationMillis how long the job's runs take.
+     * @param pool the index of the pool the job's runner is routed to, or {@link #NO_POOL}.
+     */
+    public void add(final JobSchedule schedule, final long durationMillis, final int pool) {
+        final long runner = runnerIndex(schedule.getJobRunnerKey(), durationMillis, pool);
+        schedule.dueTimes(from, from + minutes * MINUTE_MILLIS, due -> {
+            if (runCount == MAX_RUNS) {
+                truncated = true;
+                return;
+            }
+            if (runCount == runs.length) {
+                runs = Arrays.copyOf(runs, Math.min(MAX_RUNS, runs.length * 2));
+            }
+            runs[runCount++] = (due - from) << RUNNER_BITS | runner;
+        });
+    }
+
+    /**
+     * @param currentWorkers the number of Caesium workers running now.
+     * @return the per minute load, the lag with the current workers and the recommended workers.
+     */
+    public ForecastReport forecast(final int currentWorkers) {
+        Arrays.sort(runs, 0, runCount);
+        final ForecastReport report = new ForecastReport();
+        report.setWindowStart(from);
+        report.setHorizonHours(minutes / 60);
+        report.setTargetP95LagMillis(targetP95LagMillis);
+        report.setJobRuns(runCount);
+        report.setTruncated(truncated);
+        addLoad(report);
+
+        report.setCurrentWorkers(currentWorkers);
+        report.setCurrentP95LagMillis(p95LagMillis(Math.max(1, currentWorkers)));
+        int low = 1;
+        int high = MAX_WORKERS;
+        final long lagAtMax = p95LagMillis(high);
+        report.setTargetReachable(lagAtMax <= targetP95LagMillis);
+        while (low < high) {
+            final int workers = (low + high) >>> 1;
+            if (p95LagMillis(workers) <= targetP95LagMillis) {
+                high = workers;
+            } else {
+                low = workers + 1;
+            }
+        }
+        report.setRecommendedWorkers(low);
+        report.setRecommendedExtraThreads(Math.max(0, low - JIRA_DEFAULT_WORKERS));
+        report.setRecommendedP95LagMillis(low == MAX_WORKERS ? lagAtMax : p95LagMillis(low));
+        return report;
+    }
+
+    /**
+     * Count the runs due, and the time spent running, in each minute, as if every run started on time.
+     * The jobs of each pool count for no more than the pool's threads + queueSize.
+     */
+    private void addLoad(final ForecastReport report) {
+        final int[] due = new int[minutes];
+        // Index 0 is the jobs run by Caesium, and pool p is at p + 1.
+        final long[][] busyMillis = new long[poolCount + 1][minutes + 1];
+        final long[][] fullMinutes = new long[poolCount + 1][minutes + 1];
+        final long end = minutes * MINUTE_MILLIS;
+        for (int i = 0; i < runCount; i++) {
+            final int runner = (int) (runs[i] & RUNNER_MASK);
+            final int group = runnerPools[runner] + 1;
+            final long start = runs[i] >>> RUNNER_BITS;
+            final long finish = Math.min(end, start + durations[runner]);
+            final int first = (int) (start / MINUTE_MILLIS);
+            due[first]++;
+            if (finish <= start) {
+                continue;
+            }
+            final int last = (int) ((finish - 1) / MINUTE_MILLIS);
+            if (first == last) {
+                busyMillis[group][first] += finish - start;
+            } else {
+                busyMillis[group][first] += (first + 1) * MINUTE_MILLIS - start;
+                busyMillis[group][last] += finish - last * MINUTE_MILLIS;
+                // Minutes wholly inside the run, added as a range with a difference array.
+                fullMinutes[group][first + 1]++;
+                fullMinutes[group][last]--;
+            }
+        }
+        final long[] running = new long[poolCount + 1];
+        double peak = 0;
+        for (int minute = 0; minute < minutes; minute++) {
+            double concurrency = 0;
+            for (int group = 0; group <= poolCount; group++) {
+                running[group] += fullMinutes[group][minute];
+                final double groupConcurrency = (busyMillis[group][minute] + running[group] * MINUTE_MILLIS) /
+                        (double) MINUTE_MILLIS;
+                concurrency += group == 0 ? groupConcurrency :
+                        Math.min(groupConcurrency, poolThreads[group - 1] + poolQueueSizes[group - 1]);
+            }
+            report.getDueJobs().add(due[minute]);
+            report.getConcurrency().add(Math.round(concurrency * 100) / 100.0);
+            peak = Math.max(peak, concurrency);
+        }
+        report.setPeakConcurrency(Math.round(peak * 100) / 100.0);
+    }
+
+    /**
+     * Replay the runs against the given number of workers.
+     * @return the p95 of how late runs would start, in milliseconds.
+     */
+    long p95LagMillis(final int workers) {
+        final long[] freeAt = new long[workers];
+        final long[][] poolThreadsFreeAt = new long[poolCount][];
+        final long[][] poolSlotsFreeAt = new long[poolCount][];
+        for (int pool = 0; pool < poolCount; pool++) {
+            poolThreadsFreeAt[pool] = new long[poolThreads[pool]];
+            poolSlotsFreeAt[pool] = new long[poolThreads[pool] + poolQueueSizes[pool]];
+        }
+        final LatencyHistogram lag = new LatencyHistogram();
+        for (int i = 0; i < runCount; i++) {
+            final int runner = (int) (runs[i] & RUNNER_MASK);
+            final long due = runs[i] >>> RUNNER_BITS;
+            final long start = Math.max(due, freeAt[0]);
+            lag.record(start - due);
+            final int pool = runnerPools[runner];
+            freeAt[0] = start + (pool == NO_POOL ? durations[runner] :
+                    poolWaitMillis(poolThreadsFreeAt[pool], poolSlotsFreeAt[pool], start, durations[runner]));
+            siftDown(freeAt);
+        }
+        return lag.snapshot().getValueAtPercentile(95);
+    }
+
+    /**
+     * Hand a run to a pool, as a Caesium worker does when it starts a pool job.
+     * Runs reach a pool in the order their workers start them, so the heaps of when each pool thread, and each
+     * place in the pool (thread or queue), is next free are enough to replay it.
+     * @return how long the worker waits: until a pool thread has run the job, or not at all if every place in the
+     * pool is taken and it turns the run away.
+     */
+    private static long poolWaitMillis(final long[] threadsFreeAt, final long[] slotsFreeAt, final long start,
+                                       final long durationMillis) {
+        if (slotsFreeAt.length == 0 || slotsFreeAt[0] > start) {
+            return 0L;
+        }
+        final long finish = Math.max(start, threadsFreeAt[0]) + durationMillis;
+        threadsFreeAt[0] = finish;
+        siftDown(threadsFreeAt);
+        slotsFreeAt[0] = finish;
+        siftDown(slotsFreeAt);
+        return finish - start;
+    }
+
+    private static void siftDown(final long[] heap) {
+        final long value = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heap.length) {
+                break;
+            }
+            if (child + 1 < heap.length && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= value) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+
+    private long runnerIndex(final String jobRunnerKey, final long durationMillis, final int pool) {
+        final Integer existing = runnerIndexes.get(jobRunnerKey);
+        if (existing != null) {
+            return existing;
+        }
+        final int index = runnerIndexes.size();
+        if (index == durations.length) {
+            durations = Arrays.copyOf(durations, durations.length * 2);
+            runnerPools = Arrays.copyOf(runnerPools, runnerPools.length * 2);
+        }
+        durations[index] = Math.max(0L, durationMillis);
+        runnerPools[index] = pool >= 0 && pool < poolCount ? pool : NO_POOL;
+        runnerIndexes.put(jobRunnerKey, index);
+        return index;
+    }
+
+    /**
+     * @param schedules the job schedules.
+     * @param durationsMillis the average run time of each runner.
+     * @param assumedDurationMillis the run time to assume for runners with none recorded.
+     * @return the number of runners with no recorded run time.
+     */
+    public int addAll(final List<JobSchedule> schedules, final Map<String, Long> durationsMillis,
+                      final long assumedDurationMillis) {
+        return addAll(schedules, durationsMillis, assumedDurationMillis, jobRunnerKey -> NO_POOL);
+    }
+
+    /**
+     * @param schedules the job schedules.
+     * @param durationsMillis the average run time of each runner.
+     * @param assumedDurationMillis the run time to assume for runners with none recorded.
+     * @param pools the index of the pool each runner is routed to, or {@link #NO_POOL}.
+     * @return the number of runners with no recorded run time.
+     */
+    public int addAll(final List<JobSchedule> schedules, final Map<String, Long> durationsMillis,
+                      final long assumedDurationMillis, final ToIntFunction<String> pools) {
+        int withoutHistory = 0;
+        for (JobSchedule schedule : schedules) {
+            final Long duration = durationsMillis.get(schedule.getJobRunnerKey());
+            if (duration == null && !runnerIndexes.containsKey(schedule.getJobRunnerKey())) {
+                withoutHistory++;
+            }
+            add(schedule, duration != null ? duration : assumedDurationMillis,
+                    pools.applyAsInt(schedule.getJobRunnerKey()));
+        }
+        return withoutHistory;
+    }
+}
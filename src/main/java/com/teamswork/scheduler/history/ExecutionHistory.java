@@ -0,0 +1,182 @@
+package com.teamswork.scheduler.history;
+
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.status.RunOutcome;
+import com.teamswork.scheduler.model.ExecutionHistoryPage;
+import com.teamswork.scheduler.model.ExecutionRecord;
+
+import javax.inject.Named;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed size ring buffer of the most recent job runs. Everything is allocated up front as parallel arrays,
+ * with runner keys and thread group names stored as ids into a small name table, so recording a run allocates
+ * nothing once a name has been seen and memory stays the same however many jobs run.
+ * Writers claim a slot with a single atomic increment and never block. Each slot carries the sequence number of
+ * the run in it, set to WRITING while it is being written, so readers can skip a slot that changes under them.
+ */
+@Named
+public class ExecutionHistory {
+    public static final int DEFAULT_CAPACITY = 8192;
+    static final int MAX_NAMES = 1024;
+    static final String OTHER_NAME = "(other)";
+    private static final long WRITING = -1L;
+    private static final long EMPTY = -2L;
+    private static final RunOutcome[] OUTCOMES = RunOutcome.values();
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicLongArray sequences;
+    private final JobId[] jobIds;
+    private final int[] runnerKeys;
+    private final int[] threadGroups;
+    private final long[] scheduledTimes;
+    private final long[] startTimes;
+    private final long[] endTimes;
+    private final byte[] outcomes;
+
+    private final Map<String, Integer> nameIds = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> names = new AtomicReferenceArray<>(MAX_NAMES);
+    private final AtomicLong nameCount = new AtomicLong(1);
+
+    public ExecutionHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of runs to keep, rounded up to a power of two.
+     */
+    public ExecutionHistory(final int capacity) {
+        this.capacity = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, EMPTY);
+        }
+        this.jobIds = new JobId[this.capacity];
+        this.runnerKeys = new int[this.capacity];
+        this.threadGroups = new int[this.capacity];
+        this.scheduledTimes = new long[this.capacity];
+        this.startTimes = new long[this.capacity];
+        this.endTimes = new long[this.capacity];
+        this.outcomes = new byte[this.capacity];
+        names.set(0, OTHER_NAME);
+    }
+
+    /**
+     * Record a job run. Called on the thread that ran the job.
+     */
+    public void record(final JobId jobId, final String runnerKey, final String threadGroup,
+                       final long scheduledTime, final long startTime, final long endTime, final RunOutcome outcome) {
+        final long sequence = next.getAndIncrement();
+        final int slot = (int) (sequence & mask);
+        sequences.set(slot, WRITING);
+        VarHandle.storeStoreFence();
+        jobIds[slot] = jobId;
+        runnerKeys[slot] = nameId(runnerKey);
+        threadGroups[slot] = nameId(threadGroup);
+        scheduledTimes[slot] = scheduledTime;
+        startTimes[slot] = startTime;
+        endTimes[slot] = endTime;
+        outcomes[slot] = (byte) outcome.ordinal();
+        sequences.set(slot, sequence);
+    }
+
+    /**
+     * Find recorded runs, newest first. Null filters match everything.
+     * @param runnerKey only runs of this job runner.
+     * @param threadGroup only runs on this thread group.
+     * @param from only runs started at or after this time.
+     * @param to only runs started at or before this time.
+     * @param offset the number of matching runs to skip.
+     * @param limit the most runs to return.
+     */
+    public ExecutionHistoryPage query(final String runnerKey, final String threadGroup, final Long from, final Long to,
+                                      final int offset, final int limit) {
+        final ExecutionHistoryPage page = new ExecutionHistoryPage();
+        final long newest = next.get() - 1;
+        page.setCapacity(capacity);
+        page.setRecorded(newest + 1);
+        page.setOffset(offset);
+        page.setLimit(limit);
+
+        // A name we have never seen cannot match anything.
+        final int runnerKeyId = runnerKey == null ? -1 : nameIds.getOrDefault(runnerKey, -2);
+        final int threadGroupId = threadGroup == null ? -1 : nameIds.getOrDefault(threadGroup, -2);
+        if (runnerKeyId == -2 || threadGroupId == -2) {
+            return page;
+        }
+
+        int matching = 0;
+        for (long sequence = newest; sequence >= 0 && sequence > newest - capacity; sequence--) {
+            final int slot = (int) (sequence & mask);
+            if (sequences.get(slot) != sequence) {
+                continue;
+            }
+            final JobId jobId = jobIds[slot];
+            final int recordRunnerKey = runnerKeys[slot];
+            final int recordThreadGroup = threadGroups[slot];
+            final long scheduledTime = scheduledTimes[slot];
+            final long startTime = startTimes[slot];
+            final long endTime = endTimes[slot];
+            final byte outcome = outcomes[slot];
+            VarHandle.loadLoadFence();
+            if (sequences.get(slot) != sequence) {
+                continue;
+            }
+            if ((runnerKeyId >= 0 && recordRunnerKey != runnerKeyId)
+                    || (threadGroupId >= 0 && recordThreadGroup != threadGroupId)
+                    || (from != null && startTime < from) || (to != null && startTime > to)) {
+                continue;
+            }
+            if (matching >= offset && page.getRecords().size() < limit) {
+                final ExecutionRecord record = new ExecutionRecord();
+                record.setJobId(String.valueOf(jobId));
+                record.setRunnerKey(names.get(recordRunnerKey));
+                record.setThreadGroup(names.get(recordThreadGroup));
+                record.setScheduledTime(scheduledTime);
+                record.setStartTime(startTime);
+                record.setEndTime(endTime);
+                record.setOutcome(OUTCOMES[outcome].name());
+                page.getRecords().add(record);
+            }
+            matching++;
+        }
+        page.setMatching(matching);
+        return page;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Once MAX_NAMES names have been seen, new ones are recorded as OTHER_NAME so the table stays bounded too.
+     */
+    private int nameId(final String name) {
+        if (name == null) {
+            return 0;
+        }
+        final Integer id = nameIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (nameCount.get() >= MAX_NAMES) {
+            return 0;
+        }
+        return nameIds.computeIfAbsent(name, key -> {
+            final long newId = nameCount.getAndIncrement();
+            if (newId >= MAX_NAMES) {
+                return 0;
+            }
+            names.set((int) newId, key);
+            return (int) newId;
+        });
+    }
+}
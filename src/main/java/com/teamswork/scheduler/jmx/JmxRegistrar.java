@@ -0,0 +1,162 @@
+package com.teamswork.scheduler.jmx;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.teamswork.scheduler.component.EnhancedJiraCaesiumSchedulerConfiguration;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.WorkerPoolStatus;
+import com.teamswork.scheduler.pool.WorkerPoolManager;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+import com.teamswork.scheduler.service.ThreadGroupUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers the scheduler MBeans in the platform MBean server when the plugin is enabled, and removes them when
+ * it is disabled. Thread groups and worker pools come and go, so their MBeans are brought up to date every
+ * few seconds, and straight after a JMX operation that changes them.
+ */
+@Named
+public class JmxRegistrar extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(JmxRegistrar.class);
+    public static final String DOMAIN = "com.teamswork.scheduler";
+    private static final long SYNC_INTERVAL_SECONDS = 10;
+
+    private final SchedulerConfigurator schedulerConfigurator;
+    private final EnhancedJiraCaesiumSchedulerConfiguration enhancedConfig;
+    private final SchedulerMetricsService metricsService;
+    private final WorkerPoolManager workerPoolManager;
+    private final ThreadGroupUtils threadGroupUtils;
+    private final Map<ObjectName, Object> registered = new ConcurrentHashMap<>();
+    private MBeanServer mBeanServer;
+    private ScheduledExecutorService executor;
+
+    public JmxRegistrar(@ComponentImport final EventPublisher eventPublisher,
+                        final SchedulerConfigurator schedulerConfigurator,
+                        final EnhancedJiraCaesiumSchedulerConfiguration enhancedConfig,
+                        final SchedulerMetricsService metricsService,
+                        final WorkerPoolManager workerPoolManager,
+                        final ThreadGroupUtils threadGroupUtils) {
+        super(eventPublisher);
+        this.schedulerConfigurator = schedulerConfigurator;
+        this.enhancedConfig = enhancedConfig;
+        this.metricsService = metricsService;
+        this.workerPoolManager = workerPoolManager;
+        this.threadGroupUtils = threadGroupUtils;
+    }
+
+    @Override
+    protected void onAppStart() {
+        start(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        stop();
+    }
+
+    /**
+     * Register the scheduler MBean, and start keeping the thread group and worker pool MBeans up to date.
+     * @param server the MBean server to register them in.
+     */
+    public synchronized void start(final MBeanServer server) {
+        try {
+            mBeanServer = server;
+            register(new ObjectName(DOMAIN + ":type=Scheduler"),
+                    new SchedulerJmx(schedulerConfigurator, enhancedConfig, metricsService, this::sync));
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "JES-jmx");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::sync, 0, SYNC_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        } catch (final Exception e) {
+            log.error("Error registering the scheduler MBeans. ", e);
+        }
+    }
+
+    /**
+     * Stop keeping the MBeans up to date and unregister them all.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        for (ObjectName name : registered.keySet()) {
+            unregister(name);
+        }
+    }
+
+    /**
+     * Register MBeans for new thread groups and worker pools, and unregister those that have gone.
+     */
+    synchronized void sync() {
+        if (mBeanServer == null) {
+            return;
+        }
+        try {
+            final Set<ObjectName> current = new HashSet<>();
+            for (Map.Entry<String, Integer> group : threadGroupUtils.getThreadCountsByGroup(SchedulerConfigurator.defaultThreadGroupPrefix).entrySet()) {
+                if (group.getValue() > 0) {
+                    final ObjectName name = new ObjectName(DOMAIN + ":type=ThreadGroup,name=" + group.getKey());
+                    current.add(name);
+                    if (!registered.containsKey(name)) {
+                        final ThreadGroup threadGroup = threadGroupUtils.getThreadGroupByName(group.getKey());
+                        if (threadGroup != null) {
+                            register(name, new ThreadGroupJmx(threadGroup, metricsService));
+                        }
+                    }
+                }
+            }
+            for (WorkerPoolStatus pool : workerPoolManager.getStatuses()) {
+                final ObjectName name = new ObjectName(DOMAIN + ":type=WorkerPool,name=" + pool.getName());
+                current.add(name);
+                if (!registered.containsKey(name)) {
+                    register(name, new WorkerPoolJmx(pool.getName(), workerPoolManager));
+                }
+            }
+            for (ObjectName name : registered.keySet()) {
+                if (!current.contains(name) && !"Scheduler".equals(name.getKeyProperty("type"))) {
+                    unregister(name);
+                }
+            }
+        } catch (final Exception e) {
+            log.warn("Error updating the scheduler MBeans: {}", e.getMessage());
+        }
+    }
+
+    private void register(final ObjectName name, final Object mBean) throws Exception {
+        if (mBeanServer.isRegistered(name)) {
+            // Left behind by an earlier instance of the plugin.
+            mBeanServer.unregisterMBean(name);
+        }
+        mBeanServer.registerMBean(mBean, name);
+        registered.put(name, mBean);
+        log.debug("Registered MBean {}", name);
+    }
+
+    private void unregister(final ObjectName name) {
+        registered.remove(name);
+        try {
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+            }
+        } catch (final Exception e) {
+            log.warn("Error unregistering MBean {}: {}", name, e.getMessage());
+        }
+    }
+}
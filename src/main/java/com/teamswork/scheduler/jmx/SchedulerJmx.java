@@ -0,0 +1,132 @@
+package com.teamswork.scheduler.jmx;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
+import com.teamswork.scheduler.component.EnhancedJiraCaesiumSchedulerConfiguration;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.metrics.ThreadGroupStats;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+
+/**
+ * Exposes SchedulerConfigurator and the scheduler metrics over JMX. Operations are the same as those of the REST api,
+ * and the registered MBeans are brought up to date straight after each one.
+ */
+class SchedulerJmx implements SchedulerMXBean {
+    private final SchedulerConfigurator schedulerConfigurator;
+    private final EnhancedJiraCaesiumSchedulerConfiguration enhancedConfig;
+    private final SchedulerMetricsService metricsService;
+    private final Runnable onChange;
+
+    SchedulerJmx(final SchedulerConfigurator schedulerConfigurator,
+                 final EnhancedJiraCaesiumSchedulerConfiguration enhancedConfig,
+                 final SchedulerMetricsService metricsService,
+                 final Runnable onChange) {
+        this.schedulerConfigurator = schedulerConfigurator;
+        this.enhancedConfig = enhancedConfig;
+        this.metricsService = metricsService;
+        this.onChange = onChange;
+    }
+
+    @Override
+    public String getState() {
+        return String.valueOf(ComponentAccessor.getComponent(CaesiumSchedulerService.class).getState());
+    }
+
+    @Override
+    public boolean isReconfigured() {
+        return schedulerConfigurator.isSchedulerReconfigured();
+    }
+
+    @Override
+    public int getConfiguredThreadCount() {
+        return enhancedConfig.workerThreadCount();
+    }
+
+    @Override
+    public int getWorkerThreads() {
+        return schedulerConfigurator.getSchedulerThreadCount();
+    }
+
+    @Override
+    public int getExtraWorkerThreads() {
+        return schedulerConfigurator.getExtraThreadCount();
+    }
+
+    @Override
+    public int getActiveWorkers() {
+        return metricsService.getSchedulerJobsInFlight();
+    }
+
+    @Override
+    public int getIdleWorkers() {
+        return Math.max(0, getWorkerThreads() - getActiveWorkers());
+    }
+
+    @Override
+    public long getCompletedJobs() {
+        long completed = 0;
+        for (ThreadGroupStats stats : metricsService.getAllThreadGroupStats()) {
+            completed += stats.getCompletedJobs();
+        }
+        return completed;
+    }
+
+    @Override
+    public long getLagMillis() {
+        return metricsService.getLastLagMicros() / 1000L;
+    }
+
+    @Override
+    public OperationResult configureThreadCount(final int threadCount) {
+        return schedulerConfigurator.configureThreadCount(threadCount);
+    }
+
+    @Override
+    public OperationResult startExtraThreadGroup() {
+        try {
+            if (!schedulerConfigurator.isSchedulerReconfigured()) {
+                final OperationResult result = schedulerConfigurator.replaceSchedulerConfiguration();
+                if (!result.isSuccess()) {
+                    return result;
+                }
+            }
+            return schedulerConfigurator.startSchedulerWithExtraThreadGroup();
+        } finally {
+            onChange.run();
+        }
+    }
+
+    @Override
+    public OperationResult addExtraThreads(final int threads) {
+        try {
+            return schedulerConfigurator.addExtraThreads(threads);
+        } finally {
+            onChange.run();
+        }
+    }
+
+    @Override
+    public OperationResult retireThreadGroup(final String threadGroupName) {
+        try {
+            return schedulerConfigurator.destroyThreadGroupByName(threadGroupName);
+        } finally {
+            onChange.run();
+        }
+    }
+
+    @Override
+    public OperationResult checkRetirement(final String threadGroupName) {
+        return schedulerConfigurator.getRetirement(threadGroupName);
+    }
+
+    @Override
+    public OperationResult pause() {
+        return schedulerConfigurator.pauseScheduler();
+    }
+
+    @Override
+    public OperationResult start() {
+        return schedulerConfigurator.startScheduler();
+    }
+}
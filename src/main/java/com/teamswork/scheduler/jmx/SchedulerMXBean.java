@@ -0,0 +1,66 @@
+package com.teamswork.scheduler.jmx;
+
+import com.teamswork.scheduler.model.OperationResult;
+
+/**
+ * The Caesium scheduler as a whole, registered as com.teamswork.scheduler:type=Scheduler.
+ * Attributes are read from counters and a status snapshot shared for up to a second, so they can be polled every second.
+ */
+public interface SchedulerMXBean {
+
+    /**
+     * @return the scheduler state, e.g. STARTED or STANDBY.
+     */
+    String getState();
+
+    boolean isReconfigured();
+
+    /**
+     * @return the number of threads the next extra thread group will start with.
+     */
+    int getConfiguredThreadCount();
+
+    /**
+     * @return the live threads in all Caesium thread groups, including the default one.
+     */
+    int getWorkerThreads();
+
+    int getExtraWorkerThreads();
+
+    int getActiveWorkers();
+
+    int getIdleWorkers();
+
+    long getCompletedJobs();
+
+    /**
+     * @return how late a worker most recently picked up a due job, in milliseconds.
+     */
+    long getLagMillis();
+
+    OperationResult configureThreadCount(int threadCount);
+
+    /**
+     * Reconfigure the scheduler if needed and start an extra thread group of the configured size.
+     */
+    OperationResult startExtraThreadGroup();
+
+    /**
+     * Start an extra thread group of the given size, without changing the configured thread count.
+     */
+    OperationResult addExtraThreads(int threads);
+
+    /**
+     * Start retiring an extra thread group. Returns straight away; the drain is followed with checkRetirement.
+     */
+    OperationResult retireThreadGroup(String threadGroupName);
+
+    /**
+     * How far the retirement of a thread group has got; successful once it has retired.
+     */
+    OperationResult checkRetirement(String threadGroupName);
+
+    OperationResult pause();
+
+    OperationResult start();
+}
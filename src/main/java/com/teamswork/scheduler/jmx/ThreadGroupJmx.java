@@ -0,0 +1,50 @@
+package com.teamswork.scheduler.jmx;
+
+import com.teamswork.scheduler.metrics.ThreadGroupStats;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+
+/**
+ * Holds on to the thread group itself, so reading its size does not walk every thread group in the JVM.
+ */
+class ThreadGroupJmx implements ThreadGroupMXBean {
+    private final ThreadGroup threadGroup;
+    private final SchedulerMetricsService metricsService;
+
+    ThreadGroupJmx(final ThreadGroup threadGroup, final SchedulerMetricsService metricsService) {
+        this.threadGroup = threadGroup;
+        this.metricsService = metricsService;
+    }
+
+    @Override
+    public String getName() {
+        return threadGroup.getName();
+    }
+
+    @Override
+    public int getSize() {
+        return threadGroup.activeCount();
+    }
+
+    @Override
+    public int getActiveWorkers() {
+        final ThreadGroupStats stats = metricsService.getThreadGroupStats(threadGroup.getName());
+        return stats != null ? stats.getActiveWorkers() : 0;
+    }
+
+    @Override
+    public int getIdleWorkers() {
+        return Math.max(0, getSize() - getActiveWorkers());
+    }
+
+    @Override
+    public long getCompletedJobs() {
+        final ThreadGroupStats stats = metricsService.getThreadGroupStats(threadGroup.getName());
+        return stats != null ? stats.getCompletedJobs() : 0L;
+    }
+
+    @Override
+    public long getLagMillis() {
+        final ThreadGroupStats stats = metricsService.getThreadGroupStats(threadGroup.getName());
+        return stats != null ? stats.getLastLagMicros() / 1000L : 0L;
+    }
+}
@@ -0,0 +1,25 @@
+package com.teamswork.scheduler.jmx;
+
+/**
+ * One Caesium thread group, registered as com.teamswork.scheduler:type=ThreadGroup,name=Caesium-N.
+ */
+public interface ThreadGroupMXBean {
+
+    String getName();
+
+    /**
+     * @return the live threads in the group.
+     */
+    int getSize();
+
+    int getActiveWorkers();
+
+    int getIdleWorkers();
+
+    long getCompletedJobs();
+
+    /**
+     * @return how late the group's most recent job was picked up, in milliseconds.
+     */
+    long getLagMillis();
+}
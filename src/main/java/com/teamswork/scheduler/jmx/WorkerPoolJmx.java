@@ -0,0 +1,70 @@
+package com.teamswork.scheduler.jmx;
+
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.WorkerPoolStatus;
+import com.teamswork.scheduler.pool.WorkerPoolManager;
+
+/**
+ * Reads the pool's figures from WorkerPoolManager on each call. A pool that has since been removed reports zeros
+ * until its MBean is unregistered.
+ */
+class WorkerPoolJmx implements WorkerPoolMXBean {
+    private final String name;
+    private final WorkerPoolManager workerPoolManager;
+
+    WorkerPoolJmx(final String name, final WorkerPoolManager workerPoolManager) {
+        this.name = name;
+        this.workerPoolManager = workerPoolManager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getMode() {
+        return String.valueOf(status().getMode());
+    }
+
+    @Override
+    public int getThreads() {
+        return status().getThreads();
+    }
+
+    @Override
+    public int getActiveThreads() {
+        return status().getActiveThreads();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        final WorkerPoolStatus status = status();
+        return Math.max(0, status.getThreads() - status.getActiveThreads());
+    }
+
+    @Override
+    public int getQueuedJobs() {
+        return status().getQueuedJobs();
+    }
+
+    @Override
+    public long getCompletedJobs() {
+        return status().getCompletedJobs();
+    }
+
+    @Override
+    public long getRejectedJobs() {
+        return status().getRejectedJobs();
+    }
+
+    @Override
+    public OperationResult resize(final int threads) {
+        return workerPoolManager.resize(name, threads);
+    }
+
+    private WorkerPoolStatus status() {
+        final WorkerPoolStatus status = workerPoolManager.getStatus(name);
+        return status != null ? status : new WorkerPoolStatus();
+    }
+}
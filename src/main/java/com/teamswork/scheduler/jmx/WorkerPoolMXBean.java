@@ -0,0 +1,30 @@
+package com.teamswork.scheduler.jmx;
+
+import com.teamswork.scheduler.model.OperationResult;
+
+/**
+ * One worker pool, registered as com.teamswork.scheduler:type=WorkerPool,name=&lt;pool&gt;.
+ */
+public interface WorkerPoolMXBean {
+
+    String getName();
+
+    String getMode();
+
+    int getThreads();
+
+    int getActiveThreads();
+
+    int getIdleThreads();
+
+    int getQueuedJobs();
+
+    long getCompletedJobs();
+
+    long getRejectedJobs();
+
+    /**
+     * Change the pool's thread count. The change is stored, as if the pool definitions had been saved.
+     */
+    OperationResult resize(int threads);
+}
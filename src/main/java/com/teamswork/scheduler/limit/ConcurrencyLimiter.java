@@ -0,0 +1,204 @@
+package com.teamswork.scheduler.limit;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.model.ConcurrencyLimit;
+import com.teamswork.scheduler.model.ConcurrencyLimitStatus;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.runner.DeferredJobRunnerRequest;
+import com.teamswork.scheduler.service.JobRequeuer;
+import com.teamswork.scheduler.utils.KeyPattern;
+import com.teamswork.scheduler.utils.KeyRules;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_LIMITS_KEY;
+
+/**
+ * Caps how many runs of a JobRunnerKey may be in progress at once on this node, e.g. so extra threads cannot run
+ * several copies of a heavy job and use up the database connection pool. Each key matching a pattern gets its own
+ * permits. A run over its key's limit is put back on the queue with JobRequeuer, waiting a little longer each time,
+ * rather than holding a worker while it waits. Limits are stored in ApplicationProperties under
+ * SCHEDULER_LIMITS_KEY, one pattern=maxConcurrent per line; the first matching pattern wins.
+ */
+@Named
+public class ConcurrencyLimiter extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+    private static final int MAX_CONCURRENT = 64;
+    static final long DEFER_DELAY_MILLIS = 5 * 1000L;
+    static final long MAX_DEFER_DELAY_MILLIS = 60 * 1000L;
+    static final int MAX_DEFERRALS = 30;
+
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+    private final JobRequeuer jobRequeuer;
+    private final KeyRules<Rule, KeyLimit> rules = new KeyRules<>(rule -> rule.pattern, this::resolve);
+    private final Map<JobRunnerKey, KeyLimit> keyLimits = new ConcurrentHashMap<>();
+    private volatile List<ConcurrencyLimit> limits = new ArrayList<>();
+
+    public ConcurrencyLimiter(@ComponentImport final EventPublisher eventPublisher,
+                              @ComponentImport final ApplicationProperties applicationProperties,
+                              @ComponentImport final I18nHelper i18nHelper,
+                              final JobRequeuer jobRequeuer) {
+        super(eventPublisher);
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+        this.jobRequeuer = jobRequeuer;
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            apply(load());
+        } catch (final Exception e) {
+            log.error("Error loading the concurrency limits. ", e);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        rules.clear();
+    }
+
+    /**
+     * @param jobRunnerKey the job runner key.
+     * @return the key's permits, or null if runs of the key are not limited. Cached per key.
+     */
+    public KeyLimit getLimit(final JobRunnerKey jobRunnerKey) {
+        return rules.get(jobRunnerKey);
+    }
+
+    /**
+     * Put a run that is over its key's limit back on the queue.
+     * @return the response to give Caesium for this run.
+     */
+    public JobRunnerResponse overLimit(final JobRunnerRequest request, final JobRunnerKey jobRunnerKey,
+                                       final KeyLimit limit) {
+        final int attempt = request instanceof DeferredJobRunnerRequest ?
+                ((DeferredJobRunnerRequest) request).getAttempt() : 0;
+        final long delayMillis = Math.min(MAX_DEFER_DELAY_MILLIS, DEFER_DELAY_MILLIS * (attempt + 1));
+        if (jobRequeuer.defer(request, jobRunnerKey, delayMillis, "concurrency limit reached", MAX_DEFERRALS)) {
+            limit.deferred();
+            return JobRunnerResponse.aborted("Concurrency limit of " + limit.getUsage().getMaxConcurrent()
+                    + " reached, deferred for " + delayMillis + "ms");
+        }
+        limit.aborted();
+        log.warn("Job {} is still over the concurrency limit for {} after {} deferrals, skipping this run.",
+                request.getJobId(), jobRunnerKey, MAX_DEFERRALS);
+        return JobRunnerResponse.aborted("Concurrency limit reached, deferred too often");
+    }
+
+    /**
+     * Validate, store and apply new limits. Runs in progress keep their permits.
+     * @param newLimits the limits.
+     * @return the outcome of the operation.
+     */
+    public OperationResult configure(final List<ConcurrencyLimit> newLimits) {
+        for (ConcurrencyLimit limit : newLimits) {
+            if (limit.getPattern() == null || limit.getPattern().trim().isEmpty() || limit.getPattern().contains("=")) {
+                return new OperationResult(false, i18nHelper.getText("jes.limits.invalid.pattern", limit.getPattern()));
+            }
+            if (limit.getMaxConcurrent() < 1 || limit.getMaxConcurrent() > MAX_CONCURRENT) {
+                return new OperationResult(false, i18nHelper.getText("jes.limits.invalid.max",
+                        limit.getPattern(), MAX_CONCURRENT));
+            }
+        }
+        final Map<String, Object> values = new LinkedHashMap<>();
+        for (ConcurrencyLimit limit : newLimits) {
+            values.put(limit.getPattern().trim(), limit.getMaxConcurrent());
+        }
+        applicationProperties.setText(SCHEDULER_LIMITS_KEY, SettingsText.format(values));
+        apply(newLimits);
+        return new OperationResult(true, i18nHelper.getText("jes.limits.configured", newLimits.size()));
+    }
+
+    /**
+     * @return the limits, and the live permit usage of every key they have applied to, busiest first.
+     */
+    public ConcurrencyLimitStatus getStatus() {
+        final ConcurrencyLimitStatus status = new ConcurrencyLimitStatus();
+        status.setLimits(limits);
+        status.setUsage(keyLimits.values().stream()
+                .map(KeyLimit::getUsage)
+                .sorted(Comparator.comparingInt(usage -> -usage.getRunning()))
+                .collect(Collectors.toList()));
+        return status;
+    }
+
+    private synchronized void apply(final List<ConcurrencyLimit> newLimits) {
+        final List<Rule> newRules = new ArrayList<>();
+        final Set<String> patterns = new HashSet<>();
+        for (ConcurrencyLimit limit : newLimits) {
+            if (patterns.add(limit.getPattern().trim())) {
+                newRules.add(new Rule(new KeyPattern(limit.getPattern()), limit.getMaxConcurrent()));
+            }
+        }
+        limits = newLimits;
+        rules.update(newRules);
+        // Keep the permits of keys that are still limited, so runs in progress are still counted.
+        for (Iterator<Map.Entry<JobRunnerKey, KeyLimit>> it = keyLimits.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<JobRunnerKey, KeyLimit> entry = it.next();
+            final Rule rule = rules.find(entry.getKey().toString());
+            if (rule == null) {
+                it.remove();
+            } else {
+                entry.getValue().update(rule.pattern.getPattern(), rule.maxConcurrent);
+            }
+        }
+        log.info("Concurrency limits applied: {} patterns.", newRules.size());
+    }
+
+    /**
+     * Synchronized with apply, so a key's permits are only created for the rules in place.
+     */
+    private synchronized KeyLimit resolve(final JobRunnerKey jobRunnerKey) {
+        final Rule rule = rules.find(jobRunnerKey.toString());
+        if (rule == null) {
+            return null;
+        }
+        return keyLimits.computeIfAbsent(jobRunnerKey,
+                key -> new KeyLimit(key.toString(), rule.pattern.getPattern(), rule.maxConcurrent));
+    }
+
+    private List<ConcurrencyLimit> load() {
+        final List<ConcurrencyLimit> loaded = new ArrayList<>();
+        for (Map.Entry<String, String> entry : SettingsText.parse(applicationProperties.getText(SCHEDULER_LIMITS_KEY)).entrySet()) {
+            try {
+                loaded.add(new ConcurrencyLimit(entry.getKey(),
+                        Math.max(1, Math.min(MAX_CONCURRENT, Integer.parseInt(entry.getValue())))));
+            } catch (NumberFormatException e) {
+                log.error("Ignoring invalid concurrency limit: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return loaded;
+    }
+
+    private static class Rule {
+        private final KeyPattern pattern;
+        private final int maxConcurrent;
+
+        private Rule(final KeyPattern pattern, final int maxConcurrent) {
+            this.pattern = pattern;
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+}
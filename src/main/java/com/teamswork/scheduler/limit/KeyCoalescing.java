@@ -0,0 +1,59 @@
+package com.teamswork.scheduler.limit;
+
+import com.atlassian.scheduler.config.JobId;
+import com.teamswork.scheduler.model.CoalescingUsage;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The jobs of one coalesced JobRunnerKey that are running on this node. A due run of a job that is already
+ * running is turned away, since the run in progress does the same work.
+ */
+public class KeyCoalescing {
+    private final String jobRunnerKey;
+    private final Set<JobId> running = ConcurrentHashMap.newKeySet();
+    private final AtomicLong coalescedRuns = new AtomicLong();
+    private volatile long lastCoalescedAt;
+    private volatile String pattern;
+
+    public KeyCoalescing(final String jobRunnerKey, final String pattern) {
+        this.jobRunnerKey = jobRunnerKey;
+        this.pattern = pattern;
+    }
+
+    /**
+     * @return true if the job was not running and is now marked as running; it must be ended with end().
+     */
+    public boolean begin(final JobId jobId) {
+        return running.add(jobId);
+    }
+
+    public void end(final JobId jobId) {
+        running.remove(jobId);
+    }
+
+    public void coalesced() {
+        coalescedRuns.incrementAndGet();
+        lastCoalescedAt = System.currentTimeMillis();
+    }
+
+    void update(final String newPattern) {
+        pattern = newPattern;
+    }
+
+    public long getCoalescedRuns() {
+        return coalescedRuns.get();
+    }
+
+    public CoalescingUsage getUsage() {
+        final CoalescingUsage usage = new CoalescingUsage();
+        usage.setJobRunnerKey(jobRunnerKey);
+        usage.setPattern(pattern);
+        usage.setRunningJobs(running.size());
+        usage.setCoalescedRuns(coalescedRuns.get());
+        usage.setLastCoalescedAt(lastCoalescedAt);
+        return usage;
+    }
+}
@@ -0,0 +1,75 @@
+package com.teamswork.scheduler.limit;
+
+import com.teamswork.scheduler.model.ConcurrencyLimitUsage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The permits for one limited JobRunnerKey. Acquiring never blocks: a run over the limit is turned away
+ * so its worker can be used for something else. The limit can be changed while runs hold permits.
+ */
+public class KeyLimit {
+    private final String jobRunnerKey;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peakRunning = new AtomicInteger();
+    private final AtomicLong deferredRuns = new AtomicLong();
+    private final AtomicLong abortedRuns = new AtomicLong();
+    private volatile String pattern;
+    private volatile int maxConcurrent;
+
+    public KeyLimit(final String jobRunnerKey, final String pattern, final int maxConcurrent) {
+        this.jobRunnerKey = jobRunnerKey;
+        this.pattern = pattern;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * @return true if a permit was taken; it must be given back with release().
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            final int current = running.get();
+            if (current >= maxConcurrent) {
+                return false;
+            }
+            if (running.compareAndSet(current, current + 1)) {
+                peakRunning.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        running.decrementAndGet();
+    }
+
+    void deferred() {
+        deferredRuns.incrementAndGet();
+    }
+
+    void aborted() {
+        abortedRuns.incrementAndGet();
+    }
+
+    void update(final String newPattern, final int newMaxConcurrent) {
+        pattern = newPattern;
+        maxConcurrent = newMaxConcurrent;
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    ConcurrencyLimitUsage getUsage() {
+        final ConcurrencyLimitUsage usage = new ConcurrencyLimitUsage();
+        usage.setJobRunnerKey(jobRunnerKey);
+        usage.setPattern(pattern);
+        usage.setMaxConcurrent(maxConcurrent);
+        usage.setRunning(running.get());
+        usage.setPeakRunning(peakRunning.get());
+        usage.setDeferredRuns(deferredRuns.get());
+        usage.setAbortedRuns(abortedRuns.get());
+        return usage;
+    }
+}
@@ -0,0 +1,172 @@
+package com.teamswork.scheduler.limit;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.model.CoalescingStatus;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.runner.DeferredJobRunnerRequest;
+import com.teamswork.scheduler.service.JobDueTimeTracker;
+import com.teamswork.scheduler.service.JobRequeuer;
+import com.teamswork.scheduler.utils.KeyPattern;
+import com.teamswork.scheduler.utils.KeyRules;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_COALESCING_KEY;
+
+/**
+ * Merges redundant runs of the same job when the scheduler is behind, e.g. while catching up after
+ * pauseScheduler(), so a poller that is already running or waiting on the queue does not take a second worker.
+ * For a JobRunnerKey matching one of the patterns, a due run of a job is turned away if that job is already running
+ * on this node, or a deferred run of it is waiting on the queue, and the job's next scheduled run carries on as usual.
+ * Runs turned away because the job is already queued on a worker pool are counted too. Patterns are stored in
+ * ApplicationProperties under SCHEDULER_COALESCING_KEY, one pattern=true per line.
+ */
+@Named
+public class RunCoalescer extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(RunCoalescer.class);
+
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+    private final JobRequeuer jobRequeuer;
+    private final JobDueTimeTracker dueTimeTracker;
+    private final KeyRules<KeyPattern, KeyCoalescing> patterns = new KeyRules<>(pattern -> pattern, this::resolve);
+    private final Map<JobRunnerKey, KeyCoalescing> keyCoalescing = new ConcurrentHashMap<>();
+
+    public RunCoalescer(@ComponentImport final EventPublisher eventPublisher,
+                        @ComponentImport final ApplicationProperties applicationProperties,
+                        @ComponentImport final I18nHelper i18nHelper,
+                        final JobRequeuer jobRequeuer,
+                        final JobDueTimeTracker dueTimeTracker) {
+        super(eventPublisher);
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+        this.jobRequeuer = jobRequeuer;
+        this.dueTimeTracker = dueTimeTracker;
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            apply(new ArrayList<>(SettingsText.parse(applicationProperties.getText(SCHEDULER_COALESCING_KEY)).keySet()));
+        } catch (final Exception e) {
+            log.error("Error loading the coalescing patterns. ", e);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        patterns.clear();
+    }
+
+    /**
+     * @param jobRunnerKey the job runner key.
+     * @return the key's running jobs, or null if runs of the key are not coalesced. Cached per key.
+     */
+    public KeyCoalescing getCoalescing(final JobRunnerKey jobRunnerKey) {
+        return patterns.get(jobRunnerKey);
+    }
+
+    /**
+     * Mark the run's job as running, unless it is already running or has a deferred run waiting on the queue.
+     * @return true if the run should go ahead; it must then be ended with KeyCoalescing.end().
+     */
+    public boolean begin(final JobRunnerRequest request, final KeyCoalescing coalescing) {
+        if (!(request instanceof DeferredJobRunnerRequest) && jobRequeuer.isDeferred(request.getJobId())) {
+            return false;
+        }
+        return coalescing.begin(request.getJobId());
+    }
+
+    /**
+     * Turn away a run that begin() refused. The job's due time moves on as if it had run.
+     * @return the response to give Caesium for this run.
+     */
+    public JobRunnerResponse coalesced(final JobRunnerRequest request, final KeyCoalescing coalescing) {
+        coalescing.coalesced();
+        dueTimeTracker.advance(request.getJobId());
+        log.debug("Coalesced a run of job {} into the run already running or queued.", request.getJobId());
+        return JobRunnerResponse.aborted("Coalesced with a run of " + request.getJobId() + " already running or queued");
+    }
+
+    /**
+     * Validate, store and apply new patterns. Jobs running now are still tracked.
+     * @param newPatterns the JobRunnerKey patterns to coalesce.
+     * @return the outcome of the operation.
+     */
+    public OperationResult configure(final List<String> newPatterns) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        for (String pattern : newPatterns) {
+            if (pattern == null || pattern.trim().isEmpty() || pattern.contains("=")) {
+                return new OperationResult(false, i18nHelper.getText("jes.coalescing.invalid.pattern", pattern));
+            }
+            values.put(pattern.trim(), true);
+        }
+        applicationProperties.setText(SCHEDULER_COALESCING_KEY, SettingsText.format(values));
+        apply(new ArrayList<>(values.keySet()));
+        return new OperationResult(true, i18nHelper.getText("jes.coalescing.configured", values.size()));
+    }
+
+    /**
+     * @return the patterns, and the figures for every key they have applied to, most coalesced first.
+     */
+    public CoalescingStatus getStatus() {
+        final CoalescingStatus status = new CoalescingStatus();
+        status.setPatterns(patterns.getRules().stream().map(KeyPattern::getPattern).collect(Collectors.toList()));
+        status.setCoalescedRuns(keyCoalescing.values().stream().mapToLong(KeyCoalescing::getCoalescedRuns).sum());
+        status.setUsage(keyCoalescing.values().stream()
+                .map(KeyCoalescing::getUsage)
+                .sorted(Comparator.comparingLong(usage -> -usage.getCoalescedRuns()))
+                .collect(Collectors.toList()));
+        return status;
+    }
+
+    private synchronized void apply(final List<String> newPatterns) {
+        final List<KeyPattern> compiled = new ArrayList<>();
+        for (String pattern : new LinkedHashSet<>(newPatterns)) {
+            compiled.add(new KeyPattern(pattern));
+        }
+        patterns.update(compiled);
+        // Keep the keys that are still coalesced, so jobs running now are still known.
+        for (Iterator<Map.Entry<JobRunnerKey, KeyCoalescing>> it = keyCoalescing.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<JobRunnerKey, KeyCoalescing> entry = it.next();
+            final KeyPattern pattern = patterns.find(entry.getKey().toString());
+            if (pattern == null) {
+                it.remove();
+            } else {
+                entry.getValue().update(pattern.getPattern());
+            }
+        }
+        log.info("Coalescing applied: {} patterns.", compiled.size());
+    }
+
+    /**
+     * Synchronized with apply, so a key's running jobs are only tracked for the patterns in place.
+     */
+    private synchronized KeyCoalescing resolve(final JobRunnerKey jobRunnerKey) {
+        final KeyPattern pattern = patterns.find(jobRunnerKey.toString());
+        if (pattern == null) {
+            return null;
+        }
+        return keyCoalescing.computeIfAbsent(jobRunnerKey,
+                key -> new KeyCoalescing(key.toString(), pattern.getPattern()));
+    }
+}
@@ -0,0 +1,40 @@
+package com.teamswork.scheduler.loadtest;
+
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of a running load test, updated by the synthetic jobs on the scheduler's workers.
+ */
+class LoadTestRun {
+    final LatencyHistogram lag = new LatencyHistogram();
+    final LatencyHistogram runTime = new LatencyHistogram();
+    final LongAdder busyMicros = new LongAdder();
+    final ConcurrentHashMap<String, LongAdder> runsByThreadGroup = new ConcurrentHashMap<>();
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger peakConcurrency = new AtomicInteger();
+
+    void started() {
+        final int running = inFlight.incrementAndGet();
+        peakConcurrency.accumulateAndGet(running, Math::max);
+    }
+
+    void finished(final String threadGroup, final long runTimeMicros) {
+        inFlight.decrementAndGet();
+        runTime.record(runTimeMicros);
+        busyMicros.add(runTimeMicros);
+        runsByThreadGroup.computeIfAbsent(threadGroup, name -> new LongAdder()).increment();
+    }
+
+    /**
+     * The counters of one profile.
+     */
+    static class ProfileRun {
+        final LatencyHistogram lag = new LatencyHistogram();
+        final LongAdder runs = new LongAdder();
+        final LongAdder failedRuns = new LongAdder();
+    }
+}
@@ -0,0 +1,320 @@
+package com.teamswork.scheduler.loadtest;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.config.RunMode;
+import com.atlassian.scheduler.config.Schedule;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.LatencySummary;
+import com.teamswork.scheduler.model.LoadProfile;
+import com.teamswork.scheduler.model.LoadProfileResult;
+import com.teamswork.scheduler.model.LoadTestReport;
+import com.teamswork.scheduler.model.LoadTestRequest;
+import com.teamswork.scheduler.model.OperationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static com.teamswork.scheduler.component.Plugin.PLUGIN_KEY;
+
+/**
+ * Runs time-boxed load tests against the scheduler as it is configured now, so a thread count can be rehearsed on a
+ * staging node before it is used in production. The synthetic job runners and their RUN_LOCALLY jobs exist only for
+ * the length of the test and are removed when it ends, is stopped, or the plugin is disabled.
+ * Load tests are off unless the node was started with -Djes.loadtest.enabled=true, so they cannot be run in
+ * production by mistake. Runner keys start with the plugin key, so they are not instrumented or smoothed.
+ */
+@Named
+public class LoadTester extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(LoadTester.class);
+    public static final String ENABLED_PROPERTY = "jes.loadtest.enabled";
+    static final String KEY_PREFIX = PLUGIN_KEY + ".loadtest.";
+    static final int MAX_JOBS = 10000;
+    static final int MAX_DURATION_SECONDS = 3600;
+    private static final long MIN_INTERVAL_MILLIS = 1000L;
+    private static final long MAX_WORK_MILLIS = 10 * 60 * 1000L;
+    private static final long MAX_ALLOCATION_KB = 1024 * 1024L;
+    private static final long DRAIN_MILLIS = 30 * 1000L;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        STOPPING,
+        DONE,
+        FAILED
+    }
+
+    private final SchedulerService schedulerService;
+    private final SchedulerConfigurator schedulerConfigurator;
+    private final I18nHelper i18nHelper;
+    private volatile LoadTestReport report = newReport(State.IDLE);
+    private volatile boolean stopRequested;
+    private ExecutorService executor;
+
+    public LoadTester(@ComponentImport final SchedulerService schedulerService,
+                      final SchedulerConfigurator schedulerConfigurator,
+                      @ComponentImport final EventPublisher eventPublisher,
+                      @ComponentImport final I18nHelper i18nHelper) {
+        super(eventPublisher);
+        this.schedulerService = schedulerService;
+        this.schedulerConfigurator = schedulerConfigurator;
+        this.i18nHelper = i18nHelper;
+    }
+
+    @Override
+    protected synchronized void onAppStart() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "JES-loadtest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Interrupting the test thread stops the test and removes its jobs and runners.
+     */
+    @Override
+    protected synchronized void onAppShutdown() {
+        if (executor != null) {
+            stopRequested = true;
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * @return the progress of the running load test, or the outcome of the last one.
+     */
+    public LoadTestReport getReport() {
+        return report;
+    }
+
+    /**
+     * Validate the request and start the load test on the background thread.
+     */
+    public synchronized OperationResult start(final LoadTestRequest request) {
+        if (!isEnabled()) {
+            return new OperationResult(false, i18nHelper.getText("jes.loadtest.disabled", ENABLED_PROPERTY));
+        }
+        final String invalid = validate(request);
+        if (invalid != null) {
+            return new OperationResult(false, invalid);
+        }
+        if (executor == null) {
+            return new OperationResult(false, i18nHelper.getText("jes.loadtest.not.started"));
+        }
+        if (isActive()) {
+            return new OperationResult(false, i18nHelper.getText("jes.loadtest.running"));
+        }
+        final LoadTestReport running = newReport(State.RUNNING);
+        running.setDurationSeconds(request.getDurationSeconds());
+        running.setJobs(countJobs(request));
+        running.setSchedulerThreads(schedulerConfigurator.getSchedulerThreadCount());
+        running.setExtraThreadGroups(schedulerConfigurator.getExtraThreadGroups().size());
+        report = running;
+        stopRequested = false;
+        executor.execute(() -> run(request, running));
+        return new OperationResult(true, i18nHelper.getText("jes.loadtest.started", running.getJobs(),
+                request.getDurationSeconds()));
+    }
+
+    /**
+     * End the running load test early. Its report covers the runs so far.
+     */
+    public synchronized OperationResult stop() {
+        if (!isActive()) {
+            return new OperationResult(false, i18nHelper.getText("jes.loadtest.not.running"));
+        }
+        stopRequested = true;
+        report.setState(State.STOPPING.name());
+        return new OperationResult(true, i18nHelper.getText("jes.loadtest.stopping"));
+    }
+
+    private boolean isActive() {
+        return State.RUNNING.name().equals(report.getState()) || State.STOPPING.name().equals(report.getState());
+    }
+
+    private String validate(final LoadTestRequest request) {
+        if (request == null || request.getProfiles() == null || request.getProfiles().isEmpty()) {
+            return i18nHelper.getText("jes.loadtest.invalid.profiles");
+        }
+        if (request.getDurationSeconds() < 10 || request.getDurationSeconds() > MAX_DURATION_SECONDS) {
+            return i18nHelper.getText("jes.loadtest.invalid.duration", MAX_DURATION_SECONDS);
+        }
+        final Set<String> names = new HashSet<>();
+        for (LoadProfile profile : request.getProfiles()) {
+            if (profile.getName() == null || !NAME.matcher(profile.getName()).matches() || !names.add(profile.getName())) {
+                return i18nHelper.getText("jes.loadtest.invalid.name", profile.getName());
+            }
+            if (profile.getRunners() < 1 || profile.getJobsPerRunner() < 1 ||
+                    profile.getIntervalMillis() < MIN_INTERVAL_MILLIS) {
+                return i18nHelper.getText("jes.loadtest.invalid.density", profile.getName(), MIN_INTERVAL_MILLIS);
+            }
+            if (profile.getCpuMillis() < 0 || profile.getCpuMillis() > MAX_WORK_MILLIS ||
+                    profile.getSleepMillis() < 0 || profile.getSleepMillis() > MAX_WORK_MILLIS ||
+                    profile.getAllocationKb() < 0 || profile.getAllocationKb() > MAX_ALLOCATION_KB ||
+                    profile.getFailurePercent() < 0 || profile.getFailurePercent() > 100) {
+                return i18nHelper.getText("jes.loadtest.invalid.work", profile.getName());
+            }
+        }
+        if (countJobs(request) > MAX_JOBS) {
+            return i18nHelper.getText("jes.loadtest.invalid.jobs", MAX_JOBS);
+        }
+        return null;
+    }
+
+    private static int countJobs(final LoadTestRequest request) {
+        long jobs = 0;
+        for (LoadProfile profile : request.getProfiles()) {
+            jobs += (long) profile.getRunners() * profile.getJobsPerRunner();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, jobs);
+    }
+
+    /**
+     * Runs on the load test thread.
+     */
+    private void run(final LoadTestRequest request, final LoadTestReport running) {
+        final LoadTestRun run = new LoadTestRun();
+        final Map<String, LoadTestRun.ProfileRun> profileRuns = new LinkedHashMap<>();
+        final List<JobRunnerKey> runnerKeys = new ArrayList<>();
+        final List<JobId> jobIds = new ArrayList<>();
+        final long startedAt = System.currentTimeMillis();
+        try {
+            for (LoadProfile profile : request.getProfiles()) {
+                final LoadTestRun.ProfileRun profileRun = new LoadTestRun.ProfileRun();
+                profileRuns.put(profile.getName(), profileRun);
+                schedule(profile, run, profileRun, startedAt, runnerKeys, jobIds);
+            }
+            log.info("Load test started with {} jobs for {}s.", jobIds.size(), request.getDurationSeconds());
+            final long endAt = startedAt + TimeUnit.SECONDS.toMillis(request.getDurationSeconds());
+            while (!stopRequested && System.currentTimeMillis() < endAt) {
+                Thread.sleep(Math.min(1000L, Math.max(1L, endAt - System.currentTimeMillis())));
+            }
+            running.setState(State.STOPPING.name());
+            unschedule(jobIds);
+            final long drainUntil = System.currentTimeMillis() + DRAIN_MILLIS;
+            while (run.inFlight.get() > 0 && System.currentTimeMillis() < drainUntil) {
+                Thread.sleep(100L);
+            }
+            report = summarise(running, run, profileRuns, startedAt, State.DONE,
+                    i18nHelper.getText(stopRequested ? "jes.loadtest.stopped" : "jes.loadtest.completed"));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report = summarise(running, run, profileRuns, startedAt, State.FAILED,
+                    i18nHelper.getText("jes.loadtest.interrupted"));
+        } catch (final Exception e) {
+            log.error("Error running the load test. ", e);
+            report = summarise(running, run, profileRuns, startedAt, State.FAILED, e.getMessage());
+        } finally {
+            unschedule(jobIds);
+            for (JobRunnerKey key : runnerKeys) {
+                schedulerService.unregisterJobRunner(key);
+            }
+            log.info("Load test finished: {}", report.getMessage());
+        }
+    }
+
+    /**
+     * Register the profile's runners and schedule their jobs, with first runs spread evenly over one interval so
+     * the load is steady rather than arriving in one herd.
+     */
+    private void schedule(final LoadProfile profile, final LoadTestRun run, final LoadTestRun.ProfileRun profileRun,
+                          final long startedAt, final List<JobRunnerKey> runnerKeys, final List<JobId> jobIds)
+            throws Exception {
+        final int jobs = profile.getRunners() * profile.getJobsPerRunner();
+        int job = 0;
+        for (int r = 0; r < profile.getRunners(); r++) {
+            final JobRunnerKey key = JobRunnerKey.of(KEY_PREFIX + profile.getName() + "." + r);
+            schedulerService.registerJobRunner(key, new SyntheticJobRunner(profile, run, profileRun));
+            runnerKeys.add(key);
+            for (int j = 0; j < profile.getJobsPerRunner(); j++, job++) {
+                final JobId jobId = JobId.of(key + "." + j);
+                final long firstRun = startedAt + profile.getIntervalMillis() * job / jobs;
+                schedulerService.scheduleJob(jobId, JobConfig.forJobRunnerKey(key)
+                        .withRunMode(RunMode.RUN_LOCALLY)
+                        .withSchedule(Schedule.forInterval(profile.getIntervalMillis(), new Date(firstRun))));
+                jobIds.add(jobId);
+            }
+        }
+    }
+
+    private void unschedule(final List<JobId> jobIds) {
+        for (JobId jobId : jobIds) {
+            try {
+                schedulerService.unscheduleJob(jobId);
+            } catch (final Exception e) {
+                log.debug("Unable to unschedule load test job {}: {}", jobId, e.getMessage());
+            }
+        }
+        jobIds.clear();
+    }
+
+    private static LoadTestReport summarise(final LoadTestReport running, final LoadTestRun run,
+                                            final Map<String, LoadTestRun.ProfileRun> profileRuns,
+                                            final long startedAt, final State state, final String message) {
+        final LoadTestReport result = new LoadTestReport();
+        result.setState(state.name());
+        result.setMessage(message);
+        result.setStartedAt(startedAt);
+        result.setFinishedAt(System.currentTimeMillis());
+        result.setElapsedMillis(Math.max(1L, result.getFinishedAt() - startedAt));
+        result.setDurationSeconds(running.getDurationSeconds());
+        result.setSchedulerThreads(running.getSchedulerThreads());
+        result.setExtraThreadGroups(running.getExtraThreadGroups());
+        result.setJobs(running.getJobs());
+        long runs = 0;
+        long failedRuns = 0;
+        for (Map.Entry<String, LoadTestRun.ProfileRun> entry : profileRuns.entrySet()) {
+            final LoadProfileResult profileResult = new LoadProfileResult();
+            profileResult.setName(entry.getKey());
+            profileResult.setRuns(entry.getValue().runs.sum());
+            profileResult.setFailedRuns(entry.getValue().failedRuns.sum());
+            profileResult.setLag(LatencySummary.fromMicros(entry.getValue().lag.snapshot()));
+            result.getProfiles().add(profileResult);
+            runs += profileResult.getRuns();
+            failedRuns += profileResult.getFailedRuns();
+        }
+        result.setRuns(runs);
+        result.setFailedRuns(failedRuns);
+        result.setThroughputPerSecond(Math.round(runs * 100000.0 / result.getElapsedMillis()) / 100.0);
+        result.setLag(LatencySummary.fromMicros(run.lag.snapshot()));
+        result.setRunTime(LatencySummary.fromMicros(run.runTime.snapshot()));
+        if (result.getSchedulerThreads() > 0) {
+            final double availableMicros = result.getSchedulerThreads() * result.getElapsedMillis() * 1000.0;
+            result.setUtilisationPercent(Math.round(run.busyMicros.sum() * 10000.0 / availableMicros) / 100.0);
+        }
+        result.setPeakConcurrency(run.peakConcurrency.get());
+        run.runsByThreadGroup.forEach((group, count) -> result.getRunsByThreadGroup().put(group, count.sum()));
+        return result;
+    }
+
+    private static LoadTestReport newReport(final State state) {
+        final LoadTestReport report = new LoadTestReport();
+        report.setState(state.name());
+        return report;
+    }
+}
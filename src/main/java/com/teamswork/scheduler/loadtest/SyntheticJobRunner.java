@@ -0,0 +1,109 @@
+package com.teamswork.scheduler.loadtest;
+
+import com.atlassian.scheduler.JobRunner;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.config.IntervalScheduleInfo;
+import com.atlassian.scheduler.config.Schedule;
+import com.teamswork.scheduler.model.LoadProfile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A job runner for load tests. Each run spins on the CPU, sleeps and allocates as its profile says, then fails
+ * with the profile's probability. How late the run started is worked out from the job's own interval schedule, which
+ * the load test set, rather than from the JobDueTimeTracker: the tracker is shared with the real jobs and capped, and
+ * a synthetic run is due on its schedule's grid whenever the previous run finished.
+ */
+class SyntheticJobRunner implements JobRunner {
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private static volatile long sink;
+
+    private final LoadProfile profile;
+    private final LoadTestRun run;
+    private final LoadTestRun.ProfileRun profileRun;
+
+    SyntheticJobRunner(final LoadProfile profile, final LoadTestRun run, final LoadTestRun.ProfileRun profileRun) {
+        this.profile = profile;
+        this.run = run;
+        this.profileRun = profileRun;
+    }
+
+    @Override
+    public JobRunnerResponse runJob(final JobRunnerRequest request) {
+        final long startedAt = request.getStartTime() != null ?
+                request.getStartTime().getTime() : System.currentTimeMillis();
+        final Schedule schedule = request.getJobConfig() != null ? request.getJobConfig().getSchedule() : null;
+        if (schedule != null && schedule.getIntervalScheduleInfo() != null) {
+            final long lagMicros = (startedAt - dueTime(schedule.getIntervalScheduleInfo(), startedAt)) * 1000L;
+            run.lag.record(lagMicros);
+            profileRun.lag.record(lagMicros);
+        }
+        run.started();
+        final long startNanos = System.nanoTime();
+        try {
+            spin(profile.getCpuMillis());
+            allocate(profile.getAllocationKb());
+            if (profile.getSleepMillis() > 0) {
+                Thread.sleep(profile.getSleepMillis());
+            }
+            profileRun.runs.increment();
+            if (profile.getFailurePercent() > 0 &&
+                    ThreadLocalRandom.current().nextInt(100) < profile.getFailurePercent()) {
+                profileRun.failedRuns.increment();
+                return JobRunnerResponse.failed("Synthetic failure");
+            }
+            return JobRunnerResponse.success();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return JobRunnerResponse.aborted("Interrupted");
+        } finally {
+            final ThreadGroup group = Thread.currentThread().getThreadGroup();
+            run.finished(group != null ? group.getName() : "", (System.nanoTime() - startNanos) / 1000L);
+        }
+    }
+
+    /**
+     * @return the latest due time of the schedule at or before the start, or the start if the job was not yet due.
+     * Due times missed while a run overran are collapsed into the latest, as the scheduler runs a late job once.
+     */
+    static long dueTime(final IntervalScheduleInfo info, final long startedAt) {
+        final long firstRun = info.getFirstRunTime() != null ? info.getFirstRunTime().getTime() : startedAt;
+        if (startedAt <= firstRun || info.getIntervalInMillis() <= 0) {
+            return Math.min(startedAt, firstRun);
+        }
+        return startedAt - (startedAt - firstRun) % info.getIntervalInMillis();
+    }
+
+    /**
+     * Burn the thread's CPU for the given time, measured in CPU time where the JVM supports it.
+     */
+    private void spin(final long cpuMillis) {
+        if (cpuMillis <= 0) {
+            return;
+        }
+        final boolean cpuTime = threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+        final long start = cpuTime ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime();
+        final long end = start + TimeUnit.MILLISECONDS.toNanos(cpuMillis);
+        long value = start;
+        do {
+            for (int i = 0; i < 10000; i++) {
+                value = value * 6364136223846793005L + 1442695040888963407L;
+            }
+        } while ((cpuTime ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime()) < end);
+        sink = value;
+    }
+
+    private static void allocate(final long allocationKb) {
+        long remaining = allocationKb * 1024L;
+        while (remaining > 0) {
+            final byte[] chunk = new byte[(int) Math.min(CHUNK_BYTES, remaining)];
+            sink += chunk.length;
+            remaining -= chunk.length;
+        }
+    }
+}
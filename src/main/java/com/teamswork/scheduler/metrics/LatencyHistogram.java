@@ -0,0 +1,141 @@
+package com.teamswork.scheduler.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free, fixed size histogram of non-negative long values, typically microseconds.
+ * Values are bucketed log-linearly with 16 sub-buckets per power of two, so a reported percentile is
+ * within ~6% of the recorded value. Values above 2^41 are clamped into the last bucket.
+ * Recording is a few bit operations and atomic increments - it never allocates or locks, so it is safe to call
+ * from scheduler worker threads on every job run.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Record a single value. Negative values are recorded as zero.
+     * @param value the value to record.
+     */
+    public void record(final long value) {
+        final long v = Math.max(0L, value);
+        counts.incrementAndGet(bucketIndex(v));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(v);
+        long max = maxValue.get();
+        while (v > max && !maxValue.compareAndSet(max, v)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * Take a point in time copy of this histogram. Concurrent recording may leave the copy very slightly
+     * inconsistent (e.g. the total count off by the number of in-flight records), which is fine for reporting.
+     * @return an immutable snapshot.
+     */
+    public Snapshot snapshot() {
+        final long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, totalCount.get(), totalValue.get(), maxValue.get());
+    }
+
+    static int bucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketUpperBound(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int exponent = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS;
+        final int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKET_COUNT + subBucket) << shift) + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable copy of a histogram's state, used for computing percentiles off the hot path.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long totalValue;
+        private final long maxValue;
+
+        Snapshot(final long[] counts, final long totalCount, final long totalValue, final long maxValue) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.totalValue = totalValue;
+            this.maxValue = maxValue;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getMax() {
+            return maxValue;
+        }
+
+        public double getMean() {
+            return totalCount == 0 ? 0 : (double) totalValue / totalCount;
+        }
+
+        /**
+         * The values recorded since an earlier snapshot of the same histogram, e.g. for a sampling window.
+         * The maximum of the window is not known, so the overall maximum is kept as an upper bound.
+         * @param earlier the earlier snapshot.
+         * @return a snapshot of the values recorded in between.
+         */
+        public Snapshot since(final Snapshot earlier) {
+            final long[] window = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                window[i] = Math.max(0L, counts[i] - earlier.counts[i]);
+            }
+            return new Snapshot(window, Math.max(0L, totalCount - earlier.totalCount),
+                    Math.max(0L, totalValue - earlier.totalValue), maxValue);
+        }
+
+        /**
+         * Get the value at the given percentile.
+         * @param percentile a value between 0 and 100.
+         * @return the upper bound of the bucket holding the percentile, capped at the maximum recorded value.
+         */
+        public long getValueAtPercentile(final double percentile) {
+            long recorded = 0;
+            for (long count : counts) {
+                recorded += count;
+            }
+            if (recorded == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * recorded));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return Math.min(bucketUpperBound(i), maxValue);
+                }
+            }
+            return maxValue;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.teamswork.scheduler.metrics;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads the CPU time and allocated bytes of the current thread, so the difference between the start and end of a job
+ * can be put down to the job's runner. Allocation needs com.sun.management.ThreadMXBean, which HotSpot based JVMs
+ * provide; CPU time only needs the standard ThreadMXBean. Anything the JVM cannot measure is reported as UNAVAILABLE,
+ * as is everything while the meter is switched off.
+ * The time spent reading the figures is itself measured, so the cost of accounting can be reported.
+ * The com.sun.management package is an optional import, so the plugin still loads on a JVM without it.
+ * On Java 14 and later allocation is read with getCurrentThreadAllocatedBytes, which neither needs the deprecated
+ * Thread.getId nor looks the thread up by id.
+ */
+public class ResourceMeter {
+    public static final long UNAVAILABLE = -1L;
+
+    private final ThreadMXBean threadMXBean;
+    private final com.sun.management.ThreadMXBean allocationMXBean;
+    private final MethodHandle currentThreadAllocatedBytes;
+    private final boolean cpuTimeSupported;
+    private final boolean allocationSupported;
+    private final LongAdder overheadNanos = new LongAdder();
+    private final LongAdder measuredRuns = new LongAdder();
+    private volatile boolean enabled;
+
+    public ResourceMeter() {
+        this(ManagementFactory.getThreadMXBean());
+    }
+
+    ResourceMeter(final ThreadMXBean threadMXBean) {
+        this.threadMXBean = threadMXBean;
+        this.cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported();
+        this.allocationMXBean = allocationMXBean(threadMXBean);
+        this.allocationSupported = allocationMXBean != null;
+        this.currentThreadAllocatedBytes = allocationSupported ? lookupCurrentThreadAllocatedBytes(allocationMXBean) : null;
+    }
+
+    /**
+     * @return the bean as a com.sun.management.ThreadMXBean if it can measure allocation, or null, including when
+     * the com.sun.management package is not available to the plugin.
+     */
+    private static com.sun.management.ThreadMXBean allocationMXBean(final ThreadMXBean threadMXBean) {
+        try {
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) {
+                return (com.sun.management.ThreadMXBean) threadMXBean;
+            }
+        } catch (LinkageError e) {
+            // Not imported, or not provided by this JVM.
+        }
+        return null;
+    }
+
+    private static MethodHandle lookupCurrentThreadAllocatedBytes(final com.sun.management.ThreadMXBean bean) {
+        try {
+            return MethodHandles.publicLookup().findVirtual(com.sun.management.ThreadMXBean.class,
+                    "getCurrentThreadAllocatedBytes", MethodType.methodType(long.class)).bindTo(bean);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Switch measuring on or off. Switching on also turns on the JVM's own CPU time and allocation tracking,
+     * which some JVMs leave off by default; it is left on when the meter is switched off.
+     */
+    public void setEnabled(final boolean enabled) {
+        if (enabled) {
+            if (cpuTimeSupported && !threadMXBean.isThreadCpuTimeEnabled()) {
+                threadMXBean.setThreadCpuTimeEnabled(true);
+            }
+            if (allocationSupported && !allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+                allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isCpuTimeSupported() {
+        return cpuTimeSupported;
+    }
+
+    public boolean isAllocationSupported() {
+        return allocationSupported;
+    }
+
+    /**
+     * @return the CPU time used by the current thread so far, in nanoseconds, or UNAVAILABLE.
+     */
+    public long cpuNanos() {
+        if (!enabled || !cpuTimeSupported) {
+            return UNAVAILABLE;
+        }
+        final long start = System.nanoTime();
+        final long cpuNanos = threadMXBean.getCurrentThreadCpuTime();
+        overheadNanos.add(System.nanoTime() - start);
+        return cpuNanos;
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, or UNAVAILABLE.
+     */
+    public long allocatedBytes() {
+        if (!enabled || !allocationSupported) {
+            return UNAVAILABLE;
+        }
+        final long start = System.nanoTime();
+        final long allocatedBytes = currentThreadAllocatedBytes();
+        overheadNanos.add(System.nanoTime() - start);
+        return allocatedBytes;
+    }
+
+    @SuppressWarnings("deprecation")
+    private long currentThreadAllocatedBytes() {
+        if (currentThreadAllocatedBytes == null) {
+            // Java 11 to 13, where Thread.getId is not deprecated.
+            return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        try {
+            return (long) currentThreadAllocatedBytes.invokeExact();
+        } catch (Throwable t) {
+            return UNAVAILABLE;
+        }
+    }
+
+    /**
+     * Measure the current thread again and record the difference against the runner. Runs that started while the
+     * meter was off, or on a thread the JVM cannot measure (e.g. a virtual thread), are not recorded.
+     * @param usage the runner's totals.
+     * @param cpuNanosAtStart what cpuNanos returned when the job started.
+     * @param allocatedBytesAtStart what allocatedBytes returned when the job started.
+     */
+    public void record(final ResourceUsage usage, final long cpuNanosAtStart, final long allocatedBytesAtStart) {
+        if (cpuNanosAtStart < 0 && allocatedBytesAtStart < 0) {
+            return;
+        }
+        final long cpuNanos = cpuNanosAtStart < 0 ? UNAVAILABLE : cpuNanos();
+        final long allocatedBytes = allocatedBytesAtStart < 0 ? UNAVAILABLE : allocatedBytes();
+        final long start = System.nanoTime();
+        usage.record(cpuNanos < 0 ? UNAVAILABLE : cpuNanos - cpuNanosAtStart,
+                allocatedBytes < 0 ? UNAVAILABLE : allocatedBytes - allocatedBytesAtStart);
+        measuredRuns.increment();
+        overheadNanos.add(System.nanoTime() - start);
+    }
+
+    /**
+     * @return the total time spent reading and recording the figures, in nanoseconds.
+     */
+    public long getOverheadNanos() {
+        return overheadNanos.sum();
+    }
+
+    public long getMeasuredRuns() {
+        return measuredRuns.sum();
+    }
+}
@@ -0,0 +1,59 @@
+package com.teamswork.scheduler.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CPU time and heap allocation totals for a single job runner. Like RunnerMetrics, instances are created once per
+ * JobRunnerKey and handed to the instrumented runner, so recording a run only touches pre-allocated atomics.
+ */
+public class ResourceUsage {
+    private final String name;
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong maxCpuNanos = new AtomicLong();
+    private final AtomicLong maxAllocatedBytes = new AtomicLong();
+
+    public ResourceUsage(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record one job run. Either figure may be negative if it could not be measured, and is then left out.
+     */
+    public void record(final long runCpuNanos, final long runAllocatedBytes) {
+        runs.incrementAndGet();
+        if (runCpuNanos >= 0) {
+            cpuNanos.addAndGet(runCpuNanos);
+            maxCpuNanos.accumulateAndGet(runCpuNanos, Math::max);
+        }
+        if (runAllocatedBytes >= 0) {
+            allocatedBytes.addAndGet(runAllocatedBytes);
+            maxAllocatedBytes.accumulateAndGet(runAllocatedBytes, Math::max);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRuns() {
+        return runs.get();
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos.get();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    public long getMaxCpuNanos() {
+        return maxCpuNanos.get();
+    }
+
+    public long getMaxAllocatedBytes() {
+        return maxAllocatedBytes.get();
+    }
+}
@@ -0,0 +1,78 @@
+package com.teamswork.scheduler.metrics;
+
+import com.atlassian.scheduler.status.RunOutcome;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Run time, queue wait and outcome counters for a single job runner (or for the whole pool).
+ * Instances are created once per JobRunnerKey and handed to the instrumented runner, so the worker thread
+ * only ever touches pre-allocated atomics.
+ */
+public class RunnerMetrics {
+    private final String name;
+    private final LatencyHistogram runTime = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong aborted = new AtomicLong();
+    private final AtomicLong unavailable = new AtomicLong();
+
+    public RunnerMetrics(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record a completed job run.
+     * @param runTimeMicros how long the job ran for.
+     * @param queueWaitMicros how late the job started compared to its scheduled time, or a negative value if unknown.
+     * @param outcome the outcome of the run.
+     */
+    public void record(final long runTimeMicros, final long queueWaitMicros, final RunOutcome outcome) {
+        runTime.record(runTimeMicros);
+        if (queueWaitMicros >= 0) {
+            queueWait.record(queueWaitMicros);
+        }
+        switch (outcome) {
+            case SUCCESS:
+                succeeded.incrementAndGet();
+                break;
+            case ABORTED:
+                aborted.incrementAndGet();
+                break;
+            case UNAVAILABLE:
+                unavailable.incrementAndGet();
+                break;
+            default:
+                failed.incrementAndGet();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getRunTime() {
+        return runTime;
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getAborted() {
+        return aborted.get();
+    }
+
+    public long getUnavailable() {
+        return unavailable.get();
+    }
+}
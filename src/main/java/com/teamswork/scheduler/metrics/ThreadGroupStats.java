@@ -0,0 +1,50 @@
+package com.teamswork.scheduler.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters for the jobs run by one Caesium thread group. Updated by the group's workers on every job,
+ * so updates are a couple of atomic operations and reads never lock.
+ */
+public class ThreadGroupStats {
+    private final String name;
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final LongAdder completedJobs = new LongAdder();
+    private volatile long lastLagMicros;
+
+    public ThreadGroupStats(final String name) {
+        this.name = name;
+    }
+
+    public void jobStarted(final long lagMicros) {
+        activeWorkers.incrementAndGet();
+        if (lagMicros >= 0) {
+            lastLagMicros = lagMicros;
+        }
+    }
+
+    public void jobFinished() {
+        activeWorkers.decrementAndGet();
+        completedJobs.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers.get();
+    }
+
+    public long getCompletedJobs() {
+        return completedJobs.sum();
+    }
+
+    /**
+     * @return how late the group's most recent job was picked up, in microseconds.
+     */
+    public long getLastLagMicros() {
+        return lastLagMicros;
+    }
+}
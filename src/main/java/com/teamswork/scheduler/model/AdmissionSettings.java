@@ -0,0 +1,97 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * When the extra Caesium thread groups stop being given new jobs because of heap or GC pressure.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "admissionSettings")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class AdmissionSettings {
+
+    @JsonProperty("enabled")
+    private boolean enabled;
+
+    @JsonProperty("heapThresholdPercent")
+    private int heapThresholdPercent = 85;
+
+    @JsonProperty("heapResumePercent")
+    private int heapResumePercent = 75;
+
+    @JsonProperty("gcTimeThresholdPercent")
+    private int gcTimeThresholdPercent = 20;
+
+    @JsonProperty("gcTimeResumePercent")
+    private int gcTimeResumePercent = 10;
+
+    @JsonProperty("windowSeconds")
+    private int windowSeconds = 30;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return heap occupancy after GC, as a percentage of the maximum, at or above which the extra groups are throttled.
+     */
+    public int getHeapThresholdPercent() {
+        return heapThresholdPercent;
+    }
+
+    public void setHeapThresholdPercent(final int heapThresholdPercent) {
+        this.heapThresholdPercent = heapThresholdPercent;
+    }
+
+    /**
+     * @return heap occupancy after GC below which they may resume.
+     */
+    public int getHeapResumePercent() {
+        return heapResumePercent;
+    }
+
+    public void setHeapResumePercent(final int heapResumePercent) {
+        this.heapResumePercent = heapResumePercent;
+    }
+
+    /**
+     * @return the percentage of the window spent in GC at or above which the extra groups are throttled.
+     */
+    public int getGcTimeThresholdPercent() {
+        return gcTimeThresholdPercent;
+    }
+
+    public void setGcTimeThresholdPercent(final int gcTimeThresholdPercent) {
+        this.gcTimeThresholdPercent = gcTimeThresholdPercent;
+    }
+
+    /**
+     * @return the percentage of the window spent in GC below which they may resume.
+     */
+    public int getGcTimeResumePercent() {
+        return gcTimeResumePercent;
+    }
+
+    public void setGcTimeResumePercent(final int gcTimeResumePercent) {
+        this.gcTimeResumePercent = gcTimeResumePercent;
+    }
+
+    /**
+     * @return how far back GC time is measured.
+     */
+    public int getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public void setWindowSeconds(final int windowSeconds) {
+        this.windowSeconds = windowSeconds;
+    }
+}
@@ -0,0 +1,144 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Admin settings for the scheduler autoscaler. The defaults are deliberately conservative:
+ * the autoscaler is off, scales up after a minute of sustained lag and only hands capacity back
+ * after five minutes of low utilisation.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "autoscalerSettings")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class AutoscalerSettings {
+
+    @JsonProperty("enabled")
+    private boolean enabled = false;
+
+    @JsonProperty("minExtraThreads")
+    private int minExtraThreads = 0;
+
+    @JsonProperty("maxExtraThreads")
+    private int maxExtraThreads = 16;
+
+    @JsonProperty("stepThreads")
+    private int stepThreads = 2;
+
+    @JsonProperty("lagThresholdMillis")
+    private long lagThresholdMillis = 5000;
+
+    @JsonProperty("lowUtilisationPercent")
+    private int lowUtilisationPercent = 25;
+
+    @JsonProperty("sampleIntervalSeconds")
+    private int sampleIntervalSeconds = 15;
+
+    @JsonProperty("scaleUpSamples")
+    private int scaleUpSamples = 4;
+
+    @JsonProperty("scaleDownSamples")
+    private int scaleDownSamples = 20;
+
+    @JsonProperty("cooldownSeconds")
+    private int cooldownSeconds = 300;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMinExtraThreads() {
+        return minExtraThreads;
+    }
+
+    public void setMinExtraThreads(final int minExtraThreads) {
+        this.minExtraThreads = minExtraThreads;
+    }
+
+    public int getMaxExtraThreads() {
+        return maxExtraThreads;
+    }
+
+    public void setMaxExtraThreads(final int maxExtraThreads) {
+        this.maxExtraThreads = maxExtraThreads;
+    }
+
+    public int getStepThreads() {
+        return stepThreads;
+    }
+
+    public void setStepThreads(final int stepThreads) {
+        this.stepThreads = stepThreads;
+    }
+
+    public long getLagThresholdMillis() {
+        return lagThresholdMillis;
+    }
+
+    public void setLagThresholdMillis(final long lagThresholdMillis) {
+        this.lagThresholdMillis = lagThresholdMillis;
+    }
+
+    public int getLowUtilisationPercent() {
+        return lowUtilisationPercent;
+    }
+
+    public void setLowUtilisationPercent(final int lowUtilisationPercent) {
+        this.lowUtilisationPercent = lowUtilisationPercent;
+    }
+
+    public int getSampleIntervalSeconds() {
+        return sampleIntervalSeconds;
+    }
+
+    public void setSampleIntervalSeconds(final int sampleIntervalSeconds) {
+        this.sampleIntervalSeconds = sampleIntervalSeconds;
+    }
+
+    public int getScaleUpSamples() {
+        return scaleUpSamples;
+    }
+
+    public void setScaleUpSamples(final int scaleUpSamples) {
+        this.scaleUpSamples = scaleUpSamples;
+    }
+
+    public int getScaleDownSamples() {
+        return scaleDownSamples;
+    }
+
+    public void setScaleDownSamples(final int scaleDownSamples) {
+        this.scaleDownSamples = scaleDownSamples;
+    }
+
+    public int getCooldownSeconds() {
+        return cooldownSeconds;
+    }
+
+    public void setCooldownSeconds(final int cooldownSeconds) {
+        this.cooldownSeconds = cooldownSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "AutoscalerSettings{" +
+                "enabled=" + enabled +
+                ", minExtraThreads=" + minExtraThreads +
+                ", maxExtraThreads=" + maxExtraThreads +
+                ", stepThreads=" + stepThreads +
+                ", lagThresholdMillis=" + lagThresholdMillis +
+                ", lowUtilisationPercent=" + lowUtilisationPercent +
+                ", sampleIntervalSeconds=" + sampleIntervalSeconds +
+                ", scaleUpSamples=" + scaleUpSamples +
+                ", scaleDownSamples=" + scaleDownSamples +
+                ", cooldownSeconds=" + cooldownSeconds +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+/**
+ * The autoscaler's settings, its most recent sample and the scaling decisions it has made.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "autoscalerStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class AutoscalerStatus {
+
+    @JsonProperty("settings")
+    private AutoscalerSettings settings;
+
+    @JsonProperty("running")
+    private boolean running;
+
+    @JsonProperty("extraThreads")
+    private int extraThreads;
+
+    @JsonProperty("lastLagP95Millis")
+    private long lastLagP95Millis;
+
+    @JsonProperty("lastUtilisationPercent")
+    private int lastUtilisationPercent;
+
+    @JsonProperty("decisions")
+    private List<ScalingDecision> decisions;
+
+    public AutoscalerSettings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(final AutoscalerSettings settings) {
+        this.settings = settings;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(final boolean running) {
+        this.running = running;
+    }
+
+    public int getExtraThreads() {
+        return extraThreads;
+    }
+
+    public void setExtraThreads(final int extraThreads) {
+        this.extraThreads = extraThreads;
+    }
+
+    public long getLastLagP95Millis() {
+        return lastLagP95Millis;
+    }
+
+    public void setLastLagP95Millis(final long lastLagP95Millis) {
+        this.lastLagP95Millis = lastLagP95Millis;
+    }
+
+    public int getLastUtilisationPercent() {
+        return lastUtilisationPercent;
+    }
+
+    public void setLastUtilisationPercent(final int lastUtilisationPercent) {
+        this.lastUtilisationPercent = lastUtilisationPercent;
+    }
+
+    public List<ScalingDecision> getDecisions() {
+        return decisions;
+    }
+
+    public void setDecisions(final List<ScalingDecision> decisions) {
+        this.decisions = decisions;
+    }
+}
@@ -0,0 +1,82 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A change the capacity schedule made to the extra scheduler threads.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "capacityChange")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class CapacityChange {
+
+    @JsonProperty("timestamp")
+    private long timestamp;
+
+    @JsonProperty("targetExtraThreads")
+    private int targetExtraThreads;
+
+    @JsonProperty("extraThreadsBefore")
+    private int extraThreadsBefore;
+
+    @JsonProperty("extraThreadsAfter")
+    private int extraThreadsAfter;
+
+    @JsonProperty("success")
+    private boolean success;
+
+    @JsonProperty("message")
+    private String message;
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(final long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public int getTargetExtraThreads() {
+        return targetExtraThreads;
+    }
+
+    public void setTargetExtraThreads(final int targetExtraThreads) {
+        this.targetExtraThreads = targetExtraThreads;
+    }
+
+    public int getExtraThreadsBefore() {
+        return extraThreadsBefore;
+    }
+
+    public void setExtraThreadsBefore(final int extraThreadsBefore) {
+        this.extraThreadsBefore = extraThreadsBefore;
+    }
+
+    public int getExtraThreadsAfter() {
+        return extraThreadsAfter;
+    }
+
+    public void setExtraThreadsAfter(final int extraThreadsAfter) {
+        this.extraThreadsAfter = extraThreadsAfter;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(final boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(final String message) {
+        this.message = message;
+    }
+}
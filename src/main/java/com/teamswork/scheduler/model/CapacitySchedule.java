@@ -0,0 +1,68 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The extra scheduler threads wanted at each time of day.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "capacitySchedule")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class CapacitySchedule {
+
+    @JsonProperty("enabled")
+    private boolean enabled;
+
+    @JsonProperty("defaultExtraThreads")
+    private int defaultExtraThreads;
+
+    @JsonProperty("prewarmMinutes")
+    private int prewarmMinutes = 5;
+
+    @JsonProperty("windows")
+    private List<CapacityWindow> windows = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the extra threads outside every window.
+     */
+    public int getDefaultExtraThreads() {
+        return defaultExtraThreads;
+    }
+
+    public void setDefaultExtraThreads(final int defaultExtraThreads) {
+        this.defaultExtraThreads = defaultExtraThreads;
+    }
+
+    /**
+     * @return how long before a window starts its threads are added.
+     */
+    public int getPrewarmMinutes() {
+        return prewarmMinutes;
+    }
+
+    public void setPrewarmMinutes(final int prewarmMinutes) {
+        this.prewarmMinutes = prewarmMinutes;
+    }
+
+    public List<CapacityWindow> getWindows() {
+        return windows;
+    }
+
+    public void setWindows(final List<CapacityWindow> windows) {
+        this.windows = windows;
+    }
+}
@@ -0,0 +1,93 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The capacity schedule, what it wants now and next, and the changes it has made.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "capacityScheduleStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class CapacityScheduleStatus {
+
+    @JsonProperty("schedule")
+    private CapacitySchedule schedule;
+
+    @JsonProperty("timeZone")
+    private String timeZone;
+
+    @JsonProperty("targetExtraThreads")
+    private int targetExtraThreads;
+
+    @JsonProperty("extraThreads")
+    private int extraThreads;
+
+    @JsonProperty("upcoming")
+    private List<CapacityTransition> upcoming = new ArrayList<>();
+
+    @JsonProperty("changes")
+    private List<CapacityChange> changes = new ArrayList<>();
+
+    public CapacitySchedule getSchedule() {
+        return schedule;
+    }
+
+    public void setSchedule(final CapacitySchedule schedule) {
+        this.schedule = schedule;
+    }
+
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    public void setTimeZone(final String timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    public int getTargetExtraThreads() {
+        return targetExtraThreads;
+    }
+
+    public void setTargetExtraThreads(final int targetExtraThreads) {
+        this.targetExtraThreads = targetExtraThreads;
+    }
+
+    /**
+     * @return the extra threads running now.
+     */
+    public int getExtraThreads() {
+        return extraThreads;
+    }
+
+    public void setExtraThreads(final int extraThreads) {
+        this.extraThreads = extraThreads;
+    }
+
+    /**
+     * @return the changes planned over the next 24 hours.
+     */
+    public List<CapacityTransition> getUpcoming() {
+        return upcoming;
+    }
+
+    public void setUpcoming(final List<CapacityTransition> upcoming) {
+        this.upcoming = upcoming;
+    }
+
+    /**
+     * @return the changes made, newest first.
+     */
+    public List<CapacityChange> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(final List<CapacityChange> changes) {
+        this.changes = changes;
+    }
+}
@@ -0,0 +1,52 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A planned change in the extra scheduler threads.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "capacityTransition")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class CapacityTransition {
+
+    @JsonProperty("at")
+    private long at;
+
+    @JsonProperty("localTime")
+    private String localTime;
+
+    @JsonProperty("extraThreads")
+    private int extraThreads;
+
+    public long getAt() {
+        return at;
+    }
+
+    public void setAt(final long at) {
+        this.at = at;
+    }
+
+    /**
+     * @return when, in the scheduler time zone.
+     */
+    public String getLocalTime() {
+        return localTime;
+    }
+
+    public void setLocalTime(final String localTime) {
+        this.localTime = localTime;
+    }
+
+    public int getExtraThreads() {
+        return extraThreads;
+    }
+
+    public void setExtraThreads(final int extraThreads) {
+        this.extraThreads = extraThreads;
+    }
+}
@@ -0,0 +1,55 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A time of day window with its own number of extra scheduler threads.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "capacityWindow")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class CapacityWindow {
+
+    @JsonProperty("start")
+    private String start;
+
+    @JsonProperty("end")
+    private String end;
+
+    @JsonProperty("extraThreads")
+    private int extraThreads;
+
+    /**
+     * @return the start time, HH:mm, in the scheduler time zone.
+     */
+    public String getStart() {
+        return start;
+    }
+
+    public void setStart(final String start) {
+        this.start = start;
+    }
+
+    /**
+     * @return the end time, HH:mm. A window that ends before it starts runs over midnight.
+     */
+    public String getEnd() {
+        return end;
+    }
+
+    public void setEnd(final String end) {
+        this.end = end;
+    }
+
+    public int getExtraThreads() {
+        return extraThreads;
+    }
+
+    public void setExtraThreads(final int extraThreads) {
+        this.extraThreads = extraThreads;
+    }
+}
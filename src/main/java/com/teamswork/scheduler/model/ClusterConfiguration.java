@@ -0,0 +1,82 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a cluster-wide operation, one entry per live node.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "clusterConfiguration")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ClusterConfiguration {
+
+    @JsonProperty("requestId")
+    private String requestId;
+
+    @JsonProperty("command")
+    private String command;
+
+    @JsonProperty("complete")
+    private boolean complete;
+
+    @JsonProperty("success")
+    private boolean success;
+
+    @JsonProperty("nodes")
+    private List<NodeConfiguration> nodes = new ArrayList<>();
+
+    /**
+     * @return the id to follow the operation with while other nodes are still replying.
+     */
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(final String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public void setCommand(final String command) {
+        this.command = command;
+    }
+
+    /**
+     * @return true once every node has replied or the time allowed for replies has passed.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(final boolean complete) {
+        this.complete = complete;
+    }
+
+    /**
+     * @return true if every node replied and the operation succeeded on all of them.
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(final boolean success) {
+        this.success = success;
+    }
+
+    public List<NodeConfiguration> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(final List<NodeConfiguration> nodes) {
+        this.nodes = nodes;
+    }
+}
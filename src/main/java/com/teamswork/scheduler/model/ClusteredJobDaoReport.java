@@ -0,0 +1,146 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where this node spends its time in the clustered job table: per operation, per job, and the slowest recent calls.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "clusteredJobDaoReport")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ClusteredJobDaoReport {
+
+    @JsonProperty("installed")
+    private boolean installed;
+
+    @JsonProperty("since")
+    private long since;
+
+    @JsonProperty("daoMillis")
+    private long daoMillis;
+
+    @JsonProperty("claimWaitMillis")
+    private long claimWaitMillis;
+
+    @JsonProperty("holdMillis")
+    private long holdMillis;
+
+    @JsonProperty("claimWaitPercent")
+    private int claimWaitPercent;
+
+    @JsonProperty("untrackedJobs")
+    private long untrackedJobs;
+
+    @JsonProperty("operations")
+    private List<DaoOperationSummary> operations = new ArrayList<>();
+
+    @JsonProperty("hotJobs")
+    private List<ClusteredJobUsage> hotJobs = new ArrayList<>();
+
+    @JsonProperty("slowCalls")
+    private List<SlowDaoCall> slowCalls = new ArrayList<>();
+
+    /**
+     * @return whether the ClusteredJobDao is being measured. It is only wrapped on a cluster.
+     */
+    public boolean isInstalled() {
+        return installed;
+    }
+
+    public void setInstalled(final boolean installed) {
+        this.installed = installed;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public void setSince(final long since) {
+        this.since = since;
+    }
+
+    /**
+     * @return the time spent in ClusteredJobDao calls.
+     */
+    public long getDaoMillis() {
+        return daoMillis;
+    }
+
+    public void setDaoMillis(final long daoMillis) {
+        this.daoMillis = daoMillis;
+    }
+
+    public long getClaimWaitMillis() {
+        return claimWaitMillis;
+    }
+
+    public void setClaimWaitMillis(final long claimWaitMillis) {
+        this.claimWaitMillis = claimWaitMillis;
+    }
+
+    public long getHoldMillis() {
+        return holdMillis;
+    }
+
+    public void setHoldMillis(final long holdMillis) {
+        this.holdMillis = holdMillis;
+    }
+
+    /**
+     * @return the claim wait as a share of claim wait plus hold. High values mean the database, not the workers, is the bottleneck.
+     */
+    public int getClaimWaitPercent() {
+        return claimWaitPercent;
+    }
+
+    public void setClaimWaitPercent(final int claimWaitPercent) {
+        this.claimWaitPercent = claimWaitPercent;
+    }
+
+    /**
+     * @return the jobs not broken down because the most jobs tracked had been reached.
+     */
+    public long getUntrackedJobs() {
+        return untrackedJobs;
+    }
+
+    public void setUntrackedJobs(final long untrackedJobs) {
+        this.untrackedJobs = untrackedJobs;
+    }
+
+    public List<DaoOperationSummary> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(final List<DaoOperationSummary> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * @return the jobs that spent longest in ClusteredJobDao calls.
+     */
+    public List<ClusteredJobUsage> getHotJobs() {
+        return hotJobs;
+    }
+
+    public void setHotJobs(final List<ClusteredJobUsage> hotJobs) {
+        this.hotJobs = hotJobs;
+    }
+
+    /**
+     * @return newest first.
+     */
+    public List<SlowDaoCall> getSlowCalls() {
+        return slowCalls;
+    }
+
+    public void setSlowCalls(final List<SlowDaoCall> slowCalls) {
+        this.slowCalls = slowCalls;
+    }
+}
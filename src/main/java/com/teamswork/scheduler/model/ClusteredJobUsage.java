@@ -0,0 +1,108 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * What one clustered job has cost in ClusteredJobDao calls, and how long its claims were waited for and held.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "clusteredJobUsage")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ClusteredJobUsage {
+
+    @JsonProperty("jobId")
+    private String jobId;
+
+    @JsonProperty("daoCalls")
+    private long daoCalls;
+
+    @JsonProperty("daoMillis")
+    private long daoMillis;
+
+    @JsonProperty("claims")
+    private long claims;
+
+    @JsonProperty("conflicts")
+    private long conflicts;
+
+    @JsonProperty("claimWait")
+    private LatencySummary claimWait;
+
+    @JsonProperty("hold")
+    private LatencySummary hold;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(final String jobId) {
+        this.jobId = jobId;
+    }
+
+    public long getDaoCalls() {
+        return daoCalls;
+    }
+
+    public void setDaoCalls(final long daoCalls) {
+        this.daoCalls = daoCalls;
+    }
+
+    /**
+     * @return the time spent in ClusteredJobDao calls for this job.
+     */
+    public long getDaoMillis() {
+        return daoMillis;
+    }
+
+    public void setDaoMillis(final long daoMillis) {
+        this.daoMillis = daoMillis;
+    }
+
+    /**
+     * @return the times this node claimed the job to run it.
+     */
+    public long getClaims() {
+        return claims;
+    }
+
+    public void setClaims(final long claims) {
+        this.claims = claims;
+    }
+
+    /**
+     * @return the claims lost because another node had changed the job first.
+     */
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(final long conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    /**
+     * @return the time spent in ClusteredJobDao calls for the job up to and including each claim.
+     */
+    public LatencySummary getClaimWait() {
+        return claimWait;
+    }
+
+    public void setClaimWait(final LatencySummary claimWait) {
+        this.claimWait = claimWait;
+    }
+
+    /**
+     * @return the time from each claim to the job finishing on this node.
+     */
+    public LatencySummary getHold() {
+        return hold;
+    }
+
+    public void setHold(final LatencySummary hold) {
+        this.hold = hold;
+    }
+}
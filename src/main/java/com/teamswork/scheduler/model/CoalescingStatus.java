@@ -0,0 +1,54 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JobRunnerKey patterns whose runs are coalesced, and the figures for each key they have applied to.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "coalescingStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class CoalescingStatus {
+
+    @JsonProperty("patterns")
+    private List<String> patterns = new ArrayList<>();
+
+    @JsonProperty("coalescedRuns")
+    private long coalescedRuns;
+
+    @JsonProperty("usage")
+    private List<CoalescingUsage> usage = new ArrayList<>();
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    public void setPatterns(final List<String> patterns) {
+        this.patterns = patterns;
+    }
+
+    /**
+     * @return the runs coalesced across every key since the plugin was enabled.
+     */
+    public long getCoalescedRuns() {
+        return coalescedRuns;
+    }
+
+    public void setCoalescedRuns(final long coalescedRuns) {
+        this.coalescedRuns = coalescedRuns;
+    }
+
+    public List<CoalescingUsage> getUsage() {
+        return usage;
+    }
+
+    public void setUsage(final List<CoalescingUsage> usage) {
+        this.usage = usage;
+    }
+}
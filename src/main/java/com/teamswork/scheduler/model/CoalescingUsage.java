@@ -0,0 +1,80 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Live coalescing figures for one JobRunnerKey on this node.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "coalescingUsage")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class CoalescingUsage {
+
+    @JsonProperty("jobRunnerKey")
+    private String jobRunnerKey;
+
+    @JsonProperty("pattern")
+    private String pattern;
+
+    @JsonProperty("runningJobs")
+    private int runningJobs;
+
+    @JsonProperty("coalescedRuns")
+    private long coalescedRuns;
+
+    @JsonProperty("lastCoalescedAt")
+    private long lastCoalescedAt;
+
+    public String getJobRunnerKey() {
+        return jobRunnerKey;
+    }
+
+    public void setJobRunnerKey(final String jobRunnerKey) {
+        this.jobRunnerKey = jobRunnerKey;
+    }
+
+    /**
+     * @return the pattern that turned coalescing on for the key.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(final String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * @return the key's jobs running now.
+     */
+    public int getRunningJobs() {
+        return runningJobs;
+    }
+
+    public void setRunningJobs(final int runningJobs) {
+        this.runningJobs = runningJobs;
+    }
+
+    /**
+     * @return due runs merged into a run that was already running or queued.
+     */
+    public long getCoalescedRuns() {
+        return coalescedRuns;
+    }
+
+    public void setCoalescedRuns(final long coalescedRuns) {
+        this.coalescedRuns = coalescedRuns;
+    }
+
+    public long getLastCoalescedAt() {
+        return lastCoalescedAt;
+    }
+
+    public void setLastCoalescedAt(final long lastCoalescedAt) {
+        this.lastCoalescedAt = lastCoalescedAt;
+    }
+}
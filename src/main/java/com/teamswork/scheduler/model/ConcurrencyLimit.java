@@ -0,0 +1,46 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The most runs of each JobRunnerKey matching a pattern that may run at once on a node.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "concurrencyLimit")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ConcurrencyLimit {
+
+    @JsonProperty("pattern")
+    private String pattern;
+
+    @JsonProperty("maxConcurrent")
+    private int maxConcurrent;
+
+    public ConcurrencyLimit() {
+    }
+
+    public ConcurrencyLimit(final String pattern, final int maxConcurrent) {
+        this.pattern = pattern;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(final String pattern) {
+        this.pattern = pattern;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(final int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+}
@@ -0,0 +1,40 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The concurrency limits and live permit usage for each key they have applied to on this node.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "concurrencyLimitStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ConcurrencyLimitStatus {
+
+    @JsonProperty("limits")
+    private List<ConcurrencyLimit> limits = new ArrayList<>();
+
+    @JsonProperty("usage")
+    private List<ConcurrencyLimitUsage> usage = new ArrayList<>();
+
+    public List<ConcurrencyLimit> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(final List<ConcurrencyLimit> limits) {
+        this.limits = limits;
+    }
+
+    public List<ConcurrencyLimitUsage> getUsage() {
+        return usage;
+    }
+
+    public void setUsage(final List<ConcurrencyLimitUsage> usage) {
+        this.usage = usage;
+    }
+}
@@ -0,0 +1,105 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Live permit usage for one limited JobRunnerKey on this node.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "concurrencyLimitUsage")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ConcurrencyLimitUsage {
+
+    @JsonProperty("jobRunnerKey")
+    private String jobRunnerKey;
+
+    @JsonProperty("pattern")
+    private String pattern;
+
+    @JsonProperty("maxConcurrent")
+    private int maxConcurrent;
+
+    @JsonProperty("running")
+    private int running;
+
+    @JsonProperty("peakRunning")
+    private int peakRunning;
+
+    @JsonProperty("deferredRuns")
+    private long deferredRuns;
+
+    @JsonProperty("abortedRuns")
+    private long abortedRuns;
+
+    public String getJobRunnerKey() {
+        return jobRunnerKey;
+    }
+
+    public void setJobRunnerKey(final String jobRunnerKey) {
+        this.jobRunnerKey = jobRunnerKey;
+    }
+
+    /**
+     * @return the pattern whose limit applies to the key.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(final String pattern) {
+        this.pattern = pattern;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(final int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * @return the permits in use, i.e. runs of the key in progress.
+     */
+    public int getRunning() {
+        return running;
+    }
+
+    public void setRunning(final int running) {
+        this.running = running;
+    }
+
+    public int getPeakRunning() {
+        return peakRunning;
+    }
+
+    public void setPeakRunning(final int peakRunning) {
+        this.peakRunning = peakRunning;
+    }
+
+    /**
+     * @return the runs put back on the queue because the key was at its limit.
+     */
+    public long getDeferredRuns() {
+        return deferredRuns;
+    }
+
+    public void setDeferredRuns(final long deferredRuns) {
+        this.deferredRuns = deferredRuns;
+    }
+
+    /**
+     * @return the runs skipped because they had already been deferred as often as they may be.
+     */
+    public long getAbortedRuns() {
+        return abortedRuns;
+    }
+
+    public void setAbortedRuns(final long abortedRuns) {
+        this.abortedRuns = abortedRuns;
+    }
+}
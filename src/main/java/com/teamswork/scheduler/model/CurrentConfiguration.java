@@ -5,6 +5,7 @@ import org.codehaus.jackson.annotate.JsonProperty;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
 import java.util.Objects;
 
 @SuppressWarnings("unused")
@@ -33,6 +34,27 @@ public class CurrentConfiguration {
     @JsonProperty("schedulerReconfigured")
     private boolean schedulerReconfigured;
 
+    @JsonProperty("workerPools")
+    private List<WorkerPoolStatus> workerPools;
+
+    @JsonProperty("extraThreadsThrottled")
+    private boolean extraThreadsThrottled;
+
+    @JsonProperty("throttleEvents")
+    private long throttleEvents;
+
+    @JsonProperty("throttledMillis")
+    private long throttledMillis;
+
+    @JsonProperty("throttleDeferredRuns")
+    private long throttleDeferredRuns;
+
+    @JsonProperty("heapAfterGcPercent")
+    private int heapAfterGcPercent;
+
+    @JsonProperty("gcTimePercent")
+    private double gcTimePercent;
+
     public int getExtraThreadsToConfigure() {
         return extraThreadsToConfigure;
     }
@@ -89,6 +111,74 @@ public class CurrentConfiguration {
         this.schedulerReconfigured = schedulerReconfigured;
     }
 
+    public List<WorkerPoolStatus> getWorkerPools() {
+        return workerPools;
+    }
+
+    public void setWorkerPools(final List<WorkerPoolStatus> workerPools) {
+        this.workerPools = workerPools;
+    }
+
+    /**
+     * @return true if the extra thread groups are not being given new jobs because of heap or GC pressure.
+     */
+    public boolean isExtraThreadsThrottled() {
+        return extraThreadsThrottled;
+    }
+
+    public void setExtraThreadsThrottled(final boolean extraThreadsThrottled) {
+        this.extraThreadsThrottled = extraThreadsThrottled;
+    }
+
+    /**
+     * @return the number of times the extra thread groups have been throttled since the plugin was enabled.
+     */
+    public long getThrottleEvents() {
+        return throttleEvents;
+    }
+
+    public void setThrottleEvents(final long throttleEvents) {
+        this.throttleEvents = throttleEvents;
+    }
+
+    /**
+     * @return the time the extra thread groups have spent throttled, including the current spell.
+     */
+    public long getThrottledMillis() {
+        return throttledMillis;
+    }
+
+    public void setThrottledMillis(final long throttledMillis) {
+        this.throttledMillis = throttledMillis;
+    }
+
+    /**
+     * @return the jobs put back on the queue by throttled workers.
+     */
+    public long getThrottleDeferredRuns() {
+        return throttleDeferredRuns;
+    }
+
+    public void setThrottleDeferredRuns(final long throttleDeferredRuns) {
+        this.throttleDeferredRuns = throttleDeferredRuns;
+    }
+
+    public int getHeapAfterGcPercent() {
+        return heapAfterGcPercent;
+    }
+
+    public void setHeapAfterGcPercent(final int heapAfterGcPercent) {
+        this.heapAfterGcPercent = heapAfterGcPercent;
+    }
+
+    public double getGcTimePercent() {
+        return gcTimePercent;
+    }
+
+    public void setGcTimePercent(final double gcTimePercent) {
+        this.gcTimePercent = gcTimePercent;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -101,9 +191,17 @@ public class CurrentConfiguration {
         if (extraThreadGroupStarted != that.extraThreadGroupStarted) return false;
         if (schedulerRunning != that.schedulerRunning) return false;
         if (schedulerReconfigured != that.schedulerReconfigured) return false;
+        if (extraThreadsThrottled != that.extraThreadsThrottled) return false;
+        if (throttleEvents != that.throttleEvents) return false;
+        if (throttledMillis != that.throttledMillis) return false;
+        if (throttleDeferredRuns != that.throttleDeferredRuns) return false;
+        if (heapAfterGcPercent != that.heapAfterGcPercent) return false;
+        if (Double.compare(gcTimePercent, that.gcTimePercent) != 0) return false;
         if (!Objects.equals(threadGroupName, that.threadGroupName))
             return false;
-        return Objects.equals(defaultThreadGroup, that.defaultThreadGroup);
+        if (!Objects.equals(defaultThreadGroup, that.defaultThreadGroup))
+            return false;
+        return Objects.equals(workerPools, that.workerPools);
     }
 
     @Override
@@ -115,6 +213,13 @@ public class CurrentConfiguration {
         result = 31 * result + (defaultThreadGroup != null ? defaultThreadGroup.hashCode() : 0);
         result = 31 * result + (schedulerRunning ? 1 : 0);
         result = 31 * result + (schedulerReconfigured ? 1 : 0);
+        result = 31 * result + (workerPools != null ? workerPools.hashCode() : 0);
+        result = 31 * result + (extraThreadsThrottled ? 1 : 0);
+        result = 31 * result + Long.hashCode(throttleEvents);
+        result = 31 * result + Long.hashCode(throttledMillis);
+        result = 31 * result + Long.hashCode(throttleDeferredRuns);
+        result = 31 * result + heapAfterGcPercent;
+        result = 31 * result + Double.hashCode(gcTimePercent);
         return result;
     }
 }
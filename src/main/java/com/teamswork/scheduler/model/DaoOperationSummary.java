@@ -0,0 +1,74 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Call count and latency of one ClusteredJobDao operation.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "daoOperationSummary")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class DaoOperationSummary {
+
+    @JsonProperty("operation")
+    private String operation;
+
+    @JsonProperty("calls")
+    private long calls;
+
+    @JsonProperty("failures")
+    private long failures;
+
+    @JsonProperty("totalMillis")
+    private long totalMillis;
+
+    @JsonProperty("latency")
+    private LatencySummary latency;
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(final String operation) {
+        this.operation = operation;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public void setCalls(final long calls) {
+        this.calls = calls;
+    }
+
+    /**
+     * @return the calls that threw, or that returned false, e.g. a claim lost to another node.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    public void setFailures(final long failures) {
+        this.failures = failures;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(final long totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    public LatencySummary getLatency() {
+        return latency;
+    }
+
+    public void setLatency(final LatencySummary latency) {
+        this.latency = latency;
+    }
+}
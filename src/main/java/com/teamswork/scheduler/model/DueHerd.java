@@ -0,0 +1,68 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A minute in which many jobs are due at once.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "dueHerd")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class DueHerd {
+
+    @JsonProperty("minute")
+    private long minute;
+
+    @JsonProperty("jobsDue")
+    private int jobsDue;
+
+    @JsonProperty("jobsDueAfterSmoothing")
+    private int jobsDueAfterSmoothing;
+
+    @JsonProperty("jobIds")
+    private List<String> jobIds = new ArrayList<>();
+
+    /**
+     * @return the start of the minute, in epoch milliseconds.
+     */
+    public long getMinute() {
+        return minute;
+    }
+
+    public void setMinute(final long minute) {
+        this.minute = minute;
+    }
+
+    public int getJobsDue() {
+        return jobsDue;
+    }
+
+    public void setJobsDue(final int jobsDue) {
+        this.jobsDue = jobsDue;
+    }
+
+    public int getJobsDueAfterSmoothing() {
+        return jobsDueAfterSmoothing;
+    }
+
+    public void setJobsDueAfterSmoothing(final int jobsDueAfterSmoothing) {
+        this.jobsDueAfterSmoothing = jobsDueAfterSmoothing;
+    }
+
+    /**
+     * @return the first few jobs due in the minute.
+     */
+    public List<String> getJobIds() {
+        return jobIds;
+    }
+
+    public void setJobIds(final List<String> jobIds) {
+        this.jobIds = jobIds;
+    }
+}
@@ -0,0 +1,93 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the execution history, newest first.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "executionHistoryPage")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ExecutionHistoryPage {
+
+    @JsonProperty("capacity")
+    private int capacity;
+
+    @JsonProperty("recorded")
+    private long recorded;
+
+    @JsonProperty("matching")
+    private int matching;
+
+    @JsonProperty("offset")
+    private int offset;
+
+    @JsonProperty("limit")
+    private int limit;
+
+    @JsonProperty("records")
+    private List<ExecutionRecord> records = new ArrayList<>();
+
+    /**
+     * @return the number of runs the history holds. Older runs are overwritten.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the number of runs recorded since the plugin was enabled, including those since overwritten.
+     */
+    public long getRecorded() {
+        return recorded;
+    }
+
+    public void setRecorded(final long recorded) {
+        this.recorded = recorded;
+    }
+
+    /**
+     * @return the number of runs held that match the filters.
+     */
+    public int getMatching() {
+        return matching;
+    }
+
+    public void setMatching(final int matching) {
+        this.matching = matching;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(final int offset) {
+        this.offset = offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(final int limit) {
+        this.limit = limit;
+    }
+
+    public List<ExecutionRecord> getRecords() {
+        return records;
+    }
+
+    public void setRecords(final List<ExecutionRecord> records) {
+        this.records = records;
+    }
+}
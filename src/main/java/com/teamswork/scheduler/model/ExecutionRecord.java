@@ -0,0 +1,97 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * One job run, as recorded in the execution history. Times are epoch milliseconds;
+ * scheduledTime is -1 if we did not know when the job was due.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "executionRecord")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ExecutionRecord {
+
+    @JsonProperty("jobId")
+    private String jobId;
+
+    @JsonProperty("runnerKey")
+    private String runnerKey;
+
+    @JsonProperty("threadGroup")
+    private String threadGroup;
+
+    @JsonProperty("scheduledTime")
+    private long scheduledTime;
+
+    @JsonProperty("startTime")
+    private long startTime;
+
+    @JsonProperty("endTime")
+    private long endTime;
+
+    @JsonProperty("outcome")
+    private String outcome;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(final String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getRunnerKey() {
+        return runnerKey;
+    }
+
+    public void setRunnerKey(final String runnerKey) {
+        this.runnerKey = runnerKey;
+    }
+
+    /**
+     * @return the Caesium thread group, e.g. Caesium-2, or the worker pool's thread group, that ran the job.
+     */
+    public String getThreadGroup() {
+        return threadGroup;
+    }
+
+    public void setThreadGroup(final String threadGroup) {
+        this.threadGroup = threadGroup;
+    }
+
+    public long getScheduledTime() {
+        return scheduledTime;
+    }
+
+    public void setScheduledTime(final long scheduledTime) {
+        this.scheduledTime = scheduledTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(final long startTime) {
+        this.startTime = startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(final long endTime) {
+        this.endTime = endTime;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(final String outcome) {
+        this.outcome = outcome;
+    }
+}
@@ -0,0 +1,276 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A forecast of the load scheduled jobs will put on the scheduler, and the worker count that keeps the p95 lag under the target.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "forecastReport")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ForecastReport {
+
+    @JsonProperty("state")
+    private String state;
+
+    @JsonProperty("message")
+    private String message;
+
+    @JsonProperty("requestedAt")
+    private long requestedAt;
+
+    @JsonProperty("computeMillis")
+    private long computeMillis;
+
+    @JsonProperty("windowStart")
+    private long windowStart;
+
+    @JsonProperty("horizonHours")
+    private int horizonHours;
+
+    @JsonProperty("targetP95LagMillis")
+    private long targetP95LagMillis;
+
+    @JsonProperty("jobsForecast")
+    private int jobsForecast;
+
+    @JsonProperty("jobRuns")
+    private long jobRuns;
+
+    @JsonProperty("truncated")
+    private boolean truncated;
+
+    @JsonProperty("runnersWithoutHistory")
+    private int runnersWithoutHistory;
+
+    @JsonProperty("assumedDurationMillis")
+    private long assumedDurationMillis;
+
+    @JsonProperty("dueJobs")
+    private List<Integer> dueJobs = new ArrayList<>();
+
+    @JsonProperty("concurrency")
+    private List<Double> concurrency = new ArrayList<>();
+
+    @JsonProperty("peakConcurrency")
+    private double peakConcurrency;
+
+    @JsonProperty("currentWorkers")
+    private int currentWorkers;
+
+    @JsonProperty("currentP95LagMillis")
+    private long currentP95LagMillis;
+
+    @JsonProperty("recommendedWorkers")
+    private int recommendedWorkers;
+
+    @JsonProperty("recommendedExtraThreads")
+    private int recommendedExtraThreads;
+
+    @JsonProperty("recommendedP95LagMillis")
+    private long recommendedP95LagMillis;
+
+    @JsonProperty("targetReachable")
+    private boolean targetReachable;
+
+    /**
+     * @return IDLE, RUNNING, DONE or FAILED.
+     */
+    public String getState() {
+        return state;
+    }
+
+    public void setState(final String state) {
+        this.state = state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(final String message) {
+        this.message = message;
+    }
+
+    public long getRequestedAt() {
+        return requestedAt;
+    }
+
+    public void setRequestedAt(final long requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+
+    /**
+     * @return how long the forecast took to compute.
+     */
+    public long getComputeMillis() {
+        return computeMillis;
+    }
+
+    public void setComputeMillis(final long computeMillis) {
+        this.computeMillis = computeMillis;
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(final long windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    public int getHorizonHours() {
+        return horizonHours;
+    }
+
+    public void setHorizonHours(final int horizonHours) {
+        this.horizonHours = horizonHours;
+    }
+
+    public long getTargetP95LagMillis() {
+        return targetP95LagMillis;
+    }
+
+    public void setTargetP95LagMillis(final long targetP95LagMillis) {
+        this.targetP95LagMillis = targetP95LagMillis;
+    }
+
+    public int getJobsForecast() {
+        return jobsForecast;
+    }
+
+    public void setJobsForecast(final int jobsForecast) {
+        this.jobsForecast = jobsForecast;
+    }
+
+    /**
+     * @return the number of job runs expected over the horizon.
+     */
+    public long getJobRuns() {
+        return jobRuns;
+    }
+
+    public void setJobRuns(final long jobRuns) {
+        this.jobRuns = jobRuns;
+    }
+
+    /**
+     * @return true if there were too many runs to forecast and the later ones were left out.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(final boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return job runners with no recorded runs, which are assumed to take assumedDurationMillis.
+     */
+    public int getRunnersWithoutHistory() {
+        return runnersWithoutHistory;
+    }
+
+    public void setRunnersWithoutHistory(final int runnersWithoutHistory) {
+        this.runnersWithoutHistory = runnersWithoutHistory;
+    }
+
+    public long getAssumedDurationMillis() {
+        return assumedDurationMillis;
+    }
+
+    public void setAssumedDurationMillis(final long assumedDurationMillis) {
+        this.assumedDurationMillis = assumedDurationMillis;
+    }
+
+    /**
+     * @return the number of jobs due in each minute of the horizon.
+     */
+    public List<Integer> getDueJobs() {
+        return dueJobs;
+    }
+
+    public void setDueJobs(final List<Integer> dueJobs) {
+        this.dueJobs = dueJobs;
+    }
+
+    /**
+     * @return the mean number of jobs that would be running in each minute if every job started on time.
+     */
+    public List<Double> getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(final List<Double> concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public double getPeakConcurrency() {
+        return peakConcurrency;
+    }
+
+    public void setPeakConcurrency(final double peakConcurrency) {
+        this.peakConcurrency = peakConcurrency;
+    }
+
+    public int getCurrentWorkers() {
+        return currentWorkers;
+    }
+
+    public void setCurrentWorkers(final int currentWorkers) {
+        this.currentWorkers = currentWorkers;
+    }
+
+    /**
+     * @return the predicted p95 lag with the current workers.
+     */
+    public long getCurrentP95LagMillis() {
+        return currentP95LagMillis;
+    }
+
+    public void setCurrentP95LagMillis(final long currentP95LagMillis) {
+        this.currentP95LagMillis = currentP95LagMillis;
+    }
+
+    public int getRecommendedWorkers() {
+        return recommendedWorkers;
+    }
+
+    public void setRecommendedWorkers(final int recommendedWorkers) {
+        this.recommendedWorkers = recommendedWorkers;
+    }
+
+    /**
+     * @return the extra threads to add to Jira's 4 to get the recommended workers.
+     */
+    public int getRecommendedExtraThreads() {
+        return recommendedExtraThreads;
+    }
+
+    public void setRecommendedExtraThreads(final int recommendedExtraThreads) {
+        this.recommendedExtraThreads = recommendedExtraThreads;
+    }
+
+    public long getRecommendedP95LagMillis() {
+        return recommendedP95LagMillis;
+    }
+
+    public void setRecommendedP95LagMillis(final long recommendedP95LagMillis) {
+        this.recommendedP95LagMillis = recommendedP95LagMillis;
+    }
+
+    public boolean isTargetReachable() {
+        return targetReachable;
+    }
+
+    public void setTargetReachable(final boolean targetReachable) {
+        this.targetReachable = targetReachable;
+    }
+}
@@ -0,0 +1,143 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A job run that went over its budget, with the stack of its thread when the watchdog found it.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "hangEvent")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class HangEvent {
+
+    @JsonProperty("jobId")
+    private String jobId;
+
+    @JsonProperty("jobRunnerKey")
+    private String jobRunnerKey;
+
+    @JsonProperty("threadName")
+    private String threadName;
+
+    @JsonProperty("threadGroup")
+    private String threadGroup;
+
+    @JsonProperty("startedAt")
+    private long startedAt;
+
+    @JsonProperty("detectedAt")
+    private long detectedAt;
+
+    @JsonProperty("budgetSeconds")
+    private long budgetSeconds;
+
+    @JsonProperty("state")
+    private String state;
+
+    @JsonProperty("recoveredAt")
+    private long recoveredAt;
+
+    @JsonProperty("runningMillis")
+    private long runningMillis;
+
+    @JsonProperty("stackTrace")
+    private String stackTrace;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(final String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getJobRunnerKey() {
+        return jobRunnerKey;
+    }
+
+    public void setJobRunnerKey(final String jobRunnerKey) {
+        this.jobRunnerKey = jobRunnerKey;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public void setThreadName(final String threadName) {
+        this.threadName = threadName;
+    }
+
+    public String getThreadGroup() {
+        return threadGroup;
+    }
+
+    public void setThreadGroup(final String threadGroup) {
+        this.threadGroup = threadGroup;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(final long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long getDetectedAt() {
+        return detectedAt;
+    }
+
+    public void setDetectedAt(final long detectedAt) {
+        this.detectedAt = detectedAt;
+    }
+
+    public long getBudgetSeconds() {
+        return budgetSeconds;
+    }
+
+    public void setBudgetSeconds(final long budgetSeconds) {
+        this.budgetSeconds = budgetSeconds;
+    }
+
+    /**
+     * @return SUSPECT while the run is still going, RECOVERED once it has ended.
+     */
+    public String getState() {
+        return state;
+    }
+
+    public void setState(final String state) {
+        this.state = state;
+    }
+
+    public long getRecoveredAt() {
+        return recoveredAt;
+    }
+
+    public void setRecoveredAt(final long recoveredAt) {
+        this.recoveredAt = recoveredAt;
+    }
+
+    /**
+     * @return how long the run had been going when it was found, or took in all once it has ended.
+     */
+    public long getRunningMillis() {
+        return runningMillis;
+    }
+
+    public void setRunningMillis(final long runningMillis) {
+        this.runningMillis = runningMillis;
+    }
+
+    public String getStackTrace() {
+        return stackTrace;
+    }
+
+    public void setStackTrace(final String stackTrace) {
+        this.stackTrace = stackTrace;
+    }
+}
@@ -0,0 +1,91 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A proposed change to the schedule of a flexible job.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "jitterProposal")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JitterProposal {
+
+    @JsonProperty("jobId")
+    private String jobId;
+
+    @JsonProperty("jobRunnerKey")
+    private String jobRunnerKey;
+
+    @JsonProperty("schedule")
+    private String schedule;
+
+    @JsonProperty("jitteredSchedule")
+    private String jitteredSchedule;
+
+    @JsonProperty("offsetSeconds")
+    private int offsetSeconds;
+
+    @JsonProperty("applied")
+    private boolean applied;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(final String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getJobRunnerKey() {
+        return jobRunnerKey;
+    }
+
+    public void setJobRunnerKey(final String jobRunnerKey) {
+        this.jobRunnerKey = jobRunnerKey;
+    }
+
+    /**
+     * @return the schedule the job was given by its owner.
+     */
+    public String getSchedule() {
+        return schedule;
+    }
+
+    public void setSchedule(final String schedule) {
+        this.schedule = schedule;
+    }
+
+    /**
+     * @return the schedule with the job's offset applied, or null if it cannot be shifted.
+     */
+    public String getJitteredSchedule() {
+        return jitteredSchedule;
+    }
+
+    public void setJitteredSchedule(final String jitteredSchedule) {
+        this.jitteredSchedule = jitteredSchedule;
+    }
+
+    public int getOffsetSeconds() {
+        return offsetSeconds;
+    }
+
+    public void setOffsetSeconds(final int offsetSeconds) {
+        this.offsetSeconds = offsetSeconds;
+    }
+
+    /**
+     * @return true if the job is already running on the jittered schedule.
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public void setApplied(final boolean applied) {
+        this.applied = applied;
+    }
+}
@@ -0,0 +1,46 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The priority given to jobs whose JobRunnerKey matches a pattern. 1 is the lowest priority and 9 the highest.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "jobPriority")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JobPriority {
+
+    @JsonProperty("pattern")
+    private String pattern;
+
+    @JsonProperty("priority")
+    private int priority;
+
+    public JobPriority() {
+    }
+
+    public JobPriority(final String pattern, final int priority) {
+        this.pattern = pattern;
+        this.priority = priority;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(final String pattern) {
+        this.pattern = pattern;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(final int priority) {
+        this.priority = priority;
+    }
+}
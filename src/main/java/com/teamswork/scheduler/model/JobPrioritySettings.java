@@ -0,0 +1,44 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The job priorities used when worker pools have a backlog. Jobs matching no pattern get the default priority, 5.
+ * A queued job gains one priority level for every agingSeconds it waits, so low priority jobs are not starved.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "jobPrioritySettings")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JobPrioritySettings {
+
+    @JsonProperty("agingSeconds")
+    private int agingSeconds = 30;
+
+    @JsonProperty("priorities")
+    private List<JobPriority> priorities = new ArrayList<>();
+
+    public int getAgingSeconds() {
+        return agingSeconds;
+    }
+
+    public void setAgingSeconds(final int agingSeconds) {
+        this.agingSeconds = agingSeconds;
+    }
+
+    /**
+     * @return the priority patterns. If more than one matches a key, the first wins.
+     */
+    public List<JobPriority> getPriorities() {
+        return priorities;
+    }
+
+    public void setPriorities(final List<JobPriority> priorities) {
+        this.priorities = priorities;
+    }
+}
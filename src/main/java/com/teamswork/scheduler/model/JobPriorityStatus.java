@@ -0,0 +1,43 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The job priority settings and how long jobs of each priority have waited in worker pool queues.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "jobPriorityStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JobPriorityStatus {
+
+    @JsonProperty("settings")
+    private JobPrioritySettings settings;
+
+    @JsonProperty("waits")
+    private List<PriorityWait> waits = new ArrayList<>();
+
+    public JobPrioritySettings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(final JobPrioritySettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * @return queue wait figures for each priority that has had jobs, highest priority first.
+     */
+    public List<PriorityWait> getWaits() {
+        return waits;
+    }
+
+    public void setWaits(final List<PriorityWait> waits) {
+        this.waits = waits;
+    }
+}
@@ -0,0 +1,118 @@
+package com.teamswork.scheduler.model;
+
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Percentiles of a latency histogram, in milliseconds.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "latencySummary")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class LatencySummary {
+
+    @JsonProperty("count")
+    private long count;
+
+    @JsonProperty("meanMillis")
+    private double meanMillis;
+
+    @JsonProperty("p50Millis")
+    private double p50Millis;
+
+    @JsonProperty("p95Millis")
+    private double p95Millis;
+
+    @JsonProperty("p99Millis")
+    private double p99Millis;
+
+    @JsonProperty("maxMillis")
+    private double maxMillis;
+
+    public LatencySummary() {
+    }
+
+    /**
+     * Summarise a histogram of microsecond values.
+     * @param snapshot the histogram snapshot.
+     * @return the summary in milliseconds.
+     */
+    public static LatencySummary fromMicros(final LatencyHistogram.Snapshot snapshot) {
+        final LatencySummary summary = new LatencySummary();
+        summary.setCount(snapshot.getTotalCount());
+        summary.setMeanMillis(toMillis(snapshot.getMean()));
+        summary.setP50Millis(toMillis(snapshot.getValueAtPercentile(50)));
+        summary.setP95Millis(toMillis(snapshot.getValueAtPercentile(95)));
+        summary.setP99Millis(toMillis(snapshot.getValueAtPercentile(99)));
+        summary.setMaxMillis(toMillis(snapshot.getMax()));
+        return summary;
+    }
+
+    /**
+     * Summarise microsecond values of which only the count, total and maximum were kept. The percentiles are 0.
+     * @return the summary in milliseconds.
+     */
+    public static LatencySummary fromMicros(final long count, final long totalMicros, final long maxMicros) {
+        final LatencySummary summary = new LatencySummary();
+        summary.setCount(count);
+        summary.setMeanMillis(count == 0 ? 0.0 : toMillis((double) totalMicros / count));
+        summary.setMaxMillis(toMillis(maxMicros));
+        return summary;
+    }
+
+    private static double toMillis(final double micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(final long count) {
+        this.count = count;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public void setMeanMillis(final double meanMillis) {
+        this.meanMillis = meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public void setP50Millis(final double p50Millis) {
+        this.p50Millis = p50Millis;
+    }
+
+    public double getP95Millis() {
+        return p95Millis;
+    }
+
+    public void setP95Millis(final double p95Millis) {
+        this.p95Millis = p95Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public void setP99Millis(final double p99Millis) {
+        this.p99Millis = p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    public void setMaxMillis(final double maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+}
@@ -0,0 +1,122 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A synthetic workload for a load test: a number of job runners, each with jobs on an interval that burn CPU, wait, allocate and fail as configured.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "loadProfile")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class LoadProfile {
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("runners")
+    private int runners = 1;
+
+    @JsonProperty("jobsPerRunner")
+    private int jobsPerRunner = 1;
+
+    @JsonProperty("intervalMillis")
+    private long intervalMillis = 60000L;
+
+    @JsonProperty("cpuMillis")
+    private long cpuMillis;
+
+    @JsonProperty("sleepMillis")
+    private long sleepMillis;
+
+    @JsonProperty("allocationKb")
+    private long allocationKb;
+
+    @JsonProperty("failurePercent")
+    private int failurePercent;
+
+    /**
+     * @return a name made of letters, digits, - and _, used in the job runner keys.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public int getRunners() {
+        return runners;
+    }
+
+    public void setRunners(final int runners) {
+        this.runners = runners;
+    }
+
+    public int getJobsPerRunner() {
+        return jobsPerRunner;
+    }
+
+    public void setJobsPerRunner(final int jobsPerRunner) {
+        this.jobsPerRunner = jobsPerRunner;
+    }
+
+    /**
+     * @return how often each job runs; with runners and jobsPerRunner this sets the schedule density.
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public void setIntervalMillis(final long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * @return CPU time each run spins for.
+     */
+    public long getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public void setCpuMillis(final long cpuMillis) {
+        this.cpuMillis = cpuMillis;
+    }
+
+    /**
+     * @return time each run sleeps for, standing in for I/O or database waits.
+     */
+    public long getSleepMillis() {
+        return sleepMillis;
+    }
+
+    public void setSleepMillis(final long sleepMillis) {
+        this.sleepMillis = sleepMillis;
+    }
+
+    /**
+     * @return heap each run allocates.
+     */
+    public long getAllocationKb() {
+        return allocationKb;
+    }
+
+    public void setAllocationKb(final long allocationKb) {
+        this.allocationKb = allocationKb;
+    }
+
+    /**
+     * @return the percentage of runs that fail.
+     */
+    public int getFailurePercent() {
+        return failurePercent;
+    }
+
+    public void setFailurePercent(final int failurePercent) {
+        this.failurePercent = failurePercent;
+    }
+}
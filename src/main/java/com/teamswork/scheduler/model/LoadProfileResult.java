@@ -0,0 +1,63 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The runs of one load test profile.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "loadProfileResult")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class LoadProfileResult {
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("runs")
+    private long runs;
+
+    @JsonProperty("failedRuns")
+    private long failedRuns;
+
+    @JsonProperty("lag")
+    private LatencySummary lag;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public long getRuns() {
+        return runs;
+    }
+
+    public void setRuns(final long runs) {
+        this.runs = runs;
+    }
+
+    public long getFailedRuns() {
+        return failedRuns;
+    }
+
+    public void setFailedRuns(final long failedRuns) {
+        this.failedRuns = failedRuns;
+    }
+
+    /**
+     * @return how late the profile's jobs started.
+     */
+    public LatencySummary getLag() {
+        return lag;
+    }
+
+    public void setLag(final LatencySummary lag) {
+        this.lag = lag;
+    }
+}
@@ -0,0 +1,239 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The progress or outcome of a load test, with the scheduler configuration it ran against.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "loadTestReport")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class LoadTestReport {
+
+    @JsonProperty("state")
+    private String state;
+
+    @JsonProperty("message")
+    private String message;
+
+    @JsonProperty("startedAt")
+    private long startedAt;
+
+    @JsonProperty("finishedAt")
+    private long finishedAt;
+
+    @JsonProperty("elapsedMillis")
+    private long elapsedMillis;
+
+    @JsonProperty("durationSeconds")
+    private int durationSeconds;
+
+    @JsonProperty("schedulerThreads")
+    private int schedulerThreads;
+
+    @JsonProperty("extraThreadGroups")
+    private int extraThreadGroups;
+
+    @JsonProperty("jobs")
+    private int jobs;
+
+    @JsonProperty("runs")
+    private long runs;
+
+    @JsonProperty("failedRuns")
+    private long failedRuns;
+
+    @JsonProperty("throughputPerSecond")
+    private double throughputPerSecond;
+
+    @JsonProperty("lag")
+    private LatencySummary lag;
+
+    @JsonProperty("runTime")
+    private LatencySummary runTime;
+
+    @JsonProperty("utilisationPercent")
+    private double utilisationPercent;
+
+    @JsonProperty("peakConcurrency")
+    private int peakConcurrency;
+
+    @JsonProperty("runsByThreadGroup")
+    private Map<String, Long> runsByThreadGroup = new TreeMap<>();
+
+    @JsonProperty("profiles")
+    private List<LoadProfileResult> profiles = new ArrayList<>();
+
+    /**
+     * @return IDLE, RUNNING, STOPPING, DONE or FAILED.
+     */
+    public String getState() {
+        return state;
+    }
+
+    public void setState(final String state) {
+        this.state = state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(final String message) {
+        this.message = message;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(final long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(final long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(final long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(final int durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    /**
+     * @return the Caesium workers running when the test started.
+     */
+    public int getSchedulerThreads() {
+        return schedulerThreads;
+    }
+
+    public void setSchedulerThreads(final int schedulerThreads) {
+        this.schedulerThreads = schedulerThreads;
+    }
+
+    public int getExtraThreadGroups() {
+        return extraThreadGroups;
+    }
+
+    public void setExtraThreadGroups(final int extraThreadGroups) {
+        this.extraThreadGroups = extraThreadGroups;
+    }
+
+    /**
+     * @return the synthetic jobs scheduled.
+     */
+    public int getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(final int jobs) {
+        this.jobs = jobs;
+    }
+
+    public long getRuns() {
+        return runs;
+    }
+
+    public void setRuns(final long runs) {
+        this.runs = runs;
+    }
+
+    public long getFailedRuns() {
+        return failedRuns;
+    }
+
+    public void setFailedRuns(final long failedRuns) {
+        this.failedRuns = failedRuns;
+    }
+
+    public double getThroughputPerSecond() {
+        return throughputPerSecond;
+    }
+
+    public void setThroughputPerSecond(final double throughputPerSecond) {
+        this.throughputPerSecond = throughputPerSecond;
+    }
+
+    /**
+     * @return how late the synthetic jobs started.
+     */
+    public LatencySummary getLag() {
+        return lag;
+    }
+
+    public void setLag(final LatencySummary lag) {
+        this.lag = lag;
+    }
+
+    public LatencySummary getRunTime() {
+        return runTime;
+    }
+
+    public void setRunTime(final LatencySummary runTime) {
+        this.runTime = runTime;
+    }
+
+    /**
+     * @return the time spent running synthetic jobs as a percentage of the time the scheduler threads were available.
+     */
+    public double getUtilisationPercent() {
+        return utilisationPercent;
+    }
+
+    public void setUtilisationPercent(final double utilisationPercent) {
+        this.utilisationPercent = utilisationPercent;
+    }
+
+    /**
+     * @return the most synthetic jobs running at once.
+     */
+    public int getPeakConcurrency() {
+        return peakConcurrency;
+    }
+
+    public void setPeakConcurrency(final int peakConcurrency) {
+        this.peakConcurrency = peakConcurrency;
+    }
+
+    /**
+     * @return the synthetic runs per Caesium thread group.
+     */
+    public Map<String, Long> getRunsByThreadGroup() {
+        return runsByThreadGroup;
+    }
+
+    public void setRunsByThreadGroup(final Map<String, Long> runsByThreadGroup) {
+        this.runsByThreadGroup = runsByThreadGroup;
+    }
+
+    public List<LoadProfileResult> getProfiles() {
+        return profiles;
+    }
+
+    public void setProfiles(final List<LoadProfileResult> profiles) {
+        this.profiles = profiles;
+    }
+}
@@ -0,0 +1,40 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A time-boxed load test.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "loadTestRequest")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class LoadTestRequest {
+
+    @JsonProperty("durationSeconds")
+    private int durationSeconds = 300;
+
+    @JsonProperty("profiles")
+    private List<LoadProfile> profiles = new ArrayList<>();
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(final int durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public List<LoadProfile> getProfiles() {
+        return profiles;
+    }
+
+    public void setProfiles(final List<LoadProfile> profiles) {
+        this.profiles = profiles;
+    }
+}
@@ -0,0 +1,131 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * One node's outcome of a cluster-wide operation and its scheduler state afterwards.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "nodeConfiguration")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class NodeConfiguration {
+
+    @JsonProperty("nodeId")
+    private String nodeId;
+
+    @JsonProperty("responded")
+    private boolean responded;
+
+    @JsonProperty("success")
+    private boolean success;
+
+    @JsonProperty("message")
+    private String message;
+
+    @JsonProperty("schedulerRunning")
+    private boolean schedulerRunning;
+
+    @JsonProperty("schedulerReconfigured")
+    private boolean schedulerReconfigured;
+
+    @JsonProperty("extraThreadsToConfigure")
+    private int extraThreadsToConfigure;
+
+    @JsonProperty("extraThreadsRunning")
+    private int extraThreadsRunning;
+
+    public NodeConfiguration() {
+    }
+
+    public NodeConfiguration(final String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(final String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * @return false if the node did not reply in time, in which case the other fields are not known.
+     */
+    public boolean isResponded() {
+        return responded;
+    }
+
+    public void setResponded(final boolean responded) {
+        this.responded = responded;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(final boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(final String message) {
+        this.message = message;
+    }
+
+    public boolean isSchedulerRunning() {
+        return schedulerRunning;
+    }
+
+    public void setSchedulerRunning(final boolean schedulerRunning) {
+        this.schedulerRunning = schedulerRunning;
+    }
+
+    public boolean isSchedulerReconfigured() {
+        return schedulerReconfigured;
+    }
+
+    public void setSchedulerReconfigured(final boolean schedulerReconfigured) {
+        this.schedulerReconfigured = schedulerReconfigured;
+    }
+
+    public int getExtraThreadsToConfigure() {
+        return extraThreadsToConfigure;
+    }
+
+    public void setExtraThreadsToConfigure(final int extraThreadsToConfigure) {
+        this.extraThreadsToConfigure = extraThreadsToConfigure;
+    }
+
+    /**
+     * @return the live threads in all extra thread groups on the node.
+     */
+    public int getExtraThreadsRunning() {
+        return extraThreadsRunning;
+    }
+
+    public void setExtraThreadsRunning(final int extraThreadsRunning) {
+        this.extraThreadsRunning = extraThreadsRunning;
+    }
+
+    @Override
+    public String toString() {
+        return "NodeConfiguration{" +
+                "nodeId='" + nodeId + '\'' +
+                ", responded=" + responded +
+                ", success=" + success +
+                ", message='" + message + '\'' +
+                ", schedulerRunning=" + schedulerRunning +
+                ", schedulerReconfigured=" + schedulerReconfigured +
+                ", extraThreadsToConfigure=" + extraThreadsToConfigure +
+                ", extraThreadsRunning=" + extraThreadsRunning +
+                '}';
+    }
+}
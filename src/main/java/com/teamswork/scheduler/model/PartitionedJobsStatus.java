@@ -0,0 +1,68 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The partition threads, and the partitioned job runs in progress and recently finished.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "partitionedJobsStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class PartitionedJobsStatus {
+
+    @JsonProperty("threads")
+    private int threads;
+
+    @JsonProperty("activeThreads")
+    private int activeThreads;
+
+    @JsonProperty("running")
+    private List<PartitionedRunStatus> running = new ArrayList<>();
+
+    @JsonProperty("recent")
+    private List<PartitionedRunStatus> recent = new ArrayList<>();
+
+    /**
+     * @return the most partition threads, which follows the extra scheduler threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    public void setActiveThreads(final int activeThreads) {
+        this.activeThreads = activeThreads;
+    }
+
+    public List<PartitionedRunStatus> getRunning() {
+        return running;
+    }
+
+    public void setRunning(final List<PartitionedRunStatus> running) {
+        this.running = running;
+    }
+
+    /**
+     * @return newest first.
+     */
+    public List<PartitionedRunStatus> getRecent() {
+        return recent;
+    }
+
+    public void setRecent(final List<PartitionedRunStatus> recent) {
+        this.recent = recent;
+    }
+}
@@ -0,0 +1,152 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The progress of one run of a partitioned job.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "partitionedRunStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class PartitionedRunStatus {
+
+    @JsonProperty("jobId")
+    private String jobId;
+
+    @JsonProperty("jobRunnerKey")
+    private String jobRunnerKey;
+
+    @JsonProperty("startTime")
+    private long startTime;
+
+    @JsonProperty("finishTime")
+    private long finishTime;
+
+    @JsonProperty("partitions")
+    private int partitions;
+
+    @JsonProperty("completed")
+    private int completed;
+
+    @JsonProperty("failed")
+    private int failed;
+
+    @JsonProperty("running")
+    private int running;
+
+    @JsonProperty("parallelism")
+    private int parallelism;
+
+    @JsonProperty("cancelled")
+    private boolean cancelled;
+
+    @JsonProperty("outcome")
+    private String outcome;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(final String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getJobRunnerKey() {
+        return jobRunnerKey;
+    }
+
+    public void setJobRunnerKey(final String jobRunnerKey) {
+        this.jobRunnerKey = jobRunnerKey;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(final long startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * @return when the run finished, or 0 while it is running.
+     */
+    public long getFinishTime() {
+        return finishTime;
+    }
+
+    public void setFinishTime(final long finishTime) {
+        this.finishTime = finishTime;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(final int partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * @return the partitions run, whether or not they succeeded.
+     */
+    public int getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(final int completed) {
+        this.completed = completed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(final int failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * @return the partitions running now.
+     */
+    public int getRunning() {
+        return running;
+    }
+
+    public void setRunning(final int running) {
+        this.running = running;
+    }
+
+    /**
+     * @return the most partitions allowed to run at once.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(final int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(final boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @return the merged outcome, once the run has finished.
+     */
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(final String outcome) {
+        this.outcome = outcome;
+    }
+}
@@ -0,0 +1,46 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * How long jobs of one priority waited in worker pool queues.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "priorityWait")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class PriorityWait {
+
+    @JsonProperty("priority")
+    private int priority;
+
+    @JsonProperty("wait")
+    private LatencySummary wait;
+
+    public PriorityWait() {
+    }
+
+    public PriorityWait(final int priority, final LatencySummary wait) {
+        this.priority = priority;
+        this.wait = wait;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(final int priority) {
+        this.priority = priority;
+    }
+
+    public LatencySummary getWait() {
+        return wait;
+    }
+
+    public void setWait(final LatencySummary wait) {
+        this.wait = wait;
+    }
+}
@@ -0,0 +1,99 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Admin settings for how often each node re-reads the clustered job table, and whether fine-grained schedules
+ * are used. The defaults match Jira's own configuration: a fixed 5 minute refresh and no fine-grained schedules.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "refreshSettings")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RefreshSettings {
+
+    public enum Mode {
+        /** Refresh every intervalMinutes. */
+        FIXED,
+        /** Refresh more often after the clustered jobs change and less often while they don't. */
+        ADAPTIVE
+    }
+
+    @JsonProperty("mode")
+    private Mode mode = Mode.FIXED;
+
+    @JsonProperty("intervalMinutes")
+    private int intervalMinutes = 5;
+
+    @JsonProperty("minIntervalMinutes")
+    private int minIntervalMinutes = 1;
+
+    @JsonProperty("maxIntervalMinutes")
+    private int maxIntervalMinutes = 30;
+
+    @JsonProperty("fineGrainedSchedules")
+    private boolean fineGrainedSchedules = false;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(final Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @return the refresh interval in FIXED mode.
+     */
+    public int getIntervalMinutes() {
+        return intervalMinutes;
+    }
+
+    public void setIntervalMinutes(final int intervalMinutes) {
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    /**
+     * @return the interval ADAPTIVE mode drops back to after the clustered jobs change.
+     */
+    public int getMinIntervalMinutes() {
+        return minIntervalMinutes;
+    }
+
+    public void setMinIntervalMinutes(final int minIntervalMinutes) {
+        this.minIntervalMinutes = minIntervalMinutes;
+    }
+
+    /**
+     * @return the longest interval ADAPTIVE mode backs off to while the clustered jobs don't change.
+     */
+    public int getMaxIntervalMinutes() {
+        return maxIntervalMinutes;
+    }
+
+    public void setMaxIntervalMinutes(final int maxIntervalMinutes) {
+        this.maxIntervalMinutes = maxIntervalMinutes;
+    }
+
+    public boolean isFineGrainedSchedules() {
+        return fineGrainedSchedules;
+    }
+
+    public void setFineGrainedSchedules(final boolean fineGrainedSchedules) {
+        this.fineGrainedSchedules = fineGrainedSchedules;
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshSettings{" +
+                "mode=" + mode +
+                ", intervalMinutes=" + intervalMinutes +
+                ", minIntervalMinutes=" + minIntervalMinutes +
+                ", maxIntervalMinutes=" + maxIntervalMinutes +
+                ", fineGrainedSchedules=" + fineGrainedSchedules +
+                '}';
+    }
+}
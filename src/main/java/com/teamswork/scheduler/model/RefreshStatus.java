@@ -0,0 +1,146 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The refresh settings in force on this node and what the clustered job refreshes have cost so far.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "refreshStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RefreshStatus {
+
+    @JsonProperty("settings")
+    private RefreshSettings settings;
+
+    @JsonProperty("clustered")
+    private boolean clustered;
+
+    @JsonProperty("currentIntervalMinutes")
+    private int currentIntervalMinutes;
+
+    @JsonProperty("refreshes")
+    private long refreshes;
+
+    @JsonProperty("lastRefreshTime")
+    private long lastRefreshTime;
+
+    @JsonProperty("lastRowsRead")
+    private int lastRowsRead;
+
+    @JsonProperty("lastDurationMillis")
+    private long lastDurationMillis;
+
+    @JsonProperty("totalRowsRead")
+    private long totalRowsRead;
+
+    @JsonProperty("totalDurationMillis")
+    private long totalDurationMillis;
+
+    @JsonProperty("lastChangeTime")
+    private long lastChangeTime;
+
+    @JsonProperty("unchangedRefreshes")
+    private int unchangedRefreshes;
+
+    public RefreshSettings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(final RefreshSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * @return false on a server instance, where there is nothing to refresh.
+     */
+    public boolean isClustered() {
+        return clustered;
+    }
+
+    public void setClustered(final boolean clustered) {
+        this.clustered = clustered;
+    }
+
+    public int getCurrentIntervalMinutes() {
+        return currentIntervalMinutes;
+    }
+
+    public void setCurrentIntervalMinutes(final int currentIntervalMinutes) {
+        this.currentIntervalMinutes = currentIntervalMinutes;
+    }
+
+    public long getRefreshes() {
+        return refreshes;
+    }
+
+    public void setRefreshes(final long refreshes) {
+        this.refreshes = refreshes;
+    }
+
+    public long getLastRefreshTime() {
+        return lastRefreshTime;
+    }
+
+    public void setLastRefreshTime(final long lastRefreshTime) {
+        this.lastRefreshTime = lastRefreshTime;
+    }
+
+    public int getLastRowsRead() {
+        return lastRowsRead;
+    }
+
+    public void setLastRowsRead(final int lastRowsRead) {
+        this.lastRowsRead = lastRowsRead;
+    }
+
+    public long getLastDurationMillis() {
+        return lastDurationMillis;
+    }
+
+    public void setLastDurationMillis(final long lastDurationMillis) {
+        this.lastDurationMillis = lastDurationMillis;
+    }
+
+    public long getTotalRowsRead() {
+        return totalRowsRead;
+    }
+
+    public void setTotalRowsRead(final long totalRowsRead) {
+        this.totalRowsRead = totalRowsRead;
+    }
+
+    public long getTotalDurationMillis() {
+        return totalDurationMillis;
+    }
+
+    public void setTotalDurationMillis(final long totalDurationMillis) {
+        this.totalDurationMillis = totalDurationMillis;
+    }
+
+    /**
+     * @return when a refresh last found the clustered jobs had changed, or 0 if none has.
+     */
+    public long getLastChangeTime() {
+        return lastChangeTime;
+    }
+
+    public void setLastChangeTime(final long lastChangeTime) {
+        this.lastChangeTime = lastChangeTime;
+    }
+
+    /**
+     * @return the number of refreshes in a row that found nothing had changed.
+     */
+    public int getUnchangedRefreshes() {
+        return unchangedRefreshes;
+    }
+
+    public void setUnchangedRefreshes(final int unchangedRefreshes) {
+        this.unchangedRefreshes = unchangedRefreshes;
+    }
+}
@@ -0,0 +1,115 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CPU time and heap allocation totals, the top consumers and what measuring them has cost.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "resourceAccountingReport")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ResourceAccountingReport {
+
+    @JsonProperty("enabled")
+    private boolean enabled;
+
+    @JsonProperty("cpuTimeSupported")
+    private boolean cpuTimeSupported;
+
+    @JsonProperty("allocationSupported")
+    private boolean allocationSupported;
+
+    @JsonProperty("measuredRuns")
+    private long measuredRuns;
+
+    @JsonProperty("overheadMicros")
+    private long overheadMicros;
+
+    @JsonProperty("meanOverheadNanos")
+    private long meanOverheadNanos;
+
+    @JsonProperty("total")
+    private ResourceUsageSummary total;
+
+    @JsonProperty("top")
+    private List<ResourceUsageSummary> top = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isCpuTimeSupported() {
+        return cpuTimeSupported;
+    }
+
+    public void setCpuTimeSupported(final boolean cpuTimeSupported) {
+        this.cpuTimeSupported = cpuTimeSupported;
+    }
+
+    public boolean isAllocationSupported() {
+        return allocationSupported;
+    }
+
+    public void setAllocationSupported(final boolean allocationSupported) {
+        this.allocationSupported = allocationSupported;
+    }
+
+    public long getMeasuredRuns() {
+        return measuredRuns;
+    }
+
+    public void setMeasuredRuns(final long measuredRuns) {
+        this.measuredRuns = measuredRuns;
+    }
+
+    /**
+     * @return the total time spent measuring, in microseconds.
+     */
+    public long getOverheadMicros() {
+        return overheadMicros;
+    }
+
+    public void setOverheadMicros(final long overheadMicros) {
+        this.overheadMicros = overheadMicros;
+    }
+
+    /**
+     * @return the time spent measuring per run, in nanoseconds.
+     */
+    public long getMeanOverheadNanos() {
+        return meanOverheadNanos;
+    }
+
+    public void setMeanOverheadNanos(final long meanOverheadNanos) {
+        this.meanOverheadNanos = meanOverheadNanos;
+    }
+
+    public ResourceUsageSummary getTotal() {
+        return total;
+    }
+
+    public void setTotal(final ResourceUsageSummary total) {
+        this.total = total;
+    }
+
+    /**
+     * @return the runners that used the most, by the requested measure.
+     */
+    public List<ResourceUsageSummary> getTop() {
+        return top;
+    }
+
+    public void setTop(final List<ResourceUsageSummary> top) {
+        this.top = top;
+    }
+}
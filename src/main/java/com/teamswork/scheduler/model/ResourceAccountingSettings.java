@@ -0,0 +1,27 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Settings for the CPU time and heap allocation accounting.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "resourceAccountingSettings")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ResourceAccountingSettings {
+
+    @JsonProperty("enabled")
+    private boolean enabled = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,113 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * CPU time and heap allocation totals for one job runner, or for all of them.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "resourceUsageSummary")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ResourceUsageSummary {
+
+    @JsonProperty("runnerKey")
+    private String runnerKey;
+
+    @JsonProperty("runs")
+    private long runs;
+
+    @JsonProperty("cpuMillis")
+    private long cpuMillis;
+
+    @JsonProperty("meanCpuMicros")
+    private long meanCpuMicros;
+
+    @JsonProperty("maxCpuMicros")
+    private long maxCpuMicros;
+
+    @JsonProperty("allocatedBytes")
+    private long allocatedBytes;
+
+    @JsonProperty("meanAllocatedBytes")
+    private long meanAllocatedBytes;
+
+    @JsonProperty("maxAllocatedBytes")
+    private long maxAllocatedBytes;
+
+    public String getRunnerKey() {
+        return runnerKey;
+    }
+
+    public void setRunnerKey(final String runnerKey) {
+        this.runnerKey = runnerKey;
+    }
+
+    /**
+     * @return the number of runs measured.
+     */
+    public long getRuns() {
+        return runs;
+    }
+
+    public void setRuns(final long runs) {
+        this.runs = runs;
+    }
+
+    public long getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public void setCpuMillis(final long cpuMillis) {
+        this.cpuMillis = cpuMillis;
+    }
+
+    public long getMeanCpuMicros() {
+        return meanCpuMicros;
+    }
+
+    public void setMeanCpuMicros(final long meanCpuMicros) {
+        this.meanCpuMicros = meanCpuMicros;
+    }
+
+    /**
+     * @return the most CPU time used by a single run.
+     */
+    public long getMaxCpuMicros() {
+        return maxCpuMicros;
+    }
+
+    public void setMaxCpuMicros(final long maxCpuMicros) {
+        this.maxCpuMicros = maxCpuMicros;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public void setAllocatedBytes(final long allocatedBytes) {
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public long getMeanAllocatedBytes() {
+        return meanAllocatedBytes;
+    }
+
+    public void setMeanAllocatedBytes(final long meanAllocatedBytes) {
+        this.meanAllocatedBytes = meanAllocatedBytes;
+    }
+
+    /**
+     * @return the most bytes allocated by a single run.
+     */
+    public long getMaxAllocatedBytes() {
+        return maxAllocatedBytes;
+    }
+
+    public void setMaxAllocatedBytes(final long maxAllocatedBytes) {
+        this.maxAllocatedBytes = maxAllocatedBytes;
+    }
+}
@@ -0,0 +1,55 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Settings for restoring the extra thread groups when the plugin is enabled, e.g. after a restart.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "restoreSettings")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RestoreSettings {
+
+    @JsonProperty("enabled")
+    private boolean enabled;
+
+    @JsonProperty("threadGroups")
+    private int threadGroups = 1;
+
+    @JsonProperty("timeoutSeconds")
+    private int timeoutSeconds = 300;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the number of extra thread groups to start, each with the configured thread count.
+     */
+    public int getThreadGroups() {
+        return threadGroups;
+    }
+
+    public void setThreadGroups(final int threadGroups) {
+        this.threadGroups = threadGroups;
+    }
+
+    /**
+     * @return how long to wait for the scheduler to start, and then for the thread groups to run.
+     */
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(final int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+}
@@ -0,0 +1,135 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The settings and outcome of the last capacity restore on this node.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "restoreStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RestoreStatus {
+
+    @JsonProperty("settings")
+    private RestoreSettings settings;
+
+    @JsonProperty("state")
+    private String state;
+
+    @JsonProperty("message")
+    private String message;
+
+    @JsonProperty("pluginEnabledAt")
+    private long pluginEnabledAt;
+
+    @JsonProperty("schedulerStartedAt")
+    private long schedulerStartedAt;
+
+    @JsonProperty("fullCapacityAt")
+    private long fullCapacityAt;
+
+    @JsonProperty("timeToFullCapacityMillis")
+    private long timeToFullCapacityMillis;
+
+    @JsonProperty("nodeUptimeAtFullCapacityMillis")
+    private long nodeUptimeAtFullCapacityMillis;
+
+    @JsonProperty("threadGroups")
+    private List<String> threadGroups = new ArrayList<>();
+
+    public RestoreSettings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(final RestoreSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * @return DISABLED, WAITING, RESTORING, RESTORED, FAILED or TIMED_OUT.
+     */
+    public String getState() {
+        return state;
+    }
+
+    public void setState(final String state) {
+        this.state = state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(final String message) {
+        this.message = message;
+    }
+
+    public long getPluginEnabledAt() {
+        return pluginEnabledAt;
+    }
+
+    public void setPluginEnabledAt(final long pluginEnabledAt) {
+        this.pluginEnabledAt = pluginEnabledAt;
+    }
+
+    /**
+     * @return when the scheduler was first seen STARTED, or 0.
+     */
+    public long getSchedulerStartedAt() {
+        return schedulerStartedAt;
+    }
+
+    public void setSchedulerStartedAt(final long schedulerStartedAt) {
+        this.schedulerStartedAt = schedulerStartedAt;
+    }
+
+    /**
+     * @return when every extra thread group was seen running, or 0.
+     */
+    public long getFullCapacityAt() {
+        return fullCapacityAt;
+    }
+
+    public void setFullCapacityAt(final long fullCapacityAt) {
+        this.fullCapacityAt = fullCapacityAt;
+    }
+
+    /**
+     * @return how long after the plugin was enabled the node reached full capacity.
+     */
+    public long getTimeToFullCapacityMillis() {
+        return timeToFullCapacityMillis;
+    }
+
+    public void setTimeToFullCapacityMillis(final long timeToFullCapacityMillis) {
+        this.timeToFullCapacityMillis = timeToFullCapacityMillis;
+    }
+
+    /**
+     * @return how long after the JVM started the node reached full capacity.
+     */
+    public long getNodeUptimeAtFullCapacityMillis() {
+        return nodeUptimeAtFullCapacityMillis;
+    }
+
+    public void setNodeUptimeAtFullCapacityMillis(final long nodeUptimeAtFullCapacityMillis) {
+        this.nodeUptimeAtFullCapacityMillis = nodeUptimeAtFullCapacityMillis;
+    }
+
+    /**
+     * @return the extra thread groups started by the restore.
+     */
+    public List<String> getThreadGroups() {
+        return threadGroups;
+    }
+
+    public void setThreadGroups(final List<String> threadGroups) {
+        this.threadGroups = threadGroups;
+    }
+}
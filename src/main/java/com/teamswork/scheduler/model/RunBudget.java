@@ -0,0 +1,46 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * How long a run of each JobRunnerKey matching a pattern may take before the watchdog treats it as hung.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "runBudget")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RunBudget {
+
+    @JsonProperty("pattern")
+    private String pattern;
+
+    @JsonProperty("budgetSeconds")
+    private int budgetSeconds;
+
+    public RunBudget() {
+    }
+
+    public RunBudget(final String pattern, final int budgetSeconds) {
+        this.pattern = pattern;
+        this.budgetSeconds = budgetSeconds;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(final String pattern) {
+        this.pattern = pattern;
+    }
+
+    public int getBudgetSeconds() {
+        return budgetSeconds;
+    }
+
+    public void setBudgetSeconds(final int budgetSeconds) {
+        this.budgetSeconds = budgetSeconds;
+    }
+}
@@ -0,0 +1,93 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Run time, queue wait and outcome figures for one job runner, or for the whole pool.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "runnerMetrics")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RunnerMetricsSummary {
+
+    @JsonProperty("runnerKey")
+    private String runnerKey;
+
+    @JsonProperty("succeeded")
+    private long succeeded;
+
+    @JsonProperty("failed")
+    private long failed;
+
+    @JsonProperty("aborted")
+    private long aborted;
+
+    @JsonProperty("unavailable")
+    private long unavailable;
+
+    @JsonProperty("runTime")
+    private LatencySummary runTime;
+
+    @JsonProperty("queueWait")
+    private LatencySummary queueWait;
+
+    public String getRunnerKey() {
+        return runnerKey;
+    }
+
+    public void setRunnerKey(final String runnerKey) {
+        this.runnerKey = runnerKey;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(final long succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(final long failed) {
+        this.failed = failed;
+    }
+
+    public long getAborted() {
+        return aborted;
+    }
+
+    public void setAborted(final long aborted) {
+        this.aborted = aborted;
+    }
+
+    public long getUnavailable() {
+        return unavailable;
+    }
+
+    public void setUnavailable(final long unavailable) {
+        this.unavailable = unavailable;
+    }
+
+    public LatencySummary getRunTime() {
+        return runTime;
+    }
+
+    public void setRunTime(final LatencySummary runTime) {
+        this.runTime = runTime;
+    }
+
+    public LatencySummary getQueueWait() {
+        return queueWait;
+    }
+
+    public void setQueueWait(final LatencySummary queueWait) {
+        this.queueWait = queueWait;
+    }
+}
@@ -0,0 +1,117 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A capacity change made, or attempted, by the autoscaler.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "scalingDecision")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ScalingDecision {
+
+    @JsonProperty("timestamp")
+    private long timestamp;
+
+    @JsonProperty("action")
+    private String action;
+
+    @JsonProperty("lagP95Millis")
+    private long lagP95Millis;
+
+    @JsonProperty("utilisationPercent")
+    private int utilisationPercent;
+
+    @JsonProperty("extraThreadsBefore")
+    private int extraThreadsBefore;
+
+    @JsonProperty("extraThreadsAfter")
+    private int extraThreadsAfter;
+
+    @JsonProperty("success")
+    private boolean success;
+
+    @JsonProperty("message")
+    private String message;
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(final long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(final String action) {
+        this.action = action;
+    }
+
+    public long getLagP95Millis() {
+        return lagP95Millis;
+    }
+
+    public void setLagP95Millis(final long lagP95Millis) {
+        this.lagP95Millis = lagP95Millis;
+    }
+
+    public int getUtilisationPercent() {
+        return utilisationPercent;
+    }
+
+    public void setUtilisationPercent(final int utilisationPercent) {
+        this.utilisationPercent = utilisationPercent;
+    }
+
+    public int getExtraThreadsBefore() {
+        return extraThreadsBefore;
+    }
+
+    public void setExtraThreadsBefore(final int extraThreadsBefore) {
+        this.extraThreadsBefore = extraThreadsBefore;
+    }
+
+    public int getExtraThreadsAfter() {
+        return extraThreadsAfter;
+    }
+
+    public void setExtraThreadsAfter(final int extraThreadsAfter) {
+        this.extraThreadsAfter = extraThreadsAfter;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(final boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(final String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "ScalingDecision{" +
+                "action='" + action + '\'' +
+                ", lagP95Millis=" + lagP95Millis +
+                ", utilisationPercent=" + utilisationPercent +
+                ", extraThreadsBefore=" + extraThreadsBefore +
+                ", extraThreadsAfter=" + extraThreadsAfter +
+                ", success=" + success +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,50 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.List;
+
+/**
+ * Job execution metrics for the whole scheduler pool and each instrumented job runner.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "schedulerMetrics")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class SchedulerMetrics {
+
+    @JsonProperty("instrumentedRunners")
+    private int instrumentedRunners;
+
+    @JsonProperty("pool")
+    private RunnerMetricsSummary pool;
+
+    @JsonProperty("runners")
+    private List<RunnerMetricsSummary> runners;
+
+    public int getInstrumentedRunners() {
+        return instrumentedRunners;
+    }
+
+    public void setInstrumentedRunners(final int instrumentedRunners) {
+        this.instrumentedRunners = instrumentedRunners;
+    }
+
+    public RunnerMetricsSummary getPool() {
+        return pool;
+    }
+
+    public void setPool(final RunnerMetricsSummary pool) {
+        this.pool = pool;
+    }
+
+    public List<RunnerMetricsSummary> getRunners() {
+        return runners;
+    }
+
+    public void setRunners(final List<RunnerMetricsSummary> runners) {
+        this.runners = runners;
+    }
+}
@@ -0,0 +1,63 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A ClusteredJobDao call that took longer than the slow call threshold.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "slowDaoCall")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class SlowDaoCall {
+
+    @JsonProperty("timestamp")
+    private long timestamp;
+
+    @JsonProperty("operation")
+    private String operation;
+
+    @JsonProperty("jobId")
+    private String jobId;
+
+    @JsonProperty("millis")
+    private long millis;
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(final long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(final String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * @return the job, or null for operations on every job.
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(final String jobId) {
+        this.jobId = jobId;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public void setMillis(final long millis) {
+        this.millis = millis;
+    }
+}
@@ -0,0 +1,140 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jobs due per minute over a window, before and after the proposed jitter is applied to the flexible jobs.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "smoothingReport")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class SmoothingReport {
+
+    @JsonProperty("windowStart")
+    private long windowStart;
+
+    @JsonProperty("windowMinutes")
+    private int windowMinutes;
+
+    @JsonProperty("jobsAnalysed")
+    private int jobsAnalysed;
+
+    @JsonProperty("unsupportedJobs")
+    private List<String> unsupportedJobs = new ArrayList<>();
+
+    @JsonProperty("peakBefore")
+    private int peakBefore;
+
+    @JsonProperty("peakAfter")
+    private int peakAfter;
+
+    @JsonProperty("dueBefore")
+    private List<Integer> dueBefore = new ArrayList<>();
+
+    @JsonProperty("dueAfter")
+    private List<Integer> dueAfter = new ArrayList<>();
+
+    @JsonProperty("herds")
+    private List<DueHerd> herds = new ArrayList<>();
+
+    @JsonProperty("proposals")
+    private List<JitterProposal> proposals = new ArrayList<>();
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(final long windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    public int getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    public void setWindowMinutes(final int windowMinutes) {
+        this.windowMinutes = windowMinutes;
+    }
+
+    public int getJobsAnalysed() {
+        return jobsAnalysed;
+    }
+
+    public void setJobsAnalysed(final int jobsAnalysed) {
+        this.jobsAnalysed = jobsAnalysed;
+    }
+
+    /**
+     * @return jobs whose schedules could not be evaluated; they are counted at their next run time only.
+     */
+    public List<String> getUnsupportedJobs() {
+        return unsupportedJobs;
+    }
+
+    public void setUnsupportedJobs(final List<String> unsupportedJobs) {
+        this.unsupportedJobs = unsupportedJobs;
+    }
+
+    public int getPeakBefore() {
+        return peakBefore;
+    }
+
+    public void setPeakBefore(final int peakBefore) {
+        this.peakBefore = peakBefore;
+    }
+
+    public int getPeakAfter() {
+        return peakAfter;
+    }
+
+    public void setPeakAfter(final int peakAfter) {
+        this.peakAfter = peakAfter;
+    }
+
+    /**
+     * @return the number of jobs due in each minute of the window.
+     */
+    public List<Integer> getDueBefore() {
+        return dueBefore;
+    }
+
+    public void setDueBefore(final List<Integer> dueBefore) {
+        this.dueBefore = dueBefore;
+    }
+
+    /**
+     * @return the same, with the proposals applied.
+     */
+    public List<Integer> getDueAfter() {
+        return dueAfter;
+    }
+
+    public void setDueAfter(final List<Integer> dueAfter) {
+        this.dueAfter = dueAfter;
+    }
+
+    /**
+     * @return the busiest minutes at or over the herd threshold, busiest first.
+     */
+    public List<DueHerd> getHerds() {
+        return herds;
+    }
+
+    public void setHerds(final List<DueHerd> herds) {
+        this.herds = herds;
+    }
+
+    public List<JitterProposal> getProposals() {
+        return proposals;
+    }
+
+    public void setProposals(final List<JitterProposal> proposals) {
+        this.proposals = proposals;
+    }
+}
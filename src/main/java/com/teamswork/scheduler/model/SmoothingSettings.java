@@ -0,0 +1,60 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for the schedule smoothing analyser.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "smoothingSettings")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class SmoothingSettings {
+
+    @JsonProperty("flexiblePatterns")
+    private List<String> flexiblePatterns = new ArrayList<>();
+
+    @JsonProperty("jitterMinutes")
+    private int jitterMinutes = 10;
+
+    @JsonProperty("herdThreshold")
+    private int herdThreshold = 10;
+
+    /**
+     * @return JobId or JobRunnerKey patterns for the jobs the admin has marked as flexible.
+     */
+    public List<String> getFlexiblePatterns() {
+        return flexiblePatterns;
+    }
+
+    public void setFlexiblePatterns(final List<String> flexiblePatterns) {
+        this.flexiblePatterns = flexiblePatterns;
+    }
+
+    /**
+     * @return the most a flexible job may be moved by.
+     */
+    public int getJitterMinutes() {
+        return jitterMinutes;
+    }
+
+    public void setJitterMinutes(final int jitterMinutes) {
+        this.jitterMinutes = jitterMinutes;
+    }
+
+    /**
+     * @return how many jobs due in the same minute count as a herd.
+     */
+    public int getHerdThreshold() {
+        return herdThreshold;
+    }
+
+    public void setHerdThreshold(final int herdThreshold) {
+        this.herdThreshold = herdThreshold;
+    }
+}
@@ -0,0 +1,85 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The watchdog's run budgets, the threads held by hung jobs and the latest hang events.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "watchdogStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class WatchdogStatus {
+
+    @JsonProperty("budgets")
+    private List<RunBudget> budgets = new ArrayList<>();
+
+    @JsonProperty("watchedRuns")
+    private int watchedRuns;
+
+    @JsonProperty("suspectThreads")
+    private int suspectThreads;
+
+    @JsonProperty("hangs")
+    private long hangs;
+
+    @JsonProperty("events")
+    private List<HangEvent> events = new ArrayList<>();
+
+    public List<RunBudget> getBudgets() {
+        return budgets;
+    }
+
+    public void setBudgets(final List<RunBudget> budgets) {
+        this.budgets = budgets;
+    }
+
+    /**
+     * @return runs in progress that have a budget.
+     */
+    public int getWatchedRuns() {
+        return watchedRuns;
+    }
+
+    public void setWatchedRuns(final int watchedRuns) {
+        this.watchedRuns = watchedRuns;
+    }
+
+    /**
+     * @return threads held by a run that is over its budget.
+     */
+    public int getSuspectThreads() {
+        return suspectThreads;
+    }
+
+    public void setSuspectThreads(final int suspectThreads) {
+        this.suspectThreads = suspectThreads;
+    }
+
+    /**
+     * @return the runs found over their budget since the plugin was enabled.
+     */
+    public long getHangs() {
+        return hangs;
+    }
+
+    public void setHangs(final long hangs) {
+        this.hangs = hangs;
+    }
+
+    /**
+     * @return the latest hang events, newest first.
+     */
+    public List<HangEvent> getEvents() {
+        return events;
+    }
+
+    public void setEvents(final List<HangEvent> events) {
+        this.events = events;
+    }
+}
@@ -0,0 +1,134 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A named worker pool and the JobRunnerKey patterns whose jobs run on it.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "workerPoolDefinition")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class WorkerPoolDefinition {
+
+    /**
+     * How a pool runs its jobs. VIRTUAL runs each job on a new virtual thread, and needs Java 21 or later.
+     */
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("threads")
+    private int threads;
+
+    @JsonProperty("queueSize")
+    private int queueSize;
+
+    @JsonProperty("jobRunnerKeyPatterns")
+    private List<String> jobRunnerKeyPatterns = new ArrayList<>();
+
+    @JsonProperty("mode")
+    private Mode mode = Mode.PLATFORM;
+
+    public WorkerPoolDefinition() {
+    }
+
+    public WorkerPoolDefinition(final String name, final int threads, final int queueSize,
+                                final List<String> jobRunnerKeyPatterns) {
+        this.name = name;
+        this.threads = threads;
+        this.queueSize = queueSize;
+        this.jobRunnerKeyPatterns = jobRunnerKeyPatterns;
+    }
+
+    public WorkerPoolDefinition(final String name, final int threads, final int queueSize,
+                                final List<String> jobRunnerKeyPatterns, final Mode mode) {
+        this(name, threads, queueSize, jobRunnerKeyPatterns);
+        this.mode = mode;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(final int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public List<String> getJobRunnerKeyPatterns() {
+        return jobRunnerKeyPatterns;
+    }
+
+    public void setJobRunnerKeyPatterns(final List<String> jobRunnerKeyPatterns) {
+        this.jobRunnerKeyPatterns = jobRunnerKeyPatterns;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(final Mode mode) {
+        this.mode = mode;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WorkerPoolDefinition)) return false;
+
+        final WorkerPoolDefinition that = (WorkerPoolDefinition) o;
+
+        if (threads != that.threads) return false;
+        if (queueSize != that.queueSize) return false;
+        if (!Objects.equals(name, that.name)) return false;
+        if (mode != that.mode) return false;
+        return Objects.equals(jobRunnerKeyPatterns, that.jobRunnerKeyPatterns);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name != null ? name.hashCode() : 0;
+        result = 31 * result + threads;
+        result = 31 * result + queueSize;
+        result = 31 * result + (jobRunnerKeyPatterns != null ? jobRunnerKeyPatterns.hashCode() : 0);
+        result = 31 * result + (mode != null ? mode.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkerPoolDefinition{" +
+                "name='" + name + '\'' +
+                ", threads=" + threads +
+                ", queueSize=" + queueSize +
+                ", jobRunnerKeyPatterns=" + jobRunnerKeyPatterns +
+                ", mode=" + mode +
+                '}';
+    }
+}
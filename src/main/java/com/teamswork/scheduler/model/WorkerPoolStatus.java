@@ -0,0 +1,180 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.Objects;
+
+/**
+ * Point in time saturation figures for a worker pool.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "workerPoolStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class WorkerPoolStatus {
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("threads")
+    private int threads;
+
+    @JsonProperty("activeThreads")
+    private int activeThreads;
+
+    @JsonProperty("queuedJobs")
+    private int queuedJobs;
+
+    @JsonProperty("queueSize")
+    private int queueSize;
+
+    @JsonProperty("completedJobs")
+    private long completedJobs;
+
+    @JsonProperty("rejectedJobs")
+    private long rejectedJobs;
+
+    @JsonProperty("saturationPercent")
+    private int saturationPercent;
+
+    @JsonProperty("mode")
+    private WorkerPoolDefinition.Mode mode;
+
+    @JsonProperty("virtualThreadJobs")
+    private long virtualThreadJobs;
+
+    @JsonProperty("pinnedEvents")
+    private long pinnedEvents;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    public void setActiveThreads(final int activeThreads) {
+        this.activeThreads = activeThreads;
+    }
+
+    public int getQueuedJobs() {
+        return queuedJobs;
+    }
+
+    public void setQueuedJobs(final int queuedJobs) {
+        this.queuedJobs = queuedJobs;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(final int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public long getCompletedJobs() {
+        return completedJobs;
+    }
+
+    public void setCompletedJobs(final long completedJobs) {
+        this.completedJobs = completedJobs;
+    }
+
+    public long getRejectedJobs() {
+        return rejectedJobs;
+    }
+
+    public void setRejectedJobs(final long rejectedJobs) {
+        this.rejectedJobs = rejectedJobs;
+    }
+
+    public int getSaturationPercent() {
+        return saturationPercent;
+    }
+
+    public void setSaturationPercent(final int saturationPercent) {
+        this.saturationPercent = saturationPercent;
+    }
+
+    public WorkerPoolDefinition.Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(final WorkerPoolDefinition.Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @return the number of jobs run on virtual threads.
+     */
+    public long getVirtualThreadJobs() {
+        return virtualThreadJobs;
+    }
+
+    public void setVirtualThreadJobs(final long virtualThreadJobs) {
+        this.virtualThreadJobs = virtualThreadJobs;
+    }
+
+    /**
+     * @return the number of times a job pinned its carrier thread for longer than the JFR threshold.
+     */
+    public long getPinnedEvents() {
+        return pinnedEvents;
+    }
+
+    public void setPinnedEvents(final long pinnedEvents) {
+        this.pinnedEvents = pinnedEvents;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WorkerPoolStatus)) return false;
+
+        final WorkerPoolStatus that = (WorkerPoolStatus) o;
+
+        if (threads != that.threads) return false;
+        if (activeThreads != that.activeThreads) return false;
+        if (queuedJobs != that.queuedJobs) return false;
+        if (queueSize != that.queueSize) return false;
+        if (completedJobs != that.completedJobs) return false;
+        if (rejectedJobs != that.rejectedJobs) return false;
+        if (saturationPercent != that.saturationPercent) return false;
+        if (virtualThreadJobs != that.virtualThreadJobs) return false;
+        if (pinnedEvents != that.pinnedEvents) return false;
+        if (mode != that.mode) return false;
+        return Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name != null ? name.hashCode() : 0;
+        result = 31 * result + threads;
+        result = 31 * result + activeThreads;
+        result = 31 * result + queuedJobs;
+        result = 31 * result + queueSize;
+        result = 31 * result + Long.hashCode(completedJobs);
+        result = 31 * result + Long.hashCode(rejectedJobs);
+        result = 31 * result + saturationPercent;
+        result = 31 * result + (mode != null ? mode.hashCode() : 0);
+        result = 31 * result + Long.hashCode(virtualThreadJobs);
+        result = 31 * result + Long.hashCode(pinnedEvents);
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Settings for buffering job run outcomes and writing them to the database in batches.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "writeBehindSettings")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class WriteBehindSettings {
+
+    @JsonProperty("enabled")
+    private boolean enabled;
+
+    @JsonProperty("batchSize")
+    private int batchSize = 100;
+
+    @JsonProperty("flushIntervalMillis")
+    private long flushIntervalMillis = 1000L;
+
+    @JsonProperty("queueSize")
+    private int queueSize = 10000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the most run outcomes written per flush. A flush starts early once this many are buffered.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return the longest a run outcome waits in the buffer.
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(final long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * @return the most run outcomes buffered. Once full, job threads write synchronously.
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(final int queueSize) {
+        this.queueSize = queueSize;
+    }
+}
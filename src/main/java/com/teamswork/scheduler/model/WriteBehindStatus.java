@@ -0,0 +1,180 @@
+package com.teamswork.scheduler.model;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * How job run outcomes are being written and what the batches have looked like since the plugin was enabled.
+ */
+@SuppressWarnings("unused")
+@XmlRootElement(name = "writeBehindStatus")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class WriteBehindStatus {
+
+    @JsonProperty("settings")
+    private WriteBehindSettings settings;
+
+    @JsonProperty("installed")
+    private boolean installed;
+
+    @JsonProperty("buffered")
+    private int buffered;
+
+    @JsonProperty("flushes")
+    private long flushes;
+
+    @JsonProperty("written")
+    private long written;
+
+    @JsonProperty("coalesced")
+    private long coalesced;
+
+    @JsonProperty("synchronousWrites")
+    private long synchronousWrites;
+
+    @JsonProperty("droppedWrites")
+    private long droppedWrites;
+
+    @JsonProperty("meanBatchSize")
+    private double meanBatchSize;
+
+    @JsonProperty("p95BatchSize")
+    private long p95BatchSize;
+
+    @JsonProperty("maxBatchSize")
+    private long maxBatchSize;
+
+    @JsonProperty("flushLatency")
+    private LatencySummary flushLatency;
+
+    @JsonProperty("lastFlushTime")
+    private long lastFlushTime;
+
+    public WriteBehindSettings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(final WriteBehindSettings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * @return whether the buffer is in front of the scheduler's run details DAO.
+     */
+    public boolean isInstalled() {
+        return installed;
+    }
+
+    public void setInstalled(final boolean installed) {
+        this.installed = installed;
+    }
+
+    /**
+     * @return the run outcomes waiting to be written.
+     */
+    public int getBuffered() {
+        return buffered;
+    }
+
+    public void setBuffered(final int buffered) {
+        this.buffered = buffered;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public void setFlushes(final long flushes) {
+        this.flushes = flushes;
+    }
+
+    /**
+     * @return the run outcomes written to the database.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    public void setWritten(final long written) {
+        this.written = written;
+    }
+
+    /**
+     * @return the run outcomes not written because a later run of the same job superseded them in the same batch.
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public void setCoalesced(final long coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    /**
+     * @return the run outcomes written on the job thread because the buffer was full.
+     */
+    public long getSynchronousWrites() {
+        return synchronousWrites;
+    }
+
+    public void setSynchronousWrites(final long synchronousWrites) {
+        this.synchronousWrites = synchronousWrites;
+    }
+
+    /**
+     * @return the run outcomes lost because the database write failed.
+     */
+    public long getDroppedWrites() {
+        return droppedWrites;
+    }
+
+    public void setDroppedWrites(final long droppedWrites) {
+        this.droppedWrites = droppedWrites;
+    }
+
+    public double getMeanBatchSize() {
+        return meanBatchSize;
+    }
+
+    public void setMeanBatchSize(final double meanBatchSize) {
+        this.meanBatchSize = meanBatchSize;
+    }
+
+    public long getP95BatchSize() {
+        return p95BatchSize;
+    }
+
+    public void setP95BatchSize(final long p95BatchSize) {
+        this.p95BatchSize = p95BatchSize;
+    }
+
+    public long getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(final long maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return how long each flush took to write its batch.
+     */
+    public LatencySummary getFlushLatency() {
+        return flushLatency;
+    }
+
+    public void setFlushLatency(final LatencySummary flushLatency) {
+        this.flushLatency = flushLatency;
+    }
+
+    public long getLastFlushTime() {
+        return lastFlushTime;
+    }
+
+    public void setLastFlushTime(final long lastFlushTime) {
+        this.lastFlushTime = lastFlushTime;
+    }
+}
@@ -0,0 +1,174 @@
+package com.teamswork.scheduler.partition;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.plugin.spring.scanner.annotation.export.ExportAsService;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
+import com.atlassian.scheduler.core.LifecycleAwareSchedulerService;
+import com.teamswork.scheduler.api.PartitionedJob;
+import com.teamswork.scheduler.api.PartitionedJobRunner;
+import com.teamswork.scheduler.capacity.AdmissionController;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.PartitionedJobsStatus;
+import com.teamswork.scheduler.model.PartitionedRunStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the partitions of partitioned jobs on a pool of JES-partition threads. Caesium workers cannot be handed
+ * work of ours, so the pool stands in for the capacity this plugin has added: it grows and shrinks with the extra
+ * scheduler threads, with at least MIN_THREADS, and idle threads exit after a minute.
+ * Each run is limited to the job's parallelism, at most MAX_PARALLELISM, and gets no helpers while admission
+ * control is throttling the extra thread groups. Runs in progress are cancelled when the scheduler is paused, the
+ * scheduler asks for the job to be cancelled, or this plugin is disabled. The status of the latest finished runs is
+ * kept for the REST resource, but not the runs themselves, so their partitions and results can be collected.
+ */
+@ExportAsService(PartitionedJobRunner.class)
+@Named
+public class DefaultPartitionedJobRunner extends PluginStateListener implements PartitionedJobRunner {
+    private static final Logger log = LoggerFactory.getLogger(DefaultPartitionedJobRunner.class);
+    private static final int MIN_THREADS = 2;
+    private static final int MAX_PARALLELISM = 32;
+    private static final int MAX_RECENT = 50;
+    private static final long IDLE_SECONDS = 60L;
+
+    private final SchedulerConfigurator schedulerConfigurator;
+    private final AdmissionController admissionController;
+    private final Set<PartitionedRun<?, ?>> running = ConcurrentHashMap.newKeySet();
+    private final Deque<PartitionedRunStatus> recent = new ArrayDeque<>();
+    private volatile ThreadPoolExecutor executor;
+
+    public DefaultPartitionedJobRunner(final SchedulerConfigurator schedulerConfigurator,
+                                       final AdmissionController admissionController,
+                                       @ComponentImport final EventPublisher eventPublisher) {
+        super(eventPublisher);
+        this.schedulerConfigurator = schedulerConfigurator;
+        this.admissionController = admissionController;
+    }
+
+    @Override
+    protected synchronized void onAppStart() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(MIN_THREADS, MIN_THREADS, IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "JES-partition-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+
+    @Override
+    protected synchronized void onAppShutdown() {
+        try {
+            running.forEach(PartitionedRun::cancel);
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        } catch (final Throwable t) {
+            log.error("Error shutting down the partitioned job runner " + t.getMessage());
+        }
+    }
+
+    @Override
+    public <P, R> JobRunnerResponse run(final JobRunnerRequest request, final PartitionedJob<P, R> job) {
+        final List<P> partitions = job.partition(request);
+        final ThreadPoolExecutor pool = executor;
+        int parallelism = Math.max(1, Math.min(MAX_PARALLELISM, job.getParallelism()));
+        if (pool == null || admissionController.getPressure().isThrottled()) {
+            parallelism = 1;
+        } else {
+            resize(pool, Math.max(MIN_THREADS, schedulerConfigurator.getExtraThreadCount()));
+        }
+        final BooleanSupplier paused = pausedCheck();
+        final PartitionedRun<P, R> run = new PartitionedRun<>(String.valueOf(request.getJobId()),
+                String.valueOf(request.getJobConfig().getJobRunnerKey()), job, partitions, parallelism,
+                () -> request.isCancellationRequested() || paused.getAsBoolean());
+        running.add(run);
+        JobRunnerResponse response = null;
+        try {
+            run.execute(pool != null ? pool : Runnable::run);
+            response = job.merge(request, run);
+            return response;
+        } finally {
+            running.remove(run);
+            run.finished(response != null ? response.getRunOutcome() + ": " + response.getMessage() : "FAILED");
+            final PartitionedRunStatus finished = run.toStatus();
+            synchronized (recent) {
+                recent.addFirst(finished);
+                while (recent.size() > MAX_RECENT) {
+                    recent.removeLast();
+                }
+            }
+            log.debug("Partitioned job {} finished: {}", request.getJobId(), finished.getOutcome());
+        }
+    }
+
+    /**
+     * @return the partition threads, and the runs in progress and recently finished.
+     */
+    public PartitionedJobsStatus getStatus() {
+        final PartitionedJobsStatus status = new PartitionedJobsStatus();
+        final ThreadPoolExecutor pool = executor;
+        if (pool != null) {
+            status.setThreads(pool.getMaximumPoolSize());
+            status.setActiveThreads(pool.getActiveCount());
+        }
+        status.setRunning(running.stream().map(PartitionedRun::toStatus).collect(Collectors.toList()));
+        synchronized (recent) {
+            status.setRecent(new ArrayList<>(recent));
+        }
+        return status;
+    }
+
+    /**
+     * The pool's size follows the extra scheduler threads. Growing sets the maximum first, shrinking the core size,
+     * so the core size is never above the maximum.
+     */
+    private static synchronized void resize(final ThreadPoolExecutor pool, final int threads) {
+        if (threads > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(threads);
+            pool.setCorePoolSize(threads);
+        } else if (threads < pool.getMaximumPoolSize()) {
+            pool.setCorePoolSize(threads);
+            pool.setMaximumPoolSize(threads);
+        }
+    }
+
+    /**
+     * @return a check that is true once the scheduler is no longer started, e.g. because it has been paused.
+     */
+    protected BooleanSupplier pausedCheck() {
+        try {
+            final CaesiumSchedulerService service = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+            if (service == null) {
+                return () -> false;
+            }
+            return () -> service.getState() != LifecycleAwareSchedulerService.State.STARTED;
+        } catch (final Exception e) {
+            log.error("Error getting the scheduler service; partitioned jobs will not be cancelled by a pause: {}",
+                    e.getMessage());
+            return () -> false;
+        }
+    }
+}
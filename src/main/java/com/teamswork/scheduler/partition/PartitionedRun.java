@@ -0,0 +1,189 @@
+package com.teamswork.scheduler.partition;
+
+import com.teamswork.scheduler.api.PartitionContext;
+import com.teamswork.scheduler.api.PartitionResults;
+import com.teamswork.scheduler.api.PartitionedJob;
+import com.teamswork.scheduler.model.PartitionedRunStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BooleanSupplier;
+
+/**
+ * One run of a PartitionedJob. The thread that executes the run and up to parallelism - 1 helpers on the executor
+ * each take the next partition not yet taken until there are none left, so partitions are never queued behind a
+ * busy thread. If a helper cannot be started the run carries on with fewer threads.
+ * Once the run is cancelled, or the cancel check says so, partitions not yet started are skipped.
+ * @param <P> the partition.
+ * @param <R> the result of running one partition.
+ */
+public class PartitionedRun<P, R> implements PartitionResults<R> {
+    private final String jobId;
+    private final String jobRunnerKey;
+    private final PartitionedJob<P, R> job;
+    private final List<P> partitions;
+    private final int parallelism;
+    private final BooleanSupplier cancelCheck;
+    private final long startTime = System.currentTimeMillis();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicReferenceArray<R> results;
+    private final ConcurrentSkipListMap<Integer, Throwable> failures = new ConcurrentSkipListMap<>();
+    private final CountDownLatch finished;
+    private volatile boolean cancelled;
+    private volatile long finishTime;
+    private volatile String outcome;
+
+    public PartitionedRun(final String jobId, final String jobRunnerKey, final PartitionedJob<P, R> job,
+                          final List<P> partitions, final int parallelism, final BooleanSupplier cancelCheck) {
+        this.jobId = jobId;
+        this.jobRunnerKey = jobRunnerKey;
+        this.job = job;
+        this.partitions = partitions;
+        this.parallelism = Math.max(1, Math.min(parallelism, partitions.size()));
+        this.cancelCheck = cancelCheck;
+        this.results = new AtomicReferenceArray<>(partitions.size());
+        this.finished = new CountDownLatch(partitions.size());
+    }
+
+    /**
+     * Run every partition and wait for them all to finish. If this thread is interrupted while waiting, the run is
+     * cancelled and the partitions already running are still waited for; the interrupt is kept.
+     * @param helpers the executor to run the helpers on.
+     */
+    public void execute(final Executor helpers) {
+        try {
+            for (int i = 1; i < parallelism; i++) {
+                helpers.execute(this::work);
+            }
+        } catch (final RejectedExecutionException e) {
+            // Fewer helpers than asked for: this thread and those already started take the rest.
+        }
+        work();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+                cancel();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void work() {
+        int index;
+        while ((index = next.getAndIncrement()) < partitions.size()) {
+            if (isCancelled()) {
+                finished.countDown();
+                continue;
+            }
+            running.incrementAndGet();
+            try {
+                results.set(index, job.runPartition(partitions.get(index), new Context(index)));
+            } catch (final Throwable t) {
+                failures.put(index, t);
+            } finally {
+                running.decrementAndGet();
+                completed.incrementAndGet();
+                finished.countDown();
+            }
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Record how the run ended, once the results have been merged.
+     */
+    public void finished(final String outcome) {
+        this.outcome = outcome;
+        this.finishTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public List<R> getResults() {
+        final List<R> list = new ArrayList<>(results.length());
+        for (int i = 0; i < results.length(); i++) {
+            list.add(results.get(i));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public SortedMap<Integer, Throwable> getFailures() {
+        return Collections.unmodifiableSortedMap(failures);
+    }
+
+    @Override
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    @Override
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        if (!cancelled && cancelCheck.getAsBoolean()) {
+            cancelled = true;
+        }
+        return cancelled && completed.get() < partitions.size();
+    }
+
+    public PartitionedRunStatus toStatus() {
+        final PartitionedRunStatus status = new PartitionedRunStatus();
+        status.setJobId(jobId);
+        status.setJobRunnerKey(jobRunnerKey);
+        status.setStartTime(startTime);
+        status.setFinishTime(finishTime);
+        status.setPartitions(partitions.size());
+        status.setCompleted(completed.get());
+        status.setFailed(failures.size());
+        status.setRunning(running.get());
+        status.setParallelism(parallelism);
+        status.setCancelled(cancelled);
+        status.setOutcome(outcome);
+        return status;
+    }
+
+    private final class Context implements PartitionContext {
+        private final int index;
+
+        private Context(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int getPartitionIndex() {
+            return index;
+        }
+
+        @Override
+        public int getPartitionCount() {
+            return partitions.size();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return PartitionedRun.this.isCancelled();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.teamswork.scheduler.pool;
+
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * A PriorityBlockingQueue that turns jobs away once it holds capacity jobs, so a worker pool's queue stays
+ * bounded and a saturated pool rejects work just as it did with a LinkedBlockingQueue.
+ */
+public class BoundedPriorityQueue extends PriorityBlockingQueue<Runnable> {
+    private final int capacity;
+
+    public BoundedPriorityQueue(final int capacity) {
+        super(Math.min(capacity, 64));
+        this.capacity = capacity;
+    }
+
+    /**
+     * Synchronized so two jobs cannot both take the last place. Taking jobs off does not need the lock.
+     */
+    @Override
+    public synchronized boolean offer(final Runnable job) {
+        return size() < capacity && super.offer(job);
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+}
@@ -0,0 +1,199 @@
+package com.teamswork.scheduler.pool;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+import com.teamswork.scheduler.model.JobPriority;
+import com.teamswork.scheduler.model.JobPrioritySettings;
+import com.teamswork.scheduler.model.JobPriorityStatus;
+import com.teamswork.scheduler.model.LatencySummary;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.PriorityWait;
+import com.teamswork.scheduler.utils.KeyPattern;
+import com.teamswork.scheduler.utils.KeyRules;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_PRIORITIES_KEY;
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_PRIORITY_AGING_KEY;
+
+/**
+ * The priorities worker pools use to order their queues when they have a backlog.
+ * Priorities are stored in ApplicationProperties under SCHEDULER_PRIORITIES_KEY, one pattern=priority per line,
+ * and the aging interval under SCHEDULER_PRIORITY_AGING_KEY. Resolved priorities are cached per key, so looking
+ * one up on the dispatch path is a map lookup.
+ */
+@Named
+public class JobPriorities extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(JobPriorities.class);
+    public static final int MIN_PRIORITY = 1;
+    public static final int MAX_PRIORITY = 9;
+    public static final int DEFAULT_PRIORITY = 5;
+    private static final int MAX_AGING_SECONDS = 3600;
+
+    /**
+     * Told how long each job waited in a pool queue before it started.
+     */
+    public interface WaitRecorder {
+        void recordWait(int priority, long waitMicros);
+    }
+
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+    private final KeyRules<Rule, Integer> rules = new KeyRules<>(rule -> rule.pattern, this::resolve);
+    private final LatencyHistogram[] waits = new LatencyHistogram[MAX_PRIORITY + 1];
+    private final WaitRecorder waitRecorder = (priority, waitMicros) -> waits[priority].record(waitMicros);
+    private volatile JobPrioritySettings settings = new JobPrioritySettings();
+
+    public JobPriorities(@ComponentImport final EventPublisher eventPublisher,
+                         @ComponentImport final ApplicationProperties applicationProperties,
+                         @ComponentImport final I18nHelper i18nHelper) {
+        super(eventPublisher);
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+        for (int i = 0; i < waits.length; i++) {
+            waits[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            apply(load());
+        } catch (final Exception e) {
+            log.error("Error loading the job priorities. ", e);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        rules.clear();
+    }
+
+    /**
+     * @param jobRunnerKey the job runner key.
+     * @return the priority of jobs for the key, or DEFAULT_PRIORITY if no pattern matches it.
+     */
+    public int getPriority(final JobRunnerKey jobRunnerKey) {
+        return rules.get(jobRunnerKey);
+    }
+
+    /**
+     * @return how long a queued job waits before it gains a priority level.
+     */
+    public long getAgingMillis() {
+        return TimeUnit.SECONDS.toMillis(settings.getAgingSeconds());
+    }
+
+    WaitRecorder getWaitRecorder() {
+        return waitRecorder;
+    }
+
+    /**
+     * Validate, store and apply new priorities. Jobs already queued keep the priority they were queued with.
+     * @param newSettings the settings.
+     * @return the outcome of the operation.
+     */
+    public OperationResult configure(final JobPrioritySettings newSettings) {
+        if (newSettings.getAgingSeconds() < 1 || newSettings.getAgingSeconds() > MAX_AGING_SECONDS) {
+            return new OperationResult(false, i18nHelper.getText("jes.priorities.invalid.aging", MAX_AGING_SECONDS));
+        }
+        for (JobPriority priority : newSettings.getPriorities()) {
+            if (priority.getPattern() == null || priority.getPattern().trim().isEmpty()
+                    || priority.getPattern().contains("=")) {
+                return new OperationResult(false, i18nHelper.getText("jes.priorities.invalid.pattern", priority.getPattern()));
+            }
+            if (priority.getPriority() < MIN_PRIORITY || priority.getPriority() > MAX_PRIORITY) {
+                return new OperationResult(false, i18nHelper.getText("jes.priorities.invalid.priority",
+                        priority.getPattern(), MIN_PRIORITY, MAX_PRIORITY));
+            }
+        }
+
+        final Map<String, Object> values = new LinkedHashMap<>();
+        for (JobPriority priority : newSettings.getPriorities()) {
+            values.put(priority.getPattern().trim(), priority.getPriority());
+        }
+        applicationProperties.setText(SCHEDULER_PRIORITIES_KEY, SettingsText.format(values));
+        applicationProperties.setString(SCHEDULER_PRIORITY_AGING_KEY, String.valueOf(newSettings.getAgingSeconds()));
+        apply(newSettings);
+        return new OperationResult(true, i18nHelper.getText("jes.priorities.configured", newSettings.getPriorities().size()));
+    }
+
+    public JobPrioritySettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * @return the settings and the queue wait figures for each priority that has had jobs, highest first.
+     */
+    public JobPriorityStatus getStatus() {
+        final JobPriorityStatus status = new JobPriorityStatus();
+        status.setSettings(settings);
+        for (int priority = MAX_PRIORITY; priority >= MIN_PRIORITY; priority--) {
+            final LatencyHistogram.Snapshot snapshot = waits[priority].snapshot();
+            if (snapshot.getTotalCount() > 0) {
+                status.getWaits().add(new PriorityWait(priority, LatencySummary.fromMicros(snapshot)));
+            }
+        }
+        return status;
+    }
+
+    private synchronized void apply(final JobPrioritySettings newSettings) {
+        final List<Rule> newRules = new ArrayList<>();
+        for (JobPriority priority : newSettings.getPriorities()) {
+            newRules.add(new Rule(new KeyPattern(priority.getPattern()), priority.getPriority()));
+        }
+        settings = newSettings;
+        rules.update(newRules);
+        log.info("Job priorities applied: {} patterns, aging every {}s.", newRules.size(), newSettings.getAgingSeconds());
+    }
+
+    private Integer resolve(final JobRunnerKey jobRunnerKey) {
+        final Rule rule = rules.find(jobRunnerKey.toString());
+        return rule != null ? rule.priority : DEFAULT_PRIORITY;
+    }
+
+    private JobPrioritySettings load() {
+        final JobPrioritySettings loaded = new JobPrioritySettings();
+        for (Map.Entry<String, String> entry : SettingsText.parse(applicationProperties.getText(SCHEDULER_PRIORITIES_KEY)).entrySet()) {
+            try {
+                final int priority = Integer.parseInt(entry.getValue());
+                loaded.getPriorities().add(new JobPriority(entry.getKey(),
+                        Math.max(MIN_PRIORITY, Math.min(MAX_PRIORITY, priority))));
+            } catch (NumberFormatException e) {
+                log.error("Ignoring invalid job priority: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        final String aging = applicationProperties.getString(SCHEDULER_PRIORITY_AGING_KEY);
+        if (aging != null) {
+            try {
+                loaded.setAgingSeconds(Math.max(1, Math.min(MAX_AGING_SECONDS, Integer.parseInt(aging))));
+            } catch (NumberFormatException e) {
+                log.error("Ignoring invalid job priority aging: {}", aging);
+            }
+        }
+        return loaded;
+    }
+
+    private static class Rule {
+        private final KeyPattern pattern;
+        private final int priority;
+
+        private Rule(final KeyPattern pattern, final int priority) {
+            this.pattern = pattern;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.teamswork.scheduler.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Counts, per worker pool, how often a job running on a virtual thread pinned its carrier thread.
+ * Listens for jdk.VirtualThreadPinned events on a JFR event stream, which JFR only raises when a virtual thread
+ * blocks while pinned for longer than the threshold. The JFR API is reached by reflection, as with VirtualThreads.
+ */
+class PinningMonitor {
+    private static final Logger log = LoggerFactory.getLogger(PinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final Duration THRESHOLD = Duration.ofMillis(20);
+
+    private final Map<String, LongAdder> pinnedEvents = new ConcurrentHashMap<>();
+    private AutoCloseable stream;
+    private Method getThread;
+    private Method getJavaName;
+
+    /**
+     * Start listening, if not already. Logs and carries on without pinning figures if JFR is unavailable.
+     */
+    synchronized void start() {
+        if (stream != null) {
+            return;
+        }
+        try {
+            final ClassLoader loader = ClassLoader.getSystemClassLoader();
+            final Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream", true, loader);
+            getThread = Class.forName("jdk.jfr.consumer.RecordedObject", true, loader).getMethod("getThread", String.class);
+            getJavaName = Class.forName("jdk.jfr.consumer.RecordedThread", true, loader).getMethod("getJavaName");
+
+            final AutoCloseable recordingStream = (AutoCloseable) streamClass.getConstructor().newInstance();
+            final Object settings = streamClass.getMethod("enable", String.class).invoke(recordingStream, PINNED_EVENT);
+            Class.forName("jdk.jfr.EventSettings", true, loader).getMethod("withThreshold", Duration.class)
+                    .invoke(settings, THRESHOLD);
+            final Consumer<Object> onPinned = this::onPinned;
+            streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(recordingStream, PINNED_EVENT, onPinned);
+            streamClass.getMethod("startAsync").invoke(recordingStream);
+            stream = recordingStream;
+            log.debug("Monitoring virtual thread pinning.");
+        } catch (Exception e) {
+            log.warn("Unable to monitor virtual thread pinning, pinned event counts will not be available: {}", e.getMessage());
+        }
+    }
+
+    synchronized void stop() {
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.close();
+        } catch (Exception e) {
+            log.debug("Error closing the virtual thread pinning monitor: {}", e.getMessage());
+        }
+        stream = null;
+    }
+
+    /**
+     * @param poolName the worker pool.
+     * @return the number of pinned events seen for the pool's virtual threads.
+     */
+    long getPinnedEvents(final String poolName) {
+        final LongAdder count = pinnedEvents.get(poolName);
+        return count == null ? 0 : count.sum();
+    }
+
+    private void onPinned(final Object event) {
+        try {
+            final Object thread = getThread.invoke(event, "eventThread");
+            final String poolName = thread == null ? null : WorkerPool.poolNameOfVirtualThread((String) getJavaName.invoke(thread));
+            if (poolName != null) {
+                pinnedEvents.computeIfAbsent(poolName, name -> new LongAdder()).increment();
+            }
+        } catch (Exception e) {
+            log.debug("Unable to read a virtual thread pinned event: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.teamswork.scheduler.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A job waiting in a worker pool queue. Jobs are taken in order of rank, the time they were queued less
+ * agingMillis for each priority level. Ranking on a fixed value gives the same order as raising a waiting job's
+ * priority by one level every agingMillis, without having to reorder the queue as jobs age.
+ */
+public final class PrioritizedJob implements Runnable, Comparable<PrioritizedJob> {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final int priority;
+    private final long queuedAtNanos;
+    private final long rank;
+    private final long sequence;
+    private final Runnable job;
+    private final JobPriorities.WaitRecorder waitRecorder;
+
+    public PrioritizedJob(final int priority, final long agingMillis, final Runnable job,
+                   final JobPriorities.WaitRecorder waitRecorder) {
+        this.priority = priority;
+        this.queuedAtNanos = System.nanoTime();
+        this.rank = System.currentTimeMillis() - priority * agingMillis;
+        this.sequence = SEQUENCE.getAndIncrement();
+        this.job = job;
+        this.waitRecorder = waitRecorder;
+    }
+
+    @Override
+    public void run() {
+        waitRecorder.recordWait(priority, (System.nanoTime() - queuedAtNanos) / 1000L);
+        job.run();
+    }
+
+    @Override
+    public int compareTo(final PrioritizedJob other) {
+        final int byRank = Long.compare(rank, other.rank);
+        return byRank != 0 ? byRank : Long.compare(sequence, other.sequence);
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public Runnable getJob() {
+        return job;
+    }
+}
@@ -0,0 +1,59 @@
+package com.teamswork.scheduler.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual thread support, looked up by reflection so the plugin still builds for and runs on Java 11.
+ * Virtual threads are only available when Jira runs on Java 21 or later.
+ */
+public class VirtualThreads {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+    private static final int MIN_JAVA_VERSION = 21;
+    private static final Method OF_VIRTUAL = lookup();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if this JVM can run jobs on virtual threads.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Create a factory for virtual threads named prefix0, prefix1, ...
+     * @param prefix the thread name prefix.
+     * @return the factory.
+     * @throws UnsupportedOperationException if this JVM does not support virtual threads.
+     */
+    public static ThreadFactory newThreadFactory(final String prefix) {
+        if (OF_VIRTUAL == null) {
+            throw new UnsupportedOperationException("Virtual threads need Java " + MIN_JAVA_VERSION + " or later");
+        }
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Object builder = OF_VIRTUAL.invoke(null);
+            final Object named = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(named);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Unable to create a virtual thread factory", e);
+        }
+    }
+
+    private static Method lookup() {
+        if (Runtime.version().feature() < MIN_JAVA_VERSION) {
+            return null;
+        }
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            log.warn("Java {} does not provide virtual threads.", Runtime.version());
+            return null;
+        }
+    }
+}
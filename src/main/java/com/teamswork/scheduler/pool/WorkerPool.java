@@ -0,0 +1,366 @@
+package com.teamswork.scheduler.pool;
+
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.model.WorkerPoolDefinition;
+import com.teamswork.scheduler.model.WorkerPoolStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A named, separately sized pool of worker threads that jobs for selected JobRunnerKeys are handed to.
+ * Jobs in the pool can never use more than the pool's threads, and when the pool's queue is full new
+ * jobs are turned away rather than queued. The dispatcher is handed the job's response through a future, which is
+ * completed with an aborted response if the pool is shut down before the job runs.
+ * A job id is only ever queued or running once in a pool, matching Caesium's own guarantee on a node.
+ * When the pool has a backlog, queued jobs are taken by priority rather than in the order they arrived,
+ * with waiting jobs gaining priority as they age (see JobPriorities).
+ * In VIRTUAL mode a single platform thread takes jobs off the queue and starts each on a new virtual thread,
+ * with the pool's thread count as the limit on jobs running at once. Jobs waiting on I/O then hold no OS thread, and
+ * the Caesium worker that handed a job over does not wait for it (see InstrumentedJobRunner).
+ * The dispatcher only takes a job once one of those slots is free, so a waiting job stays in the queue and counts
+ * against queueSize.
+ */
+public class WorkerPool {
+    private static final Logger log = LoggerFactory.getLogger(WorkerPool.class);
+    public static final String THREAD_GROUP_PREFIX = "JES-";
+    private static final String VIRTUAL_THREAD_INFIX = "-v-";
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    // The pool a virtual thread was started by. Set on the virtual thread itself, so it cannot match another pool.
+    private static final ThreadLocal<WorkerPool> VIRTUAL_THREAD_POOL = new ThreadLocal<>();
+
+    public enum DispatchResult {
+        DISPATCHED,
+        ALREADY_PENDING,
+        SATURATED
+    }
+
+    private final String name;
+    private final int queueSize;
+    private final WorkerPoolDefinition.Mode mode;
+    private final ThreadGroup threadGroup;
+    private final ThreadPoolExecutor executor;
+    private final JobPriorities jobPriorities;
+    private final Set<JobId> pendingJobs = ConcurrentHashMap.newKeySet();
+    private final AtomicLong rejectedJobs = new AtomicLong();
+    // Only used in VIRTUAL mode.
+    private final ThreadFactory virtualThreadFactory;
+    private final ResizableSemaphore virtualPermits;
+    private final AtomicLong virtualThreadJobs = new AtomicLong();
+
+    public WorkerPool(final WorkerPoolDefinition definition, final JobPriorities jobPriorities) {
+        this.name = definition.getName();
+        this.jobPriorities = jobPriorities;
+        this.queueSize = definition.getQueueSize();
+        this.mode = definition.getMode() == null ? WorkerPoolDefinition.Mode.PLATFORM : definition.getMode();
+        this.threadGroup = new ThreadGroup(THREAD_GROUP_PREFIX + name);
+        if (mode == WorkerPoolDefinition.Mode.VIRTUAL) {
+            this.virtualThreadFactory = VirtualThreads.newThreadFactory(THREAD_GROUP_PREFIX + name + VIRTUAL_THREAD_INFIX);
+            this.virtualPermits = new ResizableSemaphore(definition.getThreads());
+            this.executor = new ThreadPoolExecutor(1, 1,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new DispatchQueue(queueSize), threadFactory());
+        } else {
+            this.virtualThreadFactory = null;
+            this.virtualPermits = null;
+            this.executor = new ThreadPoolExecutor(definition.getThreads(), definition.getThreads(),
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new BoundedPriorityQueue(queueSize), threadFactory());
+        }
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Hand a job to the pool.
+     * @param jobRunnerKey the key of the job's runner, which decides its priority.
+     * @param jobId the id of the job, used to stop the same job being queued twice.
+     * @param job the job to run.
+     * @param response completed with the job's response once it has run, or with an aborted response if it never runs.
+     * @return whether the job was accepted. The response is only completed if it was.
+     */
+    public DispatchResult dispatch(final JobRunnerKey jobRunnerKey, final JobId jobId,
+                                   final Supplier<JobRunnerResponse> job,
+                                   final CompletableFuture<JobRunnerResponse> response) {
+        if (!pendingJobs.add(jobId)) {
+            return DispatchResult.ALREADY_PENDING;
+        }
+        try {
+            executor.execute(new PrioritizedJob(jobPriorities.getPriority(jobRunnerKey), jobPriorities.getAgingMillis(),
+                    new PoolJob(jobId, job, response), jobPriorities.getWaitRecorder()));
+            return DispatchResult.DISPATCHED;
+        } catch (RejectedExecutionException e) {
+            pendingJobs.remove(jobId);
+            rejectedJobs.incrementAndGet();
+            return DispatchResult.SATURATED;
+        }
+    }
+
+    /**
+     * Runs on the dispatcher thread: start the job on a new virtual thread, in the slot the dispatcher took for it.
+     * A job handed straight to a new dispatcher thread, rather than through the queue, waits for its slot here.
+     */
+    private void startVirtual(final PoolJob job) {
+        if (!job.holdsPermit) {
+            try {
+                virtualPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.abort("Worker pool " + name + " shut down before the job ran");
+                return;
+            }
+        }
+        try {
+            virtualThreadFactory.newThread(() -> {
+                VIRTUAL_THREAD_POOL.set(this);
+                try {
+                    job.runHere();
+                    virtualThreadJobs.incrementAndGet();
+                } finally {
+                    VIRTUAL_THREAD_POOL.remove();
+                    virtualPermits.release();
+                }
+            }).start();
+        } catch (RuntimeException | Error e) {
+            virtualPermits.release();
+            log.error("Unable to start job {} on a virtual thread in worker pool {}", job.jobId, name, e);
+            job.abort("Unable to start the job on a virtual thread in worker pool " + name);
+        }
+    }
+
+    /**
+     * @return true if the calling thread is one of this pool's workers.
+     */
+    public boolean isPoolThread() {
+        final Thread thread = Thread.currentThread();
+        return thread.getThreadGroup() == threadGroup || VIRTUAL_THREAD_POOL.get() == this;
+    }
+
+    /**
+     * @param threadName the name of a virtual thread.
+     * @return the name of the pool the thread belongs to, or null if it is not one of ours.
+     */
+    static String poolNameOfVirtualThread(final String threadName) {
+        if (threadName == null || !threadName.startsWith(THREAD_GROUP_PREFIX)) {
+            return null;
+        }
+        final int infix = threadName.lastIndexOf(VIRTUAL_THREAD_INFIX);
+        return infix > THREAD_GROUP_PREFIX.length() ? threadName.substring(THREAD_GROUP_PREFIX.length(), infix) : null;
+    }
+
+    void resize(final int threads) {
+        if (virtualPermits != null) {
+            virtualPermits.resize(threads);
+        } else if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+
+    /**
+     * Stop taking new jobs, let queued and running jobs finish, and give up waiting after the timeout.
+     * @param timeoutSeconds how long to wait for jobs to finish.
+     */
+    void shutdown(final long timeoutSeconds) {
+        executor.shutdown();
+        try {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                final List<Runnable> dropped = executor.shutdownNow();
+                abort(dropped);
+                log.warn("Worker pool {} did not finish within {}s, {} queued jobs dropped.", name, timeoutSeconds,
+                        dropped.size());
+            } else if (virtualPermits != null && !virtualPermits.tryAcquire(virtualPermits.getPermits(),
+                    Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                log.warn("Worker pool {} still has jobs running on virtual threads after {}s.", name, timeoutSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(executor.shutdownNow());
+        }
+    }
+
+    private void abort(final List<Runnable> dropped) {
+        for (Runnable runnable : dropped) {
+            if (runnable instanceof PrioritizedJob && ((PrioritizedJob) runnable).getJob() instanceof PoolJob) {
+                ((PoolJob) ((PrioritizedJob) runnable).getJob()).abort("Worker pool " + name + " shut down before the job ran");
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public WorkerPoolDefinition.Mode getMode() {
+        return mode;
+    }
+
+    public WorkerPoolStatus getStatus() {
+        final WorkerPoolStatus status = new WorkerPoolStatus();
+        final int threads;
+        final int active;
+        if (virtualPermits != null) {
+            threads = virtualPermits.getPermits();
+            active = Math.max(0, threads - virtualPermits.availablePermits());
+            status.setCompletedJobs(virtualThreadJobs.get());
+            status.setVirtualThreadJobs(virtualThreadJobs.get());
+        } else {
+            threads = executor.getMaximumPoolSize();
+            active = executor.getActiveCount();
+            status.setCompletedJobs(executor.getCompletedTaskCount());
+        }
+        status.setName(name);
+        status.setMode(mode);
+        status.setThreads(threads);
+        status.setActiveThreads(active);
+        status.setQueuedJobs(executor.getQueue().size());
+        status.setQueueSize(queueSize);
+        status.setRejectedJobs(rejectedJobs.get());
+        status.setSaturationPercent(threads == 0 ? 0 : Math.min(100, active * 100 / threads));
+        return status;
+    }
+
+    private ThreadFactory threadFactory() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(threadGroup, runnable, threadGroup.getName() + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A job queued on the pool, with the future its dispatcher is waiting on.
+     */
+    private final class PoolJob implements Runnable {
+        private final JobId jobId;
+        private final Supplier<JobRunnerResponse> job;
+        private final CompletableFuture<JobRunnerResponse> response;
+        // Set by the DispatchQueue when it took a virtual thread slot for this job.
+        private boolean holdsPermit;
+
+        private PoolJob(final JobId jobId, final Supplier<JobRunnerResponse> job,
+                        final CompletableFuture<JobRunnerResponse> response) {
+            this.jobId = jobId;
+            this.job = job;
+            this.response = response;
+        }
+
+        @Override
+        public void run() {
+            if (virtualPermits != null) {
+                startVirtual(this);
+            } else {
+                runHere();
+            }
+        }
+
+        private void runHere() {
+            try {
+                response.complete(job.get());
+            } catch (Throwable t) {
+                log.error("Job {} failed on worker pool {}", jobId, name, t);
+                response.completeExceptionally(t);
+            } finally {
+                pendingJobs.remove(jobId);
+            }
+        }
+
+        private void abort(final String message) {
+            pendingJobs.remove(jobId);
+            response.complete(JobRunnerResponse.aborted(message));
+        }
+    }
+
+    /**
+     * The queue of a VIRTUAL mode pool. The dispatcher takes a virtual thread slot before it takes a job, rather than
+     * holding a job while it waits for a slot, so the pool never has more than queueSize jobs waiting.
+     */
+    private final class DispatchQueue extends BoundedPriorityQueue {
+        private DispatchQueue(final int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public Runnable take() throws InterruptedException {
+            virtualPermits.acquire();
+            Runnable job = null;
+            try {
+                job = super.take();
+                return job;
+            } finally {
+                holdPermit(job);
+            }
+        }
+
+        @Override
+        public Runnable poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            if (!virtualPermits.tryAcquire(timeout, unit)) {
+                return null;
+            }
+            Runnable job = null;
+            try {
+                job = super.poll(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                return job;
+            } finally {
+                holdPermit(job);
+            }
+        }
+
+        /**
+         * Hand the slot just taken to the job, or give it back if there was no job.
+         */
+        private void holdPermit(final Runnable job) {
+            if (job instanceof PrioritizedJob && ((PrioritizedJob) job).getJob() instanceof PoolJob) {
+                ((PoolJob) ((PrioritizedJob) job).getJob()).holdsPermit = true;
+            } else {
+                virtualPermits.release();
+            }
+        }
+    }
+
+    /**
+     * A semaphore whose number of permits can be changed while jobs hold some of them.
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+        private int permits;
+
+        private ResizableSemaphore(final int permits) {
+            super(permits);
+            this.permits = permits;
+        }
+
+        private synchronized void resize(final int newPermits) {
+            if (newPermits > permits) {
+                release(newPermits - permits);
+            } else if (newPermits < permits) {
+                reducePermits(permits - newPermits);
+            }
+            permits = newPermits;
+        }
+
+        private synchronized int getPermits() {
+            return permits;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.teamswork.scheduler.pool;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.WorkerPoolDefinition;
+import com.teamswork.scheduler.model.WorkerPoolStatus;
+import com.teamswork.scheduler.utils.KeyPattern;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_POOLS_KEY;
+
+/**
+ * Manages the named worker pools (bulkheads) that jobs for selected JobRunnerKeys are routed to.
+ * Pool definitions are stored in ApplicationProperties under SCHEDULER_POOLS_KEY, one per line as
+ * name=threads|queueSize|pattern,pattern|mode. When more than one pool matches a key, the first defined wins.
+ */
+@Named
+public class WorkerPoolManager extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(WorkerPoolManager.class);
+    private static final Pattern VALID_NAME = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+    private static final String FIELD_SEPARATOR = "|";
+    private static final String PATTERN_SEPARATOR = ",";
+    private static final int MIN_THREADS = 1;
+    private static final int MAX_THREADS = 16;
+    private static final int MAX_VIRTUAL_THREADS = 1000;
+    private static final int MAX_QUEUE_SIZE = 10000;
+    // A job waiting in a PLATFORM pool's queue still holds the Caesium worker that handed it over, so keep it small.
+    public static final int DEFAULT_QUEUE_SIZE = 2;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+    private final JobPriorities jobPriorities;
+    private final Map<String, WorkerPool> pools = new ConcurrentHashMap<>();
+    private final PinningMonitor pinningMonitor = new PinningMonitor();
+    private volatile Routing routing = new Routing(new ArrayList<>());
+
+    public WorkerPoolManager(@ComponentImport final EventPublisher eventPublisher,
+                             @ComponentImport final ApplicationProperties applicationProperties,
+                             @ComponentImport final I18nHelper i18nHelper,
+                             final JobPriorities jobPriorities) {
+        super(eventPublisher);
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+        this.jobPriorities = jobPriorities;
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            apply(getDefinitions());
+        } catch (final Exception e) {
+            log.error("Error starting the worker pools. ", e);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        try {
+            apply(new ArrayList<>());
+        } catch (final Throwable t) {
+            log.error("Error shutting down the worker pools " + t.getMessage());
+        }
+    }
+
+    /**
+     * Get the pool that jobs for the given key should run on. Resolved once per key and cached,
+     * so this is a map lookup on the job execution path. The cache belongs to the assignments it was resolved from,
+     * so a key resolved while new definitions are applied cannot keep a retired pool.
+     * @param jobRunnerKey the job runner key.
+     * @return the pool, or null if jobs for this key run on the Caesium workers as normal.
+     */
+    public WorkerPool getPool(final JobRunnerKey jobRunnerKey) {
+        return routing.getPool(jobRunnerKey);
+    }
+
+    /**
+     * Validate, store and apply a new set of pool definitions.
+     * Existing pools are resized in place, new pools are started and pools no longer defined are shut down
+     * once their queued and running jobs finish.
+     * @param definitions the pool definitions.
+     * @return the outcome of the operation.
+     */
+    public OperationResult configure(final List<WorkerPoolDefinition> definitions) {
+        final Set<String> names = new HashSet<>();
+        for (WorkerPoolDefinition definition : definitions) {
+            if (definition.getName() == null || !VALID_NAME.matcher(definition.getName()).matches()
+                    || !names.add(definition.getName())) {
+                return new OperationResult(false, i18nHelper.getText("jes.pools.invalid.name", definition.getName()));
+            }
+            if (definition.getMode() == null) {
+                definition.setMode(WorkerPoolDefinition.Mode.PLATFORM);
+            }
+            if (definition.getMode() == WorkerPoolDefinition.Mode.VIRTUAL) {
+                if (!VirtualThreads.isSupported()) {
+                    return new OperationResult(false, i18nHelper.getText("jes.pools.virtual.unsupported", definition.getName()));
+                }
+                if (definition.getThreads() < MIN_THREADS || definition.getThreads() > MAX_VIRTUAL_THREADS) {
+                    return new OperationResult(false, i18nHelper.getText("jes.pools.invalid.virtual.threads",
+                            definition.getName(), MAX_VIRTUAL_THREADS));
+                }
+            } else if (definition.getThreads() < MIN_THREADS || definition.getThreads() > MAX_THREADS) {
+                return new OperationResult(false, i18nHelper.getText("jes.pools.invalid.threads", definition.getName()));
+            }
+            if (definition.getQueueSize() == 0) {
+                definition.setQueueSize(DEFAULT_QUEUE_SIZE);
+            }
+            if (definition.getQueueSize() < 1 || definition.getQueueSize() > MAX_QUEUE_SIZE) {
+                return new OperationResult(false, i18nHelper.getText("jes.pools.invalid.queue.size", definition.getName()));
+            }
+            if (!validPatterns(definition.getJobRunnerKeyPatterns())) {
+                return new OperationResult(false, i18nHelper.getText("jes.pools.invalid.patterns", definition.getName()));
+            }
+        }
+
+        applicationProperties.setText(SCHEDULER_POOLS_KEY, format(definitions));
+        apply(definitions);
+        return new OperationResult(true, i18nHelper.getText("jes.pools.configured", definitions.size()));
+    }
+
+    /**
+     * Change the number of threads of one pool, keeping the rest of its definition.
+     * @param name the pool name.
+     * @param threads the new number of threads.
+     * @return the outcome of the operation.
+     */
+    public synchronized OperationResult resize(final String name, final int threads) {
+        final List<WorkerPoolDefinition> definitions = getDefinitions();
+        for (WorkerPoolDefinition definition : definitions) {
+            if (definition.getName().equals(name)) {
+                definition.setThreads(threads);
+                return configure(definitions);
+            }
+        }
+        return new OperationResult(false, i18nHelper.getText("jes.pools.not.found", name));
+    }
+
+    /**
+     * @return the stored pool definitions.
+     */
+    public List<WorkerPoolDefinition> getDefinitions() {
+        final List<WorkerPoolDefinition> definitions = new ArrayList<>();
+        for (Map.Entry<String, String> entry : SettingsText.parse(applicationProperties.getText(SCHEDULER_POOLS_KEY)).entrySet()) {
+            final String[] fields = entry.getValue().split(Pattern.quote(FIELD_SEPARATOR), -1);
+            try {
+                definitions.add(new WorkerPoolDefinition(entry.getKey(), Integer.parseInt(fields[0]),
+                        Integer.parseInt(fields[1]), splitPatterns(fields[2]),
+                        fields.length > 3 ? WorkerPoolDefinition.Mode.valueOf(fields[3]) : WorkerPoolDefinition.Mode.PLATFORM));
+            } catch (RuntimeException e) {
+                log.error("Ignoring invalid worker pool definition: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return definitions;
+    }
+
+    /**
+     * @return the saturation figures for each running pool.
+     */
+    public List<WorkerPoolStatus> getStatuses() {
+        return routing.assignments.stream()
+                .map(assignment -> assignment.pool)
+                .distinct()
+                .map(pool -> {
+                    final WorkerPoolStatus status = pool.getStatus();
+                    status.setPinnedEvents(pinningMonitor.getPinnedEvents(pool.getName()));
+                    return status;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param name the pool name.
+     * @return the saturation figures for the pool, or null if it is not running.
+     */
+    public WorkerPoolStatus getStatus(final String name) {
+        final WorkerPool pool = pools.get(name);
+        if (pool == null) {
+            return null;
+        }
+        final WorkerPoolStatus status = pool.getStatus();
+        status.setPinnedEvents(pinningMonitor.getPinnedEvents(pool.getName()));
+        return status;
+    }
+
+    private synchronized void apply(final List<WorkerPoolDefinition> definitions) {
+        final Map<String, WorkerPool> retired = new LinkedHashMap<>(pools);
+        final List<Assignment> newAssignments = new ArrayList<>();
+        for (WorkerPoolDefinition definition : definitions) {
+            WorkerPool pool = retired.remove(definition.getName());
+            if (pool != null && pool.getQueueSize() == definition.getQueueSize() && pool.getMode() == definition.getMode()) {
+                pool.resize(definition.getThreads());
+            } else {
+                if (pool != null) {
+                    retired.put(definition.getName(), pool);
+                }
+                try {
+                    pool = new WorkerPool(definition, jobPriorities);
+                } catch (UnsupportedOperationException e) {
+                    log.error("Unable to start worker pool {}, its jobs will run on the scheduler threads: {}",
+                            definition.getName(), e.getMessage());
+                    continue;
+                }
+                log.info("Started {} worker pool {} with {} threads.", definition.getMode(), definition.getName(),
+                        definition.getThreads());
+            }
+            pools.put(definition.getName(), pool);
+            for (String pattern : definition.getJobRunnerKeyPatterns()) {
+                newAssignments.add(new Assignment(new KeyPattern(pattern), pool));
+            }
+        }
+        routing = new Routing(newAssignments);
+
+        for (Map.Entry<String, WorkerPool> entry : retired.entrySet()) {
+            pools.remove(entry.getKey(), entry.getValue());
+            entry.getValue().shutdown(SHUTDOWN_TIMEOUT_SECONDS);
+            log.info("Shut down worker pool {}.", entry.getKey());
+        }
+
+        if (pools.values().stream().anyMatch(pool -> pool.getMode() == WorkerPoolDefinition.Mode.VIRTUAL)) {
+            pinningMonitor.start();
+        } else {
+            pinningMonitor.stop();
+        }
+    }
+
+    private static boolean validPatterns(final List<String> patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return false;
+        }
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.trim().isEmpty() || pattern.contains(FIELD_SEPARATOR)
+                    || pattern.contains(PATTERN_SEPARATOR) || pattern.contains("=")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> splitPatterns(final String patterns) {
+        return Arrays.stream(patterns.split(PATTERN_SEPARATOR))
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String format(final List<WorkerPoolDefinition> definitions) {
+        final Map<String, String> settings = new LinkedHashMap<>();
+        for (WorkerPoolDefinition definition : definitions) {
+            settings.put(definition.getName(), definition.getThreads() + FIELD_SEPARATOR + definition.getQueueSize()
+                    + FIELD_SEPARATOR + String.join(PATTERN_SEPARATOR, definition.getJobRunnerKeyPatterns())
+                    + FIELD_SEPARATOR + definition.getMode());
+        }
+        return SettingsText.format(settings);
+    }
+
+    /**
+     * The pool assignments in force, and the pool each key has been resolved to under them.
+     */
+    private static class Routing {
+        private final List<Assignment> assignments;
+        private final ConcurrentHashMap<JobRunnerKey, Optional<WorkerPool>> resolvedPools = new ConcurrentHashMap<>();
+
+        private Routing(final List<Assignment> assignments) {
+            this.assignments = assignments;
+        }
+
+        private WorkerPool getPool(final JobRunnerKey jobRunnerKey) {
+            Optional<WorkerPool> pool = resolvedPools.get(jobRunnerKey);
+            if (pool == null) {
+                pool = resolvedPools.computeIfAbsent(jobRunnerKey, this::resolve);
+            }
+            return pool.orElse(null);
+        }
+
+        private Optional<WorkerPool> resolve(final JobRunnerKey jobRunnerKey) {
+            final String key = jobRunnerKey.toString();
+            for (Assignment assignment : assignments) {
+                if (assignment.pattern.matches(key)) {
+                    return Optional.of(assignment.pool);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static class Assignment {
+        private final KeyPattern pattern;
+        private final WorkerPool pool;
+
+        private Assignment(final KeyPattern pattern, final WorkerPool pool) {
+            this.pattern = pattern;
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.teamswork.scheduler.refresh;
+
+import com.atlassian.scheduler.config.JobId;
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+import com.teamswork.scheduler.model.ClusteredJobDaoReport;
+import com.teamswork.scheduler.model.ClusteredJobUsage;
+import com.teamswork.scheduler.model.DaoOperationSummary;
+import com.teamswork.scheduler.model.LatencySummary;
+import com.teamswork.scheduler.model.SlowDaoCall;
+
+import javax.inject.Named;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Records what the ClusteredJobDao calls made by MeasuredClusteredJobDao cost, per operation and per clustered job.
+ * Caesium does not hold a cluster lock while it runs a clustered job. A node claims the job by moving its next run
+ * time on with updateNextRunTime, which only succeeds if the job's version has not changed; a claim that fails means
+ * another node got there first. So for each job we record the claim wait, the time spent in DAO calls for the job up
+ * to and including a claim, and the hold, from a successful claim to the job finishing on this node.
+ * A claim wait that is large next to the hold points at the database rather than at too few workers.
+ * Everything is kept in memory from when the plugin is enabled, or the figures were last reset. Per job only counts,
+ * totals and maximums are kept, for at most MAX_JOBS jobs, and a job is forgotten once it is deleted.
+ */
+@Named
+public class ClusteredJobProfiler {
+    public static final int MAX_TOP = 100;
+    static final int MAX_JOBS = 5000;
+    private static final int MAX_SLOW_CALLS = 100;
+    private static final long SLOW_CALL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    public enum Operation {
+        REFRESH,
+        GET_NEXT_RUN_TIME,
+        GET_VERSION,
+        FIND,
+        FIND_BY_JOB_RUNNER_KEY,
+        FIND_ALL_JOB_RUNNER_KEYS,
+        CREATE,
+        UPDATE_NEXT_RUN_TIME,
+        DELETE
+    }
+
+    private volatile Figures figures = new Figures();
+
+    /**
+     * Record a ClusteredJobDao call.
+     * @param operation the operation.
+     * @param jobId the job it was for, or null for operations on every job.
+     * @param nanos how long the call took.
+     * @param succeeded false if the call threw or returned false.
+     */
+    public void record(final Operation operation, final JobId jobId, final long nanos, final boolean succeeded) {
+        final Figures current = figures;
+        final OperationFigures operationFigures = current.operations.get(operation);
+        operationFigures.latency.record(nanos / 1000L);
+        operationFigures.totalNanos.addAndGet(nanos);
+        if (!succeeded) {
+            operationFigures.failures.incrementAndGet();
+        }
+        if (nanos >= SLOW_CALL_NANOS) {
+            current.slow(operation, jobId, nanos);
+        }
+        if (jobId == null) {
+            return;
+        }
+        if (operation == Operation.DELETE && succeeded) {
+            current.jobs.remove(jobId);
+            return;
+        }
+        final JobFigures job = current.job(jobId, operation == Operation.CREATE || operation == Operation.UPDATE_NEXT_RUN_TIME);
+        if (job == null) {
+            return;
+        }
+        job.daoCalls.incrementAndGet();
+        job.daoNanos.addAndGet(nanos);
+        if (operation == Operation.UPDATE_NEXT_RUN_TIME) {
+            current.claimWaitMicros.addAndGet(job.claimed(nanos, succeeded));
+        } else {
+            job.pendingNanos.addAndGet(nanos);
+        }
+    }
+
+    /**
+     * Called when a job finishes running on this node. Ends the hold of a clustered job's claim.
+     */
+    public void finished(final JobId jobId) {
+        final Figures current = figures;
+        final JobFigures job = current.jobs.get(jobId);
+        if (job != null) {
+            current.holdMicros.addAndGet(job.released());
+        }
+    }
+
+    public void reset() {
+        figures = new Figures();
+    }
+
+    /**
+     * @param installed whether the DAO is being measured.
+     * @param top how many jobs to list.
+     * @return the figures per operation, the jobs that spent longest in DAO calls and the slowest recent calls.
+     */
+    public ClusteredJobDaoReport getReport(final boolean installed, final int top) {
+        final Figures current = figures;
+        final ClusteredJobDaoReport report = new ClusteredJobDaoReport();
+        report.setInstalled(installed);
+        report.setSince(current.since);
+        report.setUntrackedJobs(current.untrackedJobs.get());
+
+        long daoNanos = 0;
+        for (Map.Entry<Operation, OperationFigures> entry : current.operations.entrySet()) {
+            final LatencyHistogram.Snapshot latency = entry.getValue().latency.snapshot();
+            final DaoOperationSummary summary = new DaoOperationSummary();
+            summary.setOperation(entry.getKey().name());
+            summary.setCalls(latency.getTotalCount());
+            summary.setFailures(entry.getValue().failures.get());
+            summary.setTotalMillis(TimeUnit.NANOSECONDS.toMillis(entry.getValue().totalNanos.get()));
+            summary.setLatency(LatencySummary.fromMicros(latency));
+            report.getOperations().add(summary);
+            daoNanos += entry.getValue().totalNanos.get();
+        }
+        report.setDaoMillis(TimeUnit.NANOSECONDS.toMillis(daoNanos));
+
+        final long claimWaitMicros = current.claimWaitMicros.get();
+        final long holdMicros = current.holdMicros.get();
+        report.setClaimWaitMillis(claimWaitMicros / 1000L);
+        report.setHoldMillis(holdMicros / 1000L);
+        report.setClaimWaitPercent(claimWaitMicros + holdMicros == 0 ? 0
+                : (int) (claimWaitMicros * 100 / (claimWaitMicros + holdMicros)));
+        report.setHotJobs(current.jobs.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<JobId, JobFigures> entry) -> entry.getValue().daoNanos.get())
+                        .reversed())
+                .limit(Math.max(1, Math.min(MAX_TOP, top)))
+                .map(entry -> summarise(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList()));
+        synchronized (current.slowCalls) {
+            report.setSlowCalls(new ArrayList<>(current.slowCalls));
+        }
+        return report;
+    }
+
+    private static ClusteredJobUsage summarise(final JobId jobId, final JobFigures job) {
+        final ClusteredJobUsage usage = new ClusteredJobUsage();
+        usage.setJobId(jobId.toString());
+        usage.setDaoCalls(job.daoCalls.get());
+        usage.setDaoMillis(TimeUnit.NANOSECONDS.toMillis(job.daoNanos.get()));
+        usage.setClaims(job.claims.get());
+        usage.setConflicts(job.conflicts.get());
+        usage.setClaimWait(LatencySummary.fromMicros(job.claims.get() + job.conflicts.get(),
+                job.claimWaitMicros.get(), job.maxClaimWaitMicros.get()));
+        usage.setHold(LatencySummary.fromMicros(job.holds.get(), job.holdMicros.get(), job.maxHoldMicros.get()));
+        return usage;
+    }
+
+    private static final class Figures {
+        private final long since = System.currentTimeMillis();
+        private final Map<Operation, OperationFigures> operations = new EnumMap<>(Operation.class);
+        private final ConcurrentHashMap<JobId, JobFigures> jobs = new ConcurrentHashMap<>();
+        private final AtomicLong untrackedJobs = new AtomicLong();
+        // Totals over every job, including those since deleted.
+        private final AtomicLong claimWaitMicros = new AtomicLong();
+        private final AtomicLong holdMicros = new AtomicLong();
+        private final Deque<SlowDaoCall> slowCalls = new ArrayDeque<>();
+
+        private Figures() {
+            for (Operation operation : Operation.values()) {
+                operations.put(operation, new OperationFigures());
+            }
+        }
+
+        /**
+         * Jobs are only added by a write, so reads of jobs that have since been deleted do not fill the map.
+         */
+        private JobFigures job(final JobId jobId, final boolean add) {
+            final JobFigures job = jobs.get(jobId);
+            if (job != null || !add) {
+                return job;
+            }
+            if (jobs.size() >= MAX_JOBS) {
+                untrackedJobs.incrementAndGet();
+                return null;
+            }
+            return jobs.computeIfAbsent(jobId, id -> new JobFigures());
+        }
+
+        private void slow(final Operation operation, final JobId jobId, final long nanos) {
+            final SlowDaoCall call = new SlowDaoCall();
+            call.setTimestamp(System.currentTimeMillis());
+            call.setOperation(operation.name());
+            call.setJobId(jobId != null ? jobId.toString() : null);
+            call.setMillis(TimeUnit.NANOSECONDS.toMillis(nanos));
+            synchronized (slowCalls) {
+                slowCalls.addFirst(call);
+                while (slowCalls.size() > MAX_SLOW_CALLS) {
+                    slowCalls.removeLast();
+                }
+            }
+        }
+    }
+
+    private static final class OperationFigures {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+    }
+
+    private static final class JobFigures {
+        private final AtomicLong daoCalls = new AtomicLong();
+        private final AtomicLong daoNanos = new AtomicLong();
+        private final AtomicLong claims = new AtomicLong();
+        private final AtomicLong conflicts = new AtomicLong();
+        private final AtomicLong pendingNanos = new AtomicLong();
+        private final AtomicLong claimWaitMicros = new AtomicLong();
+        private final AtomicLong holdMicros = new AtomicLong();
+        private final AtomicLong holds = new AtomicLong();
+        private final AtomicLong maxClaimWaitMicros = new AtomicLong();
+        private final AtomicLong maxHoldMicros = new AtomicLong();
+        private volatile long claimedAtNanos;
+
+        /**
+         * @return the claim wait, in microseconds.
+         */
+        private long claimed(final long nanos, final boolean succeeded) {
+            final long waitMicros = (pendingNanos.getAndSet(0L) + nanos) / 1000L;
+            claimWaitMicros.addAndGet(waitMicros);
+            maxClaimWaitMicros.accumulateAndGet(waitMicros, Math::max);
+            if (succeeded) {
+                claims.incrementAndGet();
+                claimedAtNanos = System.nanoTime();
+            } else {
+                conflicts.incrementAndGet();
+            }
+            return waitMicros;
+        }
+
+        /**
+         * @return the hold, in microseconds, or 0 if the job was not claimed.
+         */
+        private long released() {
+            final long claimedAt = claimedAtNanos;
+            if (claimedAt == 0L) {
+                return 0L;
+            }
+            claimedAtNanos = 0L;
+            final long holdMicros = (System.nanoTime() - claimedAt) / 1000L;
+            holds.incrementAndGet();
+            this.holdMicros.addAndGet(holdMicros);
+            maxHoldMicros.accumulateAndGet(holdMicros, Math::max);
+            return holdMicros;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.teamswork.scheduler.refresh;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.cluster.ClusterManager;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
+import com.atlassian.scheduler.caesium.spi.ClusteredJobDao;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.RunMode;
+import com.atlassian.scheduler.config.Schedule;
+import com.teamswork.scheduler.component.CaesiumInternals;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.model.ClusteredJobDaoReport;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.RefreshSettings;
+import com.teamswork.scheduler.model.RefreshStatus;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_REFRESH_KEY;
+
+/**
+ * Controls how often this node re-reads the clustered job table, and measures what each refresh costs.
+ * Caesium schedules its refresh as a local interval job when the scheduler starts; we reschedule that job with our
+ * interval, and wrap Caesium's ClusteredJobDao so each refresh can be timed and compared with the one before, and
+ * every other call timed by the ClusteredJobProfiler.
+ * In ADAPTIVE mode the job is rescheduled whenever the interval changes. That is done on a thread of our own, not
+ * on the scheduler worker running the refresh, which never waits on a lock of ours. Settings are stored in
+ * ApplicationProperties under SCHEDULER_REFRESH_KEY. When the plugin is disabled the DAO and Jira's 5 minute interval
+ * are put back. If Caesium's DAO cannot be reached the refresh is not measured or adapted, but its interval is still set.
+ */
+@Named
+public class ClusteredJobRefresher extends PluginStateListener implements MeasuredClusteredJobDao.RefreshListener {
+    private static final Logger log = LoggerFactory.getLogger(ClusteredJobRefresher.class);
+    public static final int DEFAULT_INTERVAL_MINUTES = 5;
+    private static final int MAX_INTERVAL_MINUTES = 120;
+
+    private final SchedulerService schedulerService;
+    private final ClusterManager clusterManager;
+    private final CaesiumInternals caesiumInternals;
+    private final ClusteredJobProfiler profiler;
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+
+    private volatile RefreshSettings settings = new RefreshSettings();
+    private volatile RefreshIntervalPolicy policy = new RefreshIntervalPolicy(settings);
+    private volatile ExecutorService executor;
+    private volatile int scheduledIntervalMinutes;
+
+    // Only written by the refresh, which Caesium runs one at a time.
+    private volatile Map<JobId, Date> previousJobs;
+    private volatile Figures figures = new Figures();
+
+    public ClusteredJobRefresher(@ComponentImport final EventPublisher eventPublisher,
+                                 @ComponentImport final SchedulerService schedulerService,
+                                 @ComponentImport final ClusterManager clusterManager,
+                                 @ComponentImport final ApplicationProperties applicationProperties,
+                                 @ComponentImport final I18nHelper i18nHelper,
+                                 final CaesiumInternals caesiumInternals,
+                                 final ClusteredJobProfiler profiler) {
+        super(eventPublisher);
+        this.schedulerService = schedulerService;
+        this.clusterManager = clusterManager;
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+        this.caesiumInternals = caesiumInternals;
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            settings = parse(applicationProperties.getText(SCHEDULER_REFRESH_KEY));
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "JES-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (clusterManager.isClustered()) {
+                try {
+                    installDao();
+                } catch (final Throwable t) {
+                    log.error("Unable to measure the clustered job refresh; its interval will not adapt. ", t);
+                }
+            }
+            apply(settings);
+        } catch (final Throwable t) {
+            log.error("Error starting the clustered job refresher. ", t);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        try {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+            if (clusterManager.isClustered()) {
+                restoreDao();
+                reschedule(DEFAULT_INTERVAL_MINUTES);
+            }
+        } catch (final Throwable t) {
+            log.error("Error shutting down the clustered job refresher " + t.getMessage());
+        }
+    }
+
+    /**
+     * Validate, store and apply new refresh settings.
+     * @param newSettings the settings.
+     * @return the outcome of the operation.
+     */
+    public OperationResult configure(final RefreshSettings newSettings) {
+        if (newSettings.getMode() == null) {
+            newSettings.setMode(RefreshSettings.Mode.FIXED);
+        }
+        if (newSettings.getIntervalMinutes() < 1 || newSettings.getIntervalMinutes() > MAX_INTERVAL_MINUTES
+                || newSettings.getMinIntervalMinutes() < 1 || newSettings.getMaxIntervalMinutes() > MAX_INTERVAL_MINUTES
+                || newSettings.getMinIntervalMinutes() > newSettings.getMaxIntervalMinutes()) {
+            return new OperationResult(false, i18nHelper.getText("jes.refresh.invalid.interval", MAX_INTERVAL_MINUTES));
+        }
+        applicationProperties.setText(SCHEDULER_REFRESH_KEY, format(newSettings));
+        settings = newSettings;
+        apply(newSettings);
+        return new OperationResult(true, i18nHelper.getText("jes.refresh.saved",
+                RefreshIntervalPolicy.initialIntervalMinutes(newSettings)));
+    }
+
+    /**
+     * @return the settings in force. Read by the enhanced scheduler configuration.
+     */
+    public RefreshSettings getSettings() {
+        return settings;
+    }
+
+    public RefreshStatus getStatus() {
+        final Figures current = figures;
+        final RefreshStatus status = new RefreshStatus();
+        status.setSettings(settings);
+        status.setClustered(clusterManager.isClustered());
+        status.setCurrentIntervalMinutes(policy.getIntervalMinutes());
+        status.setRefreshes(current.refreshes);
+        status.setLastRefreshTime(current.lastRefreshTime);
+        status.setLastRowsRead(current.lastRowsRead);
+        status.setLastDurationMillis(current.lastDurationMillis);
+        status.setTotalRowsRead(current.totalRowsRead);
+        status.setTotalDurationMillis(current.totalDurationMillis);
+        status.setLastChangeTime(current.lastChangeTime);
+        status.setUnchangedRefreshes(current.unchangedRefreshes);
+        return status;
+    }
+
+    /**
+     * Called on the scheduler worker running the refresh, straight after the clustered jobs have been read.
+     * Takes no locks: only the refresh writes these figures, and readers see each refresh's figures whole.
+     */
+    @Override
+    public void refreshed(final Map<JobId, Date> jobs, final long durationNanos) {
+        final boolean changed = hasChanged(previousJobs, jobs);
+        previousJobs = new HashMap<>(jobs);
+        final Figures next = new Figures(figures, jobs.size(), TimeUnit.NANOSECONDS.toMillis(durationNanos), changed);
+        figures = next;
+        final int nextInterval = policy.next(changed);
+        log.debug("Refreshed {} clustered jobs in {}ms, changed={}.", next.lastRowsRead, next.lastDurationMillis, changed);
+        final ExecutorService current = executor;
+        if (nextInterval != scheduledIntervalMinutes && current != null) {
+            current.execute(() -> reschedule(nextInterval));
+        }
+    }
+
+    /**
+     * A refresh has found a change if a job has been added or removed, or a job is now due earlier than it was,
+     * i.e. it has been rescheduled. Jobs that have run on another node are due later, which we don't count.
+     */
+    public static boolean hasChanged(final Map<JobId, Date> previous, final Map<JobId, Date> current) {
+        if (previous == null || !previous.keySet().equals(current.keySet())) {
+            return true;
+        }
+        for (Map.Entry<JobId, Date> entry : current.entrySet()) {
+            final Date before = previous.get(entry.getKey());
+            final Date now = entry.getValue();
+            if (before == null ? now != null : now != null && now.before(before)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void apply(final RefreshSettings newSettings) {
+        policy = new RefreshIntervalPolicy(newSettings);
+        reschedule(policy.getIntervalMinutes());
+        log.info("Clustered job refresh settings applied: {}", newSettings);
+    }
+
+    private void reschedule(final int intervalMinutes) {
+        if (!clusterManager.isClustered()) {
+            return;
+        }
+        try {
+            final long intervalMillis = TimeUnit.MINUTES.toMillis(intervalMinutes);
+            schedulerService.scheduleJob(caesiumInternals.getRefreshJobId(),
+                    JobConfig.forJobRunnerKey(caesiumInternals.getRefreshJobRunnerKey())
+                            .withRunMode(RunMode.RUN_LOCALLY)
+                            .withSchedule(Schedule.forInterval(intervalMillis,
+                                    new Date(System.currentTimeMillis() + intervalMillis))));
+            scheduledIntervalMinutes = intervalMinutes;
+            log.info("Clustered jobs will be refreshed every {} minutes.", intervalMinutes);
+        } catch (final Exception e) {
+            log.error("Error rescheduling the clustered job refresh. ", e);
+        }
+    }
+
+    private void installDao() throws Throwable {
+        final CaesiumSchedulerService service = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+        final ClusteredJobDao dao = caesiumInternals.getClusteredJobDao(service);
+        if (!(dao instanceof MeasuredClusteredJobDao)) {
+            caesiumInternals.setClusteredJobDao(service, new MeasuredClusteredJobDao(dao, this, profiler));
+        }
+    }
+
+    /**
+     * @param top how many jobs to list.
+     * @return what ClusteredJobDao calls have cost this node, per operation and for the hottest jobs.
+     */
+    public ClusteredJobDaoReport getDaoReport(final int top) {
+        return profiler.getReport(isDaoInstalled(), top);
+    }
+
+    /**
+     * Start the ClusteredJobDao figures again, e.g. before and after adding threads.
+     */
+    public OperationResult resetDaoReport() {
+        profiler.reset();
+        return new OperationResult(true, i18nHelper.getText("jes.refresh.dao.reset"));
+    }
+
+    /**
+     * @return whether Caesium's ClusteredJobDao is currently wrapped, which it only is on a cluster.
+     */
+    private boolean isDaoInstalled() {
+        try {
+            final CaesiumSchedulerService service = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+            return caesiumInternals.getClusteredJobDao(service) instanceof MeasuredClusteredJobDao;
+        } catch (final Throwable t) {
+            log.error("Error reading the clustered job DAO: {}", t.getMessage());
+            return false;
+        }
+    }
+
+    private void restoreDao() throws Throwable {
+        final CaesiumSchedulerService service = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+        final ClusteredJobDao dao = caesiumInternals.getClusteredJobDao(service);
+        if (dao instanceof MeasuredClusteredJobDao) {
+            caesiumInternals.setClusteredJobDao(service, ((MeasuredClusteredJobDao) dao).getDelegate());
+        }
+    }
+
+    private static String format(final RefreshSettings settings) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("mode", settings.getMode());
+        values.put("intervalMinutes", settings.getIntervalMinutes());
+        values.put("minIntervalMinutes", settings.getMinIntervalMinutes());
+        values.put("maxIntervalMinutes", settings.getMaxIntervalMinutes());
+        values.put("fineGrainedSchedules", settings.isFineGrainedSchedules());
+        return SettingsText.format(values);
+    }
+
+    private static RefreshSettings parse(final String text) {
+        final RefreshSettings settings = new RefreshSettings();
+        for (Map.Entry<String, String> entry : SettingsText.parse(text).entrySet()) {
+            try {
+                final String value = entry.getValue();
+                switch (entry.getKey()) {
+                    case "mode": settings.setMode(RefreshSettings.Mode.valueOf(value)); break;
+                    case "intervalMinutes": settings.setIntervalMinutes(Integer.parseInt(value)); break;
+                    case "minIntervalMinutes": settings.setMinIntervalMinutes(Integer.parseInt(value)); break;
+                    case "maxIntervalMinutes": settings.setMaxIntervalMinutes(Integer.parseInt(value)); break;
+                    case "fineGrainedSchedules": settings.setFineGrainedSchedules(Boolean.parseBoolean(value)); break;
+                    default: log.warn("Ignoring unknown refresh setting: {}", entry.getKey());
+                }
+            } catch (IllegalArgumentException e) {
+                log.error("Ignoring invalid refresh setting: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * The figures after a refresh. Replaced by each refresh rather than changed, so they are always read together.
+     */
+    private static final class Figures {
+        private final long refreshes;
+        private final long lastRefreshTime;
+        private final int lastRowsRead;
+        private final long lastDurationMillis;
+        private final long totalRowsRead;
+        private final long totalDurationMillis;
+        private final long lastChangeTime;
+        private final int unchangedRefreshes;
+
+        private Figures() {
+            refreshes = 0;
+            lastRefreshTime = 0;
+            lastRowsRead = 0;
+            lastDurationMillis = 0;
+            totalRowsRead = 0;
+            totalDurationMillis = 0;
+            lastChangeTime = 0;
+            unchangedRefreshes = 0;
+        }
+
+        private Figures(final Figures previous, final int rowsRead, final long durationMillis, final boolean changed) {
+            refreshes = previous.refreshes + 1;
+            lastRefreshTime = System.currentTimeMillis();
+            lastRowsRead = rowsRead;
+            lastDurationMillis = durationMillis;
+            totalRowsRead = previous.totalRowsRead + rowsRead;
+            totalDurationMillis = previous.totalDurationMillis + durationMillis;
+            lastChangeTime = changed ? lastRefreshTime : previous.lastChangeTime;
+            unchangedRefreshes = changed ? 0 : previous.unchangedRefreshes + 1;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.teamswork.scheduler.refresh;
+
+import com.atlassian.scheduler.caesium.spi.ClusteredJob;
+import com.atlassian.scheduler.caesium.spi.ClusteredJobDao;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.refresh.ClusteredJobProfiler.Operation;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Wraps Caesium's ClusteredJobDao so every refresh of the clustered jobs can be measured, and every call timed
+ * and recorded by the ClusteredJobProfiler. A call that throws is recorded as failed and the exception rethrown.
+ */
+public class MeasuredClusteredJobDao implements ClusteredJobDao {
+
+    public interface RefreshListener {
+        /**
+         * @param jobs the next run time of every clustered job, as read by the refresh.
+         * @param durationNanos how long the refresh took.
+         */
+        void refreshed(Map<JobId, Date> jobs, long durationNanos);
+    }
+
+    private final ClusteredJobDao delegate;
+    private final RefreshListener listener;
+    private final ClusteredJobProfiler profiler;
+
+    public MeasuredClusteredJobDao(final ClusteredJobDao delegate, final RefreshListener listener,
+                                   final ClusteredJobProfiler profiler) {
+        this.delegate = delegate;
+        this.listener = listener;
+        this.profiler = profiler;
+    }
+
+    public ClusteredJobDao getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Map<JobId, Date> refresh() {
+        final long start = System.nanoTime();
+        final Map<JobId, Date> jobs = measure(Operation.REFRESH, null, delegate::refresh);
+        listener.refreshed(jobs, System.nanoTime() - start);
+        return jobs;
+    }
+
+    @Override
+    public Date getNextRunTime(final JobId jobId) {
+        return measure(Operation.GET_NEXT_RUN_TIME, jobId, () -> delegate.getNextRunTime(jobId));
+    }
+
+    @Override
+    public Long getVersion(final JobId jobId) {
+        return measure(Operation.GET_VERSION, jobId, () -> delegate.getVersion(jobId));
+    }
+
+    @Override
+    public ClusteredJob find(final JobId jobId) {
+        return measure(Operation.FIND, jobId, () -> delegate.find(jobId));
+    }
+
+    @Override
+    public Collection<ClusteredJob> findByJobRunnerKey(final JobRunnerKey jobRunnerKey) {
+        return measure(Operation.FIND_BY_JOB_RUNNER_KEY, null, () -> delegate.findByJobRunnerKey(jobRunnerKey));
+    }
+
+    @Override
+    public Set<JobRunnerKey> findAllJobRunnerKeys() {
+        return measure(Operation.FIND_ALL_JOB_RUNNER_KEYS, null, delegate::findAllJobRunnerKeys);
+    }
+
+    @Override
+    public boolean create(final ClusteredJob clusteredJob) {
+        return measure(Operation.CREATE, clusteredJob.getJobId(), () -> delegate.create(clusteredJob));
+    }
+
+    @Override
+    public boolean updateNextRunTime(final JobId jobId, final Date nextRunTime, final long expectedVersion) {
+        return measure(Operation.UPDATE_NEXT_RUN_TIME, jobId,
+                () -> delegate.updateNextRunTime(jobId, nextRunTime, expectedVersion));
+    }
+
+    @Override
+    public boolean delete(final JobId jobId) {
+        return measure(Operation.DELETE, jobId, () -> delegate.delete(jobId));
+    }
+
+    private <T> T measure(final Operation operation, final JobId jobId, final Supplier<T> call) {
+        final long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            final T result = call.get();
+            succeeded = !Boolean.FALSE.equals(result);
+            return result;
+        } finally {
+            profiler.record(operation, jobId, System.nanoTime() - start, succeeded);
+        }
+    }
+}
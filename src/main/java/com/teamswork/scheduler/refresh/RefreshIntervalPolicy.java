@@ -0,0 +1,44 @@
+package com.teamswork.scheduler.refresh;
+
+import com.teamswork.scheduler.model.RefreshSettings;
+
+/**
+ * Decides the clustered job refresh interval. In FIXED mode this is always the configured interval.
+ * In ADAPTIVE mode the interval doubles after every refresh that finds nothing changed, up to the maximum,
+ * and drops straight back to the minimum after one that finds a change.
+ * Only the refresher calls next, from one refresh at a time; the interval can be read from any thread.
+ */
+public class RefreshIntervalPolicy {
+    private final RefreshSettings settings;
+    private volatile int intervalMinutes;
+
+    public RefreshIntervalPolicy(final RefreshSettings settings) {
+        this.settings = settings;
+        this.intervalMinutes = initialIntervalMinutes(settings);
+    }
+
+    /**
+     * @return the interval to start with.
+     */
+    public static int initialIntervalMinutes(final RefreshSettings settings) {
+        return settings.getMode() == RefreshSettings.Mode.ADAPTIVE ?
+                settings.getMinIntervalMinutes() : settings.getIntervalMinutes();
+    }
+
+    /**
+     * @param changed whether the refresh just made found the clustered jobs had changed.
+     * @return the interval until the next refresh.
+     */
+    public int next(final boolean changed) {
+        if (settings.getMode() == RefreshSettings.Mode.ADAPTIVE) {
+            intervalMinutes = changed ?
+                    settings.getMinIntervalMinutes() :
+                    Math.min(settings.getMaxIntervalMinutes(), intervalMinutes * 2);
+        }
+        return intervalMinutes;
+    }
+
+    public int getIntervalMinutes() {
+        return intervalMinutes;
+    }
+}
@@ -0,0 +1,51 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.capacity.SchedulerAutoscaler;
+import com.teamswork.scheduler.model.AutoscalerSettings;
+import com.teamswork.scheduler.model.AutoscalerStatus;
+import com.teamswork.scheduler.model.OperationResult;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for the scheduler autoscaler.
+ */
+@Path("/scheduler/autoscaler")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class AutoscalerResource {
+
+    private final SchedulerAutoscaler schedulerAutoscaler;
+
+    public AutoscalerResource(final SchedulerAutoscaler schedulerAutoscaler) {
+        this.schedulerAutoscaler = schedulerAutoscaler;
+    }
+
+    /**
+     * The autoscaler settings, its last sample and its recent scaling decisions.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getStatus() {
+        final AutoscalerStatus status = schedulerAutoscaler.getStatus();
+        return Response.ok(status).build();
+    }
+
+    /**
+     * Replace the autoscaler settings. The autoscaler is restarted with the new settings.
+     */
+    @PUT
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configure(final AutoscalerSettings settings) {
+        final OperationResult result = schedulerAutoscaler.configure(settings);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+}
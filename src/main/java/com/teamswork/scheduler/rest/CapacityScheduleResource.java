@@ -0,0 +1,50 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.capacity.CapacityScheduler;
+import com.teamswork.scheduler.model.CapacitySchedule;
+import com.teamswork.scheduler.model.OperationResult;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for the time of day capacity schedule.
+ */
+@Path("/scheduler/capacity")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class CapacityScheduleResource {
+
+    private final CapacityScheduler capacityScheduler;
+
+    public CapacityScheduleResource(final CapacityScheduler capacityScheduler) {
+        this.capacityScheduler = capacityScheduler;
+    }
+
+    /**
+     * The schedule, the extra threads it wants now, the changes planned over the next day and those made.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getStatus() {
+        return Response.ok(capacityScheduler.getStatus()).build();
+    }
+
+    /**
+     * Replace the schedule, e.g. {"enabled": true, "defaultExtraThreads": 2, "prewarmMinutes": 5,
+     * "windows": [{"start": "00:00", "end": "05:00", "extraThreads": 12}]}.
+     */
+    @PUT
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configure(final CapacitySchedule schedule) {
+        final OperationResult result = capacityScheduler.configure(schedule);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+}
@@ -2,13 +2,27 @@ package com.teamswork.scheduler.rest;
 
 import com.atlassian.jira.util.I18nHelper;
 import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.teamswork.scheduler.capacity.AdmissionController;
+import com.teamswork.scheduler.cluster.ClusterCommand;
+import com.teamswork.scheduler.cluster.ClusterCoordinator;
 import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.limit.ConcurrencyLimiter;
+import com.teamswork.scheduler.limit.RunCoalescer;
+import com.teamswork.scheduler.model.AdmissionSettings;
+import com.teamswork.scheduler.model.ClusterConfiguration;
+import com.teamswork.scheduler.model.ConcurrencyLimit;
 import com.teamswork.scheduler.model.CurrentConfiguration;
+import com.teamswork.scheduler.model.JobPrioritySettings;
 import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.WorkerPoolDefinition;
+import com.teamswork.scheduler.pool.JobPriorities;
+import com.teamswork.scheduler.pool.WorkerPoolManager;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * REST resource for working with the enhanced scheduler configuration.
@@ -17,13 +31,32 @@ import javax.ws.rs.core.Response;
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces({MediaType.APPLICATION_JSON})
 public class ConfigurationResource {
+    private static final int MAX_DRAIN_TIMEOUT_SECONDS = 600;
 
     private final SchedulerConfigurator schedulerConfigurator;
+    private final WorkerPoolManager workerPoolManager;
+    private final ClusterCoordinator clusterCoordinator;
+    private final JobPriorities jobPriorities;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final RunCoalescer runCoalescer;
+    private final AdmissionController admissionController;
     final I18nHelper i18nHelper;
 
     public ConfigurationResource(final SchedulerConfigurator schedulerConfigurator,
+                                 final WorkerPoolManager workerPoolManager,
+                                 final ClusterCoordinator clusterCoordinator,
+                                 final JobPriorities jobPriorities,
+                                 final ConcurrencyLimiter concurrencyLimiter,
+                                 final RunCoalescer runCoalescer,
+                                 final AdmissionController admissionController,
                                  @ComponentImport final I18nHelper i18nHelper) {
         this.schedulerConfigurator = schedulerConfigurator;
+        this.workerPoolManager = workerPoolManager;
+        this.clusterCoordinator = clusterCoordinator;
+        this.jobPriorities = jobPriorities;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.runCoalescer = runCoalescer;
+        this.admissionController = admissionController;
         this.i18nHelper = i18nHelper;
     }
 
@@ -106,23 +139,141 @@ public class ConfigurationResource {
         return Response.ok(config).build();
     }
 
+    @GET
+    @Path("/pools")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getWorkerPools() {
+        final List<WorkerPoolDefinition> definitions = workerPoolManager.getDefinitions();
+        return Response.ok(definitions).build();
+    }
+
+    /**
+     * Replace the worker pool definitions. Jobs whose JobRunnerKey matches one of a pool's patterns are
+     * handed to that pool and never use more than its threads.
+     */
+    @PUT
+    @Path("/pools")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configureWorkerPools(final List<WorkerPoolDefinition> definitions) {
+        final OperationResult result = workerPoolManager.configure(definitions);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+
+    /**
+     * The job priorities used by worker pools, and how long jobs of each priority have waited in pool queues.
+     */
+    @GET
+    @Path("/priorities")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getJobPriorities() {
+        return Response.ok(jobPriorities.getStatus()).build();
+    }
+
+    /**
+     * Replace the job priorities. When a worker pool has a backlog, higher priority jobs are taken first.
+     */
+    @PUT
+    @Path("/priorities")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configureJobPriorities(final JobPrioritySettings settings) {
+        final OperationResult result = jobPriorities.configure(settings);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+
+    /**
+     * The per JobRunnerKey concurrency limits, and live permit usage for each key they apply to on this node.
+     */
+    @GET
+    @Path("/limits")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getConcurrencyLimits() {
+        return Response.ok(concurrencyLimiter.getStatus()).build();
+    }
+
+    /**
+     * Replace the concurrency limits. Runs over their key's limit are deferred back to the queue.
+     */
+    @PUT
+    @Path("/limits")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configureConcurrencyLimits(final List<ConcurrencyLimit> limits) {
+        final OperationResult result = concurrencyLimiter.configure(limits);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+
+    /**
+     * The JobRunnerKey patterns whose redundant runs are coalesced, and how many runs of each key were coalesced.
+     */
+    @GET
+    @Path("/coalescing")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getCoalescing() {
+        return Response.ok(runCoalescer.getStatus()).build();
+    }
+
+    /**
+     * Replace the coalescing patterns, e.g. ["com.acme.poller.*"].
+     */
+    @PUT
+    @Path("/coalescing")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configureCoalescing(final List<String> patterns) {
+        final OperationResult result = runCoalescer.configure(patterns);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+
+    /**
+     * The heap and GC pressure thresholds at which the extra thread groups are throttled.
+     * Whether they are throttled now, and for how long they have been, is in the current configuration.
+     */
+    @GET
+    @Path("/admission")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getAdmissionSettings() {
+        return Response.ok(admissionController.getSettings()).build();
+    }
+
     /**
-     * Attempt to destroy the extra thread group in the scheduler. This is highly likely to leave
-     * your Jira instance in an unstable state. Recommend not using this.
+     * Replace the admission settings. They take effect straight away.
+     */
+    @PUT
+    @Path("/admission")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configureAdmission(final AdmissionSettings settings) {
+        final OperationResult result = admissionController.configure(settings);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+
+    /**
+     * Start retiring an extra thread group in the scheduler. Its threads finish their current job and exit once idle.
+     * Returns straight away; the group is allowed timeoutSeconds (default 60) to drain, and is followed with GET /retirement.
      */
     @DELETE
     @Path("/destroyThreadGroup")
     @Produces({MediaType.APPLICATION_JSON})
-    public Response destroyThreadGroup(final String threadGroupName) {
-        final OperationResult result = schedulerConfigurator.destroyThreadGroupByName(threadGroupName);
+    public Response destroyThreadGroup(@QueryParam("timeoutSeconds") final Integer timeoutSeconds,
+                                       final String threadGroupName) {
+        final long timeoutMillis = timeoutSeconds == null ?
+                SchedulerConfigurator.DEFAULT_DRAIN_TIMEOUT_MILLIS :
+                TimeUnit.SECONDS.toMillis(Math.max(0, Math.min(timeoutSeconds, MAX_DRAIN_TIMEOUT_SECONDS)));
+        final OperationResult result = schedulerConfigurator.destroyThreadGroupByName(threadGroupName, timeoutMillis);
         return result.isSuccess() ?
                 Response.ok(result).build() :
                 Response.status(Response.Status.BAD_REQUEST).entity(result).build();
     }
 
     /**
-     * Attempt to destroy all extra threads group in the scheduler. This is highly likely to leave
-     * your Jira instance in an unstable state. Recommend not using this.
+     * Start retiring all extra thread groups in the scheduler.
      */
     @DELETE
     @Path("/destroyAllThreadGroups")
@@ -133,4 +284,94 @@ public class ConfigurationResource {
                 Response.ok(result).build() :
                 Response.status(Response.Status.BAD_REQUEST).entity(result).build();
     }
+
+    /**
+     * How far the retirement of a thread group has got. Successful once the group has retired.
+     */
+    @GET
+    @Path("/retirement")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getRetirement(@QueryParam("threadGroup") final String threadGroupName) {
+        return Response.ok(schedulerConfigurator.getRetirement(threadGroupName)).build();
+    }
+
+    /**
+     * Ask every live node in the cluster for its scheduler state. Returns this node's state straight away;
+     * the other nodes' replies are followed with GET /cluster/request.
+     */
+    @GET
+    @Path("/cluster")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getClusterConfig() {
+        return Response.ok(clusterCoordinator.submit(ClusterCommand.STATUS, 0,
+                ClusterCoordinator.DEFAULT_TIMEOUT_MILLIS)).build();
+    }
+
+    /**
+     * The replies so far to a cluster operation. Nodes that have not replied yet, or did not reply in time,
+     * are marked as not responded; complete is set once every node replied or the time allowed has passed.
+     */
+    @GET
+    @Path("/cluster/request")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getClusterRequest(@QueryParam("requestId") final String requestId) {
+        final ClusterConfiguration result = clusterCoordinator.getRequest(requestId);
+        return result != null ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new OperationResult(false, i18nHelper.getText("jes.cluster.request.not.found", requestId))).build();
+    }
+
+    /**
+     * Set the extra thread count and replace the scheduler configuration on every live node.
+     */
+    @POST
+    @Path("/cluster/reconfigure")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response reconfigureCluster(final Integer extraThreadsToConfigure) {
+        return runOnCluster(ClusterCommand.RECONFIGURE, extraThreadsToConfigure);
+    }
+
+    @POST
+    @Path("/cluster/start")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response startCluster() {
+        return runOnCluster(ClusterCommand.START, 0);
+    }
+
+    @POST
+    @Path("/cluster/startWithConfiguration")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response startClusterWithExtraConfiguredThreads() {
+        return runOnCluster(ClusterCommand.START_WITH_CONFIGURATION, 0);
+    }
+
+    @POST
+    @Path("/cluster/pause")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response pauseCluster() {
+        return runOnCluster(ClusterCommand.PAUSE, 0);
+    }
+
+    /**
+     * Add an extra thread group of the given size on every live node.
+     */
+    @POST
+    @Path("/cluster/addThreads")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response addThreadsOnCluster(final Integer threads) {
+        return runOnCluster(ClusterCommand.ADD_THREADS, threads);
+    }
+
+    private Response runOnCluster(final ClusterCommand command, final Integer threads) {
+        if (threads == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new OperationResult(false, i18nHelper.getText("jes.invalid.thread.count"))).build();
+        }
+        final ClusterConfiguration result = clusterCoordinator.submit(command, threads,
+                ClusterCoordinator.DEFAULT_TIMEOUT_MILLIS);
+        return !result.isComplete() || result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
 }
@@ -0,0 +1,53 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.forecast.ForecastService;
+import com.teamswork.scheduler.model.OperationResult;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for the scheduler load forecast.
+ */
+@Path("/scheduler/forecast")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class ForecastResource {
+
+    private final ForecastService forecastService;
+
+    public ForecastResource(final ForecastService forecastService) {
+        this.forecastService = forecastService;
+    }
+
+    /**
+     * The latest forecast, or RUNNING while one is being computed.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getReport() {
+        return Response.ok(forecastService.getReport()).build();
+    }
+
+    /**
+     * Start a forecast.
+     * @param hours the horizon, starting now; 24 by default and at most a week.
+     * @param targetP95LagMillis the p95 lag the recommended workers must meet; 5000 by default.
+     */
+    @POST
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response start(@QueryParam("hours") final Integer hours,
+                          @QueryParam("targetP95LagMillis") final Long targetP95LagMillis) {
+        final OperationResult result = forecastService.start(hours != null ? hours : 24,
+                targetP95LagMillis != null ? targetP95LagMillis : 5000L);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.history.ExecutionHistory;
+import com.teamswork.scheduler.model.ExecutionHistoryPage;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for the recent job execution history.
+ */
+@Path("/scheduler/history")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class HistoryResource {
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    private final ExecutionHistory executionHistory;
+
+    public HistoryResource(final ExecutionHistory executionHistory) {
+        this.executionHistory = executionHistory;
+    }
+
+    /**
+     * Recent job runs, newest first.
+     * @param runnerKey optionally only runs of this job runner.
+     * @param threadGroup optionally only runs on this thread group, e.g. Caesium-2.
+     * @param from optionally only runs started at or after this time, in epoch milliseconds.
+     * @param to optionally only runs started at or before this time, in epoch milliseconds.
+     * @param offset the number of matching runs to skip.
+     * @param limit the most runs to return, 100 by default and at most 1000.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getHistory(@QueryParam("runnerKey") final String runnerKey,
+                               @QueryParam("threadGroup") final String threadGroup,
+                               @QueryParam("from") final Long from,
+                               @QueryParam("to") final Long to,
+                               @QueryParam("offset") final Integer offset,
+                               @QueryParam("limit") final Integer limit) {
+        final ExecutionHistoryPage page = executionHistory.query(runnerKey, threadGroup, from, to,
+                offset == null ? 0 : Math.max(0, offset),
+                limit == null ? DEFAULT_LIMIT : Math.max(0, Math.min(limit, MAX_LIMIT)));
+        return Response.ok(page).build();
+    }
+}
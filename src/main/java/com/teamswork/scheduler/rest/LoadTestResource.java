@@ -0,0 +1,62 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.loadtest.LoadTester;
+import com.teamswork.scheduler.model.LoadTestRequest;
+import com.teamswork.scheduler.model.OperationResult;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for synthetic load tests. Only usable on nodes started with -Djes.loadtest.enabled=true.
+ */
+@Path("/scheduler/loadtest")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class LoadTestResource {
+
+    private final LoadTester loadTester;
+
+    public LoadTestResource(final LoadTester loadTester) {
+        this.loadTester = loadTester;
+    }
+
+    /**
+     * The running load test, or the outcome of the last one.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getReport() {
+        return Response.ok(loadTester.getReport()).build();
+    }
+
+    /**
+     * Start a load test with the given profiles and duration.
+     */
+    @POST
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response start(final LoadTestRequest request) {
+        return toResponse(loadTester.start(request));
+    }
+
+    /**
+     * Stop the running load test and remove its jobs.
+     */
+    @DELETE
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response stop() {
+        return toResponse(loadTester.stop());
+    }
+
+    private static Response toResponse(final OperationResult result) {
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.ResourceAccountingSettings;
+import com.teamswork.scheduler.model.SchedulerMetrics;
+import com.teamswork.scheduler.service.ResourceAccountingService;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for the job execution metrics of the scheduler.
+ */
+@Path("/scheduler/metrics")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class MetricsResource {
+
+    private final SchedulerMetricsService metricsService;
+    private final ResourceAccountingService resourceAccounting;
+
+    public MetricsResource(final SchedulerMetricsService metricsService,
+                           final ResourceAccountingService resourceAccounting) {
+        this.metricsService = metricsService;
+        this.resourceAccounting = resourceAccounting;
+    }
+
+    /**
+     * Run time and queue wait percentiles (p50/p95/p99/max) for the whole pool and each job runner.
+     * @param runnerKey optionally restrict the runners reported to this key.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getMetrics(@QueryParam("runnerKey") final String runnerKey) {
+        final SchedulerMetrics metrics = metricsService.getSchedulerMetrics(runnerKey);
+        return Response.ok(metrics).build();
+    }
+
+    /**
+     * CPU time and heap allocation totals, the top consumers and the cost of measuring them.
+     * @param top how many job runners to list, 10 by default and at most 100.
+     * @param sort cpu (the default) or allocated.
+     */
+    @GET
+    @Path("/resources")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getResources(@QueryParam("top") final Integer top,
+                                 @QueryParam("sort") final String sort) {
+        final ResourceAccountingService.SortBy sortBy = "allocated".equalsIgnoreCase(sort) ?
+                ResourceAccountingService.SortBy.ALLOCATED : ResourceAccountingService.SortBy.CPU;
+        return Response.ok(resourceAccounting.getReport(top != null ? top : 10, sortBy)).build();
+    }
+
+    /**
+     * Switch resource accounting on or off.
+     */
+    @PUT
+    @Path("/resources")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configureResources(final ResourceAccountingSettings settings) {
+        final OperationResult result = resourceAccounting.configure(settings);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.partition.DefaultPartitionedJobRunner;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for the partitioned job runs.
+ */
+@Path("/scheduler/partitioned")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class PartitionedJobResource {
+
+    private final DefaultPartitionedJobRunner partitionedJobRunner;
+
+    public PartitionedJobResource(final DefaultPartitionedJobRunner partitionedJobRunner) {
+        this.partitionedJobRunner = partitionedJobRunner;
+    }
+
+    /**
+     * The partition threads, and the progress of the partitioned job runs in progress and recently finished.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getStatus() {
+        return Response.ok(partitionedJobRunner.getStatus()).build();
+    }
+}
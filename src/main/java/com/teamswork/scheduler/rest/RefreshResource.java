@@ -0,0 +1,75 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.RefreshSettings;
+import com.teamswork.scheduler.model.RefreshStatus;
+import com.teamswork.scheduler.refresh.ClusteredJobRefresher;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for the clustered job refresh settings and what clustered job DAO calls cost this node.
+ */
+@Path("/scheduler/refresh")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class RefreshResource {
+
+    private final ClusteredJobRefresher clusteredJobRefresher;
+
+    public RefreshResource(final ClusteredJobRefresher clusteredJobRefresher) {
+        this.clusteredJobRefresher = clusteredJobRefresher;
+    }
+
+    /**
+     * The refresh settings, the current interval and what refreshes have cost on this node.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getStatus() {
+        final RefreshStatus status = clusteredJobRefresher.getStatus();
+        return Response.ok(status).build();
+    }
+
+    /**
+     * Replace the refresh settings. The refresh job is rescheduled straight away.
+     */
+    @PUT
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configure(final RefreshSettings settings) {
+        final OperationResult result = clusteredJobRefresher.configure(settings);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+
+    /**
+     * Call counts and latency per ClusteredJobDao operation, the jobs that spent longest in DAO calls with their
+     * claim wait and hold times, and the slowest recent calls.
+     * @param top how many jobs to list, 20 by default and at most 100.
+     */
+    @GET
+    @Path("/dao")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getDaoReport(@QueryParam("top") final Integer top) {
+        return Response.ok(clusteredJobRefresher.getDaoReport(top != null ? top : 20)).build();
+    }
+
+    /**
+     * Start the ClusteredJobDao figures again.
+     */
+    @DELETE
+    @Path("/dao")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response resetDaoReport() {
+        return Response.ok(clusteredJobRefresher.resetDaoReport()).build();
+    }
+}
@@ -0,0 +1,51 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.capacity.CapacityRestorer;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.RestoreSettings;
+import com.teamswork.scheduler.model.RestoreStatus;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for restoring the extra thread groups when the plugin is enabled.
+ */
+@Path("/scheduler/restore")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class RestoreResource {
+
+    private final CapacityRestorer capacityRestorer;
+
+    public RestoreResource(final CapacityRestorer capacityRestorer) {
+        this.capacityRestorer = capacityRestorer;
+    }
+
+    /**
+     * The restore settings, and the outcome and timing of the restore when the plugin was last enabled.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getStatus() {
+        final RestoreStatus status = capacityRestorer.getStatus();
+        return Response.ok(status).build();
+    }
+
+    /**
+     * Replace the restore settings. They take effect the next time the plugin is enabled.
+     */
+    @PUT
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configure(final RestoreSettings settings) {
+        final OperationResult result = capacityRestorer.configure(settings);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.WriteBehindSettings;
+import com.teamswork.scheduler.rundetails.RunDetailsBatcher;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for the run details write-behind.
+ */
+@Path("/scheduler/rundetails")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class RunDetailsResource {
+
+    private final RunDetailsBatcher runDetailsBatcher;
+
+    public RunDetailsResource(final RunDetailsBatcher runDetailsBatcher) {
+        this.runDetailsBatcher = runDetailsBatcher;
+    }
+
+    /**
+     * The settings, the run outcomes buffered, and the batch sizes, flush latency and dropped writes so far.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getStatus() {
+        return Response.ok(runDetailsBatcher.getStatus()).build();
+    }
+
+    /**
+     * Replace the settings, e.g. {"enabled": true, "batchSize": 100, "flushIntervalMillis": 1000, "queueSize": 10000}.
+     */
+    @PUT
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configure(final WriteBehindSettings settings) {
+        final OperationResult result = runDetailsBatcher.configure(settings);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+}
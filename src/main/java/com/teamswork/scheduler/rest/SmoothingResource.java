@@ -0,0 +1,83 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.SmoothingSettings;
+import com.teamswork.scheduler.smoothing.ScheduleSmoother;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST resource for the schedule smoothing analyser.
+ */
+@Path("/scheduler/smoothing")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class SmoothingResource {
+
+    private final ScheduleSmoother scheduleSmoother;
+
+    public SmoothingResource(final ScheduleSmoother scheduleSmoother) {
+        this.scheduleSmoother = scheduleSmoother;
+    }
+
+    /**
+     * Jobs due per minute before and after smoothing, the busiest minutes and the proposed changes.
+     * @param hours the length of the window, starting now; 24 by default and at most a week.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response analyse(@QueryParam("hours") final Integer hours) {
+        return Response.ok(scheduleSmoother.analyse(hours != null ? hours : 24)).build();
+    }
+
+    @GET
+    @Path("/settings")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getSettings() {
+        return Response.ok(scheduleSmoother.getSettings()).build();
+    }
+
+    /**
+     * Replace the settings. Nothing is rescheduled until the proposals are applied.
+     */
+    @PUT
+    @Path("/settings")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configure(final SmoothingSettings settings) {
+        return toResponse(scheduleSmoother.configure(settings));
+    }
+
+    /**
+     * Reschedule the flexible jobs with their offsets.
+     */
+    @POST
+    @Path("/apply")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response apply() {
+        return toResponse(scheduleSmoother.apply());
+    }
+
+    /**
+     * Put back the schedules the jobs' owners gave them.
+     */
+    @POST
+    @Path("/revert")
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response revert() {
+        return toResponse(scheduleSmoother.revert());
+    }
+
+    private static Response toResponse(final OperationResult result) {
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.teamswork.scheduler.rest;
+
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.RunBudget;
+import com.teamswork.scheduler.watchdog.HungJobWatchdog;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+
+/**
+ * REST resource for the hung job watchdog.
+ */
+@Path("/scheduler/watchdog")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON})
+public class WatchdogResource {
+
+    private final HungJobWatchdog watchdog;
+
+    public WatchdogResource(final HungJobWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * The budgets, the suspect threads and the latest hang events with their stack traces.
+     */
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response getStatus() {
+        return Response.ok(watchdog.getStatus()).build();
+    }
+
+    /**
+     * Replace the run budgets, e.g. [{"pattern": "com.acme.sync*", "budgetSeconds": 600}].
+     */
+    @PUT
+    @Produces({MediaType.APPLICATION_JSON})
+    public Response configure(final List<RunBudget> budgets) {
+        final OperationResult result = watchdog.configure(budgets);
+        return result.isSuccess() ?
+                Response.ok(result).build() :
+                Response.status(Response.Status.BAD_REQUEST).entity(result).build();
+    }
+}
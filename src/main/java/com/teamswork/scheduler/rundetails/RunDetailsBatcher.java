@@ -0,0 +1,243 @@
+package com.teamswork.scheduler.rundetails;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
+import com.atlassian.scheduler.core.spi.RunDetailsDao;
+import com.teamswork.scheduler.component.CaesiumInternals;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+import com.teamswork.scheduler.model.LatencySummary;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.WriteBehindSettings;
+import com.teamswork.scheduler.model.WriteBehindStatus;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_RUN_DETAILS_KEY;
+
+/**
+ * Puts a WriteBehindRunDetailsDao in front of the scheduler's RunDetailsDao, so job run outcomes are written in
+ * batches on a thread of our own instead of one small transaction per run on the scheduler workers. This is opt-in.
+ * A batch is written once batchSize outcomes are buffered or flushIntervalMillis has passed. When write-behind is
+ * switched off, reconfigured or the plugin is disabled, the original DAO is put back first and then everything still
+ * buffered is written before we return. Settings are stored in ApplicationProperties under SCHEDULER_RUN_DETAILS_KEY.
+ */
+@Named
+public class RunDetailsBatcher extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(RunDetailsBatcher.class);
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_QUEUE_SIZE = 100000;
+    private static final long MAX_FLUSH_INTERVAL_MILLIS = 60 * 1000L;
+    private static final long STOP_TIMEOUT_SECONDS = 10L;
+
+    private final CaesiumInternals caesiumInternals;
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+
+    private volatile WriteBehindSettings settings = new WriteBehindSettings();
+    private volatile WriteBehindRunDetailsDao dao;
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    public RunDetailsBatcher(final CaesiumInternals caesiumInternals,
+                             @ComponentImport final EventPublisher eventPublisher,
+                             @ComponentImport final ApplicationProperties applicationProperties,
+                             @ComponentImport final I18nHelper i18nHelper) {
+        super(eventPublisher);
+        this.caesiumInternals = caesiumInternals;
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            apply(getSettings());
+        } catch (final Exception e) {
+            log.error("Error starting the run details write-behind. ", e);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        try {
+            stop();
+        } catch (final Throwable t) {
+            log.error("Error shutting down the run details write-behind " + t.getMessage());
+        }
+    }
+
+    /**
+     * Validate, store and apply new write-behind settings.
+     * @param newSettings the settings.
+     * @return the outcome of the operation.
+     */
+    public OperationResult configure(final WriteBehindSettings newSettings) {
+        if (newSettings.getBatchSize() < 1 || newSettings.getBatchSize() > MAX_BATCH_SIZE) {
+            return new OperationResult(false, i18nHelper.getText("jes.rundetails.invalid.batch", MAX_BATCH_SIZE));
+        }
+        if (newSettings.getQueueSize() < newSettings.getBatchSize() || newSettings.getQueueSize() > MAX_QUEUE_SIZE) {
+            return new OperationResult(false, i18nHelper.getText("jes.rundetails.invalid.queue", MAX_QUEUE_SIZE));
+        }
+        if (newSettings.getFlushIntervalMillis() < 10L || newSettings.getFlushIntervalMillis() > MAX_FLUSH_INTERVAL_MILLIS) {
+            return new OperationResult(false, i18nHelper.getText("jes.rundetails.invalid.interval", MAX_FLUSH_INTERVAL_MILLIS));
+        }
+        applicationProperties.setText(SCHEDULER_RUN_DETAILS_KEY, format(newSettings));
+        if (!apply(newSettings)) {
+            return new OperationResult(false, i18nHelper.getText("jes.rundetails.install.failed"));
+        }
+        return new OperationResult(true, i18nHelper.getText(newSettings.isEnabled()
+                ? "jes.rundetails.enabled" : "jes.rundetails.disabled"));
+    }
+
+    /**
+     * @return the stored settings, or the defaults if none have been stored.
+     */
+    public WriteBehindSettings getSettings() {
+        return parse(applicationProperties.getText(SCHEDULER_RUN_DETAILS_KEY));
+    }
+
+    /**
+     * @return the settings and the batches written since write-behind was last switched on.
+     */
+    public WriteBehindStatus getStatus() {
+        final WriteBehindStatus status = new WriteBehindStatus();
+        status.setSettings(settings);
+        final WriteBehindRunDetailsDao current = dao;
+        status.setInstalled(current != null);
+        if (current != null) {
+            final LatencyHistogram.Snapshot batchSizes = current.getBatchSizes().snapshot();
+            status.setBuffered(current.getBuffered());
+            status.setFlushes(batchSizes.getTotalCount());
+            status.setWritten(current.getWritten());
+            status.setCoalesced(current.getCoalesced());
+            status.setSynchronousWrites(current.getSynchronousWrites());
+            status.setDroppedWrites(current.getDroppedWrites());
+            status.setMeanBatchSize(batchSizes.getMean());
+            status.setP95BatchSize(batchSizes.getValueAtPercentile(95));
+            status.setMaxBatchSize(batchSizes.getMax());
+            status.setFlushLatency(LatencySummary.fromMicros(current.getFlushLatency().snapshot()));
+            status.setLastFlushTime(current.getLastFlushTime());
+        }
+        return status;
+    }
+
+    /**
+     * @return false if the DAO could not be put in front of the scheduler's.
+     */
+    private synchronized boolean apply(final WriteBehindSettings newSettings) {
+        stop();
+        settings = newSettings;
+        if (!newSettings.isEnabled()) {
+            log.debug("Run details write-behind is disabled.");
+            return true;
+        }
+        final WriteBehindRunDetailsDao writeBehind;
+        try {
+            final CaesiumSchedulerService service = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+            final RunDetailsDao original = caesiumInternals.getRunDetailsDao(service);
+            writeBehind = new WriteBehindRunDetailsDao(original, newSettings.getBatchSize(), newSettings.getQueueSize());
+            caesiumInternals.setRunDetailsDao(service, writeBehind);
+            dao = writeBehind;
+        } catch (final Throwable t) {
+            log.error("Error installing the run details write-behind. ", t);
+            return false;
+        }
+        running = true;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "JES-rundetails");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(() -> flushUntilStopped(writeBehind, newSettings.getFlushIntervalMillis()));
+        log.info("Run details write-behind started: {}", format(newSettings));
+        return true;
+    }
+
+    /**
+     * Put the original DAO back so no more runs are buffered, then write what is left on this thread. A job thread
+     * that still holds the write-behind DAO writes its run straight through.
+     */
+    private synchronized void stop() {
+        final WriteBehindRunDetailsDao current = dao;
+        if (current == null) {
+            return;
+        }
+        try {
+            final CaesiumSchedulerService service = ComponentAccessor.getComponent(CaesiumSchedulerService.class);
+            if (caesiumInternals.getRunDetailsDao(service) == current) {
+                caesiumInternals.setRunDetailsDao(service, current.getDelegate());
+            }
+        } catch (final Throwable t) {
+            log.error("Error restoring the scheduler's run details DAO. ", t);
+        }
+        running = false;
+        current.wakeUp();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("The run details flush thread did not stop within {}s.", STOP_TIMEOUT_SECONDS);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        dao = null;
+        final int flushed = current.stop();
+        log.info("Run details write-behind stopped; wrote the last {} buffered runs.", flushed);
+    }
+
+    private void flushUntilStopped(final WriteBehindRunDetailsDao writeBehind, final long flushIntervalMillis) {
+        while (running) {
+            try {
+                writeBehind.awaitBatch(flushIntervalMillis);
+                writeBehind.flush();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final Exception e) {
+                log.error("Error flushing run details. ", e);
+            }
+        }
+    }
+
+    private static String format(final WriteBehindSettings settings) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("enabled", settings.isEnabled());
+        values.put("batchSize", settings.getBatchSize());
+        values.put("flushIntervalMillis", settings.getFlushIntervalMillis());
+        values.put("queueSize", settings.getQueueSize());
+        return SettingsText.format(values);
+    }
+
+    private static WriteBehindSettings parse(final String text) {
+        final WriteBehindSettings settings = new WriteBehindSettings();
+        for (Map.Entry<String, String> entry : SettingsText.parse(text).entrySet()) {
+            try {
+                final String value = entry.getValue();
+                switch (entry.getKey()) {
+                    case "enabled": settings.setEnabled(Boolean.parseBoolean(value)); break;
+                    case "batchSize": settings.setBatchSize(Integer.parseInt(value)); break;
+                    case "flushIntervalMillis": settings.setFlushIntervalMillis(Long.parseLong(value)); break;
+                    case "queueSize": settings.setQueueSize(Integer.parseInt(value)); break;
+                    default: log.warn("Ignoring unknown run details setting: {}", entry.getKey());
+                }
+            } catch (NumberFormatException e) {
+                log.error("Ignoring invalid run details setting: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return settings;
+    }
+}
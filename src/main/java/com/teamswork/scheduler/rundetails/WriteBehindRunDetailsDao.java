@@ -0,0 +1,323 @@
+package com.teamswork.scheduler.rundetails;
+
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.core.spi.RunDetailsDao;
+import com.atlassian.scheduler.status.RunDetails;
+import com.atlassian.scheduler.status.RunOutcome;
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps the scheduler's RunDetailsDao so the outcome of each job run is buffered and written by a flush thread,
+ * rather than in a transaction of its own on the scheduler worker that ran the job.
+ * The scheduler only ever reads back the last run and the last successful run of a job, so a batch writes at most
+ * those two for each job and skips runs a later run of the same job has superseded.
+ * Reads see buffered runs through an index of each job's newest buffered run and newest buffered success, which a
+ * run joins before it is buffered and leaves once it has been written, so a read is a map lookup and always finds
+ * the run in the index or the delegate. When the buffer is full the job thread writes its own run itself, and drops
+ * the buffered runs of its job that it supersedes so they cannot be written after it. Once stopped, runs are written
+ * straight through. A run whose write fails is logged and dropped: there is no one to report it to.
+ */
+public class WriteBehindRunDetailsDao implements RunDetailsDao {
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindRunDetailsDao.class);
+
+    private final RunDetailsDao delegate;
+    private final int batchSize;
+    private final BlockingQueue<PendingRun> queue;
+    private final Object batchReady = new Object();
+    private final LatencyHistogram batchSizes = new LatencyHistogram();
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong synchronousWrites = new AtomicLong();
+    private final AtomicLong droppedWrites = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<JobId, PendingRun> newestPending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<JobId, PendingRun> newestPendingSuccess = new ConcurrentHashMap<>();
+
+    private volatile long lastFlushTime;
+    private volatile boolean stopped;
+
+    public WriteBehindRunDetailsDao(final RunDetailsDao delegate, final int batchSize, final int queueSize) {
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    public RunDetailsDao getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public RunDetails getLastRunForJob(final JobId jobId) {
+        final PendingRun pending = newestPending.get(jobId);
+        return pending != null ? pending.runDetails : delegate.getLastRunForJob(jobId);
+    }
+
+    @Override
+    public RunDetails getLastSuccessfulRunForJob(final JobId jobId) {
+        final PendingRun pending = newestPendingSuccess.get(jobId);
+        return pending != null ? pending.runDetails : delegate.getLastSuccessfulRunForJob(jobId);
+    }
+
+    @Override
+    public void addRunDetails(final JobId jobId, final RunDetails runDetails) {
+        final PendingRun run = new PendingRun(jobId, runDetails, sequence.incrementAndGet());
+        if (stopped) {
+            write(run);
+            return;
+        }
+        index(run);
+        if (!queue.offer(run)) {
+            writeThrough(run);
+            return;
+        }
+        if (stopped) {
+            // Stopped while this run was being buffered: write it unless the last flush took it.
+            synchronized (this) {
+                if (queue.remove(run)) {
+                    write(run);
+                    unindex(run);
+                }
+            }
+            return;
+        }
+        if (queue.size() >= batchSize) {
+            synchronized (batchReady) {
+                batchReady.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Write a run the buffer has no room for on the job thread. Holding this waits for a batch being written, so
+     * none of the job's earlier runs can be written after it. Its buffered runs are superseded as they would be in a
+     * batch: all of them if it succeeded, otherwise all but the newest success, which is written first.
+     */
+    private synchronized void writeThrough(final PendingRun run) {
+        PendingRun success = null;
+        final List<PendingRun> superseded = new ArrayList<>();
+        for (PendingRun pending : queue) {
+            if (pending.jobId.equals(run.jobId)) {
+                superseded.add(pending);
+                if (!run.isSuccess() && pending.isSuccess()) {
+                    success = pending;
+                }
+            }
+        }
+        if (queue.removeAll(superseded)) {
+            coalesced.addAndGet(superseded.size() - (success != null ? 1 : 0));
+        }
+        synchronousWrites.incrementAndGet();
+        if (success != null) {
+            write(success);
+        }
+        write(run);
+        for (PendingRun pending : superseded) {
+            unindex(pending);
+        }
+        unindex(run);
+    }
+
+    /**
+     * Buffered runs of the job are discarded, so a later flush does not bring its history back.
+     */
+    @Override
+    public synchronized void purgeHistory(final JobId jobId) {
+        queue.removeIf(run -> run.jobId.equals(jobId));
+        newestPending.remove(jobId);
+        newestPendingSuccess.remove(jobId);
+        delegate.purgeHistory(jobId);
+    }
+
+    /**
+     * Wait until a full batch is buffered, the time is up or wakeUp is called.
+     * @param maxWaitMillis the longest to wait.
+     */
+    public void awaitBatch(final long maxWaitMillis) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        synchronized (batchReady) {
+            long remaining = maxWaitMillis;
+            while (queue.size() < batchSize && remaining > 0) {
+                batchReady.wait(remaining);
+                remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            }
+        }
+    }
+
+    public void wakeUp() {
+        synchronized (batchReady) {
+            batchReady.notifyAll();
+        }
+    }
+
+    /**
+     * Write one batch of buffered runs.
+     * @return the number of runs taken from the buffer.
+     */
+    public synchronized int flush() {
+        // Runs stay in the index until they are written, so reads still find the batch while it is being written.
+        final List<PendingRun> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        queue.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        final long startNanos = System.nanoTime();
+        try {
+            final List<PendingRun> writes = coalesce(batch);
+            for (PendingRun run : writes) {
+                write(run);
+            }
+            coalesced.addAndGet(batch.size() - writes.size());
+        } finally {
+            for (PendingRun run : batch) {
+                unindex(run);
+            }
+            flushLatency.record((System.nanoTime() - startNanos) / 1000L);
+            batchSizes.record(batch.size());
+            lastFlushTime = System.currentTimeMillis();
+        }
+        return batch.size();
+    }
+
+    /**
+     * Write everything buffered, e.g. when the plugin is being disabled.
+     * @return the number of runs taken from the buffer.
+     */
+    public synchronized int flushAll() {
+        int flushed = 0;
+        int count;
+        while ((count = flush()) > 0) {
+            flushed += count;
+        }
+        return flushed;
+    }
+
+    /**
+     * Write everything buffered and write later runs straight through, for when the scheduler has been given its
+     * own DAO back but a job thread may still hold this one.
+     * @return the number of runs taken from the buffer.
+     */
+    public int stop() {
+        stopped = true;
+        return flushAll();
+    }
+
+    /**
+     * For each job keep its newest run and, if that was not a success, its newest successful run before it.
+     * Jobs keep the order of their first run in the batch, and a job's runs are written oldest first.
+     */
+    static List<PendingRun> coalesce(final List<PendingRun> batch) {
+        final Map<JobId, PendingRun> newest = new LinkedHashMap<>();
+        final Map<JobId, PendingRun> newestSuccess = new HashMap<>();
+        for (PendingRun run : batch) {
+            newest.put(run.jobId, run);
+            if (run.isSuccess()) {
+                newestSuccess.put(run.jobId, run);
+            }
+        }
+        final List<PendingRun> writes = new ArrayList<>(newest.size());
+        for (PendingRun run : newest.values()) {
+            final PendingRun success = newestSuccess.get(run.jobId);
+            if (!run.isSuccess() && success != null) {
+                writes.add(success);
+            }
+            writes.add(run);
+        }
+        return writes;
+    }
+
+    private void write(final PendingRun run) {
+        try {
+            delegate.addRunDetails(run.jobId, run.runDetails);
+            written.incrementAndGet();
+        } catch (final RuntimeException e) {
+            droppedWrites.incrementAndGet();
+            log.error("Dropped the run details of {}: {}", run.jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Make the run its job's newest buffered run, and newest buffered success if it is one, unless a later run of
+     * the job got there first.
+     */
+    private void index(final PendingRun run) {
+        newestPending.merge(run.jobId, run, WriteBehindRunDetailsDao::newer);
+        if (run.isSuccess()) {
+            newestPendingSuccess.merge(run.jobId, run, WriteBehindRunDetailsDao::newer);
+        }
+    }
+
+    /**
+     * Drop a written run from the index, unless a later run of its job has replaced it.
+     */
+    private void unindex(final PendingRun run) {
+        newestPending.remove(run.jobId, run);
+        newestPendingSuccess.remove(run.jobId, run);
+    }
+
+    private static PendingRun newer(final PendingRun a, final PendingRun b) {
+        return a.sequence > b.sequence ? a : b;
+    }
+
+    public int getBuffered() {
+        return queue.size();
+    }
+
+    public LatencyHistogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    public LatencyHistogram getFlushLatency() {
+        return flushLatency;
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getSynchronousWrites() {
+        return synchronousWrites.get();
+    }
+
+    public long getDroppedWrites() {
+        return droppedWrites.get();
+    }
+
+    public long getLastFlushTime() {
+        return lastFlushTime;
+    }
+
+    static final class PendingRun {
+        private final JobId jobId;
+        private final RunDetails runDetails;
+        // Orders the runs of a job as they were added.
+        private final long sequence;
+
+        PendingRun(final JobId jobId, final RunDetails runDetails, final long sequence) {
+            this.jobId = jobId;
+            this.runDetails = runDetails;
+            this.sequence = sequence;
+        }
+
+        boolean isSuccess() {
+            return runDetails.getRunOutcome() == RunOutcome.SUCCESS;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.teamswork.scheduler.runner;
+
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+
+import java.util.Date;
+
+/**
+ * The request a deferred job is run with. It carries the original job's id and config, so to the job's runner
+ * it looks like the original run, plus how many times the run has been deferred so far.
+ */
+public class DeferredJobRunnerRequest implements JobRunnerRequest {
+    private final JobRunnerRequest deferredRequest;
+    private final JobId jobId;
+    private final JobConfig jobConfig;
+    private final int attempt;
+
+    public DeferredJobRunnerRequest(final JobRunnerRequest deferredRequest, final JobId jobId,
+                                    final JobConfig jobConfig, final int attempt) {
+        this.deferredRequest = deferredRequest;
+        this.jobId = jobId;
+        this.jobConfig = jobConfig;
+        this.attempt = attempt;
+    }
+
+    @Override
+    public Date getStartTime() {
+        return deferredRequest.getStartTime();
+    }
+
+    @Override
+    public JobId getJobId() {
+        return jobId;
+    }
+
+    @Override
+    public JobConfig getJobConfig() {
+        return jobConfig;
+    }
+
+    @Override
+    public boolean isCancellationRequested() {
+        return deferredRequest.isCancellationRequested();
+    }
+
+    /**
+     * @return the number of times this run has been deferred.
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    @Override
+    public String toString() {
+        return "DeferredJobRunnerRequest{" +
+                "jobId=" + jobId +
+                ", attempt=" + attempt +
+                '}';
+    }
+}
@@ -0,0 +1,86 @@
+package com.teamswork.scheduler.runner;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.core.spi.RunDetailsDao;
+import com.atlassian.scheduler.status.RunDetails;
+import com.atlassian.scheduler.status.RunOutcome;
+import com.teamswork.scheduler.component.CaesiumInternals;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.Date;
+
+/**
+ * Records the outcome of a job run that a Caesium worker handed to a VIRTUAL worker pool without waiting for it.
+ * Caesium records the hand-off when its worker returns; this writes the run's own outcome through the scheduler's
+ * RunDetailsDao once the job has finished, as Caesium would have had it waited. The run's start time is when the
+ * pool started it, after the hand-off, so it is the job's last run however the two writes are ordered.
+ */
+@Named
+public class HandedOffRunRecorder {
+    private static final Logger log = LoggerFactory.getLogger(HandedOffRunRecorder.class);
+    // The longest message Caesium stores for a run.
+    private static final int MAX_MESSAGE_LENGTH = 255;
+
+    private final CaesiumInternals caesiumInternals;
+
+    public HandedOffRunRecorder(final CaesiumInternals caesiumInternals) {
+        this.caesiumInternals = caesiumInternals;
+    }
+
+    /**
+     * @param jobId the job that ran.
+     * @param startedAt when the pool started the job, or handed it back unrun.
+     * @param response the job's response.
+     */
+    public void record(final JobId jobId, final long startedAt, final JobRunnerResponse response) {
+        try {
+            final RunDetailsDao runDetailsDao = caesiumInternals.getRunDetailsDao(
+                    ComponentAccessor.getComponent(CaesiumSchedulerService.class));
+            runDetailsDao.addRunDetails(jobId, new HandedOffRun(startedAt, System.currentTimeMillis() - startedAt,
+                    response.getRunOutcome(), response.getMessage()));
+        } catch (final Throwable t) {
+            log.error("Unable to record the outcome of job {} run on a worker pool: {}", jobId, t.getMessage());
+        }
+    }
+
+    private static final class HandedOffRun implements RunDetails {
+        private final long startTime;
+        private final long durationInMillis;
+        private final RunOutcome runOutcome;
+        private final String message;
+
+        private HandedOffRun(final long startTime, final long durationInMillis, final RunOutcome runOutcome,
+                             final String message) {
+            this.startTime = startTime;
+            this.durationInMillis = Math.max(0L, durationInMillis);
+            this.runOutcome = runOutcome != null ? runOutcome : RunOutcome.SUCCESS;
+            this.message = message == null || message.length() <= MAX_MESSAGE_LENGTH ? message
+                    : message.substring(0, MAX_MESSAGE_LENGTH);
+        }
+
+        @Override
+        public Date getStartTime() {
+            return new Date(startTime);
+        }
+
+        @Override
+        public long getDurationInMillis() {
+            return durationInMillis;
+        }
+
+        @Override
+        public RunOutcome getRunOutcome() {
+            return runOutcome;
+        }
+
+        @Override
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.teamswork.scheduler.runner;
+
+import com.atlassian.scheduler.JobRunner;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.status.RunOutcome;
+import com.teamswork.scheduler.capacity.AdmissionController;
+import com.teamswork.scheduler.capacity.WorkerRetirement;
+import com.teamswork.scheduler.history.ExecutionHistory;
+import com.teamswork.scheduler.limit.ConcurrencyLimiter;
+import com.teamswork.scheduler.limit.KeyCoalescing;
+import com.teamswork.scheduler.limit.KeyLimit;
+import com.teamswork.scheduler.limit.RunCoalescer;
+import com.teamswork.scheduler.metrics.ResourceMeter;
+import com.teamswork.scheduler.metrics.ResourceUsage;
+import com.teamswork.scheduler.metrics.RunnerMetrics;
+import com.teamswork.scheduler.model.WorkerPoolDefinition;
+import com.teamswork.scheduler.pool.WorkerPool;
+import com.teamswork.scheduler.pool.WorkerPoolManager;
+import com.teamswork.scheduler.refresh.ClusteredJobProfiler;
+import com.teamswork.scheduler.service.JobDueTimeTracker;
+import com.teamswork.scheduler.service.JobRequeuer;
+import com.teamswork.scheduler.service.ResourceAccountingService;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+import com.teamswork.scheduler.watchdog.HungJobWatchdog;
+import com.teamswork.scheduler.watchdog.RunningJob;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps a registered JobRunner and records the run time, queue wait and outcome of every job it runs,
+ * and adds each run to the execution history. The CPU time and heap allocated by the job's thread are also
+ * recorded, unless resource accounting has been switched off.
+ * If the runner's key is assigned to a worker pool, the Caesium worker hands the job to that pool and waits for it;
+ * the job is then run and measured on the pool's thread, and its response is returned to Caesium. A VIRTUAL pool is
+ * not waited for, so its jobs do not hold Caesium workers: the hand-off is returned to Caesium, and the job's own
+ * outcome is recorded by the HandedOffRunRecorder once it finishes.
+ * A worker whose thread group is being retired still runs the job it has claimed; it is ended once it is idle.
+ * While the heap is under pressure, a worker of an extra thread group defers the job back to the queue too.
+ * A job whose key is at its concurrency limit is deferred back to the queue too, wherever it was to run;
+ * the turned away run is recorded in the history as aborted, and the job's due time moves on as for any other run.
+ * If the key's runs are coalesced, a run of a job that is already running or queued is turned away.
+ * If the key has a run budget, the run is watched by the HungJobWatchdog while it is in progress.
+ * The end of each run is reported to the ClusteredJobProfiler, which ends the hold of a clustered job's claim.
+ * The original runner is kept so it can be put back when this plugin is disabled.
+ */
+public class InstrumentedJobRunner implements JobRunner {
+    private final JobRunnerKey jobRunnerKey;
+    private final JobRunner delegate;
+    private final RunnerMetrics runnerMetrics;
+    private final SchedulerMetricsService metricsService;
+    private final JobDueTimeTracker dueTimeTracker;
+    private final WorkerPoolManager workerPoolManager;
+    private final WorkerRetirement workerRetirement;
+    private final JobRequeuer jobRequeuer;
+    private final ExecutionHistory executionHistory;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final RunCoalescer runCoalescer;
+    private final HungJobWatchdog watchdog;
+    private final AdmissionController admissionController;
+    private final ClusteredJobProfiler clusteredJobProfiler;
+    private final HandedOffRunRecorder handedOffRunRecorder;
+    private final ResourceMeter resourceMeter;
+    private final ResourceUsage resourceUsage;
+
+    public InstrumentedJobRunner(final JobRunnerKey jobRunnerKey,
+                                 final JobRunner delegate,
+                                 final SchedulerMetricsService metricsService,
+                                 final JobDueTimeTracker dueTimeTracker,
+                                 final WorkerPoolManager workerPoolManager,
+                                 final WorkerRetirement workerRetirement,
+                                 final JobRequeuer jobRequeuer,
+                                 final ExecutionHistory executionHistory,
+                                 final ConcurrencyLimiter concurrencyLimiter,
+                                 final ResourceAccountingService resourceAccounting,
+                                 final RunCoalescer runCoalescer,
+                                 final HungJobWatchdog watchdog,
+                                 final AdmissionController admissionController,
+                                 final ClusteredJobProfiler clusteredJobProfiler,
+                                 final HandedOffRunRecorder handedOffRunRecorder) {
+        this.jobRunnerKey = jobRunnerKey;
+        this.delegate = delegate;
+        this.metricsService = metricsService;
+        this.dueTimeTracker = dueTimeTracker;
+        this.workerPoolManager = workerPoolManager;
+        this.workerRetirement = workerRetirement;
+        this.jobRequeuer = jobRequeuer;
+        this.executionHistory = executionHistory;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.runCoalescer = runCoalescer;
+        this.watchdog = watchdog;
+        this.admissionController = admissionController;
+        this.clusteredJobProfiler = clusteredJobProfiler;
+        this.handedOffRunRecorder = handedOffRunRecorder;
+        this.runnerMetrics = metricsService.getRunnerMetrics(jobRunnerKey);
+        this.resourceMeter = resourceAccounting.getMeter();
+        this.resourceUsage = resourceAccounting.getUsage(jobRunnerKey);
+    }
+
+    @Override
+    public JobRunnerResponse runJob(final JobRunnerRequest request) {
+        final Date startTime = request.getStartTime();
+        final long startedAt = startTime != null ? startTime.getTime() : System.currentTimeMillis();
+        final long dueTime = dueTimeTracker.getDueTime(request.getJobId());
+        metricsService.schedulerJobStarted(dueTime == JobDueTimeTracker.UNKNOWN ?
+                JobDueTimeTracker.UNKNOWN : Math.max(0L, startedAt - dueTime) * 1000L);
+        boolean throttled = false;
+        try {
+            if (workerRetirement.isRetiring(Thread.currentThread())) {
+                // The worker has claimed this job, so it runs it. Clear an interrupt meant to end the worker while
+                // it was idle, which it picked the job up before seeing, so it does not leak into the job.
+                Thread.interrupted();
+            }
+            final WorkerPool workerPool = workerPoolManager.getPool(jobRunnerKey);
+            if (workerPool != null && !workerPool.isPoolThread()) {
+                return dispatch(workerPool, request);
+            }
+            if (admissionController.isThrottled(Thread.currentThread())
+                    && admissionController.defer(request, jobRunnerKey)) {
+                throttled = true;
+                executionHistory.record(request.getJobId(), jobRunnerKey.toString(),
+                        Thread.currentThread().getThreadGroup().getName(), dueTime, startedAt,
+                        System.currentTimeMillis(), RunOutcome.ABORTED);
+                dueTimeTracker.advance(request.getJobId());
+                return JobRunnerResponse.aborted("Extra scheduler threads throttled under memory pressure, deferred");
+            }
+            return runInstrumented(request, startedAt, Thread.currentThread().getThreadGroup().getName());
+        } finally {
+            metricsService.schedulerJobFinished();
+            if (throttled) {
+                // Idle rather than going back to the queue for another job to defer.
+                admissionController.holdWhileThrottled();
+            }
+        }
+    }
+
+    /**
+     * Hand the job to a worker pool and wait for it to run there, so Caesium records the job's own outcome and does
+     * not see the run as finished while the job is still in progress. A VIRTUAL pool is handed the job and left to it.
+     */
+    private JobRunnerResponse dispatch(final WorkerPool workerPool, final JobRunnerRequest request) {
+        final CompletableFuture<JobRunnerResponse> response = new CompletableFuture<>();
+        final AtomicLong startedAt = new AtomicLong(System.currentTimeMillis());
+        switch (workerPool.dispatch(jobRunnerKey, request.getJobId(), () -> {
+            startedAt.set(System.currentTimeMillis());
+            return runInstrumented(request, startedAt.get(), WorkerPool.THREAD_GROUP_PREFIX + workerPool.getName());
+        }, response)) {
+            case DISPATCHED:
+                if (workerPool.getMode() == WorkerPoolDefinition.Mode.VIRTUAL) {
+                    response.whenComplete((result, failure) -> handedOffRunRecorder.record(request.getJobId(),
+                            startedAt.get(), failure != null ? JobRunnerResponse.failed(failure)
+                                    : result != null ? result : JobRunnerResponse.success()));
+                    return JobRunnerResponse.success("Handed to virtual worker pool " + workerPool.getName());
+                }
+                return await(workerPool, response);
+            case ALREADY_PENDING:
+                final KeyCoalescing coalescing = runCoalescer.getCoalescing(jobRunnerKey);
+                if (coalescing != null) {
+                    coalescing.coalesced();
+                }
+                // As RunCoalescer does, so the pending run is not counted as late against this run's due time.
+                dueTimeTracker.advance(request.getJobId());
+                return JobRunnerResponse.aborted("Already queued or running on worker pool " + workerPool.getName());
+            default:
+                return JobRunnerResponse.aborted("Worker pool " + workerPool.getName() + " is saturated");
+        }
+    }
+
+    private static JobRunnerResponse await(final WorkerPool workerPool,
+                                           final CompletableFuture<JobRunnerResponse> response) {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return JobRunnerResponse.aborted("Interrupted while waiting for worker pool " + workerPool.getName());
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return JobRunnerResponse.failed(cause);
+        }
+    }
+
+    private JobRunnerResponse runInstrumented(final JobRunnerRequest request, final long startedAt,
+                                              final String threadGroup) {
+        final KeyCoalescing coalescing = runCoalescer.getCoalescing(jobRunnerKey);
+        if (coalescing != null && !runCoalescer.begin(request, coalescing)) {
+            return runCoalescer.coalesced(request, coalescing);
+        }
+        try {
+            final KeyLimit limit = concurrencyLimiter.getLimit(jobRunnerKey);
+            if (limit != null && !limit.tryAcquire()) {
+                executionHistory.record(request.getJobId(), jobRunnerKey.toString(), threadGroup,
+                        dueTimeTracker.getDueTime(request.getJobId()), startedAt, System.currentTimeMillis(),
+                        RunOutcome.ABORTED);
+                dueTimeTracker.advance(request.getJobId());
+                return concurrencyLimiter.overLimit(request, jobRunnerKey, limit);
+            }
+            try {
+                return runMeasured(request, startedAt, threadGroup);
+            } finally {
+                if (limit != null) {
+                    limit.release();
+                }
+            }
+        } finally {
+            if (coalescing != null) {
+                coalescing.end(request.getJobId());
+            }
+        }
+    }
+
+    private JobRunnerResponse runMeasured(final JobRunnerRequest request, final long startedAt,
+                                          final String threadGroup) {
+        final long dueTime = dueTimeTracker.getDueTime(request.getJobId());
+        final long cpuNanosAtStart = resourceMeter.cpuNanos();
+        final long allocatedBytesAtStart = resourceMeter.allocatedBytes();
+        final RunningJob runningJob = watchdog.started(jobRunnerKey, request.getJobId(), threadGroup);
+        final long startNanos = System.nanoTime();
+        RunOutcome outcome = RunOutcome.FAILED;
+        try {
+            final JobRunnerResponse response = delegate.runJob(request);
+            outcome = response != null ? response.getRunOutcome() : RunOutcome.SUCCESS;
+            return response;
+        } finally {
+            final long runTimeMicros = (System.nanoTime() - startNanos) / 1000L;
+            // First, so a hung run's interrupt is cleared however the recording below ends.
+            try {
+                if (runningJob != null) {
+                    watchdog.finished(runningJob);
+                }
+            } finally {
+                resourceMeter.record(resourceUsage, cpuNanosAtStart, allocatedBytesAtStart);
+                final long queueWaitMicros = dueTime == JobDueTimeTracker.UNKNOWN ?
+                        JobDueTimeTracker.UNKNOWN : Math.max(0L, startedAt - dueTime) * 1000L;
+                metricsService.record(runnerMetrics, runTimeMicros, queueWaitMicros, outcome);
+                executionHistory.record(request.getJobId(), jobRunnerKey.toString(), threadGroup, dueTime, startedAt,
+                        System.currentTimeMillis(), outcome);
+                dueTimeTracker.advance(request.getJobId());
+                clusteredJobProfiler.finished(request.getJobId());
+            }
+        }
+    }
+
+    public JobRunnerKey getJobRunnerKey() {
+        return jobRunnerKey;
+    }
+
+    public JobRunner getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentedJobRunner{" +
+                "jobRunnerKey=" + jobRunnerKey +
+                ", delegate=" + delegate +
+                '}';
+    }
+}
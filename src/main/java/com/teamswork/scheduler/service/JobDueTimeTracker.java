@@ -0,0 +1,281 @@
+package com.teamswork.scheduler.service;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.config.CronScheduleInfo;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.config.Schedule;
+import com.atlassian.scheduler.status.JobDetails;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.smoothing.CronEvaluator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Keeps track of when each job is next due to run, so the queue wait of a run (actual start minus scheduled time)
+ * can be measured. The job runner API does not hand the scheduled time to the runner, so it is seeded from the
+ * job details when a runner is instrumented and then advanced from the previous due time after each run.
+ * Due times missed while a run overran are collapsed into the latest of them, as the scheduler runs a late job once.
+ * The job's thread only stamps when the run finished; working out the next due time, which can walk a cron
+ * expression, is done by the recorder on the JES-duetimes thread a moment later. Until then the due time is UNKNOWN,
+ * so a job that runs again within that moment is not measured rather than measured against its previous due time.
+ * Jobs first seen when they finish are only noted on the job's thread; their details are read by seedPending.
+ * The number of tracked jobs is capped so generated job ids cannot grow this without bound.
+ */
+@Named
+public class JobDueTimeTracker extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(JobDueTimeTracker.class);
+    static final int MAX_TRACKED_JOBS = 10000;
+    private static final int MAX_MISSED_CRON_TIMES = 1000;
+    public static final long UNKNOWN = -1L;
+    private static final long RECORD_INTERVAL_MILLIS = 200L;
+
+    private final SchedulerService schedulerService;
+    private final ConcurrentHashMap<JobId, DueTime> dueTimes = new ConcurrentHashMap<>();
+    private final Set<JobId> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private ScheduledExecutorService recorder;
+
+    public JobDueTimeTracker(@ComponentImport final SchedulerService schedulerService,
+                             @ComponentImport final EventPublisher eventPublisher) {
+        super(eventPublisher);
+        this.schedulerService = schedulerService;
+    }
+
+    @Override
+    protected synchronized void onAppStart() {
+        recorder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "JES-duetimes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        recorder.scheduleWithFixedDelay(this::recordFinished, RECORD_INTERVAL_MILLIS, RECORD_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected synchronized void onAppShutdown() {
+        if (recorder != null) {
+            recorder.shutdownNow();
+            recorder = null;
+        }
+    }
+
+    /**
+     * Start tracking the due times of all jobs for a job runner.
+     * @param jobRunnerKey the job runner key.
+     */
+    public void seed(final JobRunnerKey jobRunnerKey) {
+        try {
+            for (JobDetails jobDetails : schedulerService.getJobsByJobRunnerKey(jobRunnerKey)) {
+                track(jobDetails);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to read the jobs for runner {}: {}", jobRunnerKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Start tracking the jobs that have run since the last call without being tracked, e.g. jobs scheduled after
+     * their runner was instrumented. Called off the job path, as it reads each job's details.
+     * @return the number of jobs now tracked.
+     */
+    public int seedPending() {
+        final List<JobId> jobIds = new ArrayList<>(pending);
+        pending.removeAll(jobIds);
+        int seeded = 0;
+        for (JobId jobId : jobIds) {
+            try {
+                final JobDetails jobDetails = schedulerService.getJobDetails(jobId);
+                if (jobDetails != null && track(jobDetails)) {
+                    seeded++;
+                }
+            } catch (Exception e) {
+                log.debug("Unable to read the details of job {}: {}", jobId, e.getMessage());
+            }
+        }
+        return seeded;
+    }
+
+    /**
+     * Get the time the job was due to run.
+     * @param jobId the job id.
+     * @return the due time in epoch millis, or UNKNOWN.
+     */
+    public long getDueTime(final JobId jobId) {
+        final DueTime dueTime = dueTimes.get(jobId);
+        return dueTime == null || dueTime.finishedAt != 0L ? UNKNOWN : dueTime.nextRunTime;
+    }
+
+    /**
+     * Note that the job has run, so the recorder moves it on to its next due time. Called on the job's thread after
+     * the job has run; does not allocate for a tracked job and never throws.
+     * @param jobId the job id.
+     */
+    public void advance(final JobId jobId) {
+        final DueTime dueTime = dueTimes.get(jobId);
+        if (dueTime == null) {
+            if (dueTimes.size() + pending.size() < MAX_TRACKED_JOBS) {
+                pending.add(jobId);
+            }
+            return;
+        }
+        dueTime.finishedAt = System.currentTimeMillis();
+        finished.set(true);
+    }
+
+    /**
+     * Move the jobs that have run since the last call on to their next due times. Runs on the recorder.
+     */
+    void recordFinished() {
+        if (!finished.getAndSet(false)) {
+            return;
+        }
+        for (Map.Entry<JobId, DueTime> entry : dueTimes.entrySet()) {
+            final DueTime dueTime = entry.getValue();
+            final long finishedAt = dueTime.finishedAt;
+            if (finishedAt == 0L) {
+                continue;
+            }
+            try {
+                final long next = nextDueTime(dueTime, finishedAt);
+                if (next == UNKNOWN) {
+                    dueTimes.remove(entry.getKey());
+                    continue;
+                }
+                dueTime.nextRunTime = next;
+            } catch (Exception e) {
+                log.debug("Unable to calculate the next run time for job {}: {}", entry.getKey(), e.getMessage());
+                dueTimes.remove(entry.getKey());
+                continue;
+            }
+            // Left set if the job ran again meanwhile, so that run moves it on too.
+            if (!dueTime.clearFinished(finishedAt)) {
+                finished.set(true);
+            }
+        }
+    }
+
+    /**
+     * Stop tracking the jobs for a runner.
+     * @param jobRunnerKey the job runner key.
+     */
+    public void forget(final JobRunnerKey jobRunnerKey) {
+        dueTimes.values().removeIf(dueTime -> dueTime.jobRunnerKey.equals(jobRunnerKey));
+    }
+
+    /**
+     * @param previousDue when the job was last due.
+     * @param intervalMillis the job's interval.
+     * @param now the time the run finished.
+     * @return the time after previousDue the job is next due, or the latest such time no later than now.
+     */
+    public static long nextIntervalDue(final long previousDue, final long intervalMillis, final long now) {
+        long next = previousDue + intervalMillis;
+        if (next < now) {
+            next += (now - next) / intervalMillis * intervalMillis;
+        }
+        return next;
+    }
+
+    /**
+     * @param cron the job's cron expression.
+     * @param previousDue when the job was last due.
+     * @param now the time the run finished.
+     * @return the first time after previousDue the job is due, or the latest such time no later than now;
+     * UNKNOWN if it is never due again.
+     */
+    public static long nextCronDue(final CronEvaluator cron, final long previousDue, final long now) {
+        ZonedDateTime next = cron.next(Instant.ofEpochMilli(previousDue).atZone(ZoneOffset.UTC));
+        if (next == null) {
+            return UNKNOWN;
+        }
+        for (int i = 0; i < MAX_MISSED_CRON_TIMES; i++) {
+            final ZonedDateTime after = cron.next(next);
+            if (after == null || after.toInstant().toEpochMilli() > now) {
+                break;
+            }
+            next = after;
+        }
+        return next.toInstant().toEpochMilli();
+    }
+
+    private long nextDueTime(final DueTime dueTime, final long now) throws Exception {
+        final Schedule schedule = dueTime.schedule;
+        if (schedule.getType() == Schedule.Type.INTERVAL) {
+            final long intervalMillis = schedule.getIntervalScheduleInfo().getIntervalInMillis();
+            return intervalMillis > 0 ? nextIntervalDue(dueTime.nextRunTime, intervalMillis, now) : UNKNOWN;
+        }
+        if (dueTime.cron != null) {
+            return nextCronDue(dueTime.cron, dueTime.nextRunTime, now);
+        }
+        // A cron expression the evaluator does not support: the scheduler can only tell us the next time from now.
+        final Date next = schedulerService.calculateNextRunTime(schedule);
+        return next == null ? UNKNOWN : next.getTime();
+    }
+
+    private boolean track(final JobDetails jobDetails) {
+        final Date nextRunTime = jobDetails.getNextRunTime();
+        final Schedule schedule = jobDetails.getSchedule();
+        if (nextRunTime == null || schedule == null || dueTimes.size() >= MAX_TRACKED_JOBS) {
+            return false;
+        }
+        dueTimes.put(jobDetails.getJobId(), new DueTime(jobDetails.getJobRunnerKey(), schedule, cron(schedule),
+                nextRunTime.getTime()));
+        return true;
+    }
+
+    private static CronEvaluator cron(final Schedule schedule) {
+        if (schedule.getType() != Schedule.Type.CRON_EXPRESSION) {
+            return null;
+        }
+        final CronScheduleInfo info = schedule.getCronScheduleInfo();
+        try {
+            return new CronEvaluator(info.getCronExpression(), info.getTimeZone());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class DueTime {
+        private static final AtomicLongFieldUpdater<DueTime> FINISHED_AT =
+                AtomicLongFieldUpdater.newUpdater(DueTime.class, "finishedAt");
+
+        private final JobRunnerKey jobRunnerKey;
+        private final Schedule schedule;
+        private final CronEvaluator cron;
+        private volatile long nextRunTime;
+        // When a run that the recorder has not yet moved the job on from finished, or 0.
+        private volatile long finishedAt;
+
+        private DueTime(final JobRunnerKey jobRunnerKey, final Schedule schedule, final CronEvaluator cron,
+                        final long nextRunTime) {
+            this.jobRunnerKey = jobRunnerKey;
+            this.schedule = schedule;
+            this.cron = cron;
+            this.nextRunTime = nextRunTime;
+        }
+
+        private boolean clearFinished(final long expected) {
+            return FINISHED_AT.compareAndSet(this, expected, 0L);
+        }
+    }
+}
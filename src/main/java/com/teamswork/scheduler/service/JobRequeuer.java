@@ -0,0 +1,147 @@
+package com.teamswork.scheduler.service;
+
+import com.atlassian.jira.component.ComponentAccessor;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.JobRunner;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.caesium.impl.CaesiumSchedulerService;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.config.RunMode;
+import com.atlassian.scheduler.config.Schedule;
+import com.teamswork.scheduler.runner.DeferredJobRunnerRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.teamswork.scheduler.component.Plugin.PLUGIN_KEY;
+
+/**
+ * Puts a job run back on the scheduler queue instead of running it on the current worker.
+ * The run is scheduled as a run-once, local job under our own runner key. When it fires, the original job's
+ * current runner is called with the original job id and parameters. One deferral is kept per job, and a run is
+ * only deferred MAX_ATTEMPTS times; after that the caller should run it rather than put it off again.
+ * As deferred runs are local to this node, the jobs with one waiting are tracked in memory, so asking is not a
+ * database read. A deferral that has not run within DEFERRED_GRACE_MILLIS of its due time is no longer counted, so
+ * a deferred run lost from the queue cannot hold its job back for good.
+ */
+@Named
+public class JobRequeuer {
+    private static final Logger log = LoggerFactory.getLogger(JobRequeuer.class);
+    public static final JobRunnerKey DEFERRED_JOB_RUNNER_KEY = JobRunnerKey.of(PLUGIN_KEY + ".deferred");
+    static final int MAX_ATTEMPTS = 5;
+    private static final String JOB_ID = "jes.deferred.jobId";
+    private static final String JOB_RUNNER_KEY = "jes.deferred.jobRunnerKey";
+    private static final String RUN_MODE = "jes.deferred.runMode";
+    private static final String ATTEMPT = "jes.deferred.attempt";
+    private static final String PARAMETERS = "jes.deferred.parameters";
+    static final long DEFERRED_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final SchedulerService schedulerService;
+    // Job ids with a deferred run waiting, to the time the run is due.
+    private final ConcurrentHashMap<JobId, Long> deferred = new ConcurrentHashMap<>();
+
+    public JobRequeuer(@ComponentImport final SchedulerService schedulerService) {
+        this.schedulerService = schedulerService;
+    }
+
+    /**
+     * Defer a job run.
+     * @param request the request the job was to run with.
+     * @param jobRunnerKey the key of the job's runner.
+     * @param delayMillis how long to wait before running the job.
+     * @param reason why the run was deferred, for the logs.
+     * @return true if the run was deferred; false if it has been deferred too often, or could not be, and should run now.
+     */
+    public boolean defer(final JobRunnerRequest request, final JobRunnerKey jobRunnerKey, final long delayMillis,
+                         final String reason) {
+        return defer(request, jobRunnerKey, delayMillis, reason, MAX_ATTEMPTS);
+    }
+
+    /**
+     * Defer a job run, allowing it to be deferred up to maxAttempts times.
+     * @return true if the run was deferred; false if it has been deferred maxAttempts times, or could not be.
+     */
+    public boolean defer(final JobRunnerRequest request, final JobRunnerKey jobRunnerKey, final long delayMillis,
+                         final String reason, final int maxAttempts) {
+        final int attempt = request instanceof DeferredJobRunnerRequest ?
+                ((DeferredJobRunnerRequest) request).getAttempt() + 1 : 1;
+        if (attempt > maxAttempts) {
+            log.debug("Job {} has been deferred {} times.", request.getJobId(), maxAttempts);
+            return false;
+        }
+
+        final Map<String, Serializable> parameters = new HashMap<>();
+        parameters.put(JOB_ID, request.getJobId().toString());
+        parameters.put(JOB_RUNNER_KEY, jobRunnerKey.toString());
+        parameters.put(RUN_MODE, request.getJobConfig().getRunMode().name());
+        parameters.put(ATTEMPT, attempt);
+        parameters.put(PARAMETERS, new HashMap<>(request.getJobConfig().getParameters()));
+        final long dueAt = System.currentTimeMillis() + delayMillis;
+        try {
+            schedulerService.scheduleJob(deferredJobId(request.getJobId()),
+                    JobConfig.forJobRunnerKey(DEFERRED_JOB_RUNNER_KEY)
+                            .withRunMode(RunMode.RUN_LOCALLY)
+                            .withSchedule(Schedule.runOnce(new Date(dueAt)))
+                            .withParameters(parameters));
+            deferred.put(request.getJobId(), dueAt);
+        } catch (final Exception e) {
+            log.error("Error deferring job {}, running it now: {}", request.getJobId(), e.getMessage());
+            return false;
+        }
+        log.debug("Deferred job {} by {}ms (attempt {}): {}", request.getJobId(), delayMillis, attempt, reason);
+        return true;
+    }
+
+    /**
+     * @param jobId the job id.
+     * @return true if a deferred run of the job is waiting on the queue.
+     */
+    public boolean isDeferred(final JobId jobId) {
+        final Long dueAt = deferred.get(jobId);
+        if (dueAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - dueAt > DEFERRED_GRACE_MILLIS) {
+            deferred.remove(jobId, dueAt);
+            return false;
+        }
+        return true;
+    }
+
+    private static JobId deferredJobId(final JobId jobId) {
+        return JobId.of(DEFERRED_JOB_RUNNER_KEY + ":" + jobId);
+    }
+
+    /**
+     * The runner for DEFERRED_JOB_RUNNER_KEY. Runs the deferred job with its current runner.
+     * @param request the deferred job's request.
+     * @return the job's response.
+     */
+    @SuppressWarnings("unchecked")
+    public JobRunnerResponse runDeferred(final JobRunnerRequest request) {
+        final Map<String, Serializable> parameters = request.getJobConfig().getParameters();
+        final JobId jobId = JobId.of((String) parameters.get(JOB_ID));
+        deferred.remove(jobId);
+        final JobRunnerKey jobRunnerKey = JobRunnerKey.of((String) parameters.get(JOB_RUNNER_KEY));
+        final JobRunner jobRunner = ComponentAccessor.getComponent(CaesiumSchedulerService.class).getJobRunner(jobRunnerKey);
+        if (jobRunner == null) {
+            return JobRunnerResponse.aborted("No job runner is registered for " + jobRunnerKey);
+        }
+        final JobConfig jobConfig = JobConfig.forJobRunnerKey(jobRunnerKey)
+                .withRunMode(RunMode.valueOf((String) parameters.get(RUN_MODE)))
+                .withParameters((Map<String, Serializable>) parameters.get(PARAMETERS));
+        return jobRunner.runJob(new DeferredJobRunnerRequest(request, jobId, jobConfig,
+                (Integer) parameters.get(ATTEMPT)));
+    }
+}
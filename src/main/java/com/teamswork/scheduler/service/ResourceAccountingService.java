@@ -0,0 +1,158 @@
+package com.teamswork.scheduler.service;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.metrics.ResourceMeter;
+import com.teamswork.scheduler.metrics.ResourceUsage;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.ResourceAccountingReport;
+import com.teamswork.scheduler.model.ResourceAccountingSettings;
+import com.teamswork.scheduler.model.ResourceUsageSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_ACCOUNTING_KEY;
+
+/**
+ * Puts the CPU time and heap allocation of each job run down to its JobRunnerKey. Accounting is on by default and
+ * can be switched off (the kill switch) without a restart; the setting is stored in ApplicationProperties under
+ * SCHEDULER_ACCOUNTING_KEY. While it is off, job runs do not touch the ThreadMXBean at all.
+ */
+@Named
+public class ResourceAccountingService extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(ResourceAccountingService.class);
+    public static final int MAX_TOP = 100;
+
+    public enum SortBy {
+        CPU,
+        ALLOCATED
+    }
+
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+    private final ResourceMeter meter = new ResourceMeter();
+    private final ConcurrentHashMap<JobRunnerKey, ResourceUsage> usage = new ConcurrentHashMap<>();
+
+    public ResourceAccountingService(@ComponentImport final EventPublisher eventPublisher,
+                                     @ComponentImport final ApplicationProperties applicationProperties,
+                                     @ComponentImport final I18nHelper i18nHelper) {
+        super(eventPublisher);
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+    }
+
+    @Override
+    protected void onAppStart() {
+        try {
+            meter.setEnabled(getSettings().isEnabled());
+        } catch (final Exception e) {
+            log.error("Error starting the resource accounting. ", e);
+        }
+    }
+
+    @Override
+    protected void onAppShutdown() {
+        meter.setEnabled(false);
+    }
+
+    public ResourceMeter getMeter() {
+        return meter;
+    }
+
+    /**
+     * Get, or create, the totals for a job runner. Call this when wrapping the runner, not per job run.
+     */
+    public ResourceUsage getUsage(final JobRunnerKey jobRunnerKey) {
+        return usage.computeIfAbsent(jobRunnerKey, key -> new ResourceUsage(key.toString()));
+    }
+
+    public ResourceAccountingSettings getSettings() {
+        final ResourceAccountingSettings settings = new ResourceAccountingSettings();
+        settings.setEnabled(!"false".equals(applicationProperties.getString(SCHEDULER_ACCOUNTING_KEY)));
+        return settings;
+    }
+
+    /**
+     * Store and apply the settings. Totals recorded so far are kept.
+     */
+    public OperationResult configure(final ResourceAccountingSettings settings) {
+        if (settings.isEnabled() && !meter.isCpuTimeSupported() && !meter.isAllocationSupported()) {
+            return new OperationResult(false, i18nHelper.getText("jes.accounting.unsupported"));
+        }
+        applicationProperties.setString(SCHEDULER_ACCOUNTING_KEY, String.valueOf(settings.isEnabled()));
+        meter.setEnabled(settings.isEnabled());
+        log.info("Resource accounting {}.", settings.isEnabled() ? "enabled" : "disabled");
+        return new OperationResult(true, i18nHelper.getText(settings.isEnabled() ?
+                "jes.accounting.enabled" : "jes.accounting.disabled"));
+    }
+
+    /**
+     * @param top how many runners to list.
+     * @param sortBy what to rank the runners by.
+     * @return the totals for every runner, the top runners and the cost of measuring.
+     */
+    public ResourceAccountingReport getReport(final int top, final SortBy sortBy) {
+        final ToLongFunction<ResourceUsage> measure = sortBy == SortBy.ALLOCATED ?
+                ResourceUsage::getAllocatedBytes : ResourceUsage::getCpuNanos;
+        long runs = 0;
+        long cpuNanos = 0;
+        long allocatedBytes = 0;
+        long maxCpuNanos = 0;
+        long maxAllocatedBytes = 0;
+        for (ResourceUsage runner : usage.values()) {
+            runs += runner.getRuns();
+            cpuNanos += runner.getCpuNanos();
+            allocatedBytes += runner.getAllocatedBytes();
+            maxCpuNanos = Math.max(maxCpuNanos, runner.getMaxCpuNanos());
+            maxAllocatedBytes = Math.max(maxAllocatedBytes, runner.getMaxAllocatedBytes());
+        }
+        final ResourceUsageSummary total = summary(SchedulerMetricsService.POOL_NAME, runs, cpuNanos, maxCpuNanos,
+                allocatedBytes, maxAllocatedBytes);
+
+        final ResourceAccountingReport report = new ResourceAccountingReport();
+        report.setEnabled(meter.isEnabled());
+        report.setCpuTimeSupported(meter.isCpuTimeSupported());
+        report.setAllocationSupported(meter.isAllocationSupported());
+        report.setMeasuredRuns(meter.getMeasuredRuns());
+        report.setOverheadMicros(meter.getOverheadNanos() / 1000L);
+        report.setMeanOverheadNanos(meter.getMeasuredRuns() == 0 ? 0 : meter.getOverheadNanos() / meter.getMeasuredRuns());
+        report.setTotal(total);
+        report.setTop(usage.values().stream()
+                .filter(runner -> runner.getRuns() > 0)
+                .sorted(Comparator.comparingLong(measure).reversed())
+                .limit(Math.max(1, Math.min(MAX_TOP, top)))
+                .map(ResourceAccountingService::summarise)
+                .collect(Collectors.toList()));
+        return report;
+    }
+
+    private static ResourceUsageSummary summarise(final ResourceUsage usage) {
+        return summary(usage.getName(), usage.getRuns(), usage.getCpuNanos(), usage.getMaxCpuNanos(),
+                usage.getAllocatedBytes(), usage.getMaxAllocatedBytes());
+    }
+
+    private static ResourceUsageSummary summary(final String runnerKey, final long runs, final long cpuNanos,
+                                                final long maxCpuNanos, final long allocatedBytes,
+                                                final long maxAllocatedBytes) {
+        final ResourceUsageSummary summary = new ResourceUsageSummary();
+        summary.setRunnerKey(runnerKey);
+        summary.setRuns(runs);
+        summary.setCpuMillis(cpuNanos / 1000000L);
+        summary.setMeanCpuMicros(runs == 0 ? 0 : cpuNanos / runs / 1000L);
+        summary.setMaxCpuMicros(maxCpuNanos / 1000L);
+        summary.setAllocatedBytes(allocatedBytes);
+        summary.setMeanAllocatedBytes(runs == 0 ? 0 : allocatedBytes / runs);
+        summary.setMaxAllocatedBytes(maxAllocatedBytes);
+        return summary;
+    }
+}
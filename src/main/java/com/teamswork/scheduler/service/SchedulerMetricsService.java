@@ -0,0 +1,216 @@
+package com.teamswork.scheduler.service;
+
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.status.RunOutcome;
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+import com.teamswork.scheduler.metrics.RunnerMetrics;
+import com.teamswork.scheduler.metrics.ThreadGroupStats;
+import com.teamswork.scheduler.model.LatencySummary;
+import com.teamswork.scheduler.model.RunnerMetricsSummary;
+import com.teamswork.scheduler.model.SchedulerMetrics;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the job execution metrics for each instrumented job runner and for the scheduler pool as a whole.
+ * Each Caesium worker gets a slot the first time it picks up a job, holding whether it is busy and its group's
+ * counters, so a worker starting and finishing a job only updates counters and never allocates.
+ */
+@Named
+public class SchedulerMetricsService {
+    public static final String POOL_NAME = "*";
+
+    private final RunnerMetrics poolMetrics = new RunnerMetrics(POOL_NAME);
+    private final ConcurrentHashMap<JobRunnerKey, RunnerMetrics> runnerMetrics = new ConcurrentHashMap<>();
+    private final LatencyHistogram schedulingLag = new LatencyHistogram();
+    private final ConcurrentHashMap<Thread, WorkerSlot> workerSlots = new ConcurrentHashMap<>();
+    private final AtomicInteger schedulerJobsInFlight = new AtomicInteger();
+    private final ConcurrentHashMap<String, ThreadGroupStats> threadGroupStats = new ConcurrentHashMap<>();
+    private volatile long lastLagMicros;
+
+    /**
+     * Get, or create, the metrics for a job runner. Call this when wrapping the runner, not per job run.
+     * @param jobRunnerKey the job runner key.
+     * @return the metrics for the runner.
+     */
+    public RunnerMetrics getRunnerMetrics(final JobRunnerKey jobRunnerKey) {
+        return runnerMetrics.computeIfAbsent(jobRunnerKey, key -> new RunnerMetrics(key.toString()));
+    }
+
+    /**
+     * Record a completed job run against the runner and the pool. Does not allocate.
+     * @param metrics the runner's metrics.
+     * @param runTimeMicros how long the job ran for.
+     * @param queueWaitMicros how late the job started, or a negative value if unknown.
+     * @param outcome the outcome of the run.
+     */
+    public void record(final RunnerMetrics metrics, final long runTimeMicros, final long queueWaitMicros,
+                       final RunOutcome outcome) {
+        metrics.record(runTimeMicros, queueWaitMicros, outcome);
+        poolMetrics.record(runTimeMicros, queueWaitMicros, outcome);
+    }
+
+    /**
+     * Called on the Caesium worker when it picks up a job.
+     * @param lagMicros how late the worker picked the job up, or a negative value if unknown.
+     */
+    public void schedulerJobStarted(final long lagMicros) {
+        final WorkerSlot slot = getWorkerSlot(Thread.currentThread());
+        slot.busy = true;
+        schedulerJobsInFlight.incrementAndGet();
+        slot.stats.jobStarted(lagMicros);
+        if (lagMicros >= 0) {
+            schedulingLag.record(lagMicros);
+            lastLagMicros = lagMicros;
+        }
+    }
+
+    /**
+     * Called on the Caesium worker when it has finished with a job, including handing it to a worker pool.
+     */
+    public void schedulerJobFinished() {
+        final WorkerSlot slot = getWorkerSlot(Thread.currentThread());
+        slot.busy = false;
+        schedulerJobsInFlight.decrementAndGet();
+        slot.stats.jobFinished();
+    }
+
+    /**
+     * @return the number of Caesium workers currently busy with an instrumented job.
+     */
+    public int getSchedulerJobsInFlight() {
+        return schedulerJobsInFlight.get();
+    }
+
+    /**
+     * @param thread a Caesium worker thread.
+     * @return true if the worker is currently busy with an instrumented job.
+     */
+    public boolean isBusy(final Thread thread) {
+        final WorkerSlot slot = workerSlots.get(thread);
+        return slot != null && slot.busy;
+    }
+
+    /**
+     * How late Caesium workers picked up due jobs. Unlike the pool queue wait, this excludes time spent
+     * queued on our own worker pools, so it reflects whether there are enough Caesium workers.
+     * @return the scheduling lag histogram, in microseconds.
+     */
+    public LatencyHistogram getSchedulingLag() {
+        return schedulingLag;
+    }
+
+    /**
+     * @return how late a Caesium worker most recently picked up a due job, in microseconds.
+     */
+    public long getLastLagMicros() {
+        return lastLagMicros;
+    }
+
+    /**
+     * @param threadGroupName a Caesium thread group name, e.g. Caesium-2.
+     * @return the group's counters, or null if it has not run an instrumented job yet.
+     */
+    public ThreadGroupStats getThreadGroupStats(final String threadGroupName) {
+        return threadGroupStats.get(threadGroupName);
+    }
+
+    /**
+     * @return the counters of every Caesium thread group that has run an instrumented job.
+     */
+    public Collection<ThreadGroupStats> getAllThreadGroupStats() {
+        return threadGroupStats.values();
+    }
+
+    /**
+     * Drop the counters of a thread group that has been retired. Caesium never reuses a group's name.
+     * @param threadGroupName the thread group name.
+     */
+    public void forgetThreadGroup(final String threadGroupName) {
+        threadGroupStats.remove(threadGroupName);
+        workerSlots.values().removeIf(slot -> slot.stats.getName().equals(threadGroupName));
+    }
+
+    private WorkerSlot getWorkerSlot(final Thread thread) {
+        final WorkerSlot slot = workerSlots.get(thread);
+        return slot != null ? slot : workerSlots.computeIfAbsent(thread, key -> new WorkerSlot(getThreadGroupStats(key)));
+    }
+
+    private ThreadGroupStats getThreadGroupStats(final Thread thread) {
+        final ThreadGroup group = thread.getThreadGroup();
+        final String name = group != null ? group.getName() : "";
+        final ThreadGroupStats stats = threadGroupStats.get(name);
+        return stats != null ? stats : threadGroupStats.computeIfAbsent(name, ThreadGroupStats::new);
+    }
+
+    public RunnerMetrics getPoolMetrics() {
+        return poolMetrics;
+    }
+
+    /**
+     * @return the mean run time in milliseconds of each job runner that has run a job, by runner key.
+     */
+    public Map<String, Long> getMeanRunTimesMillis() {
+        final Map<String, Long> meanRunTimes = new HashMap<>();
+        for (RunnerMetrics metrics : runnerMetrics.values()) {
+            final LatencyHistogram.Snapshot runTime = metrics.getRunTime().snapshot();
+            if (runTime.getTotalCount() > 0) {
+                meanRunTimes.put(metrics.getName(), Math.round(runTime.getMean() / 1000.0));
+            }
+        }
+        return meanRunTimes;
+    }
+
+    /**
+     * Build a report of the current metrics.
+     * @param jobRunnerKey optionally restrict the runners reported to this key.
+     * @return the metrics report.
+     */
+    public SchedulerMetrics getSchedulerMetrics(final String jobRunnerKey) {
+        final List<RunnerMetricsSummary> runners = new ArrayList<>();
+        for (RunnerMetrics metrics : runnerMetrics.values()) {
+            if (jobRunnerKey == null || jobRunnerKey.equals(metrics.getName())) {
+                runners.add(summarise(metrics));
+            }
+        }
+        runners.sort(Comparator.comparing(RunnerMetricsSummary::getRunnerKey));
+
+        final SchedulerMetrics schedulerMetrics = new SchedulerMetrics();
+        schedulerMetrics.setInstrumentedRunners(runnerMetrics.size());
+        schedulerMetrics.setPool(summarise(poolMetrics));
+        schedulerMetrics.setRunners(runners);
+        return schedulerMetrics;
+    }
+
+    private RunnerMetricsSummary summarise(final RunnerMetrics metrics) {
+        final RunnerMetricsSummary summary = new RunnerMetricsSummary();
+        summary.setRunnerKey(metrics.getName());
+        summary.setSucceeded(metrics.getSucceeded());
+        summary.setFailed(metrics.getFailed());
+        summary.setAborted(metrics.getAborted());
+        summary.setUnavailable(metrics.getUnavailable());
+        summary.setRunTime(LatencySummary.fromMicros(metrics.getRunTime().snapshot()));
+        summary.setQueueWait(LatencySummary.fromMicros(metrics.getQueueWait().snapshot()));
+        return summary;
+    }
+
+    /**
+     * A Caesium worker's state, written only by the worker.
+     */
+    private static final class WorkerSlot {
+        private final ThreadGroupStats stats;
+        private volatile boolean busy;
+
+        private WorkerSlot(final ThreadGroupStats stats) {
+            this.stats = stats;
+        }
+    }
+}
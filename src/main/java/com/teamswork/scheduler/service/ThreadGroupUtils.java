@@ -1,6 +1,8 @@
 package com.teamswork.scheduler.service;
 
 import javax.inject.Named;
+import java.util.HashMap;
+import java.util.Map;
 
 @Named
 public class ThreadGroupUtils {
@@ -27,4 +29,25 @@ public class ThreadGroupUtils {
 
         return result; // Return the found thread group, or null if not found
     }
+
+    /**
+     * Count the live threads in each thread group whose name starts with the prefix, in a single pass.
+     *
+     * @param prefix thread group name prefix, e.g. "Caesium-"
+     * @return map of thread group name to live thread count
+     */
+    public Map<String, Integer> getThreadCountsByGroup(String prefix) {
+        ThreadGroup root = Thread.currentThread().getThreadGroup().getParent();
+        Map<String, Integer> counts = new HashMap<>();
+
+        ThreadGroup[] groups = new ThreadGroup[root.activeGroupCount()];
+        root.enumerate(groups, true);
+        for (ThreadGroup group : groups) {
+            if (group != null && group.getName().startsWith(prefix)) {
+                counts.put(group.getName(), group.activeCount());
+            }
+        }
+
+        return counts;
+    }
 }
@@ -0,0 +1,165 @@
+package com.teamswork.scheduler.smoothing;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Works out when a Quartz style cron expression (seconds minutes hours day-of-month month day-of-week [year]) is next
+ * due, so the analyser can list every due time in a window; SchedulerService only gives the next one.
+ * Supports '*', '?', values, names (JAN-DEC, SUN-SAT), ranges, lists and steps. The L, W and # forms are rarely
+ * used by scheduled jobs and are rejected with an IllegalArgumentException.
+ */
+public class CronEvaluator {
+    private static final String[] MONTHS = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAYS = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+    private static final int MAX_YEARS_AHEAD = 5;
+
+    private final String expression;
+    private final ZoneId zone;
+    private final BitSet seconds;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final BitSet years;
+    private final boolean anyDayOfMonth;
+    private final boolean anyDayOfWeek;
+
+    public CronEvaluator(final String expression, final TimeZone timeZone) {
+        this.expression = expression;
+        this.zone = timeZone != null ? timeZone.toZoneId() : ZoneId.systemDefault();
+        final String[] fields = expression.trim().toUpperCase(Locale.ROOT).split("\\s+");
+        if (fields.length < 6 || fields.length > 7) {
+            throw new IllegalArgumentException("Expected 6 or 7 fields: " + expression);
+        }
+        seconds = parse(fields[0], 0, 59, null, false);
+        minutes = parse(fields[1], 0, 59, null, false);
+        hours = parse(fields[2], 0, 23, null, false);
+        daysOfMonth = parse(fields[3], 1, 31, null, true);
+        months = parse(fields[4], 1, 12, MONTHS, false);
+        daysOfWeek = parse(fields[5], 1, 7, DAYS, true);
+        years = fields.length == 7 && !isAny(fields[6]) ? parse(fields[6], 1970, 2199, null, false) : null;
+        anyDayOfMonth = isAny(fields[3]);
+        anyDayOfWeek = isAny(fields[5]);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @param after the time to search from.
+     * @return the first due time strictly after the given time, or null if there is none in the next five years.
+     */
+    public ZonedDateTime next(final ZonedDateTime after) {
+        ZonedDateTime time = after.withZoneSameInstant(zone).truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        final int lastYear = time.getYear() + MAX_YEARS_AHEAD;
+        while (time.getYear() <= lastYear) {
+            if (years != null && !years.get(time.getYear())) {
+                time = time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1).plusYears(1);
+                continue;
+            }
+            if (!months.get(time.getMonthValue())) {
+                time = time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(1);
+                continue;
+            }
+            if (!dayMatches(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+            final int hour = hours.nextSetBit(time.getHour());
+            if (hour < 0) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+                continue;
+            }
+            if (hour != time.getHour()) {
+                time = time.truncatedTo(ChronoUnit.HOURS).withHour(hour);
+                continue;
+            }
+            final int minute = minutes.nextSetBit(time.getMinute());
+            if (minute < 0) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            if (minute != time.getMinute()) {
+                time = time.truncatedTo(ChronoUnit.MINUTES).withMinute(minute);
+                continue;
+            }
+            final int second = seconds.nextSetBit(time.getSecond());
+            if (second < 0) {
+                time = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+                continue;
+            }
+            return time.withSecond(second);
+        }
+        return null;
+    }
+
+    private boolean dayMatches(final ZonedDateTime time) {
+        final boolean dayOfMonth = daysOfMonth.get(time.getDayOfMonth());
+        // Quartz numbers the days of the week from Sunday = 1.
+        final boolean dayOfWeek = daysOfWeek.get(time.getDayOfWeek().getValue() % 7 + 1);
+        if (anyDayOfMonth) {
+            return anyDayOfWeek || dayOfWeek;
+        }
+        return anyDayOfWeek ? dayOfMonth : dayOfMonth || dayOfWeek;
+    }
+
+    private static boolean isAny(final String field) {
+        return "*".equals(field) || "?".equals(field);
+    }
+
+    private static BitSet parse(final String field, final int min, final int max, final String[] names,
+                                final boolean allowQuestionMark) {
+        final BitSet values = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            final int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = Integer.parseInt(part.substring(slash + 1));
+                range = part.substring(0, slash);
+                if (step < 1) {
+                    throw new IllegalArgumentException("Invalid step: " + part);
+                }
+            }
+            final int from;
+            final int to;
+            if ("*".equals(range) || ("?".equals(range) && allowQuestionMark)) {
+                from = min;
+                to = max;
+            } else {
+                final int dash = range.indexOf('-');
+                from = value(dash >= 0 ? range.substring(0, dash) : range, min, names);
+                to = dash >= 0 ? value(range.substring(dash + 1), min, names) : (slash >= 0 ? max : from);
+            }
+            if (from < min || to > max || from > to) {
+                throw new IllegalArgumentException("Value out of range: " + part);
+            }
+            for (int value = from; value <= to; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int value(final String text, final int min, final String[] names) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(text)) {
+                    return min + i;
+                }
+            }
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unsupported cron value: " + text);
+        }
+    }
+}
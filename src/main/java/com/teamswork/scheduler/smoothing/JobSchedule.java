@@ -0,0 +1,232 @@
+package com.teamswork.scheduler.smoothing;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.TimeZone;
+import java.util.function.LongConsumer;
+
+/**
+ * A scheduled job's schedule, as the smoothing analyser needs it: able to list its due times in a window, to be
+ * shifted by an offset, and to be written to and read from ApplicationProperties so it can be put back later.
+ * A schedule is either a cron expression or an interval; jobs with other schedules, or crons the evaluator does
+ * not support, are UNSUPPORTED and are only counted at their next run time.
+ */
+public class JobSchedule {
+    private static final String SEPARATOR = "|";
+    private static final int MAX_DUE_TIMES = 100000;
+
+    public enum Type {
+        CRON,
+        INTERVAL,
+        UNSUPPORTED
+    }
+
+    private final String jobId;
+    private final String jobRunnerKey;
+    private final Type type;
+    private final String cronExpression;
+    private final TimeZone timeZone;
+    private final long intervalMillis;
+    private final long firstRunMillis;
+    private final long nextRunMillis;
+    private final CronEvaluator cron;
+
+    private JobSchedule(final String jobId, final String jobRunnerKey, final Type type, final String cronExpression,
+                        final TimeZone timeZone, final long intervalMillis, final long firstRunMillis,
+                        final long nextRunMillis) {
+        CronEvaluator evaluator = null;
+        Type resolvedType = type;
+        if (type == Type.CRON) {
+            try {
+                evaluator = new CronEvaluator(cronExpression, timeZone);
+            } catch (IllegalArgumentException e) {
+                resolvedType = Type.UNSUPPORTED;
+            }
+        }
+        this.jobId = jobId;
+        this.jobRunnerKey = jobRunnerKey;
+        this.type = resolvedType;
+        this.cronExpression = cronExpression;
+        this.timeZone = timeZone;
+        this.intervalMillis = intervalMillis;
+        this.firstRunMillis = firstRunMillis;
+        this.nextRunMillis = nextRunMillis;
+        this.cron = evaluator;
+    }
+
+    public static JobSchedule cron(final String jobId, final String jobRunnerKey, final String cronExpression,
+                                   final TimeZone timeZone, final long nextRunMillis) {
+        return new JobSchedule(jobId, jobRunnerKey, Type.CRON, cronExpression, timeZone, 0L, 0L, nextRunMillis);
+    }
+
+    /**
+     * @param firstRunMillis when the job first runs, or 0 if it was scheduled to run straight away.
+     */
+    public static JobSchedule interval(final String jobId, final String jobRunnerKey, final long intervalMillis,
+                                       final long firstRunMillis, final long nextRunMillis) {
+        return new JobSchedule(jobId, jobRunnerKey, intervalMillis > 0 ? Type.INTERVAL : Type.UNSUPPORTED, null,
+                null, intervalMillis, firstRunMillis, nextRunMillis);
+    }
+
+    public static JobSchedule unsupported(final String jobId, final String jobRunnerKey, final long nextRunMillis) {
+        return new JobSchedule(jobId, jobRunnerKey, Type.UNSUPPORTED, null, null, 0L, 0L, nextRunMillis);
+    }
+
+    /**
+     * Report every due time in [from, to).
+     */
+    public void dueTimes(final long from, final long to, final LongConsumer consumer) {
+        switch (type) {
+            case CRON:
+                ZonedDateTime time = cron.next(ZonedDateTime.ofInstant(Instant.ofEpochMilli(from - 1000L), timeZone()));
+                for (int count = 0; time != null && count < MAX_DUE_TIMES; count++) {
+                    final long due = time.toInstant().toEpochMilli();
+                    if (due >= to) {
+                        break;
+                    }
+                    if (due >= from) {
+                        consumer.accept(due);
+                    }
+                    time = cron.next(time);
+                }
+                break;
+            case INTERVAL:
+                final long anchor = nextRunMillis > 0 ? nextRunMillis : Math.max(firstRunMillis, from);
+                long due = anchor < from ? anchor + ((from - anchor + intervalMillis - 1) / intervalMillis) * intervalMillis
+                        : anchor - ((anchor - from) / intervalMillis) * intervalMillis;
+                for (int count = 0; due < to && count < MAX_DUE_TIMES; count++, due += intervalMillis) {
+                    consumer.accept(due);
+                }
+                break;
+            default:
+                if (nextRunMillis >= from && nextRunMillis < to) {
+                    consumer.accept(nextRunMillis);
+                }
+        }
+    }
+
+    /**
+     * Shift the schedule by the given number of seconds. A cron is only shifted if its seconds and minutes fields are
+     * single values, and stays within the same hour (wrapping round to its start), so the hours, days and months it
+     * runs on are unchanged. An interval keeps its interval and has its phase set by the offset instead, so that
+     * jobs started together on the same interval no longer run together.
+     * @param offsetSeconds the offset.
+     * @param now the earliest time a shifted interval may first run.
+     * @return the shifted schedule, or null if it cannot be shifted.
+     */
+    public JobSchedule shift(final int offsetSeconds, final long now) {
+        if (type == Type.INTERVAL) {
+            final long phase = (offsetSeconds * 1000L) % intervalMillis;
+            final long base = Math.max(now, firstRunMillis);
+            return interval(jobId, jobRunnerKey, intervalMillis, base + Math.floorMod(phase - base, intervalMillis), 0L);
+        }
+        if (type != Type.CRON) {
+            return null;
+        }
+        final String[] fields = cronExpression.trim().split("\\s+");
+        if (!fields[0].matches("\\d{1,2}") || !fields[1].matches("\\d{1,2}")) {
+            return null;
+        }
+        final int secondOfHour = (Integer.parseInt(fields[1]) * 60 + Integer.parseInt(fields[0]) + offsetSeconds) % 3600;
+        fields[0] = String.valueOf(secondOfHour % 60);
+        fields[1] = String.valueOf(secondOfHour / 60);
+        return cron(jobId, jobRunnerKey, String.join(" ", fields), timeZone, 0L);
+    }
+
+    /**
+     * @return true if the other schedule runs the job at the same times as this one.
+     */
+    public boolean sameTiming(final JobSchedule other) {
+        if (type != other.type) {
+            return false;
+        }
+        switch (type) {
+            case CRON:
+                return cronExpression.trim().equals(other.cronExpression.trim())
+                        && (timeZone == null ? other.timeZone == null : other.timeZone != null
+                        && timeZone.getID().equals(other.timeZone.getID()));
+            case INTERVAL:
+                return intervalMillis == other.intervalMillis
+                        && Math.floorMod(firstRunMillis, intervalMillis) == Math.floorMod(other.firstRunMillis, intervalMillis);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return the schedule in the form stored in ApplicationProperties, or null if it is UNSUPPORTED.
+     */
+    public String encode() {
+        switch (type) {
+            case CRON:
+                return Type.CRON + SEPARATOR + cronExpression + SEPARATOR + (timeZone != null ? timeZone.getID() : "");
+            case INTERVAL:
+                return Type.INTERVAL + SEPARATOR + intervalMillis + SEPARATOR + firstRunMillis;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the schedule read from its stored form, or null if it cannot be read.
+     */
+    public static JobSchedule decode(final String jobId, final String jobRunnerKey, final String text) {
+        final String[] fields = text.split("\\" + SEPARATOR, -1);
+        try {
+            if (fields.length == 3 && Type.CRON.name().equals(fields[0])) {
+                return cron(jobId, jobRunnerKey, fields[1], fields[2].isEmpty() ? null : TimeZone.getTimeZone(fields[2]), 0L);
+            }
+            if (fields.length == 3 && Type.INTERVAL.name().equals(fields[0])) {
+                return interval(jobId, jobRunnerKey, Long.parseLong(fields[1]), Long.parseLong(fields[2]), 0L);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return null;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getJobRunnerKey() {
+        return jobRunnerKey;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getCronExpression() {
+        return cronExpression;
+    }
+
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public long getFirstRunMillis() {
+        return firstRunMillis;
+    }
+
+    private ZoneId timeZone() {
+        return timeZone != null ? timeZone.toZoneId() : ZoneId.systemDefault();
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case CRON:
+                return cronExpression + (timeZone != null ? " (" + timeZone.getID() + ")" : "");
+            case INTERVAL:
+                return "every " + intervalMillis + "ms from " + Instant.ofEpochMilli(firstRunMillis);
+            default:
+                return "unsupported";
+        }
+    }
+}
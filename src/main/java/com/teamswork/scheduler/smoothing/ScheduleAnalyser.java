@@ -0,0 +1,108 @@
+package com.teamswork.scheduler.smoothing;
+
+import com.teamswork.scheduler.model.DueHerd;
+import com.teamswork.scheduler.model.SmoothingReport;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the jobs due in each minute of a window, with the schedules the jobs' owners gave them and with the
+ * flexible jobs moved, and picks out the minutes where many jobs are due at once.
+ */
+public class ScheduleAnalyser {
+    private static final long MINUTE_MILLIS = 60 * 1000L;
+    static final int MAX_HERDS = 10;
+    static final int MAX_HERD_JOB_IDS = 20;
+
+    /**
+     * How far to move a job. Depends only on the job id, so the same job always gets the same offset, on every node
+     * and every time the analyser runs.
+     * @param jobId the job id.
+     * @param jitterSeconds the most a job may be moved by.
+     * @return an offset in [0, jitterSeconds).
+     */
+    public static int offsetSeconds(final String jobId, final int jitterSeconds) {
+        long hash = jobId.hashCode() * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 29;
+        return (int) Math.floorMod(hash, (long) jitterSeconds);
+    }
+
+    /**
+     * Work out the schedule a job's owner gave it. The stored original only holds while the job is still on it or on
+     * its moved form; if the owner has rescheduled the job since, the current schedule is the owner's.
+     * @param current the schedule the job is on now.
+     * @param stored the original stored when the job was moved, or null.
+     * @param offsetSeconds the job's offset.
+     * @param now the current time.
+     * @return the owner's schedule.
+     */
+    public static JobSchedule ownersSchedule(final JobSchedule current, final JobSchedule stored,
+                                             final int offsetSeconds, final long now) {
+        if (stored == null || stored.sameTiming(current)) {
+            return stored != null ? stored : current;
+        }
+        final JobSchedule shifted = stored.shift(offsetSeconds, now);
+        return shifted != null && shifted.sameTiming(current) ? stored : current;
+    }
+
+    /**
+     * @param schedules the schedules the jobs' owners gave them.
+     * @param shifted the moved schedules of the flexible jobs, by job id.
+     * @param from the start of the window.
+     * @param minutes the length of the window.
+     * @param herdThreshold how many jobs due in one minute count as a herd.
+     * @return the per minute counts and herds. Proposals are left for the caller to fill in.
+     */
+    public static SmoothingReport analyse(final List<JobSchedule> schedules, final Map<String, JobSchedule> shifted,
+                                          final long from, final int minutes, final int herdThreshold) {
+        final long windowStart = from - from % MINUTE_MILLIS;
+        final long windowEnd = windowStart + minutes * MINUTE_MILLIS;
+        final int[] before = new int[minutes];
+        final int[] after = new int[minutes];
+        final SmoothingReport report = new SmoothingReport();
+        for (JobSchedule schedule : schedules) {
+            schedule.dueTimes(windowStart, windowEnd, due -> before[(int) ((due - windowStart) / MINUTE_MILLIS)]++);
+            shifted.getOrDefault(schedule.getJobId(), schedule).dueTimes(windowStart, windowEnd,
+                    due -> after[(int) ((due - windowStart) / MINUTE_MILLIS)]++);
+            if (schedule.getType() == JobSchedule.Type.UNSUPPORTED) {
+                report.getUnsupportedJobs().add(schedule.getJobId());
+            }
+        }
+
+        final List<DueHerd> herds = new ArrayList<>();
+        for (int minute = 0; minute < minutes; minute++) {
+            report.getDueBefore().add(before[minute]);
+            report.getDueAfter().add(after[minute]);
+            report.setPeakBefore(Math.max(report.getPeakBefore(), before[minute]));
+            report.setPeakAfter(Math.max(report.getPeakAfter(), after[minute]));
+            if (before[minute] >= herdThreshold) {
+                final DueHerd herd = new DueHerd();
+                herd.setMinute(windowStart + minute * MINUTE_MILLIS);
+                herd.setJobsDue(before[minute]);
+                herd.setJobsDueAfterSmoothing(after[minute]);
+                herds.add(herd);
+            }
+        }
+        herds.sort(Comparator.comparingInt(DueHerd::getJobsDue).reversed().thenComparingLong(DueHerd::getMinute));
+        final List<DueHerd> busiest = new ArrayList<>(herds.subList(0, Math.min(MAX_HERDS, herds.size())));
+        for (JobSchedule schedule : schedules) {
+            for (DueHerd herd : busiest) {
+                final List<String> jobIds = herd.getJobIds();
+                schedule.dueTimes(herd.getMinute(), herd.getMinute() + MINUTE_MILLIS, due -> {
+                    if (jobIds.size() < MAX_HERD_JOB_IDS && !jobIds.contains(schedule.getJobId())) {
+                        jobIds.add(schedule.getJobId());
+                    }
+                });
+            }
+        }
+
+        report.setWindowStart(windowStart);
+        report.setWindowMinutes(minutes);
+        report.setJobsAnalysed(schedules.size());
+        report.setHerds(busiest);
+        return report;
+    }
+}
@@ -0,0 +1,247 @@
+package com.teamswork.scheduler.smoothing;
+
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.SchedulerServiceException;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.Schedule;
+import com.atlassian.scheduler.status.JobDetails;
+import com.teamswork.scheduler.model.JitterProposal;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.SmoothingReport;
+import com.teamswork.scheduler.model.SmoothingSettings;
+import com.teamswork.scheduler.utils.KeyPattern;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_SMOOTHING_KEY;
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_SMOOTHING_ORIGINALS_KEY;
+
+/**
+ * Finds minutes where many scheduled jobs are due at once, and spreads out the jobs the admin has marked as flexible
+ * by moving each by its own deterministic offset. Nothing is changed until apply is called. The schedule each job was
+ * given by its owner is kept in ApplicationProperties under SCHEDULER_SMOOTHING_ORIGINALS_KEY, so revert can put it
+ * back and the offset is always worked out from the owner's schedule rather than added again. If the owner reschedules
+ * a moved job, the new schedule replaces the stored one.
+ */
+@Named
+public class ScheduleSmoother {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleSmoother.class);
+    private static final String PATTERN_SEPARATOR = ",";
+    public static final int MAX_WINDOW_HOURS = 168;
+
+    private final SchedulerService schedulerService;
+    private final ScheduledJobs scheduledJobs;
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+
+    public ScheduleSmoother(@ComponentImport final SchedulerService schedulerService,
+                            final ScheduledJobs scheduledJobs,
+                            @ComponentImport final ApplicationProperties applicationProperties,
+                            @ComponentImport final I18nHelper i18nHelper) {
+        this.schedulerService = schedulerService;
+        this.scheduledJobs = scheduledJobs;
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+    }
+
+    public SmoothingSettings getSettings() {
+        final SmoothingSettings settings = new SmoothingSettings();
+        for (Map.Entry<String, String> entry : SettingsText.parse(applicationProperties.getText(SCHEDULER_SMOOTHING_KEY)).entrySet()) {
+            try {
+                switch (entry.getKey()) {
+                    case "flexiblePatterns":
+                        settings.setFlexiblePatterns(Arrays.stream(entry.getValue().split(PATTERN_SEPARATOR))
+                                .map(String::trim).filter(pattern -> !pattern.isEmpty()).collect(Collectors.toList()));
+                        break;
+                    case "jitterMinutes": settings.setJitterMinutes(Integer.parseInt(entry.getValue())); break;
+                    case "herdThreshold": settings.setHerdThreshold(Integer.parseInt(entry.getValue())); break;
+                    default: log.warn("Ignoring unknown smoothing setting: {}", entry.getKey());
+                }
+            } catch (NumberFormatException e) {
+                log.error("Ignoring invalid smoothing setting: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return settings;
+    }
+
+    public OperationResult configure(final SmoothingSettings settings) {
+        if (settings.getJitterMinutes() < 1 || settings.getJitterMinutes() > 59) {
+            return new OperationResult(false, i18nHelper.getText("jes.smoothing.invalid.jitter"));
+        }
+        if (settings.getHerdThreshold() < 2) {
+            return new OperationResult(false, i18nHelper.getText("jes.smoothing.invalid.threshold"));
+        }
+        for (String pattern : settings.getFlexiblePatterns()) {
+            if (pattern == null || pattern.trim().isEmpty() || pattern.contains(PATTERN_SEPARATOR) || pattern.contains("=")) {
+                return new OperationResult(false, i18nHelper.getText("jes.smoothing.invalid.pattern", pattern));
+            }
+        }
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("flexiblePatterns", settings.getFlexiblePatterns().stream().map(String::trim)
+                .collect(Collectors.joining(PATTERN_SEPARATOR)));
+        values.put("jitterMinutes", settings.getJitterMinutes());
+        values.put("herdThreshold", settings.getHerdThreshold());
+        applicationProperties.setText(SCHEDULER_SMOOTHING_KEY, SettingsText.format(values));
+        return new OperationResult(true, i18nHelper.getText("jes.smoothing.configured"));
+    }
+
+    /**
+     * @param hours the length of the window to analyse, starting now.
+     * @return jobs due per minute with the owners' schedules and with the flexible jobs moved, and what would be moved.
+     */
+    public SmoothingReport analyse(final int hours) {
+        final Plan plan = plan();
+        final SmoothingReport report = ScheduleAnalyser.analyse(plan.schedules, plan.shifted,
+                System.currentTimeMillis(), Math.max(1, Math.min(MAX_WINDOW_HOURS, hours)) * 60,
+                plan.settings.getHerdThreshold());
+        report.setProposals(plan.proposals);
+        return report;
+    }
+
+    /**
+     * Reschedule every flexible job that is not already on its jittered schedule.
+     */
+    public synchronized OperationResult apply() {
+        final Plan plan = plan();
+        final Map<String, String> originals = loadOriginals();
+        originals.keySet().removeAll(plan.stale);
+        int applied = 0;
+        int failed = 0;
+        for (JitterProposal proposal : plan.proposals) {
+            final JobSchedule shifted = plan.shifted.get(proposal.getJobId());
+            if (proposal.isApplied() || shifted == null) {
+                continue;
+            }
+            final JobSchedule original = plan.originals.get(proposal.getJobId());
+            if (reschedule(proposal.getJobId(), shifted)) {
+                originals.put(proposal.getJobId(), original.encode());
+                applied++;
+            } else {
+                failed++;
+            }
+        }
+        applicationProperties.setText(SCHEDULER_SMOOTHING_ORIGINALS_KEY, SettingsText.format(originals));
+        return new OperationResult(failed == 0, i18nHelper.getText("jes.smoothing.applied", applied, failed));
+    }
+
+    /**
+     * Put back the owners' schedules of every job moved by apply. Jobs their owners have rescheduled since are left
+     * alone.
+     */
+    public synchronized OperationResult revert() {
+        final Map<String, String> originals = loadOriginals();
+        originals.keySet().removeAll(plan().stale);
+        final Map<String, String> remaining = new LinkedHashMap<>();
+        int reverted = 0;
+        for (Map.Entry<String, String> entry : originals.entrySet()) {
+            final JobDetails details = schedulerService.getJobDetails(JobId.of(entry.getKey()));
+            if (details == null) {
+                continue;
+            }
+            final JobSchedule original = JobSchedule.decode(entry.getKey(), details.getJobRunnerKey().toString(), entry.getValue());
+            if (original != null && reschedule(entry.getKey(), original)) {
+                reverted++;
+            } else {
+                remaining.put(entry.getKey(), entry.getValue());
+            }
+        }
+        applicationProperties.setText(SCHEDULER_SMOOTHING_ORIGINALS_KEY, SettingsText.format(remaining));
+        return new OperationResult(remaining.isEmpty(), i18nHelper.getText("jes.smoothing.reverted", reverted, remaining.size()));
+    }
+
+    private Plan plan() {
+        final SmoothingSettings settings = getSettings();
+        final List<KeyPattern> flexible = settings.getFlexiblePatterns().stream().map(KeyPattern::new).collect(Collectors.toList());
+        final Map<String, String> storedOriginals = loadOriginals();
+        final Plan plan = new Plan(settings);
+        final long now = System.currentTimeMillis();
+        for (JobSchedule current : scheduledJobs.getSchedules()) {
+            final String jobId = current.getJobId();
+            final String stored = storedOriginals.get(jobId);
+            final int offsetSeconds = ScheduleAnalyser.offsetSeconds(jobId, settings.getJitterMinutes() * 60);
+            final JobSchedule decoded = stored != null ? JobSchedule.decode(jobId, current.getJobRunnerKey(), stored) : null;
+            final JobSchedule original = ScheduleAnalyser.ownersSchedule(current, decoded, offsetSeconds, now);
+            if (stored != null && original == current) {
+                // The owner has rescheduled the job since it was moved, so the stored original is out of date.
+                plan.stale.add(jobId);
+            }
+            plan.schedules.add(original);
+            plan.originals.put(jobId, original);
+            if (flexible.stream().noneMatch(pattern -> pattern.matches(jobId) || pattern.matches(current.getJobRunnerKey()))) {
+                continue;
+            }
+            final JobSchedule shifted = original.shift(offsetSeconds, now);
+            final JitterProposal proposal = new JitterProposal();
+            proposal.setJobId(jobId);
+            proposal.setJobRunnerKey(current.getJobRunnerKey());
+            proposal.setSchedule(original.toString());
+            proposal.setOffsetSeconds(offsetSeconds);
+            if (shifted != null) {
+                plan.shifted.put(jobId, shifted);
+                proposal.setJitteredSchedule(shifted.toString());
+                proposal.setApplied(shifted.sameTiming(current));
+            }
+            plan.proposals.add(proposal);
+        }
+        return plan;
+    }
+
+    private boolean reschedule(final String jobId, final JobSchedule schedule) {
+        final JobDetails details = schedulerService.getJobDetails(JobId.of(jobId));
+        if (details == null) {
+            return false;
+        }
+        try {
+            schedulerService.scheduleJob(details.getJobId(), JobConfig.forJobRunnerKey(details.getJobRunnerKey())
+                    .withRunMode(details.getRunMode())
+                    .withSchedule(toSchedule(schedule))
+                    .withParameters(details.getParameters()));
+            log.info("Rescheduled job {}: {}", jobId, schedule);
+            return true;
+        } catch (SchedulerServiceException | RuntimeException e) {
+            log.error("Error rescheduling job {}: {}", jobId, e.getMessage());
+            return false;
+        }
+    }
+
+    private static Schedule toSchedule(final JobSchedule schedule) {
+        return schedule.getType() == JobSchedule.Type.CRON ?
+                Schedule.forCronExpression(schedule.getCronExpression(), schedule.getTimeZone()) :
+                Schedule.forInterval(schedule.getIntervalMillis(),
+                        schedule.getFirstRunMillis() > 0 ? new Date(schedule.getFirstRunMillis()) : null);
+    }
+
+    private Map<String, String> loadOriginals() {
+        return SettingsText.parse(applicationProperties.getText(SCHEDULER_SMOOTHING_ORIGINALS_KEY));
+    }
+
+    private static class Plan {
+        private final SmoothingSettings settings;
+        private final List<JobSchedule> schedules = new ArrayList<>();
+        private final Map<String, JobSchedule> originals = new HashMap<>();
+        private final Map<String, JobSchedule> shifted = new HashMap<>();
+        private final List<JitterProposal> proposals = new ArrayList<>();
+        private final Set<String> stale = new HashSet<>();
+
+        private Plan(final SmoothingSettings settings) {
+            this.settings = settings;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.teamswork.scheduler.smoothing;
+
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.config.CronScheduleInfo;
+import com.atlassian.scheduler.config.IntervalScheduleInfo;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.config.Schedule;
+import com.atlassian.scheduler.status.JobDetails;
+
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.teamswork.scheduler.component.Plugin.PLUGIN_KEY;
+
+/**
+ * Reads the schedule of every job scheduled in SchedulerService, bar our own.
+ */
+@Named
+public class ScheduledJobs {
+    private final SchedulerService schedulerService;
+
+    public ScheduledJobs(@ComponentImport final SchedulerService schedulerService) {
+        this.schedulerService = schedulerService;
+    }
+
+    /**
+     * @return the schedules of every scheduled job, as they are now.
+     */
+    public List<JobSchedule> getSchedules() {
+        final List<JobSchedule> schedules = new ArrayList<>();
+        for (JobRunnerKey jobRunnerKey : schedulerService.getJobRunnerKeysForAllScheduledJobs()) {
+            if (jobRunnerKey.toString().startsWith(PLUGIN_KEY)) {
+                continue;
+            }
+            for (JobDetails details : schedulerService.getJobsByJobRunnerKey(jobRunnerKey)) {
+                schedules.add(toJobSchedule(details));
+            }
+        }
+        return schedules;
+    }
+
+    private static JobSchedule toJobSchedule(final JobDetails details) {
+        final String jobId = details.getJobId().toString();
+        final String jobRunnerKey = details.getJobRunnerKey().toString();
+        final long nextRunMillis = details.getNextRunTime() != null ? details.getNextRunTime().getTime() : 0L;
+        final Schedule schedule = details.getSchedule();
+        if (schedule != null && schedule.getType() == Schedule.Type.CRON_EXPRESSION) {
+            final CronScheduleInfo cron = schedule.getCronScheduleInfo();
+            return JobSchedule.cron(jobId, jobRunnerKey, cron.getCronExpression(), cron.getTimeZone(), nextRunMillis);
+        }
+        if (schedule != null && schedule.getType() == Schedule.Type.INTERVAL) {
+            final IntervalScheduleInfo interval = schedule.getIntervalScheduleInfo();
+            return JobSchedule.interval(jobId, jobRunnerKey, interval.getIntervalInMillis(),
+                    interval.getFirstRunTime() != null ? interval.getFirstRunTime().getTime() : 0L, nextRunMillis);
+        }
+        return JobSchedule.unsupported(jobId, jobRunnerKey, nextRunMillis);
+    }
+}
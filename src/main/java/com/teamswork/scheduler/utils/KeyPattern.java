@@ -0,0 +1,40 @@
+package com.teamswork.scheduler.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * A simple glob pattern for matching JobRunnerKeys and JobIds, e.g. "com.atlassian.jira.*" or "*Index*".
+ * '*' matches any run of characters, everything else is matched literally.
+ */
+public class KeyPattern {
+    private final String pattern;
+    private final Pattern regex;
+
+    public KeyPattern(final String pattern) {
+        this.pattern = pattern.trim();
+        final String[] parts = this.pattern.split("\\*", -1);
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                builder.append(".*");
+            }
+            if (!parts[i].isEmpty()) {
+                builder.append(Pattern.quote(parts[i]));
+            }
+        }
+        this.regex = Pattern.compile(builder.toString());
+    }
+
+    public boolean matches(final String value) {
+        return value != null && regex.matcher(value).matches();
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,95 @@
+package com.teamswork.scheduler.utils;
+
+import com.atlassian.scheduler.config.JobRunnerKey;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The rules of a setting that applies to JobRunnerKeys by pattern, e.g. concurrency limits, and the value each key
+ * resolves to, cached so looking it up on the job path is a map lookup. The first rule whose pattern matches wins.
+ * The rules and the cache are held in one snapshot that is replaced in a single volatile write, so a value resolved
+ * against old rules can only be cached in the old snapshot, and is never returned once new rules are in place.
+ * @param <R> the type of rule.
+ * @param <V> the type of value a key resolves to.
+ */
+public class KeyRules<R, V> {
+    private final Function<R, KeyPattern> patternOf;
+    private final Function<JobRunnerKey, V> resolver;
+    private volatile Snapshot<R, V> snapshot = new Snapshot<>(Collections.emptyList());
+
+    /**
+     * @param patternOf the pattern of a rule.
+     * @param resolver works out a key's value, or null if it has none, typically from find(). Called once per key
+     * for each set of rules.
+     */
+    public KeyRules(final Function<R, KeyPattern> patternOf, final Function<JobRunnerKey, V> resolver) {
+        this.patternOf = patternOf;
+        this.resolver = resolver;
+    }
+
+    /**
+     * @param jobRunnerKey the job runner key.
+     * @return the key's value, or null if it has none.
+     */
+    public V get(final JobRunnerKey jobRunnerKey) {
+        final Snapshot<R, V> current = snapshot;
+        Optional<V> value = current.resolved.get(jobRunnerKey);
+        if (value == null) {
+            value = Optional.ofNullable(resolver.apply(jobRunnerKey));
+            final Optional<V> raced = current.resolved.putIfAbsent(jobRunnerKey, value);
+            if (raced != null) {
+                value = raced;
+            }
+        }
+        return value.orElse(null);
+    }
+
+    /**
+     * @param key a job runner key.
+     * @return the first rule whose pattern matches the key, or null if none does.
+     */
+    public R find(final String key) {
+        for (R rule : snapshot.rules) {
+            if (patternOf.apply(rule).matches(key)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the rules, in the order they are matched.
+     */
+    public List<R> getRules() {
+        return snapshot.rules;
+    }
+
+    /**
+     * Replace the rules. Every key is resolved again when it is next looked up.
+     * @param rules the new rules.
+     */
+    public void update(final List<R> rules) {
+        snapshot = new Snapshot<>(Collections.unmodifiableList(new ArrayList<>(rules)));
+    }
+
+    /**
+     * Drop the cached values, keeping the rules.
+     */
+    public void clear() {
+        snapshot = new Snapshot<>(snapshot.rules);
+    }
+
+    private static final class Snapshot<R, V> {
+        private final List<R> rules;
+        private final ConcurrentHashMap<JobRunnerKey, Optional<V>> resolved = new ConcurrentHashMap<>();
+
+        private Snapshot(final List<R> rules) {
+            this.rules = rules;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.teamswork.scheduler.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes the simple "name=value" per line format we use to keep settings in ApplicationProperties.
+ * Blank lines and lines starting with '#' are ignored. Order is preserved, since it decides which pattern
+ * wins when more than one matches.
+ */
+public class SettingsText {
+    private static final String SEPARATOR = "=";
+    private static final String NEW_LINE = "\n";
+
+    public static Map<String, String> parse(final String text) {
+        final Map<String, String> settings = new LinkedHashMap<>();
+        if (text == null) {
+            return settings;
+        }
+        for (String line : text.split("\\r?\\n")) {
+            final String trimmed = line.trim();
+            final int separator = trimmed.lastIndexOf(SEPARATOR);
+            if (trimmed.isEmpty() || trimmed.startsWith("#") || separator <= 0) {
+                continue;
+            }
+            settings.put(trimmed.substring(0, separator).trim(), trimmed.substring(separator + 1).trim());
+        }
+        return settings;
+    }
+
+    public static String format(final Map<String, ?> settings) {
+        final StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, ?> entry : settings.entrySet()) {
+            builder.append(entry.getKey()).append(SEPARATOR).append(entry.getValue()).append(NEW_LINE);
+        }
+        return builder.toString();
+    }
+}
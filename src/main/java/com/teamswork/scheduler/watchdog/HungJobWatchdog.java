@@ -0,0 +1,223 @@
+package com.teamswork.scheduler.watchdog;
+
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.component.PluginStateListener;
+import com.teamswork.scheduler.model.HangEvent;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.RunBudget;
+import com.teamswork.scheduler.model.WatchdogStatus;
+import com.teamswork.scheduler.utils.KeyPattern;
+import com.teamswork.scheduler.utils.KeyRules;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.teamswork.scheduler.component.SchedulerInitializer.SCHEDULER_WATCHDOG_KEY;
+
+/**
+ * Finds job runs that have gone over their JobRunnerKey's budget, e.g. a job stuck on a socket read holding a
+ * scheduler thread for hours. Every few seconds each run with a budget is checked; one over budget has its thread's
+ * stack captured, is interrupted and its thread is counted as suspect until the run returns. Nothing is stopped:
+ * a job that ignores interrupts keeps its thread, but the lost capacity is visible and the stack shows where it is
+ * stuck. Budgets are stored in ApplicationProperties under SCHEDULER_WATCHDOG_KEY, one pattern=seconds per line;
+ * the first matching pattern wins. Runs of keys without a budget are not tracked.
+ */
+@Named
+public class HungJobWatchdog extends PluginStateListener {
+    private static final Logger log = LoggerFactory.getLogger(HungJobWatchdog.class);
+    private static final long CHECK_INTERVAL_SECONDS = 5L;
+    private static final long MAX_BUDGET_SECONDS = 7 * 24 * 3600L;
+    static final int MAX_EVENTS = 100;
+
+    private final ApplicationProperties applicationProperties;
+    private final I18nHelper i18nHelper;
+    private final KeyRules<Rule, Long> rules = new KeyRules<>(rule -> rule.pattern, this::resolve);
+    private final Set<RunningJob> running = ConcurrentHashMap.newKeySet();
+    private final Deque<HangEvent> events = new ArrayDeque<>();
+    private final AtomicLong hangs = new AtomicLong();
+    private volatile List<RunBudget> budgets = new ArrayList<>();
+    private ScheduledExecutorService executor;
+
+    public HungJobWatchdog(@ComponentImport final EventPublisher eventPublisher,
+                           @ComponentImport final ApplicationProperties applicationProperties,
+                           @ComponentImport final I18nHelper i18nHelper) {
+        super(eventPublisher);
+        this.applicationProperties = applicationProperties;
+        this.i18nHelper = i18nHelper;
+    }
+
+    @Override
+    protected synchronized void onAppStart() {
+        try {
+            apply(load());
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "JES-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::check, CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        } catch (final Exception e) {
+            log.error("Error starting the hung job watchdog. ", e);
+        }
+    }
+
+    @Override
+    protected synchronized void onAppShutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        rules.clear();
+    }
+
+    /**
+     * Start watching a run on the current thread. Call finished() with the result when the run returns.
+     * @return the run, or null if the key has no budget.
+     */
+    public RunningJob started(final JobRunnerKey jobRunnerKey, final JobId jobId, final String threadGroup) {
+        final Long budget = rules.get(jobRunnerKey);
+        if (budget == null) {
+            return null;
+        }
+        final RunningJob job = new RunningJob(jobId.toString(), jobRunnerKey.toString(), threadGroup,
+                Thread.currentThread(), budget);
+        running.add(job);
+        return job;
+    }
+
+    public void finished(final RunningJob job) {
+        running.remove(job);
+        if (job.finished()) {
+            log.info("Hung job on runner {} has returned; its thread is no longer suspect.", job.getJobRunnerKey());
+        }
+    }
+
+    /**
+     * Runs on the watchdog thread.
+     */
+    private void check() {
+        try {
+            final long now = System.nanoTime();
+            for (RunningJob job : running) {
+                if (!job.isHung() && job.isOverBudget(now)) {
+                    final HangEvent event = job.hang();
+                    if (event == null) {
+                        continue;
+                    }
+                    hangs.incrementAndGet();
+                    synchronized (events) {
+                        events.addFirst(event);
+                        while (events.size() > MAX_EVENTS) {
+                            events.removeLast();
+                        }
+                    }
+                    log.warn("Job {} on runner {} has run for {}ms, over its budget of {}s. Interrupted thread {}:\n{}",
+                            event.getJobId(), event.getJobRunnerKey(), event.getRunningMillis(),
+                            event.getBudgetSeconds(), event.getThreadName(), event.getStackTrace());
+                }
+            }
+        } catch (final Exception e) {
+            log.error("Error checking for hung jobs. ", e);
+        }
+    }
+
+    /**
+     * @return the budgets, the runs being watched, the suspect threads and the latest hang events.
+     */
+    public WatchdogStatus getStatus() {
+        final WatchdogStatus status = new WatchdogStatus();
+        status.setBudgets(budgets);
+        status.setWatchedRuns(running.size());
+        status.setSuspectThreads((int) running.stream().filter(RunningJob::isHung).count());
+        status.setHangs(hangs.get());
+        synchronized (events) {
+            status.setEvents(new ArrayList<>(events));
+        }
+        return status;
+    }
+
+    /**
+     * Validate, store and apply new budgets. Runs in progress keep the budget they started with.
+     * @param newBudgets the budgets.
+     * @return the outcome of the operation.
+     */
+    public OperationResult configure(final List<RunBudget> newBudgets) {
+        for (RunBudget budget : newBudgets) {
+            if (budget.getPattern() == null || budget.getPattern().trim().isEmpty() || budget.getPattern().contains("=")) {
+                return new OperationResult(false, i18nHelper.getText("jes.watchdog.invalid.pattern", budget.getPattern()));
+            }
+            if (budget.getBudgetSeconds() < 1 || budget.getBudgetSeconds() > MAX_BUDGET_SECONDS) {
+                return new OperationResult(false, i18nHelper.getText("jes.watchdog.invalid.budget",
+                        budget.getPattern(), MAX_BUDGET_SECONDS));
+            }
+        }
+        final Map<String, Object> values = new LinkedHashMap<>();
+        for (RunBudget budget : newBudgets) {
+            values.put(budget.getPattern().trim(), budget.getBudgetSeconds());
+        }
+        applicationProperties.setText(SCHEDULER_WATCHDOG_KEY, SettingsText.format(values));
+        apply(newBudgets);
+        return new OperationResult(true, i18nHelper.getText("jes.watchdog.configured", newBudgets.size()));
+    }
+
+    private synchronized void apply(final List<RunBudget> newBudgets) {
+        final List<Rule> newRules = new ArrayList<>();
+        final Set<String> patterns = new HashSet<>();
+        for (RunBudget budget : newBudgets) {
+            if (patterns.add(budget.getPattern().trim())) {
+                newRules.add(new Rule(new KeyPattern(budget.getPattern()), budget.getBudgetSeconds()));
+            }
+        }
+        budgets = newBudgets;
+        rules.update(newRules);
+        log.info("Watchdog budgets applied: {} patterns.", newRules.size());
+    }
+
+    private Long resolve(final JobRunnerKey jobRunnerKey) {
+        final Rule rule = rules.find(jobRunnerKey.toString());
+        return rule != null ? rule.budgetSeconds : null;
+    }
+
+    private List<RunBudget> load() {
+        final List<RunBudget> loaded = new ArrayList<>();
+        for (Map.Entry<String, String> entry : SettingsText.parse(applicationProperties.getText(SCHEDULER_WATCHDOG_KEY)).entrySet()) {
+            try {
+                loaded.add(new RunBudget(entry.getKey(),
+                        (int) Math.max(1, Math.min(MAX_BUDGET_SECONDS, Integer.parseInt(entry.getValue())))));
+            } catch (NumberFormatException e) {
+                log.error("Ignoring invalid watchdog budget: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return loaded;
+    }
+
+    private static class Rule {
+        private final KeyPattern pattern;
+        private final long budgetSeconds;
+
+        private Rule(final KeyPattern pattern, final long budgetSeconds) {
+            this.pattern = pattern;
+            this.budgetSeconds = budgetSeconds;
+        }
+    }
+}
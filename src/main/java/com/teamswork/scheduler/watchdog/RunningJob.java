@@ -0,0 +1,119 @@
+package com.teamswork.scheduler.watchdog;
+
+import com.teamswork.scheduler.model.HangEvent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A run of a job with a budget, from the moment its thread starts it until it returns.
+ * The watchdog's hang() and the job thread's finished() race for the run: RUNNING moves to HANGING or to DONE,
+ * and only the winner acts. hang() interrupts the thread only after winning, so a run that has already returned is
+ * never interrupted. A run that returns while hang() is interrupting it waits for the interrupt to land before
+ * clearing it, so the interrupt cannot leak into the next job on the worker.
+ */
+public class RunningJob {
+    static final String SUSPECT = "SUSPECT";
+    static final String RECOVERED = "RECOVERED";
+    private static final int MAX_STACK_FRAMES = 64;
+    private static final int RUNNING = 0;
+    private static final int HANGING = 1;
+    private static final int HUNG = 2;
+    private static final int DONE = 3;
+
+    private final String jobId;
+    private final String jobRunnerKey;
+    private final String threadGroup;
+    private final Thread thread;
+    private final long startedAt;
+    private final long startNanos;
+    private final long budgetSeconds;
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+    private volatile HangEvent hang;
+
+    public RunningJob(final String jobId, final String jobRunnerKey, final String threadGroup, final Thread thread,
+                      final long budgetSeconds) {
+        this.jobId = jobId;
+        this.jobRunnerKey = jobRunnerKey;
+        this.threadGroup = threadGroup;
+        this.thread = thread;
+        this.budgetSeconds = budgetSeconds;
+        this.startedAt = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    public boolean isOverBudget(final long nowNanos) {
+        return nowNanos - startNanos > TimeUnit.SECONDS.toNanos(budgetSeconds);
+    }
+
+    /**
+     * Record the run as hung: capture its thread's stack, then interrupt the thread so a job that honours
+     * interrupts (e.g. one blocked in Thread.sleep, Object.wait or an interruptible channel) gives up.
+     * @return the hang event, or null if the run returned first.
+     */
+    public HangEvent hang() {
+        final HangEvent event = new HangEvent();
+        event.setJobId(jobId);
+        event.setJobRunnerKey(jobRunnerKey);
+        event.setThreadName(thread.getName());
+        event.setThreadGroup(threadGroup);
+        event.setStartedAt(startedAt);
+        event.setDetectedAt(System.currentTimeMillis());
+        event.setBudgetSeconds(budgetSeconds);
+        event.setRunningMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        event.setStackTrace(format(thread.getStackTrace()));
+        event.setState(SUSPECT);
+        if (!state.compareAndSet(RUNNING, HANGING)) {
+            return null;
+        }
+        hang = event;
+        try {
+            thread.interrupt();
+        } finally {
+            state.set(HUNG);
+        }
+        return event;
+    }
+
+    /**
+     * Called on the job's thread when the run returns. If the run was found hung, the event is marked recovered and
+     * the interrupt is cleared so it does not leak into the scheduler worker's next wait on the queue.
+     * @return true if the run had been found hung.
+     */
+    public boolean finished() {
+        if (state.compareAndSet(RUNNING, DONE)) {
+            return false;
+        }
+        while (state.get() == HANGING) {
+            Thread.yield();
+        }
+        if (!state.compareAndSet(HUNG, DONE)) {
+            return false;
+        }
+        Thread.interrupted();
+        final HangEvent event = hang;
+        event.setRecoveredAt(System.currentTimeMillis());
+        event.setRunningMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        event.setState(RECOVERED);
+        return true;
+    }
+
+    public boolean isHung() {
+        return hang != null;
+    }
+
+    public String getJobRunnerKey() {
+        return jobRunnerKey;
+    }
+
+    private static String format(final StackTraceElement[] stack) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < stack.length && i < MAX_STACK_FRAMES; i++) {
+            builder.append("\tat ").append(stack[i]).append('\n');
+        }
+        if (stack.length > MAX_STACK_FRAMES) {
+            builder.append("\t... ").append(stack.length - MAX_STACK_FRAMES).append(" more\n");
+        }
+        return builder.toString();
+    }
+}
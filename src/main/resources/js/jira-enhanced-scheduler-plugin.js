@@ -46,8 +46,44 @@
     });
   }
 
+  // Function to show the job priority mapping and the queue wait for each priority.
+  function populatePriorities(status) {
+    $("#priorityAgingSeconds").text(status.settings.agingSeconds);
+
+    var mapping = $("#priority-mapping tbody").empty();
+    $.each(status.settings.priorities, function(i, priority) {
+      mapping.append($("<tr>")
+        .append($("<td>").text(priority.pattern))
+        .append($("<td>").text(priority.priority)));
+    });
+    $("#priority-mapping").toggle(status.settings.priorities.length > 0);
+    $("#priority-mapping-empty").toggle(status.settings.priorities.length === 0);
+
+    var waits = $("#priority-waits tbody").empty();
+    $.each(status.waits, function(i, wait) {
+      waits.append($("<tr>")
+        .append($("<td>").text(wait.priority))
+        .append($("<td>").text(wait.wait.count))
+        .append($("<td>").text(wait.wait.p50Millis.toFixed(1)))
+        .append($("<td>").text(wait.wait.p95Millis.toFixed(1)))
+        .append($("<td>").text(wait.wait.maxMillis.toFixed(1))));
+    });
+    $("#priority-waits").toggle(status.waits.length > 0);
+    $("#priority-waits-empty").toggle(status.waits.length === 0);
+  }
+
+  function fetchPriorities() {
+    $.ajax({
+      url: url + "/priorities",
+      dataType: "json"
+    }).done(function(status) {
+      populatePriorities(status);
+    });
+  }
+
   $(function() {
     fetchAndPopulateForm();
+    fetchPriorities();
 
     // Function to reconfigure the scheduler.
     function reconfigureScheduler() {
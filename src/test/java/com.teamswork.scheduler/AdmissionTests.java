@@ -0,0 +1,62 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.capacity.MemoryPressure;
+import com.teamswork.scheduler.model.AdmissionSettings;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdmissionTests {
+    private static final long HEAP = 1000L;
+
+    private static AdmissionSettings settings() {
+        final AdmissionSettings settings = new AdmissionSettings();
+        settings.setEnabled(true);
+        settings.setHeapThresholdPercent(85);
+        settings.setHeapResumePercent(75);
+        settings.setGcTimeThresholdPercent(20);
+        settings.setGcTimeResumePercent(10);
+        settings.setWindowSeconds(10);
+        return settings;
+    }
+
+    @Test
+    public void willThrottleOnHeapAfterGcWithHysteresis() {
+        final MemoryPressure pressure = new MemoryPressure();
+        assertFalse(pressure.sample(0L, 0L, 500L, HEAP, settings()));
+        assertTrue(pressure.sample(1000L, 0L, 900L, HEAP, settings()));
+        assertTrue(pressure.isThrottled());
+        // Below the threshold but not the resume level: still throttled.
+        assertFalse(pressure.sample(2000L, 0L, 800L, HEAP, settings()));
+        assertTrue(pressure.sample(5000L, 0L, 700L, HEAP, settings()));
+        assertFalse(pressure.isThrottled());
+        assertEquals(1L, pressure.getThrottleEvents());
+        assertEquals(4000L, pressure.getThrottledMillis(9000L));
+    }
+
+    @Test
+    public void willThrottleOnGcTimeOverTheWindow() {
+        final MemoryPressure pressure = new MemoryPressure();
+        pressure.sample(0L, 0L, 100L, HEAP, settings());
+        // 3 seconds of GC in 10 seconds is 30%.
+        assertTrue(pressure.sample(10000L, 3000L, 100L, HEAP, settings()));
+        assertEquals(30.0, pressure.getGcTimePercent(), 0.001);
+        // No more GC: after the window has moved on, GC time drops to 0 and the throttle lifts.
+        pressure.sample(15000L, 3000L, 100L, HEAP, settings());
+        assertTrue(pressure.isThrottled());
+        pressure.sample(21000L, 3000L, 100L, HEAP, settings());
+        assertFalse(pressure.isThrottled());
+    }
+
+    @Test
+    public void willNotThrottleWhenDisabled() {
+        final AdmissionSettings settings = settings();
+        settings.setEnabled(false);
+        final MemoryPressure pressure = new MemoryPressure();
+        assertFalse(pressure.sample(0L, 0L, 990L, HEAP, settings));
+        assertFalse(pressure.isThrottled());
+        assertEquals(99, pressure.getHeapAfterGcPercent());
+    }
+}
@@ -0,0 +1,68 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.capacity.AutoscalerPolicy;
+import com.teamswork.scheduler.model.AutoscalerSettings;
+import org.junit.Test;
+
+import static com.teamswork.scheduler.capacity.AutoscalerPolicy.Action.NONE;
+import static com.teamswork.scheduler.capacity.AutoscalerPolicy.Action.SCALE_DOWN;
+import static com.teamswork.scheduler.capacity.AutoscalerPolicy.Action.SCALE_UP;
+import static org.junit.Assert.assertEquals;
+
+public class AutoscalerTests {
+
+    private static AutoscalerSettings settings() {
+        final AutoscalerSettings settings = new AutoscalerSettings();
+        settings.setEnabled(true);
+        settings.setMinExtraThreads(0);
+        settings.setMaxExtraThreads(8);
+        settings.setStepThreads(4);
+        settings.setLagThresholdMillis(1000);
+        settings.setLowUtilisationPercent(25);
+        settings.setScaleUpSamples(3);
+        settings.setScaleDownSamples(2);
+        settings.setCooldownSeconds(60);
+        return settings;
+    }
+
+    @Test
+    public void willScaleUpOnlyOnSustainedLag() {
+        final AutoscalerPolicy policy = new AutoscalerPolicy(settings());
+        assertEquals(NONE, policy.evaluate(5000, 100, 0, 0));
+        assertEquals(NONE, policy.evaluate(5000, 100, 0, 1000));
+        assertEquals(NONE, policy.evaluate(500, 100, 0, 2000));
+        assertEquals(NONE, policy.evaluate(5000, 100, 0, 3000));
+        assertEquals(NONE, policy.evaluate(5000, 100, 0, 4000));
+        assertEquals(SCALE_UP, policy.evaluate(5000, 100, 0, 5000));
+    }
+
+    @Test
+    public void willWaitForCooldown() {
+        final AutoscalerPolicy policy = new AutoscalerPolicy(settings());
+        policy.scaled(0);
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(NONE, policy.evaluate(5000, 100, 4, i * 1000));
+        }
+        assertEquals(SCALE_UP, policy.evaluate(5000, 100, 4, 60000));
+        policy.scaled(60000);
+        assertEquals(NONE, policy.evaluate(10, 0, 8, 61000));
+        assertEquals(NONE, policy.evaluate(10, 0, 8, 62000));
+        assertEquals(SCALE_DOWN, policy.evaluate(10, 0, 8, 120000));
+    }
+
+    @Test
+    public void willStayWithinBounds() {
+        final AutoscalerSettings settings = settings();
+        settings.setMinExtraThreads(2);
+        final AutoscalerPolicy policy = new AutoscalerPolicy(settings);
+        assertEquals(SCALE_UP, policy.evaluate(0, 50, 0, 0));
+        assertEquals(NONE, policy.evaluate(5000, 100, 8, 0));
+        assertEquals(NONE, policy.evaluate(5000, 100, 8, 1000));
+        assertEquals(NONE, policy.evaluate(5000, 100, 8, 2000));
+        assertEquals(SCALE_DOWN, policy.evaluate(0, 50, 10, 3000));
+
+        assertEquals(4, policy.threadsToAdd(0));
+        assertEquals(2, policy.threadsToAdd(6));
+        assertEquals(1, policy.threadsToAdd(8));
+    }
+}
@@ -0,0 +1,170 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.jira.cluster.ClusterNodeProperties;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.teamswork.scheduler.capacity.CapacityPlan;
+import com.teamswork.scheduler.capacity.CapacityScheduler;
+import com.teamswork.scheduler.capacity.ScalingOwner;
+import com.teamswork.scheduler.capacity.SchedulerAutoscaler;
+import com.teamswork.scheduler.component.EnhancedJiraCaesiumSchedulerConfiguration;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.AutoscalerSettings;
+import com.teamswork.scheduler.model.CapacitySchedule;
+import com.teamswork.scheduler.model.CapacityWindow;
+import com.teamswork.scheduler.model.OperationResult;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CapacityTests {
+    private static final ZoneId ZONE = ZoneId.of("Europe/London");
+
+    private static CapacityWindow window(final String start, final String end, final int extraThreads) {
+        final CapacityWindow window = new CapacityWindow();
+        window.setStart(start);
+        window.setEnd(end);
+        window.setExtraThreads(extraThreads);
+        return window;
+    }
+
+    private static CapacitySchedule nightlyBatch() {
+        final CapacitySchedule schedule = new CapacitySchedule();
+        schedule.setEnabled(true);
+        schedule.setDefaultExtraThreads(2);
+        schedule.setPrewarmMinutes(5);
+        schedule.getWindows().add(window("00:00", "05:00", 12));
+        return schedule;
+    }
+
+    private static ZonedDateTime at(final int day, final int hour, final int minute) {
+        return ZonedDateTime.of(2026, 3, day, hour, minute, 0, 0, ZONE);
+    }
+
+    @Test
+    public void willPrewarmBeforeAWindowAndRetireAfterIt() {
+        final CapacityPlan plan = new CapacityPlan(nightlyBatch());
+        assertEquals(2, plan.targetAt(at(10, 23, 54)));
+        assertEquals(12, plan.targetAt(at(10, 23, 55)));
+        assertEquals(2, plan.inEffectAt(at(10, 23, 55)));
+        assertEquals(12, plan.targetAt(at(11, 4, 59)));
+        assertEquals(2, plan.targetAt(at(11, 5, 0)));
+    }
+
+    @Test
+    public void willRunAWindowOverMidnightAndTakeTheLargestOfOverlappingWindows() {
+        final CapacitySchedule schedule = nightlyBatch();
+        schedule.setPrewarmMinutes(0);
+        schedule.getWindows().add(window("22:00", "01:00", 6));
+        schedule.getWindows().add(window("04:00", "06:00", 20));
+        final CapacityPlan plan = new CapacityPlan(schedule);
+        assertEquals(6, plan.targetAt(at(10, 23, 0)));
+        assertEquals(12, plan.targetAt(at(11, 0, 30)));
+        assertEquals(20, plan.targetAt(at(11, 4, 30)));
+        assertEquals(20, plan.targetAt(at(11, 5, 30)));
+        assertEquals(2, plan.targetAt(at(11, 6, 0)));
+    }
+
+    @Test
+    public void willListTheUpcomingTransitions() {
+        final List<CapacityPlan.Transition> upcoming = new CapacityPlan(nightlyBatch()).upcoming(at(10, 12, 0), 24);
+        assertEquals(2, upcoming.size());
+        assertEquals(at(10, 23, 55), upcoming.get(0).getAt());
+        assertEquals(12, upcoming.get(0).getExtraThreads());
+        assertEquals(at(11, 5, 0), upcoming.get(1).getAt());
+        assertEquals(2, upcoming.get(1).getExtraThreads());
+    }
+
+    @Test
+    public void willFollowWallClockTimeOverADaylightSavingChange() {
+        // The clocks go forward at 01:00 on 29 March 2026 in London; the window still ends at 05:00 local time.
+        final List<CapacityPlan.Transition> upcoming = new CapacityPlan(nightlyBatch()).upcoming(at(28, 12, 0), 24);
+        assertEquals(at(29, 5, 0), upcoming.get(1).getAt());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void willRejectAnInvalidTime() {
+        CapacityPlan.minuteOfDay("25:00");
+    }
+
+    @Test
+    public void willStopAddingThreadGroupsThatDoNotShowUp() throws InterruptedException {
+        final AtomicInteger added = new AtomicInteger();
+        // Groups that start but never appear in the count, e.g. because the scheduler was reset underneath us.
+        final SchedulerConfigurator schedulerConfigurator = new SchedulerConfigurator(null, null, null, null, null,
+                null, null, null) {
+            @Override
+            public OperationResult addExtraThreads(final int threads) {
+                added.incrementAndGet();
+                return new OperationResult(true, "added");
+            }
+
+            @Override
+            public int getExtraThreadCount() {
+                return 0;
+            }
+        };
+        final Map<String, String> stored = new HashMap<>();
+        final ApplicationProperties applicationProperties = Stubs.stored(ApplicationProperties.class, stored);
+        final CapacityScheduler capacityScheduler = new CapacityScheduler(schedulerConfigurator,
+                new EnhancedJiraCaesiumSchedulerConfiguration(applicationProperties,
+                        Stubs.stored(ClusterNodeProperties.class, stored), null),
+                new ScalingOwner(), null, applicationProperties, Stubs.stored(I18nHelper.class, stored));
+        final CapacitySchedule schedule = new CapacitySchedule();
+        schedule.setEnabled(true);
+        schedule.setDefaultExtraThreads(20);
+        assertTrue(capacityScheduler.configure(schedule).isSuccess());
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (capacityScheduler.getStatus().getChanges().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        schedule.setEnabled(false);
+        capacityScheduler.configure(schedule);
+
+        // 20 threads is two groups of at most 16.
+        assertEquals(2, added.get());
+        assertEquals(0, capacityScheduler.getStatus().getChanges().get(0).getExtraThreadsAfter());
+    }
+
+    @Test
+    public void willNotEnableTheCapacityScheduleAndTheAutoscalerTogether() {
+        final SchedulerConfigurator schedulerConfigurator = new SchedulerConfigurator(null, null, null, null, null,
+                null, null, null);
+        final Map<String, String> stored = new HashMap<>();
+        final ApplicationProperties applicationProperties = Stubs.stored(ApplicationProperties.class, stored);
+        final I18nHelper i18nHelper = Stubs.stored(I18nHelper.class, stored);
+        final ScalingOwner scalingOwner = new ScalingOwner();
+        final CapacityScheduler capacityScheduler = new CapacityScheduler(schedulerConfigurator, null, scalingOwner,
+                null, applicationProperties, i18nHelper);
+        final SchedulerAutoscaler autoscaler = new SchedulerAutoscaler(schedulerConfigurator, null, scalingOwner,
+                null, applicationProperties, i18nHelper);
+        final CapacitySchedule schedule = new CapacitySchedule();
+        schedule.setEnabled(true);
+        final AutoscalerSettings settings = new AutoscalerSettings();
+        settings.setEnabled(true);
+
+        assertTrue(capacityScheduler.configure(schedule).isSuccess());
+        final OperationResult refused = autoscaler.configure(settings);
+        assertFalse(refused.isSuccess());
+        assertEquals("jes.autoscaler.capacity.enabled", refused.getMessage());
+        assertEquals(ScalingOwner.Scaler.CAPACITY_SCHEDULE, scalingOwner.getOwner());
+
+        schedule.setEnabled(false);
+        assertTrue(capacityScheduler.configure(schedule).isSuccess());
+        assertTrue(autoscaler.configure(settings).isSuccess());
+        assertEquals("jes.capacity.autoscaler.enabled", capacityScheduler.configure(nightlyBatch()).getMessage());
+        settings.setEnabled(false);
+        assertTrue(autoscaler.configure(settings).isSuccess());
+        assertNull(scalingOwner.getOwner());
+    }
+}
@@ -0,0 +1,125 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.cluster.ClusterCommand;
+import com.teamswork.scheduler.cluster.ClusterCoordinator;
+import com.teamswork.scheduler.model.ClusterConfiguration;
+import com.teamswork.scheduler.model.NodeConfiguration;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterTests {
+    private final List<ClusterCoordinator> coordinators = new ArrayList<>();
+
+    @After
+    public void stopNodes() {
+        for (ClusterCoordinator coordinator : coordinators) {
+            coordinator.stop();
+        }
+    }
+
+    private ClusterCoordinator node(final LocalClusterCommandBus.Network network, final String nodeId,
+                                           final List<String> log) {
+        final ClusterCoordinator coordinator = new ClusterCoordinator(null, new LocalClusterCommandBus(network, nodeId),
+                (command, threads) -> {
+                    synchronized (log) {
+                        log.add(nodeId + ":" + command + ":" + threads);
+                    }
+                    final NodeConfiguration node = new NodeConfiguration();
+                    node.setSuccess(true);
+                    node.setMessage(nodeId + " says | hello " + "x".repeat(300));
+                    node.setSchedulerRunning(command != ClusterCommand.PAUSE);
+                    node.setExtraThreadsRunning(threads);
+                    return node;
+                });
+        coordinator.start();
+        coordinators.add(coordinator);
+        return coordinator;
+    }
+
+    @Test
+    public void willRunOnEveryNode() {
+        final LocalClusterCommandBus.Network network = new LocalClusterCommandBus.Network();
+        final List<String> log = new ArrayList<>();
+        final ClusterCoordinator node1 = node(network, "node1", log);
+        node(network, "node2", log);
+        node(network, "node3", log);
+
+        final ClusterConfiguration result = node1.execute(ClusterCommand.ADD_THREADS, 4, 5000);
+
+        assertTrue(result.isSuccess());
+        assertTrue(result.isComplete());
+        assertEquals("ADD_THREADS", result.getCommand());
+        assertEquals(3, result.getNodes().size());
+        assertEquals("node1", result.getNodes().get(0).getNodeId());
+        for (NodeConfiguration node : result.getNodes()) {
+            assertTrue(node.isResponded());
+            assertTrue(node.isSchedulerRunning());
+            assertEquals(4, node.getExtraThreadsRunning());
+        }
+        // Remote replies are cut down to fit in a cluster message.
+        assertTrue(result.getNodes().get(0).getMessage().startsWith("node1 says | hello"));
+        assertTrue(result.getNodes().get(1).getMessage().startsWith("node2 says / hello"));
+        assertTrue(result.getNodes().get(1).getMessage().length() < 200);
+        assertEquals(3, log.size());
+        assertTrue(log.contains("node3:ADD_THREADS:4"));
+    }
+
+    @Test
+    public void willReportNodesThatDoNotReply() {
+        final LocalClusterCommandBus.Network network = new LocalClusterCommandBus.Network();
+        final List<String> log = new ArrayList<>();
+        final ClusterCoordinator node1 = node(network, "node1", log);
+        node(network, "node2", log);
+        // Live, but not listening.
+        new LocalClusterCommandBus(network, "node3");
+
+        final ClusterConfiguration result = node1.execute(ClusterCommand.PAUSE, 0, 200);
+
+        assertFalse(result.isSuccess());
+        assertEquals(3, result.getNodes().size());
+        assertTrue(result.getNodes().get(1).isResponded());
+        assertFalse(result.getNodes().get(1).isSchedulerRunning());
+        assertEquals("node3", result.getNodes().get(2).getNodeId());
+        assertFalse(result.getNodes().get(2).isResponded());
+    }
+
+    @Test
+    public void willOnlyRunLocallyWhenAlone() {
+        final List<String> log = new ArrayList<>();
+        final ClusterCoordinator node1 = node(new LocalClusterCommandBus.Network(), "node1", log);
+
+        final ClusterConfiguration result = node1.execute(ClusterCommand.STATUS, 0, 5000);
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.getNodes().size());
+        assertEquals(1, log.size());
+    }
+
+    @Test
+    public void willFollowASubmittedRequest() throws InterruptedException {
+        final LocalClusterCommandBus.Network network = new LocalClusterCommandBus.Network();
+        final List<String> log = new ArrayList<>();
+        final ClusterCoordinator node1 = node(network, "node1", log);
+        new LocalClusterCommandBus(network, "node2");
+
+        final ClusterConfiguration submitted = node1.submit(ClusterCommand.START, 0, 200);
+
+        assertFalse(submitted.isComplete());
+        assertFalse(submitted.isSuccess());
+        assertTrue(submitted.getNodes().get(0).isResponded());
+        assertFalse(submitted.getNodes().get(1).isResponded());
+        Thread.sleep(300);
+        final ClusterConfiguration followed = node1.getRequest(submitted.getRequestId());
+        assertTrue(followed.isComplete());
+        assertFalse(followed.isSuccess());
+        assertEquals(2, followed.getNodes().size());
+        assertEquals(null, node1.getRequest("unknown"));
+    }
+}
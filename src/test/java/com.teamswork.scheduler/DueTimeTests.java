@@ -0,0 +1,32 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.service.JobDueTimeTracker;
+import com.teamswork.scheduler.smoothing.CronEvaluator;
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class DueTimeTests {
+    private static final long MINUTE = 60000L;
+
+    @Test
+    public void willAdvanceAnIntervalJobFromItsPreviousDueTime() {
+        // Due at 0, started late and finished at 90s: next due at 60s, not 90s + interval.
+        assertEquals(MINUTE, JobDueTimeTracker.nextIntervalDue(0L, MINUTE, 90000L));
+        assertEquals(MINUTE, JobDueTimeTracker.nextIntervalDue(0L, MINUTE, 1000L));
+    }
+
+    @Test
+    public void willCollapseMissedIntervalDueTimes() {
+        assertEquals(3 * MINUTE, JobDueTimeTracker.nextIntervalDue(0L, MINUTE, 3 * MINUTE + 30000L));
+    }
+
+    @Test
+    public void willAdvanceACronJobFromItsPreviousDueTime() {
+        final CronEvaluator everyFiveMinutes = new CronEvaluator("0 0/5 * * * ?", TimeZone.getTimeZone("UTC"));
+        assertEquals(5 * MINUTE, JobDueTimeTracker.nextCronDue(everyFiveMinutes, 0L, 7 * MINUTE));
+        assertEquals(15 * MINUTE, JobDueTimeTracker.nextCronDue(everyFiveMinutes, 0L, 17 * MINUTE));
+    }
+}
@@ -0,0 +1,89 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.forecast.LoadForecaster;
+import com.teamswork.scheduler.model.ForecastReport;
+import com.teamswork.scheduler.smoothing.JobSchedule;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ForecastTests {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long MIDNIGHT = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"))
+            .toInstant().toEpochMilli();
+
+    @Test
+    public void willForecastConcurrencyPerMinute() {
+        final LoadForecaster forecaster = new LoadForecaster(MIDNIGHT, 120, 0L);
+        for (int i = 0; i < 10; i++) {
+            forecaster.add(JobSchedule.cron("job" + i, "half-past", "0 30 * * * ?", UTC, 0L), 30000L);
+        }
+        forecaster.add(JobSchedule.cron("long", "long", "0 10 * * * ?", UTC, 0L), 150000L);
+
+        final ForecastReport report = forecaster.forecast(4);
+        assertEquals(22, report.getJobRuns());
+        assertEquals(120, report.getDueJobs().size());
+        assertEquals(10, (int) report.getDueJobs().get(30));
+        assertEquals(5.0, report.getConcurrency().get(30), 0.001);
+        assertEquals(0.0, report.getConcurrency().get(31), 0.001);
+        assertEquals(1.0, report.getConcurrency().get(10), 0.001);
+        assertEquals(1.0, report.getConcurrency().get(11), 0.001);
+        assertEquals(0.5, report.getConcurrency().get(12), 0.001);
+        assertEquals(5.0, report.getPeakConcurrency(), 0.001);
+    }
+
+    @Test
+    public void willRecommendEnoughWorkersForTheTarget() {
+        final LoadForecaster forecaster = new LoadForecaster(MIDNIGHT, 60, 0L);
+        final List<JobSchedule> schedules = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            schedules.add(JobSchedule.cron("job" + i, "runner" + i, "0 30 * * * ?", UTC, 0L));
+        }
+        assertEquals(10, forecaster.addAll(schedules, Collections.emptyMap(), 30000L));
+
+        final ForecastReport report = forecaster.forecast(4);
+        assertTrue(report.getCurrentP95LagMillis() > 0);
+        assertTrue(report.isTargetReachable());
+        assertEquals(10, report.getRecommendedWorkers());
+        assertEquals(6, report.getRecommendedExtraThreads());
+        assertEquals(0L, report.getRecommendedP95LagMillis());
+    }
+
+    @Test
+    public void willCountPoolJobsUpToThePoolsThreadsAndQueue() {
+        final LoadForecaster forecaster = new LoadForecaster(MIDNIGHT, 60, 0L);
+        final int pool = forecaster.addPool(1, 1);
+        final List<JobSchedule> schedules = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            schedules.add(JobSchedule.cron("job" + i, "runner" + i, "0 30 * * * ?", UTC, 0L));
+        }
+        forecaster.addAll(schedules, Collections.emptyMap(), 30000L, jobRunnerKey -> pool);
+
+        final ForecastReport report = forecaster.forecast(4);
+        assertEquals(10, (int) report.getDueJobs().get(30));
+        assertEquals(2.0, report.getConcurrency().get(30), 0.001);
+        assertEquals(0L, report.getCurrentP95LagMillis());
+        // Two workers wait on the pool's thread and queue, and a third turns the rest away.
+        assertEquals(3, report.getRecommendedWorkers());
+    }
+
+    @Test
+    public void willReportAnUnreachableTarget() {
+        final LoadForecaster forecaster = new LoadForecaster(MIDNIGHT, 60, 0L);
+        for (int i = 0; i < 2 * LoadForecaster.MAX_WORKERS; i++) {
+            forecaster.add(JobSchedule.cron("job" + i, "runner", "0 30 * * * ?", UTC, 0L), 1000L);
+        }
+        final ForecastReport report = forecaster.forecast(4);
+        assertFalse(report.isTargetReachable());
+        assertEquals(LoadForecaster.MAX_WORKERS, report.getRecommendedWorkers());
+    }
+}
@@ -0,0 +1,61 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.metrics.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTests {
+
+    @Test
+    public void willReportPercentilesWithinBucketPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getTotalCount());
+        assertEquals(1000000L, snapshot.getMax());
+        assertWithin(500000L, snapshot.getValueAtPercentile(50));
+        assertWithin(950000L, snapshot.getValueAtPercentile(95));
+        assertWithin(990000L, snapshot.getValueAtPercentile(99));
+        assertEquals(1000000L, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void willRecordSmallValuesExactly() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(3);
+        histogram.record(7);
+        histogram.record(-5);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(4, snapshot.getTotalCount());
+        assertEquals(3, snapshot.getValueAtPercentile(50));
+        assertEquals(7, snapshot.getMax());
+        assertEquals(0, histogram.snapshot().getValueAtPercentile(1));
+    }
+
+    @Test
+    public void willClampHugeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(Long.MAX_VALUE, histogram.snapshot().getMax());
+        assertTrue(histogram.snapshot().getValueAtPercentile(50) > 0);
+    }
+
+    @Test
+    public void willReportZeroWhenEmpty() {
+        final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getTotalCount());
+        assertEquals(0, snapshot.getValueAtPercentile(99));
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 16);
+    }
+}
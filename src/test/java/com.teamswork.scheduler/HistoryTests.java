@@ -0,0 +1,53 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.status.RunOutcome;
+import com.teamswork.scheduler.history.ExecutionHistory;
+import com.teamswork.scheduler.model.ExecutionHistoryPage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HistoryTests {
+
+    private static void record(final ExecutionHistory history, final int run, final String runnerKey, final String group) {
+        history.record(JobId.of("job-" + run), runnerKey, group, run * 1000L - 10, run * 1000L, run * 1000L + 500,
+                run % 2 == 0 ? RunOutcome.SUCCESS : RunOutcome.FAILED);
+    }
+
+    @Test
+    public void willKeepOnlyTheNewestRuns() {
+        final ExecutionHistory history = new ExecutionHistory(6);
+        assertEquals(8, history.getCapacity());
+        for (int run = 1; run <= 20; run++) {
+            record(history, run, "runner", "Caesium-1");
+        }
+        final ExecutionHistoryPage page = history.query(null, null, null, null, 0, 100);
+        assertEquals(20, page.getRecorded());
+        assertEquals(8, page.getMatching());
+        assertEquals("job-20", page.getRecords().get(0).getJobId());
+        assertEquals("job-13", page.getRecords().get(7).getJobId());
+        assertEquals(19990, page.getRecords().get(0).getScheduledTime());
+        assertEquals("SUCCESS", page.getRecords().get(0).getOutcome());
+        assertEquals("FAILED", page.getRecords().get(1).getOutcome());
+    }
+
+    @Test
+    public void willFilterAndPage() {
+        final ExecutionHistory history = new ExecutionHistory(64);
+        for (int run = 1; run <= 30; run++) {
+            record(history, run, run % 3 == 0 ? "heavy" : "light", run <= 15 ? "Caesium-1" : "Caesium-2");
+        }
+        assertEquals(10, history.query("heavy", null, null, null, 0, 100).getMatching());
+        assertEquals(5, history.query("heavy", "Caesium-2", null, null, 0, 100).getMatching());
+        assertEquals(0, history.query("unknown", null, null, null, 0, 100).getMatching());
+        assertEquals(11, history.query(null, null, 10000L, 20000L, 0, 100).getMatching());
+
+        final ExecutionHistoryPage page = history.query("light", null, null, null, 5, 5);
+        assertEquals(20, page.getMatching());
+        assertEquals(5, page.getRecords().size());
+        assertEquals("job-22", page.getRecords().get(0).getJobId());
+        assertEquals("light", page.getRecords().get(0).getRunnerKey());
+        assertEquals("Caesium-2", page.getRecords().get(0).getThreadGroup());
+    }
+}
@@ -0,0 +1,120 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.jira.cluster.ClusterNodeProperties;
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.teamswork.scheduler.capacity.WorkerRetirement;
+import com.teamswork.scheduler.component.CaesiumInternals;
+import com.teamswork.scheduler.component.EnhancedJiraCaesiumSchedulerConfiguration;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.jmx.JmxRegistrar;
+import com.teamswork.scheduler.metrics.ThreadGroupStats;
+import com.teamswork.scheduler.pool.JobPriorities;
+import com.teamswork.scheduler.pool.WorkerPoolManager;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+import com.teamswork.scheduler.service.ThreadGroupUtils;
+import org.junit.Test;
+
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class JmxTests {
+
+    @Test
+    public void willCountJobsPerThreadGroup() throws InterruptedException {
+        final SchedulerMetricsService metricsService = new SchedulerMetricsService();
+        final ThreadGroup group = new ThreadGroup("Caesium-7");
+        final Thread worker = new Thread(group, () -> {
+            metricsService.schedulerJobStarted(3000L);
+            metricsService.schedulerJobFinished();
+            metricsService.schedulerJobStarted(-1L);
+            metricsService.schedulerJobFinished();
+        });
+        worker.start();
+        worker.join();
+
+        final ThreadGroupStats stats = metricsService.getThreadGroupStats("Caesium-7");
+        assertEquals(2L, stats.getCompletedJobs());
+        assertEquals(0, stats.getActiveWorkers());
+        assertEquals(3000L, stats.getLastLagMicros());
+        assertNull(metricsService.getThreadGroupStats("Caesium-8"));
+    }
+
+    @Test
+    public void willRegisterTheSchedulerAndItsThreadGroups() throws Exception {
+        final Map<String, String> stored = new HashMap<>();
+        final ApplicationProperties applicationProperties = Stubs.stored(ApplicationProperties.class, stored);
+        final I18nHelper i18nHelper = Stubs.stored(I18nHelper.class, stored);
+        final SchedulerMetricsService metricsService = new SchedulerMetricsService();
+        final ThreadGroupUtils threadGroupUtils = new ThreadGroupUtils();
+        final WorkerPoolManager workerPoolManager = new WorkerPoolManager(null, applicationProperties, i18nHelper,
+                new JobPriorities(null, null, null));
+        final EnhancedJiraCaesiumSchedulerConfiguration enhancedConfig = new EnhancedJiraCaesiumSchedulerConfiguration(
+                applicationProperties, Stubs.stored(ClusterNodeProperties.class, stored), null);
+        final SchedulerConfigurator schedulerConfigurator = new SchedulerConfigurator(enhancedConfig, threadGroupUtils,
+                workerPoolManager, new CaesiumInternals(null),
+                new WorkerRetirement(metricsService, threadGroupUtils, null), null, applicationProperties, i18nHelper);
+        final JmxRegistrar registrar = new JmxRegistrar(null, schedulerConfigurator, enhancedConfig, metricsService,
+                workerPoolManager, threadGroupUtils);
+
+        final ThreadGroup group = new ThreadGroup("Caesium-9");
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread worker = new Thread(group, () -> {
+            metricsService.schedulerJobStarted(2000L);
+            metricsService.schedulerJobFinished();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+
+        final MBeanServer server = MBeanServerFactory.newMBeanServer();
+        final ObjectName scheduler = new ObjectName(JmxRegistrar.DOMAIN + ":type=Scheduler");
+        final ObjectName threadGroup = new ObjectName(JmxRegistrar.DOMAIN + ":type=ThreadGroup,name=Caesium-9");
+        registrar.start(server);
+        try {
+            assertEquals(false, server.getAttribute(scheduler, "Reconfigured"));
+            assertEquals(enhancedConfig.workerThreadCount(), server.getAttribute(scheduler, "ConfiguredThreadCount"));
+            final CompositeData rejected = (CompositeData) server.invoke(scheduler, "configureThreadCount",
+                    new Object[]{0}, new String[]{int.class.getName()});
+            assertEquals(false, rejected.get("success"));
+            final CompositeData configured = (CompositeData) server.invoke(scheduler, "configureThreadCount",
+                    new Object[]{6}, new String[]{int.class.getName()});
+            assertEquals(true, configured.get("success"));
+            assertEquals("jes.thread.count.set", configured.get("message"));
+            assertEquals(6, server.getAttribute(scheduler, "ConfiguredThreadCount"));
+            for (MBeanOperationInfo operation : server.getMBeanInfo(scheduler).getOperations()) {
+                assertFalse(operation.getName().startsWith("get"));
+            }
+
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (!server.isRegistered(threadGroup) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, server.getAttribute(threadGroup, "Size"));
+            assertEquals(1L, server.getAttribute(threadGroup, "CompletedJobs"));
+            assertEquals(2L, server.getAttribute(threadGroup, "LagMillis"));
+        } finally {
+            registrar.stop();
+            release.countDown();
+            worker.join();
+        }
+        assertFalse(server.isRegistered(scheduler));
+        assertFalse(server.isRegistered(threadGroup));
+
+        metricsService.forgetThreadGroup("Caesium-9");
+        assertNull(metricsService.getThreadGroupStats("Caesium-9"));
+    }
+}
@@ -0,0 +1,262 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.scheduler.JobRunner;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.SchedulerServiceException;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.status.RunOutcome;
+import com.teamswork.scheduler.capacity.AdmissionController;
+import com.teamswork.scheduler.capacity.WorkerRetirement;
+import com.teamswork.scheduler.history.ExecutionHistory;
+import com.teamswork.scheduler.limit.ConcurrencyLimiter;
+import com.teamswork.scheduler.limit.KeyCoalescing;
+import com.teamswork.scheduler.limit.KeyLimit;
+import com.teamswork.scheduler.limit.RunCoalescer;
+import com.teamswork.scheduler.model.ConcurrencyLimit;
+import com.teamswork.scheduler.model.ExecutionRecord;
+import com.teamswork.scheduler.model.WorkerPoolDefinition;
+import com.teamswork.scheduler.pool.JobPriorities;
+import com.teamswork.scheduler.pool.VirtualThreads;
+import com.teamswork.scheduler.pool.WorkerPoolManager;
+import com.teamswork.scheduler.refresh.ClusteredJobProfiler;
+import com.teamswork.scheduler.runner.HandedOffRunRecorder;
+import com.teamswork.scheduler.runner.InstrumentedJobRunner;
+import com.teamswork.scheduler.service.JobDueTimeTracker;
+import com.teamswork.scheduler.service.JobRequeuer;
+import com.teamswork.scheduler.service.ResourceAccountingService;
+import com.teamswork.scheduler.service.SchedulerMetricsService;
+import com.teamswork.scheduler.service.ThreadGroupUtils;
+import com.teamswork.scheduler.utils.KeyPattern;
+import com.teamswork.scheduler.utils.KeyRules;
+import com.teamswork.scheduler.watchdog.HungJobWatchdog;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class LimitTests {
+
+    @Test
+    public void willTurnAwayRunsOverTheLimitUntilAPermitIsReleased() {
+        final KeyLimit limit = new KeyLimit("com.acme.sync", "com.acme.*", 2);
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getRunning());
+        limit.release();
+        assertTrue(limit.tryAcquire());
+        assertEquals(2, limit.getRunning());
+    }
+
+    @Test
+    public void willNotExceedTheLimitUnderContention() throws InterruptedException {
+        final KeyLimit limit = new KeyLimit("com.acme.sync", "com.acme.*", 3);
+        final int[] peak = new int[1];
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    if (limit.tryAcquire()) {
+                        final int running = limit.getRunning();
+                        synchronized (peak) {
+                            peak[0] = Math.max(peak[0], running);
+                        }
+                        limit.release();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(peak[0] <= 3);
+        assertEquals(0, limit.getRunning());
+    }
+
+    @Test
+    public void willCoalesceRunsOfAJobThatIsAlreadyRunning() {
+        final KeyCoalescing coalescing = new KeyCoalescing("com.acme.poller", "com.acme.*");
+        final JobId poller = JobId.of("poller-1");
+        assertTrue(coalescing.begin(poller));
+        assertFalse(coalescing.begin(poller));
+        coalescing.coalesced();
+        assertTrue(coalescing.begin(JobId.of("poller-2")));
+        assertEquals(2, coalescing.getUsage().getRunningJobs());
+        coalescing.end(poller);
+        assertTrue(coalescing.begin(poller));
+        assertEquals(1L, coalescing.getUsage().getCoalescedRuns());
+    }
+
+    @Test
+    public void willNotKeepAValueResolvedAgainstReplacedRules() {
+        final List<KeyRules<KeyPattern, String>> holder = new ArrayList<>();
+        final KeyRules<KeyPattern, String> rules = new KeyRules<>(pattern -> pattern, key -> {
+            final KeyPattern pattern = holder.get(0).find(key.toString());
+            // New rules are applied while this lookup is resolving against the old ones.
+            holder.get(0).update(Collections.singletonList(new KeyPattern("com.acme.sync")));
+            return pattern.getPattern();
+        });
+        holder.add(rules);
+        rules.update(Collections.singletonList(new KeyPattern("com.acme.*")));
+
+        final JobRunnerKey key = JobRunnerKey.of("com.acme.sync");
+        assertEquals("com.acme.*", rules.get(key));
+        assertEquals("com.acme.sync", rules.get(key));
+    }
+
+    @Test
+    public void willTrackDeferredRunsWithoutReadingTheScheduler() {
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicBoolean failScheduling = new AtomicBoolean();
+        final SchedulerService schedulerService = (SchedulerService) Proxy.newProxyInstance(
+                LimitTests.class.getClassLoader(), new Class<?>[]{SchedulerService.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("scheduleJob") && failScheduling.get()) {
+                        throw new SchedulerServiceException("Unavailable");
+                    }
+                    if (method.getName().startsWith("getJob")) {
+                        reads.incrementAndGet();
+                    }
+                    return null;
+                });
+        final JobRequeuer jobRequeuer = new JobRequeuer(schedulerService);
+        final JobRunnerKey key = JobRunnerKey.of("com.acme.sync");
+        assertTrue(jobRequeuer.defer(request("sync-1"), key, 1000L, "busy"));
+        assertTrue(jobRequeuer.isDeferred(JobId.of("sync-1")));
+        assertFalse(jobRequeuer.isDeferred(JobId.of("sync-2")));
+
+        failScheduling.set(true);
+        assertFalse(jobRequeuer.defer(request("sync-2"), key, 1000L, "busy"));
+        assertFalse(jobRequeuer.isDeferred(JobId.of("sync-2")));
+        assertFalse(jobRequeuer.defer(request("sync-3"), key, 1000L, "busy", 0));
+        assertFalse(jobRequeuer.isDeferred(JobId.of("sync-3")));
+        assertEquals(0, reads.get());
+    }
+
+    @Test
+    public void willRecordRunsTurnedAwayByTheLimit() throws InterruptedException {
+        final JobRunnerKey key = JobRunnerKey.of("com.acme.sync");
+        final ApplicationProperties applicationProperties = Stubs.of(ApplicationProperties.class);
+        final I18nHelper i18nHelper = Stubs.of(I18nHelper.class);
+        final ExecutionHistory history = new ExecutionHistory(16);
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(null, applicationProperties, i18nHelper,
+                new JobRequeuer(Stubs.of(SchedulerService.class)));
+        limiter.configure(Collections.singletonList(new ConcurrencyLimit("com.acme.*", 1)));
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final InstrumentedJobRunner runner = instrument(key, blocking(started, release),
+                new WorkerPoolManager(null, applicationProperties, i18nHelper, new JobPriorities(null, null, null)),
+                limiter, history, new HandedOffRunRecorder(null));
+
+        final Thread first = new Thread(() -> runner.runJob(request("sync-1")));
+        first.start();
+        try {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            runner.runJob(request("sync-2"));
+        } finally {
+            release.countDown();
+            first.join();
+        }
+
+        final List<ExecutionRecord> records = history.query(null, null, null, null, 0, 10).getRecords();
+        assertEquals(2, records.size());
+        assertEquals("sync-1", records.get(0).getJobId());
+        assertEquals("sync-2", records.get(1).getJobId());
+        assertEquals("ABORTED", records.get(1).getOutcome());
+        assertEquals(1L, limiter.getStatus().getUsage().get(0).getAbortedRuns()
+                + limiter.getStatus().getUsage().get(0).getDeferredRuns());
+    }
+
+    @Test
+    public void willNotHoldTheSchedulerWorkerForAVirtualPool() throws InterruptedException {
+        assumeTrue(VirtualThreads.isSupported());
+        final JobRunnerKey key = JobRunnerKey.of("com.acme.sync");
+        final ApplicationProperties applicationProperties = Stubs.of(ApplicationProperties.class);
+        final I18nHelper i18nHelper = Stubs.of(I18nHelper.class);
+        final WorkerPoolManager workerPoolManager = new WorkerPoolManager(null, applicationProperties, i18nHelper,
+                new JobPriorities(null, null, null));
+        assertTrue(workerPoolManager.configure(Collections.singletonList(new WorkerPoolDefinition("io", 2, 1,
+                Collections.singletonList("com.acme.*"), WorkerPoolDefinition.Mode.VIRTUAL))).isSuccess());
+        final BlockingQueue<String> recorded = new LinkedBlockingQueue<>();
+        final HandedOffRunRecorder recorder = new HandedOffRunRecorder(null) {
+            @Override
+            public void record(final JobId jobId, final long startedAt, final JobRunnerResponse response) {
+                recorded.add(jobId + ":" + response.getRunOutcome());
+            }
+        };
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final InstrumentedJobRunner runner = instrument(key, blocking(started, release), workerPoolManager,
+                new ConcurrencyLimiter(null, applicationProperties, i18nHelper, null), new ExecutionHistory(16),
+                recorder);
+        try {
+            // Returns while the job is still running on its virtual thread.
+            assertEquals(RunOutcome.SUCCESS, runner.runJob(request("sync-1")).getRunOutcome());
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(recorded.isEmpty());
+        } finally {
+            release.countDown();
+        }
+        assertEquals("sync-1:SUCCESS", recorded.poll(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * A job that signals it has started, then waits to be released.
+     */
+    private static JobRunner blocking(final CountDownLatch started, final CountDownLatch release) {
+        return request -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return JobRunnerResponse.success();
+        };
+    }
+
+    private static InstrumentedJobRunner instrument(final JobRunnerKey key, final JobRunner delegate,
+                                                    final WorkerPoolManager workerPoolManager,
+                                                    final ConcurrencyLimiter limiter, final ExecutionHistory history,
+                                                    final HandedOffRunRecorder recorder) {
+        final ApplicationProperties applicationProperties = Stubs.of(ApplicationProperties.class);
+        final I18nHelper i18nHelper = Stubs.of(I18nHelper.class);
+        final SchedulerService schedulerService = Stubs.of(SchedulerService.class);
+        final SchedulerMetricsService metricsService = new SchedulerMetricsService();
+        final JobDueTimeTracker dueTimeTracker = new JobDueTimeTracker(schedulerService, null);
+        final JobRequeuer jobRequeuer = new JobRequeuer(schedulerService);
+        return new InstrumentedJobRunner(key, delegate, metricsService, dueTimeTracker, workerPoolManager,
+                new WorkerRetirement(metricsService, new ThreadGroupUtils(), null), jobRequeuer, history, limiter,
+                new ResourceAccountingService(null, applicationProperties, i18nHelper),
+                new RunCoalescer(null, applicationProperties, i18nHelper, jobRequeuer, dueTimeTracker),
+                new HungJobWatchdog(null, applicationProperties, i18nHelper),
+                new AdmissionController(null, applicationProperties, i18nHelper, jobRequeuer),
+                new ClusteredJobProfiler(), recorder);
+    }
+
+    private static JobRunnerRequest request(final String jobId) {
+        return Stubs.returning(JobRunnerRequest.class, JobId.of(jobId),
+                JobConfig.forJobRunnerKey(JobRunnerKey.of("com.acme.sync")));
+    }
+}
@@ -0,0 +1,183 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.jira.util.I18nHelper;
+import com.atlassian.plugin.Plugin;
+import com.atlassian.plugin.event.events.PluginDisablingEvent;
+import com.atlassian.plugin.event.events.PluginEnabledEvent;
+import com.atlassian.scheduler.JobRunner;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.SchedulerService;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.loadtest.LoadTester;
+import com.teamswork.scheduler.model.LoadProfile;
+import com.teamswork.scheduler.model.LoadProfileResult;
+import com.teamswork.scheduler.model.LoadTestReport;
+import com.teamswork.scheduler.model.LoadTestRequest;
+import com.teamswork.scheduler.model.OperationResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static com.teamswork.scheduler.component.Plugin.PLUGIN_KEY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LoadTests {
+    private final Map<JobRunnerKey, JobRunner> runners = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<JobId, JobConfig> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+    private LoadTester loadTester;
+
+    /**
+     * A configurator reporting four scheduler threads and no extra thread groups.
+     */
+    private static class StubConfigurator extends SchedulerConfigurator {
+        StubConfigurator() {
+            super(null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public int getSchedulerThreadCount() {
+            return 4;
+        }
+
+        @Override
+        public NavigableMap<String, Integer> getExtraThreadGroups() {
+            return new TreeMap<>();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        System.setProperty(LoadTester.ENABLED_PROPERTY, "true");
+        final SchedulerService schedulerService = (SchedulerService) Proxy.newProxyInstance(
+                LoadTests.class.getClassLoader(), new Class<?>[]{SchedulerService.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "registerJobRunner": runners.put((JobRunnerKey) args[0], (JobRunner) args[1]); break;
+                        case "unregisterJobRunner": runners.remove(args[0]); break;
+                        case "scheduleJob": jobs.put((JobId) args[0], (JobConfig) args[1]); break;
+                        case "unscheduleJob": jobs.remove(args[0]); break;
+                        default:
+                    }
+                    return null;
+                });
+        final I18nHelper i18nHelper = (I18nHelper) Proxy.newProxyInstance(LoadTests.class.getClassLoader(),
+                new Class<?>[]{I18nHelper.class}, (proxy, method, args) -> args[0]);
+        loadTester = new LoadTester(schedulerService, new StubConfigurator(), null, i18nHelper);
+    }
+
+    @After
+    public void tearDown() {
+        loadTester.pluginShutdown(new PluginDisablingEvent(plugin()));
+        System.clearProperty(LoadTester.ENABLED_PROPERTY);
+    }
+
+    private static Plugin plugin() {
+        return () -> PLUGIN_KEY;
+    }
+
+    private static LoadProfile profile(final String name, final int runners, final int jobsPerRunner,
+                                       final long intervalMillis) {
+        final LoadProfile profile = new LoadProfile();
+        profile.setName(name);
+        profile.setRunners(runners);
+        profile.setJobsPerRunner(jobsPerRunner);
+        profile.setIntervalMillis(intervalMillis);
+        return profile;
+    }
+
+    private static LoadTestRequest request(final int durationSeconds, final LoadProfile... profiles) {
+        final LoadTestRequest request = new LoadTestRequest();
+        request.setDurationSeconds(durationSeconds);
+        request.setProfiles(new ArrayList<>(Arrays.asList(profiles)));
+        return request;
+    }
+
+    private static JobRunnerRequest runRequest(final JobId jobId, final JobConfig jobConfig, final long startTime) {
+        return (JobRunnerRequest) Proxy.newProxyInstance(LoadTests.class.getClassLoader(),
+                new Class<?>[]{JobRunnerRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getStartTime": return new Date(startTime);
+                        case "getJobId": return jobId;
+                        case "getJobConfig": return jobConfig;
+                        default: return false;
+                    }
+                });
+    }
+
+    private String startMessage(final LoadTestRequest request) {
+        final OperationResult result = loadTester.start(request);
+        assertFalse(result.isSuccess());
+        return result.getMessage();
+    }
+
+    @Test
+    public void willRejectInvalidRequests() {
+        System.clearProperty(LoadTester.ENABLED_PROPERTY);
+        assertEquals("jes.loadtest.disabled", startMessage(request(60, profile("cpu", 1, 1, 1000L))));
+        System.setProperty(LoadTester.ENABLED_PROPERTY, "true");
+
+        assertEquals("jes.loadtest.invalid.profiles", startMessage(null));
+        assertEquals("jes.loadtest.invalid.profiles", startMessage(request(60)));
+        assertEquals("jes.loadtest.invalid.duration", startMessage(request(5, profile("cpu", 1, 1, 1000L))));
+        assertEquals("jes.loadtest.invalid.name", startMessage(request(60, profile("c p u", 1, 1, 1000L))));
+        assertEquals("jes.loadtest.invalid.name",
+                startMessage(request(60, profile("cpu", 1, 1, 1000L), profile("cpu", 1, 1, 1000L))));
+        assertEquals("jes.loadtest.invalid.density", startMessage(request(60, profile("cpu", 1, 1, 999L))));
+        assertEquals("jes.loadtest.invalid.density", startMessage(request(60, profile("cpu", 0, 1, 1000L))));
+        final LoadProfile failing = profile("cpu", 1, 1, 1000L);
+        failing.setFailurePercent(101);
+        assertEquals("jes.loadtest.invalid.work", startMessage(request(60, failing)));
+        assertEquals("jes.loadtest.invalid.jobs", startMessage(request(60, profile("cpu", 101, 100, 1000L))));
+
+        assertEquals("jes.loadtest.not.started", startMessage(request(60, profile("cpu", 1, 1, 1000L))));
+        assertTrue(runners.isEmpty());
+    }
+
+    @Test
+    public void willMeasureLagFromEachJobsOwnSchedule() throws InterruptedException {
+        loadTester.pluginStartup(new PluginEnabledEvent(plugin()));
+        assertTrue(loadTester.start(request(60, profile("io", 1, 2, 10000L))).isSuccess());
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (jobs.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(2, jobs.size());
+        assertEquals("jes.loadtest.running", startMessage(request(60, profile("cpu", 1, 1, 1000L))));
+
+        final JobRunner runner = runners.values().iterator().next();
+        for (Map.Entry<JobId, JobConfig> job : new ArrayList<>(jobs.entrySet())) {
+            final long firstRun = job.getValue().getSchedule().getIntervalScheduleInfo().getFirstRunTime().getTime();
+            // Three intervals and 250ms after the first due time, however long the earlier runs took.
+            runner.runJob(runRequest(job.getKey(), job.getValue(), firstRun + 30250L));
+        }
+
+        assertTrue(loadTester.stop().isSuccess());
+        while (!LoadTester.State.DONE.name().equals(loadTester.getReport().getState())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        final LoadTestReport report = loadTester.getReport();
+        assertEquals(LoadTester.State.DONE.name(), report.getState());
+        assertEquals(2L, report.getRuns());
+        assertEquals(4, report.getSchedulerThreads());
+        final LoadProfileResult io = report.getProfiles().get(0);
+        assertEquals(2L, io.getLag().getCount());
+        assertEquals(250.0, io.getLag().getMeanMillis(), 1.0);
+        assertTrue(jobs.isEmpty());
+        assertTrue(runners.isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.cluster.ClusterCommandBus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An in-process ClusterCommandBus for tests. Each instance is a node on a shared Network, and messages are
+ * delivered straight away on the sender's thread. The channel and message limits of the real bus are enforced.
+ */
+public class LocalClusterCommandBus implements ClusterCommandBus {
+
+    public static class Network {
+        private final List<LocalClusterCommandBus> nodes = new CopyOnWriteArrayList<>();
+    }
+
+    private final Network network;
+    private final String nodeId;
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+
+    public LocalClusterCommandBus(final Network network, final String nodeId) {
+        this.network = network;
+        this.nodeId = nodeId;
+        network.nodes.add(this);
+    }
+
+    @Override
+    public void register(final String channel, final Listener listener) {
+        checkChannel(channel);
+        listeners.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void unregister(final String channel, final Listener listener) {
+        final List<Listener> channelListeners = listeners.get(channel);
+        if (channelListeners != null) {
+            channelListeners.remove(listener);
+        }
+    }
+
+    @Override
+    public void send(final String channel, final String message) {
+        checkChannel(channel);
+        if (message.length() > MAX_MESSAGE_LENGTH) {
+            throw new IllegalArgumentException("Message is longer than " + MAX_MESSAGE_LENGTH + " characters: " + message);
+        }
+        for (LocalClusterCommandBus node : network.nodes) {
+            if (node != this) {
+                for (Listener listener : node.listeners.getOrDefault(channel, new ArrayList<>())) {
+                    listener.onMessage(channel, message, nodeId);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getLocalNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public Collection<String> getLiveNodeIds() {
+        final List<String> nodeIds = new ArrayList<>();
+        for (LocalClusterCommandBus node : network.nodes) {
+            nodeIds.add(node.nodeId);
+        }
+        return nodeIds;
+    }
+
+    private static void checkChannel(final String channel) {
+        if (channel.length() > MAX_CHANNEL_LENGTH) {
+            throw new IllegalArgumentException("Channel name is longer than " + MAX_CHANNEL_LENGTH + " characters: " + channel);
+        }
+    }
+}
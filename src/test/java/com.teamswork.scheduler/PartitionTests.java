@@ -0,0 +1,279 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.plugin.Plugin;
+import com.atlassian.plugin.event.events.PluginDisablingEvent;
+import com.atlassian.plugin.event.events.PluginEnabledEvent;
+import com.atlassian.scheduler.JobRunnerRequest;
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.config.JobConfig;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.atlassian.scheduler.status.RunOutcome;
+import com.teamswork.scheduler.api.PartitionContext;
+import com.teamswork.scheduler.api.PartitionedJob;
+import com.teamswork.scheduler.capacity.AdmissionController;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.AdmissionSettings;
+import com.teamswork.scheduler.model.PartitionedJobsStatus;
+import com.teamswork.scheduler.model.PartitionedRunStatus;
+import com.teamswork.scheduler.partition.DefaultPartitionedJobRunner;
+import com.teamswork.scheduler.partition.PartitionedRun;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static com.teamswork.scheduler.component.Plugin.PLUGIN_KEY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionTests {
+
+    /**
+     * Squares each of 1 to 4 after a short sleep, and fails on negative numbers.
+     */
+    private static class SquaringJob implements PartitionedJob<Integer, Integer> {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public List<Integer> partition(final JobRunnerRequest request) {
+            return Arrays.asList(1, 2, 3, 4);
+        }
+
+        @Override
+        public Integer runPartition(final Integer partition, final PartitionContext context) throws Exception {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20L);
+                if (partition < 0) {
+                    throw new IllegalArgumentException("negative: " + partition);
+                }
+                return partition * partition;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A configurator reporting a settable number of extra scheduler threads.
+     */
+    private static class StubConfigurator extends SchedulerConfigurator {
+        private volatile int extraThreads;
+
+        StubConfigurator() {
+            super(null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public int getExtraThreadCount() {
+            return extraThreads;
+        }
+    }
+
+    /**
+     * A runner whose scheduler counts as paused while the flag is set.
+     */
+    private static class StubRunner extends DefaultPartitionedJobRunner {
+        private final AtomicBoolean paused = new AtomicBoolean();
+
+        StubRunner(final SchedulerConfigurator schedulerConfigurator, final AdmissionController admissionController) {
+            super(schedulerConfigurator, admissionController, null);
+        }
+
+        @Override
+        protected BooleanSupplier pausedCheck() {
+            return paused::get;
+        }
+    }
+
+    private static Plugin plugin() {
+        return () -> PLUGIN_KEY;
+    }
+
+    private static JobRunnerRequest request() {
+        final JobConfig jobConfig = JobConfig.forJobRunnerKey(JobRunnerKey.of("runner"));
+        return (JobRunnerRequest) Proxy.newProxyInstance(PartitionTests.class.getClassLoader(),
+                new Class<?>[]{JobRunnerRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getJobId": return JobId.of("job");
+                        case "getJobConfig": return jobConfig;
+                        default: return false;
+                    }
+                });
+    }
+
+    private static PartitionedRun<Integer, Integer> run(final SquaringJob job, final List<Integer> partitions,
+                                                        final int parallelism, final BooleanSupplier cancelCheck) {
+        return new PartitionedRun<>("job", "runner", job, partitions, parallelism, cancelCheck);
+    }
+
+    @Test
+    public void willRunPartitionsInParallelUnderTheLimitAndKeepTheirOrder() {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final SquaringJob job = new SquaringJob();
+            final PartitionedRun<Integer, Integer> run = run(job, Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), 3, () -> false);
+            run.execute(executor);
+            assertEquals(Arrays.asList(1, 4, 9, 16, 25, 36, 49, 64), run.getResults());
+            assertEquals(8, run.getCompleted());
+            assertFalse(run.isCancelled());
+            assertTrue(job.maxInFlight.get() > 1);
+            assertTrue(job.maxInFlight.get() <= 3);
+            assertEquals(3, run.toStatus().getParallelism());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void willCarryOnPastAFailedPartition() {
+        final SquaringJob job = new SquaringJob();
+        final PartitionedRun<Integer, Integer> run = run(job, Arrays.asList(1, -2, 3), 4, () -> false);
+        // No helpers can be started: the calling thread runs every partition.
+        run.execute(runnable -> {
+            throw new RejectedExecutionException();
+        });
+        assertEquals(Arrays.asList(1, null, 9), run.getResults());
+        assertEquals(1, run.getFailures().size());
+        assertTrue(run.getFailures().get(1) instanceof IllegalArgumentException);
+        assertEquals(3, run.getCompleted());
+        assertEquals(1, job.maxInFlight.get());
+    }
+
+    @Test
+    public void willSkipPartitionsNotStartedOnceCancelled() {
+        final AtomicBoolean paused = new AtomicBoolean();
+        final SquaringJob job = new SquaringJob() {
+            @Override
+            public Integer runPartition(final Integer partition, final PartitionContext context) throws Exception {
+                if (context.getPartitionIndex() == 1) {
+                    paused.set(true);
+                }
+                return super.runPartition(partition, context);
+            }
+        };
+        final PartitionedRun<Integer, Integer> run = run(job, Arrays.asList(1, 2, 3, 4), 1, paused::get);
+        run.execute(Runnable::run);
+        assertTrue(run.isCancelled());
+        assertEquals(2, run.getCompleted());
+        assertNull(run.getResults().get(2));
+        assertEquals(4, run.getPartitionCount());
+    }
+
+    @Test
+    public void willMergeTheResultsOfEveryPartitionByDefault() {
+        final SquaringJob job = new SquaringJob();
+        final PartitionedRun<Integer, Integer> succeeded = run(job, Arrays.asList(1, 2, 3), 1, () -> false);
+        succeeded.execute(Runnable::run);
+        final JobRunnerResponse success = job.merge(request(), succeeded);
+        assertEquals(RunOutcome.SUCCESS, success.getRunOutcome());
+        assertEquals("3 partitions completed", success.getMessage());
+
+        final PartitionedRun<Integer, Integer> failed = run(job, Arrays.asList(1, -2, -3), 1, () -> false);
+        failed.execute(Runnable::run);
+        final JobRunnerResponse failure = job.merge(request(), failed);
+        assertEquals(RunOutcome.FAILED, failure.getRunOutcome());
+        assertEquals("2 of 3 partitions failed, the first with: java.lang.IllegalArgumentException: negative: -2",
+                failure.getMessage());
+
+        final PartitionedRun<Integer, Integer> cancelled = run(job, Arrays.asList(1, -2, 3), 1, () -> true);
+        cancelled.execute(Runnable::run);
+        final JobRunnerResponse abort = job.merge(request(), cancelled);
+        assertEquals(RunOutcome.ABORTED, abort.getRunOutcome());
+        assertEquals("Cancelled after 0 of 3 partitions", abort.getMessage());
+    }
+
+    @Test
+    public void willRunOnePartitionAtATimeWhileThrottled() {
+        final AdmissionController admissionController = new AdmissionController(null, null, null, null);
+        final AdmissionSettings settings = new AdmissionSettings();
+        settings.setEnabled(true);
+        settings.setHeapThresholdPercent(85);
+        settings.setHeapResumePercent(75);
+        settings.setGcTimeThresholdPercent(20);
+        settings.setGcTimeResumePercent(10);
+        settings.setWindowSeconds(10);
+        admissionController.getPressure().sample(0L, 0L, 500L, 1000L, settings);
+        admissionController.getPressure().sample(1000L, 0L, 900L, 1000L, settings);
+        assertTrue(admissionController.getPressure().isThrottled());
+
+        final StubRunner runner = new StubRunner(new StubConfigurator(), admissionController);
+        runner.pluginStartup(new PluginEnabledEvent(plugin()));
+        try {
+            final SquaringJob job = new SquaringJob();
+            assertEquals(RunOutcome.SUCCESS, runner.run(request(), job).getRunOutcome());
+            assertEquals(1, job.maxInFlight.get());
+            assertEquals(1, runner.getStatus().getRecent().get(0).getParallelism());
+        } finally {
+            runner.pluginShutdown(new PluginDisablingEvent(plugin()));
+        }
+    }
+
+    @Test
+    public void willResizeThePoolWithTheExtraSchedulerThreads() {
+        final StubConfigurator schedulerConfigurator = new StubConfigurator();
+        final StubRunner runner = new StubRunner(schedulerConfigurator, new AdmissionController(null, null, null, null));
+        runner.pluginStartup(new PluginEnabledEvent(plugin()));
+        try {
+            schedulerConfigurator.extraThreads = 6;
+            runner.run(request(), new SquaringJob());
+            assertEquals(6, runner.getStatus().getThreads());
+
+            schedulerConfigurator.extraThreads = 0;
+            runner.run(request(), new SquaringJob());
+            final PartitionedJobsStatus status = runner.getStatus();
+            assertEquals(2, status.getThreads());
+            assertTrue(status.getRunning().isEmpty());
+            assertEquals(2, status.getRecent().size());
+            final PartitionedRunStatus latest = status.getRecent().get(0);
+            assertEquals("job", latest.getJobId());
+            assertEquals(4, latest.getParallelism());
+            assertEquals(4, latest.getCompleted());
+            assertEquals("SUCCESS: 4 partitions completed", latest.getOutcome());
+            assertTrue(latest.getFinishTime() >= latest.getStartTime());
+        } finally {
+            runner.pluginShutdown(new PluginDisablingEvent(plugin()));
+        }
+    }
+
+    @Test
+    public void willCancelARunWhenTheSchedulerIsPaused() {
+        final StubRunner runner = new StubRunner(new StubConfigurator(), new AdmissionController(null, null, null, null));
+        final SquaringJob job = new SquaringJob() {
+            @Override
+            public Integer runPartition(final Integer partition, final PartitionContext context) throws Exception {
+                if (context.getPartitionIndex() == 1) {
+                    runner.paused.set(true);
+                }
+                return super.runPartition(partition, context);
+            }
+
+            @Override
+            public int getParallelism() {
+                return 1;
+            }
+        };
+        runner.pluginStartup(new PluginEnabledEvent(plugin()));
+        try {
+            final JobRunnerResponse response = runner.run(request(), job);
+            assertEquals(RunOutcome.ABORTED, response.getRunOutcome());
+            assertEquals("Cancelled after 2 of 4 partitions", response.getMessage());
+            final PartitionedRunStatus status = runner.getStatus().getRecent().get(0);
+            assertTrue(status.isCancelled());
+            assertEquals(2, status.getCompleted());
+        } finally {
+            runner.pluginShutdown(new PluginDisablingEvent(plugin()));
+        }
+    }
+}
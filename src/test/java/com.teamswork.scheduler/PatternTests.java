@@ -0,0 +1,45 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.utils.KeyPattern;
+import com.teamswork.scheduler.utils.SettingsText;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PatternTests {
+
+    @Test
+    public void willMatchGlobPatterns() {
+        assertTrue(new KeyPattern("com.atlassian.jira.*").matches("com.atlassian.jira.service.JiraService"));
+        assertTrue(new KeyPattern("*Index*").matches("com.atlassian.jira.IndexRebuildJob"));
+        assertTrue(new KeyPattern("com.acme.sync").matches("com.acme.sync"));
+        assertTrue(new KeyPattern("*").matches("anything"));
+
+        assertFalse(new KeyPattern("com.acme.sync").matches("com.acme.sync2"));
+        assertFalse(new KeyPattern("com.acme.*").matches("comXacme.sync"));
+        assertFalse(new KeyPattern("*Index*").matches(null));
+    }
+
+    @Test
+    public void willRoundTripSettings() {
+        final Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("heavy", "2|100|com.atlassian.jira.index.*");
+        settings.put("*Sync*", "3");
+
+        final Map<String, String> parsed = SettingsText.parse(SettingsText.format(settings));
+        assertEquals(settings, parsed);
+        assertEquals("[heavy, *Sync*]", parsed.keySet().toString());
+    }
+
+    @Test
+    public void willIgnoreCommentsAndBlankLines() {
+        final Map<String, String> parsed = SettingsText.parse("# comment\n\n a = 1 \r\nnot a setting\n=2\n");
+        assertEquals(1, parsed.size());
+        assertEquals("1", parsed.get("a"));
+    }
+}
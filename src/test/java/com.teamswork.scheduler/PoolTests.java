@@ -0,0 +1,102 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.scheduler.JobRunnerResponse;
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.config.JobRunnerKey;
+import com.teamswork.scheduler.model.WorkerPoolDefinition;
+import com.teamswork.scheduler.pool.JobPriorities;
+import com.teamswork.scheduler.pool.VirtualThreads;
+import com.teamswork.scheduler.pool.WorkerPool;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class PoolTests {
+    private static final JobPriorities PRIORITIES = new JobPriorities(null, null, null);
+    private static final JobRunnerKey KEY = JobRunnerKey.of("com.example.Job");
+
+    private static WorkerPool pool(final String name, final WorkerPoolDefinition.Mode mode) {
+        return new WorkerPool(new WorkerPoolDefinition(name, 1, 1, Collections.singletonList("*"), mode), PRIORITIES);
+    }
+
+    private static WorkerPool.DispatchResult dispatch(final WorkerPool pool, final String jobId, final Runnable job) {
+        return pool.dispatch(KEY, JobId.of(jobId), () -> {
+            job.run();
+            return JobRunnerResponse.success();
+        }, new CompletableFuture<>());
+    }
+
+    private static void willTurnJobsAwayOnceTheQueueIsFull(final WorkerPoolDefinition.Mode mode) throws InterruptedException {
+        final WorkerPool pool = pool("full", mode);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Runnable blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try {
+            assertEquals(WorkerPool.DispatchResult.DISPATCHED, dispatch(pool, "running", blocking));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(WorkerPool.DispatchResult.ALREADY_PENDING, dispatch(pool, "running", blocking));
+            assertEquals(WorkerPool.DispatchResult.DISPATCHED, dispatch(pool, "queued", blocking));
+            // Give the dispatcher time to take the queued job if it were going to.
+            Thread.sleep(100);
+            assertEquals(WorkerPool.DispatchResult.SATURATED, dispatch(pool, "rejected", blocking));
+            assertEquals(1, pool.getStatus().getQueuedJobs());
+            assertEquals(1L, pool.getStatus().getRejectedJobs());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void willOnlyClaimItsOwnThreads(final WorkerPoolDefinition.Mode mode) throws Exception {
+        final WorkerPool a = pool("a", mode);
+        final WorkerPool ab = pool("ab", mode);
+        final AtomicBoolean ownThread = new AtomicBoolean();
+        final AtomicBoolean otherThread = new AtomicBoolean(true);
+        final CompletableFuture<JobRunnerResponse> response = new CompletableFuture<>();
+        ab.dispatch(KEY, JobId.of("claimed"), () -> {
+            ownThread.set(ab.isPoolThread());
+            otherThread.set(a.isPoolThread());
+            return JobRunnerResponse.success();
+        }, response);
+        response.get(5, TimeUnit.SECONDS);
+        assertTrue(ownThread.get());
+        assertEquals(false, otherThread.get());
+        assertEquals(false, ab.isPoolThread());
+    }
+
+    @Test
+    public void willTurnJobsAwayOnceThePlatformQueueIsFull() throws InterruptedException {
+        willTurnJobsAwayOnceTheQueueIsFull(WorkerPoolDefinition.Mode.PLATFORM);
+    }
+
+    @Test
+    public void willTurnJobsAwayOnceTheVirtualQueueIsFull() throws InterruptedException {
+        assumeTrue(VirtualThreads.isSupported());
+        willTurnJobsAwayOnceTheQueueIsFull(WorkerPoolDefinition.Mode.VIRTUAL);
+    }
+
+    @Test
+    public void willOnlyClaimItsOwnPlatformThreads() throws Exception {
+        willOnlyClaimItsOwnThreads(WorkerPoolDefinition.Mode.PLATFORM);
+    }
+
+    @Test
+    public void willOnlyClaimItsOwnVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        willOnlyClaimItsOwnThreads(WorkerPoolDefinition.Mode.VIRTUAL);
+    }
+}
@@ -0,0 +1,64 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.pool.BoundedPriorityQueue;
+import com.teamswork.scheduler.pool.JobPriorities;
+import com.teamswork.scheduler.pool.PrioritizedJob;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PriorityTests {
+    private static final JobPriorities.WaitRecorder NO_RECORDER = (priority, waitMicros) -> { };
+
+    private static PrioritizedJob job(final int priority, final long agingMillis) {
+        return new PrioritizedJob(priority, agingMillis, () -> { }, NO_RECORDER);
+    }
+
+    private static List<Integer> drain(final BoundedPriorityQueue queue) {
+        final List<Integer> priorities = new ArrayList<>();
+        Runnable next;
+        while ((next = queue.poll()) != null) {
+            priorities.add(((PrioritizedJob) next).getPriority());
+        }
+        return priorities;
+    }
+
+    @Test
+    public void willTakeHigherPrioritiesFirstThenInArrivalOrder() {
+        final BoundedPriorityQueue queue = new BoundedPriorityQueue(10);
+        final PrioritizedJob first = job(5, 30000);
+        queue.offer(job(1, 30000));
+        queue.offer(first);
+        queue.offer(job(9, 30000));
+        queue.offer(job(5, 30000));
+        assertEquals(9, ((PrioritizedJob) queue.poll()).getPriority());
+        assertTrue(queue.poll() == first);
+        assertEquals(List.of(5, 1), drain(queue));
+    }
+
+    @Test
+    public void willLetWaitingJobsAge() throws InterruptedException {
+        final BoundedPriorityQueue queue = new BoundedPriorityQueue(10);
+        // With a 10ms aging interval, a priority 1 job that has waited 100ms outranks a new priority 5 job.
+        queue.offer(job(1, 10));
+        Thread.sleep(100);
+        queue.offer(job(5, 10));
+        assertEquals(List.of(1, 5), drain(queue));
+    }
+
+    @Test
+    public void willRejectJobsWhenFull() {
+        final BoundedPriorityQueue queue = new BoundedPriorityQueue(2);
+        assertTrue(queue.offer(job(5, 1000)));
+        assertTrue(queue.offer(job(5, 1000)));
+        assertFalse(queue.offer(job(9, 1000)));
+        assertEquals(0, queue.remainingCapacity());
+        queue.poll();
+        assertEquals(1, queue.remainingCapacity());
+    }
+}
@@ -0,0 +1,114 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.scheduler.config.JobId;
+import com.teamswork.scheduler.model.ClusteredJobDaoReport;
+import com.teamswork.scheduler.model.ClusteredJobUsage;
+import com.teamswork.scheduler.model.DaoOperationSummary;
+import com.teamswork.scheduler.model.RefreshSettings;
+import com.teamswork.scheduler.refresh.ClusteredJobProfiler;
+import com.teamswork.scheduler.refresh.ClusteredJobRefresher;
+import com.teamswork.scheduler.refresh.RefreshIntervalPolicy;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RefreshTests {
+
+    @Test
+    public void willKeepFixedInterval() {
+        final RefreshIntervalPolicy policy = new RefreshIntervalPolicy(new RefreshSettings());
+        assertEquals(5, policy.getIntervalMinutes());
+        assertEquals(5, policy.next(false));
+        assertEquals(5, policy.next(true));
+    }
+
+    @Test
+    public void willBackOffUntilChanged() {
+        final RefreshSettings settings = new RefreshSettings();
+        settings.setMode(RefreshSettings.Mode.ADAPTIVE);
+        settings.setMinIntervalMinutes(1);
+        settings.setMaxIntervalMinutes(10);
+        final RefreshIntervalPolicy policy = new RefreshIntervalPolicy(settings);
+        assertEquals(1, policy.getIntervalMinutes());
+        assertEquals(2, policy.next(false));
+        assertEquals(4, policy.next(false));
+        assertEquals(8, policy.next(false));
+        assertEquals(10, policy.next(false));
+        assertEquals(10, policy.next(false));
+        assertEquals(1, policy.next(true));
+    }
+
+    @Test
+    public void willOnlyCountAddedRemovedOrRescheduledJobsAsChanges() {
+        final Map<JobId, Date> before = new HashMap<>();
+        before.put(JobId.of("a"), new Date(1000));
+        before.put(JobId.of("b"), new Date(2000));
+
+        final Map<JobId, Date> ranElsewhere = new HashMap<>(before);
+        ranElsewhere.put(JobId.of("a"), new Date(5000));
+        assertFalse(ClusteredJobRefresher.hasChanged(before, ranElsewhere));
+
+        final Map<JobId, Date> rescheduled = new HashMap<>(before);
+        rescheduled.put(JobId.of("b"), new Date(1500));
+        assertTrue(ClusteredJobRefresher.hasChanged(before, rescheduled));
+
+        final Map<JobId, Date> added = new HashMap<>(before);
+        added.put(JobId.of("c"), new Date(3000));
+        assertTrue(ClusteredJobRefresher.hasChanged(before, added));
+        assertTrue(ClusteredJobRefresher.hasChanged(null, before));
+    }
+
+    @Test
+    public void willProfileClusteredJobDaoCallsPerOperationAndJob() throws InterruptedException {
+        final ClusteredJobProfiler profiler = new ClusteredJobProfiler();
+        final JobId hot = JobId.of("hot");
+        final JobId cold = JobId.of("cold");
+        profiler.record(ClusteredJobProfiler.Operation.REFRESH, null, 200_000_000L, true);
+        // A read of a job we have not seen written is counted per operation but not per job.
+        profiler.record(ClusteredJobProfiler.Operation.FIND, hot, 2_000_000L, true);
+        profiler.record(ClusteredJobProfiler.Operation.UPDATE_NEXT_RUN_TIME, hot, 3_000_000L, true);
+        profiler.record(ClusteredJobProfiler.Operation.FIND, hot, 4_000_000L, true);
+        profiler.record(ClusteredJobProfiler.Operation.UPDATE_NEXT_RUN_TIME, hot, 6_000_000L, false);
+        profiler.record(ClusteredJobProfiler.Operation.UPDATE_NEXT_RUN_TIME, cold, 1_000_000L, true);
+        profiler.record(ClusteredJobProfiler.Operation.UPDATE_NEXT_RUN_TIME, hot, 1_000_000L, true);
+        Thread.sleep(5L);
+        profiler.finished(hot);
+
+        final ClusteredJobDaoReport report = profiler.getReport(true, 10);
+        assertEquals(1, report.getSlowCalls().size());
+        assertEquals("REFRESH", report.getSlowCalls().get(0).getOperation());
+        final DaoOperationSummary updates = report.getOperations().stream()
+                .filter(operation -> operation.getOperation().equals("UPDATE_NEXT_RUN_TIME"))
+                .findFirst().get();
+        assertEquals(4L, updates.getCalls());
+        assertEquals(1L, updates.getFailures());
+
+        assertEquals(2, report.getHotJobs().size());
+        final ClusteredJobUsage usage = report.getHotJobs().get(0);
+        assertEquals("hot", usage.getJobId());
+        assertEquals(4L, usage.getDaoCalls());
+        assertEquals(2L, usage.getClaims());
+        assertEquals(1L, usage.getConflicts());
+        // The find before the lost claim counts towards its wait: 4ms + 6ms.
+        assertEquals(10.0, usage.getClaimWait().getMaxMillis(), 1.0);
+        assertEquals(1L, usage.getHold().getCount());
+        assertTrue(report.getHoldMillis() >= 5L);
+
+        // A deleted job is forgotten, but what it cost stays in the totals.
+        profiler.record(ClusteredJobProfiler.Operation.DELETE, hot, 1_000_000L, true);
+        final ClusteredJobDaoReport afterDelete = profiler.getReport(true, 10);
+        assertEquals(1, afterDelete.getHotJobs().size());
+        assertEquals("cold", afterDelete.getHotJobs().get(0).getJobId());
+        assertEquals(report.getClaimWaitMillis(), afterDelete.getClaimWaitMillis());
+        assertEquals(report.getHoldMillis(), afterDelete.getHoldMillis());
+
+        profiler.reset();
+        assertEquals(0, profiler.getReport(true, 10).getHotJobs().size());
+    }
+}
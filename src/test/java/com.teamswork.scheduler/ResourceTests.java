@@ -0,0 +1,48 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.metrics.ResourceMeter;
+import com.teamswork.scheduler.metrics.ResourceUsage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResourceTests {
+    private static volatile byte[] sink;
+
+    @Test
+    public void willAttributeAllocationToTheRunner() {
+        final ResourceMeter meter = new ResourceMeter();
+        if (!meter.isAllocationSupported()) {
+            return;
+        }
+        meter.setEnabled(true);
+        final ResourceUsage usage = new ResourceUsage("com.acme.sync");
+
+        final long cpuNanos = meter.cpuNanos();
+        final long allocatedBytes = meter.allocatedBytes();
+        for (int i = 0; i < 16; i++) {
+            sink = new byte[1024 * 1024];
+        }
+        meter.record(usage, cpuNanos, allocatedBytes);
+
+        assertEquals(1, usage.getRuns());
+        assertTrue(usage.getAllocatedBytes() >= 16L * 1024 * 1024);
+        assertEquals(usage.getAllocatedBytes(), usage.getMaxAllocatedBytes());
+        assertEquals(1, meter.getMeasuredRuns());
+        assertTrue(meter.getOverheadNanos() > 0);
+    }
+
+    @Test
+    public void willNotMeasureWhenSwitchedOff() {
+        final ResourceMeter meter = new ResourceMeter();
+        final ResourceUsage usage = new ResourceUsage("com.acme.sync");
+        assertEquals(ResourceMeter.UNAVAILABLE, meter.cpuNanos());
+        assertEquals(ResourceMeter.UNAVAILABLE, meter.allocatedBytes());
+
+        meter.setEnabled(true);
+        meter.record(usage, ResourceMeter.UNAVAILABLE, ResourceMeter.UNAVAILABLE);
+        assertEquals(0, usage.getRuns());
+        assertEquals(0, meter.getOverheadNanos());
+    }
+}
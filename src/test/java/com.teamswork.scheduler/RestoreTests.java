@@ -0,0 +1,153 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.jira.config.properties.ApplicationProperties;
+import com.atlassian.jira.util.I18nHelper;
+import com.teamswork.scheduler.capacity.CapacityRestorer;
+import com.teamswork.scheduler.component.SchedulerConfigurator;
+import com.teamswork.scheduler.model.OperationResult;
+import com.teamswork.scheduler.model.RestoreSettings;
+import com.teamswork.scheduler.model.RestoreStatus;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RestoreTests {
+
+    /**
+     * A configurator that starts each extra thread group straight away.
+     */
+    private static class StubConfigurator extends SchedulerConfigurator {
+        private final NavigableMap<String, Integer> extraThreadGroups = new TreeMap<>();
+        private boolean reconfigured;
+        private Runnable onStart = () -> { };
+
+        StubConfigurator() {
+            super(null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public OperationResult replaceSchedulerConfiguration() {
+            reconfigured = true;
+            return new OperationResult(true, "reconfigured");
+        }
+
+        @Override
+        public OperationResult startSchedulerWithExtraThreadGroup() {
+            onStart.run();
+            extraThreadGroups.put("Caesium-" + (extraThreadGroups.size() + 2), 4);
+            return new OperationResult(true, "started");
+        }
+
+        @Override
+        public NavigableMap<String, Integer> getExtraThreadGroups() {
+            return new TreeMap<>(extraThreadGroups);
+        }
+
+        @Override
+        public boolean isSchedulerReconfigured() {
+            return reconfigured;
+        }
+    }
+
+    private static RestoreSettings settings(final boolean enabled, final int threadGroups, final int timeoutSeconds) {
+        final RestoreSettings settings = new RestoreSettings();
+        settings.setEnabled(enabled);
+        settings.setThreadGroups(threadGroups);
+        settings.setTimeoutSeconds(timeoutSeconds);
+        return settings;
+    }
+
+    private static CapacityRestorer restorer(final SchedulerConfigurator schedulerConfigurator,
+                                             final Map<String, String> stored) {
+        return new CapacityRestorer(schedulerConfigurator, null, Stubs.stored(ApplicationProperties.class, stored),
+                Stubs.stored(I18nHelper.class, stored));
+    }
+
+    @Test
+    public void willStoreAndReadBackTheSettings() {
+        final Map<String, String> stored = new HashMap<>();
+        final CapacityRestorer restorer = restorer(new StubConfigurator(), stored);
+        assertFalse(restorer.getSettings().isEnabled());
+        assertEquals(1, restorer.getSettings().getThreadGroups());
+
+        assertTrue(restorer.configure(settings(true, 3, 120)).isSuccess());
+        final RestoreSettings settings = restorer.getSettings();
+        assertTrue(settings.isEnabled());
+        assertEquals(3, settings.getThreadGroups());
+        assertEquals(120, settings.getTimeoutSeconds());
+
+        assertFalse(restorer.configure(settings(true, CapacityRestorer.MAX_THREAD_GROUPS + 1, 120)).isSuccess());
+        assertFalse(restorer.configure(settings(true, 2, 5)).isSuccess());
+        assertEquals(3, restorer.getSettings().getThreadGroups());
+    }
+
+    @Test
+    public void willIgnoreUnknownAndInvalidSettings() {
+        final Map<String, String> stored = new HashMap<>();
+        final CapacityRestorer restorer = restorer(new StubConfigurator(), stored);
+        restorer.configure(settings(true, 2, 60));
+        final String key = stored.keySet().iterator().next();
+        stored.put(key, stored.get(key).replace("threadGroups=2", "threadGroups=lots\nunknown=2"));
+
+        final RestoreSettings settings = restorer.getSettings();
+        assertTrue(settings.isEnabled());
+        assertEquals(1, settings.getThreadGroups());
+        assertEquals(60, settings.getTimeoutSeconds());
+    }
+
+    @Test
+    public void willRestoreTheMissingThreadGroups() {
+        final StubConfigurator schedulerConfigurator = new StubConfigurator();
+        schedulerConfigurator.extraThreadGroups.put("Caesium-1", 4);
+        final CapacityRestorer restorer = restorer(schedulerConfigurator, new HashMap<>());
+        final Map<Integer, RestoreStatus> seen = new HashMap<>();
+        schedulerConfigurator.onStart = () -> seen.put(seen.size(), restorer.getStatus());
+
+        final long enabledAt = System.currentTimeMillis();
+        final RestoreStatus status = restorer.restore(settings(true, 3, 60), enabledAt, () -> true);
+        assertEquals(CapacityRestorer.State.RESTORED.name(), status.getState());
+        assertEquals(status, restorer.getStatus());
+        assertTrue(schedulerConfigurator.reconfigured);
+        assertEquals(Arrays.asList("Caesium-3", "Caesium-4"), status.getThreadGroups());
+        assertEquals(enabledAt, status.getPluginEnabledAt());
+        assertTrue(status.getSchedulerStartedAt() >= enabledAt);
+        assertEquals(status.getFullCapacityAt() - enabledAt, status.getTimeToFullCapacityMillis());
+
+        // What was published while the restore ran stays as it was.
+        assertEquals(CapacityRestorer.State.RESTORING.name(), seen.get(0).getState());
+        assertTrue(seen.get(0).getThreadGroups().isEmpty());
+        assertEquals(CapacityRestorer.State.RESTORING.name(), seen.get(1).getState());
+        assertEquals(Arrays.asList("Caesium-3"), seen.get(1).getThreadGroups());
+        assertEquals(0L, seen.get(1).getFullCapacityAt());
+    }
+
+    @Test
+    public void willNotReconfigureWhenNothingIsMissing() {
+        final StubConfigurator schedulerConfigurator = new StubConfigurator();
+        schedulerConfigurator.extraThreadGroups.put("Caesium-2", 4);
+        final RestoreStatus status = restorer(schedulerConfigurator, new HashMap<>())
+                .restore(settings(true, 1, 60), System.currentTimeMillis(), () -> true);
+        assertEquals(CapacityRestorer.State.RESTORED.name(), status.getState());
+        assertFalse(schedulerConfigurator.reconfigured);
+        assertTrue(status.getThreadGroups().isEmpty());
+    }
+
+    @Test
+    public void willTimeOutWhenTheSchedulerDoesNotStart() {
+        final StubConfigurator schedulerConfigurator = new StubConfigurator();
+        final RestoreStatus status = restorer(schedulerConfigurator, new HashMap<>())
+                .restore(settings(true, 2, 1), System.currentTimeMillis(), () -> false);
+        assertEquals(CapacityRestorer.State.TIMED_OUT.name(), status.getState());
+        assertEquals("jes.restore.scheduler.not.started", status.getMessage());
+        assertEquals(0L, status.getSchedulerStartedAt());
+        assertFalse(schedulerConfigurator.reconfigured);
+    }
+}
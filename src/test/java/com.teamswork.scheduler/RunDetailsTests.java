@@ -0,0 +1,151 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.scheduler.config.JobId;
+import com.atlassian.scheduler.core.spi.RunDetailsDao;
+import com.atlassian.scheduler.status.RunDetails;
+import com.atlassian.scheduler.status.RunOutcome;
+import com.teamswork.scheduler.rundetails.WriteBehindRunDetailsDao;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RunDetailsTests {
+    private static final JobId JOB_A = JobId.of("a");
+    private static final JobId JOB_B = JobId.of("b");
+
+    private static class RecordingDao implements RunDetailsDao {
+        private final List<String> writes = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public RunDetails getLastRunForJob(final JobId jobId) {
+            return null;
+        }
+
+        @Override
+        public RunDetails getLastSuccessfulRunForJob(final JobId jobId) {
+            return null;
+        }
+
+        @Override
+        public void addRunDetails(final JobId jobId, final RunDetails runDetails) {
+            if (failing) {
+                throw new IllegalStateException("database unavailable");
+            }
+            writes.add(jobId + ":" + runDetails.getMessage());
+        }
+
+        @Override
+        public void purgeHistory(final JobId jobId) {
+            writes.add(jobId + ":purged");
+        }
+    }
+
+    private static RunDetails run(final String message, final RunOutcome outcome) {
+        return new RunDetails() {
+            @Override
+            public Date getStartTime() {
+                return new Date(0L);
+            }
+
+            @Override
+            public long getDurationInMillis() {
+                return 1L;
+            }
+
+            @Override
+            public RunOutcome getRunOutcome() {
+                return outcome;
+            }
+
+            @Override
+            public String getMessage() {
+                return message;
+            }
+        };
+    }
+
+    @Test
+    public void willWriteOnlyTheRunsTheSchedulerReadsBack() {
+        final RecordingDao delegate = new RecordingDao();
+        final WriteBehindRunDetailsDao dao = new WriteBehindRunDetailsDao(delegate, 100, 1000);
+        dao.addRunDetails(JOB_A, run("a1", RunOutcome.SUCCESS));
+        dao.addRunDetails(JOB_B, run("b1", RunOutcome.SUCCESS));
+        dao.addRunDetails(JOB_A, run("a2", RunOutcome.SUCCESS));
+        dao.addRunDetails(JOB_A, run("a3", RunOutcome.FAILED));
+        dao.addRunDetails(JOB_B, run("b2", RunOutcome.SUCCESS));
+        assertEquals(0, delegate.writes.size());
+        assertEquals("a3", dao.getLastRunForJob(JOB_A).getMessage());
+        assertEquals("a2", dao.getLastSuccessfulRunForJob(JOB_A).getMessage());
+
+        assertEquals(5, dao.flush());
+        assertEquals("[a:a2, a:a3, b:b2]", delegate.writes.toString());
+        assertEquals(3L, dao.getWritten());
+        assertEquals(2L, dao.getCoalesced());
+        assertEquals(5L, dao.getBatchSizes().snapshot().getMax());
+        assertNull(dao.getLastRunForJob(JOB_A));
+        assertNull(dao.getLastSuccessfulRunForJob(JOB_A));
+    }
+
+    @Test
+    public void willWriteThroughAndDropSupersededRunsWhenTheBufferIsFull() {
+        final RecordingDao delegate = new RecordingDao();
+        final WriteBehindRunDetailsDao dao = new WriteBehindRunDetailsDao(delegate, 3, 3);
+        dao.addRunDetails(JOB_A, run("a1", RunOutcome.SUCCESS));
+        dao.addRunDetails(JOB_A, run("a2", RunOutcome.FAILED));
+        dao.addRunDetails(JOB_B, run("b1", RunOutcome.SUCCESS));
+        dao.addRunDetails(JOB_A, run("a3", RunOutcome.FAILED));
+        assertEquals("[a:a1, a:a3]", delegate.writes.toString());
+        assertEquals(1L, dao.getSynchronousWrites());
+        assertEquals(1L, dao.getCoalesced());
+        assertEquals(1, dao.getBuffered());
+
+        dao.addRunDetails(JOB_B, run("b2", RunOutcome.SUCCESS));
+        dao.addRunDetails(JOB_B, run("b3", RunOutcome.SUCCESS));
+        dao.addRunDetails(JOB_B, run("b4", RunOutcome.SUCCESS));
+        assertEquals("[a:a1, a:a3, b:b4]", delegate.writes.toString());
+        assertEquals(2L, dao.getSynchronousWrites());
+        assertEquals(0, dao.getBuffered());
+        assertNull(dao.getLastRunForJob(JOB_B));
+    }
+
+    @Test
+    public void willWriteStraightThroughOnceStopped() {
+        final RecordingDao delegate = new RecordingDao();
+        final WriteBehindRunDetailsDao dao = new WriteBehindRunDetailsDao(delegate, 100, 1000);
+        dao.addRunDetails(JOB_A, run("a1", RunOutcome.SUCCESS));
+        assertEquals(1, dao.stop());
+        dao.addRunDetails(JOB_A, run("a2", RunOutcome.SUCCESS));
+        assertEquals("[a:a1, a:a2]", delegate.writes.toString());
+        assertEquals(0, dao.getBuffered());
+    }
+
+    @Test
+    public void willDiscardBufferedRunsOfAPurgedJob() {
+        final RecordingDao delegate = new RecordingDao();
+        final WriteBehindRunDetailsDao dao = new WriteBehindRunDetailsDao(delegate, 100, 1000);
+        dao.addRunDetails(JOB_A, run("a1", RunOutcome.SUCCESS));
+        dao.addRunDetails(JOB_B, run("b1", RunOutcome.SUCCESS));
+        dao.purgeHistory(JOB_A);
+        assertEquals(1, dao.flushAll());
+        assertEquals("[a:purged, b:b1]", delegate.writes.toString());
+    }
+
+    @Test
+    public void willCountDroppedWrites() {
+        final RecordingDao delegate = new RecordingDao();
+        final WriteBehindRunDetailsDao dao = new WriteBehindRunDetailsDao(delegate, 100, 1000);
+        dao.addRunDetails(JOB_A, run("a1", RunOutcome.SUCCESS));
+        delegate.failing = true;
+        assertEquals(1, dao.flushAll());
+        assertEquals(1L, dao.getDroppedWrites());
+        assertEquals(0L, dao.getWritten());
+        assertSame(delegate, dao.getDelegate());
+    }
+}
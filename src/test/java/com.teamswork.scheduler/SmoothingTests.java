@@ -0,0 +1,99 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.model.SmoothingReport;
+import com.teamswork.scheduler.smoothing.CronEvaluator;
+import com.teamswork.scheduler.smoothing.JobSchedule;
+import com.teamswork.scheduler.smoothing.ScheduleAnalyser;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SmoothingTests {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final ZonedDateTime MIDNIGHT = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+
+    @Test
+    public void willEvaluateCronExpressions() {
+        assertEquals(MIDNIGHT.plusHours(1), new CronEvaluator("0 0 * * * ?", UTC).next(MIDNIGHT));
+        assertEquals(MIDNIGHT.plusMinutes(15), new CronEvaluator("0 0/15 * * * ?", UTC).next(MIDNIGHT));
+        assertEquals(MIDNIGHT.plusDays(1).withHour(2).withMinute(30),
+                new CronEvaluator("0 30 2 * * ?", UTC).next(MIDNIGHT.plusHours(3)));
+        // 1 January 2024 is a Monday.
+        assertEquals(MIDNIGHT.plusDays(4).withHour(9), new CronEvaluator("0 0 9 ? * FRI", UTC).next(MIDNIGHT));
+        assertEquals(MIDNIGHT.plusMonths(1).withHour(6), new CronEvaluator("0 0 6 1 FEB-MAR ?", UTC).next(MIDNIGHT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void willRejectUnsupportedCronForms() {
+        new CronEvaluator("0 0 12 L * ?", UTC);
+    }
+
+    @Test
+    public void willShiftCronWithinTheHour() {
+        final JobSchedule hourly = JobSchedule.cron("job", "key", "0 0 * * * ?", UTC, 0L);
+        assertEquals("30 7 * * * ?", hourly.shift(450, 0L).getCronExpression());
+        final JobSchedule late = JobSchedule.cron("job", "key", "0 58 3 * * ?", UTC, 0L);
+        assertEquals("0 3 3 * * ?", late.shift(300, 0L).getCronExpression());
+        assertNull(JobSchedule.cron("job", "key", "0 0/5 * * * ?", UTC, 0L).shift(60, 0L));
+    }
+
+    @Test
+    public void willGiveEachJobTheSameOffsetEveryTime() {
+        final int offset = ScheduleAnalyser.offsetSeconds("com.acme.sync-job", 600);
+        assertEquals(offset, ScheduleAnalyser.offsetSeconds("com.acme.sync-job", 600));
+        assertTrue(offset >= 0 && offset < 600);
+    }
+
+    @Test
+    public void willTakeTheCurrentScheduleOnceTheOwnerChangesIt() {
+        final JobSchedule stored = JobSchedule.cron("job", "key", "0 0 * * * ?", UTC, 0L);
+        final JobSchedule moved = JobSchedule.cron("job", "key", "30 7 * * * ?", UTC, 0L);
+        final JobSchedule rescheduled = JobSchedule.cron("job", "key", "0 15 * * * ?", UTC, 0L);
+        assertSame(stored, ScheduleAnalyser.ownersSchedule(moved, stored, 450, 0L));
+        assertSame(stored, ScheduleAnalyser.ownersSchedule(stored, stored, 450, 0L));
+        assertSame(rescheduled, ScheduleAnalyser.ownersSchedule(rescheduled, stored, 450, 0L));
+        assertSame(moved, ScheduleAnalyser.ownersSchedule(moved, null, 450, 0L));
+    }
+
+    @Test
+    public void willSpreadAHerdOfHourlyJobs() {
+        final List<JobSchedule> schedules = new ArrayList<>();
+        final Map<String, JobSchedule> shifted = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            final JobSchedule schedule = JobSchedule.cron("job-" + i, "key", "0 0 * * * ?", UTC, 0L);
+            schedules.add(schedule);
+            shifted.put(schedule.getJobId(), schedule.shift(ScheduleAnalyser.offsetSeconds(schedule.getJobId(), 600), 0L));
+        }
+        final long from = MIDNIGHT.toInstant().toEpochMilli();
+        final SmoothingReport report = ScheduleAnalyser.analyse(schedules, shifted, from, 120, 10);
+
+        assertEquals(120, report.getDueBefore().size());
+        assertEquals(40, report.getPeakBefore());
+        assertTrue(report.getPeakAfter() < 10);
+        assertEquals(2, report.getHerds().size());
+        assertEquals(from, report.getHerds().get(0).getMinute());
+        assertEquals(20, report.getHerds().get(0).getJobIds().size());
+        assertEquals(80, report.getDueAfter().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    public void willListIntervalDueTimes() {
+        final long from = MIDNIGHT.toInstant().toEpochMilli();
+        final JobSchedule every10 = JobSchedule.interval("job", "key", 600000L, from - 3600000L, 0L);
+        final List<Long> due = new ArrayList<>();
+        every10.dueTimes(from, from + 3600000L, due::add);
+        assertEquals(6, due.size());
+        assertEquals(Long.valueOf(from), due.get(0));
+    }
+}
@@ -0,0 +1,65 @@
+package com.teamswork.scheduler;
+
+import com.atlassian.jira.util.I18nHelper;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * Proxy stubs of the Jira interfaces the tests need but do not exercise.
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * A stub returning nothing, false or zero.
+     */
+    public static <T> T of(final Class<T> type) {
+        return returning(type);
+    }
+
+    /**
+     * A stub returning the first value that fits a method's return type, and otherwise nothing, false or zero.
+     */
+    public static <T> T returning(final Class<T> type, final Object... values) {
+        return type.cast(Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    for (Object value : values) {
+                        if (method.getReturnType().isInstance(value)) {
+                            return value;
+                        }
+                    }
+                    return defaultValue(method.getReturnType());
+                }));
+    }
+
+    /**
+     * A stub that stores strings and text in the map and reads them back, e.g. ApplicationProperties, and returns
+     * the key for i18n text.
+     */
+    public static <T> T stored(final Class<T> type, final Map<String, String> stored) {
+        return type.cast(Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setString":
+                        case "setText":
+                            stored.put((String) args[0], (String) args[1]);
+                            return null;
+                        case "getString":
+                        case "getText":
+                            return type == I18nHelper.class ? args[0] : stored.get(args[0]);
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                }));
+    }
+
+    private static Object defaultValue(final Class<?> returnType) {
+        if (returnType == boolean.class) return false;
+        if (returnType == int.class) return 0;
+        if (returnType == long.class) return 0L;
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+package com.teamswork.scheduler;
+
+import com.teamswork.scheduler.model.HangEvent;
+import com.teamswork.scheduler.watchdog.RunningJob;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WatchdogTests {
+
+    @Test
+    public void willCaptureTheStackAndInterruptAHungRun() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final boolean[] interrupted = new boolean[1];
+        final Thread worker = new Thread(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60000L);
+            } catch (InterruptedException e) {
+                interrupted[0] = true;
+            }
+        }, "Caesium-1-1");
+        worker.start();
+        started.await();
+        final RunningJob job = new RunningJob("job", "com.acme.sync", "Caesium-1", worker, 1L);
+        assertFalse(job.isOverBudget(System.nanoTime()));
+        assertTrue(job.isOverBudget(System.nanoTime() + TimeUnit.SECONDS.toNanos(2)));
+        // Let the worker reach the sleep, so it is on the captured stack.
+        while (worker.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1L);
+        }
+
+        final HangEvent event = job.hang();
+        worker.join(5000L);
+        assertTrue(interrupted[0]);
+        assertTrue(job.isHung());
+        assertEquals("SUSPECT", event.getState());
+        assertEquals("Caesium-1-1", event.getThreadName());
+        assertTrue(event.getStackTrace().contains("sleep"));
+    }
+
+    @Test
+    public void willMarkAHungRunRecoveredWhenItReturns() {
+        final RunningJob job = new RunningJob("job", "com.acme.sync", "Caesium-1", Thread.currentThread(), 1L);
+        final HangEvent event = job.hang();
+        assertTrue(job.finished());
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertEquals("RECOVERED", event.getState());
+        assertTrue(event.getRecoveredAt() > 0);
+        assertFalse(job.finished());
+
+        final RunningJob returned = new RunningJob("job", "com.acme.sync", "Caesium-1", Thread.currentThread(), 1L);
+        assertFalse(returned.finished());
+        assertNull(returned.hang());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void willNeverLeakAnInterruptWhenAHangRacesTheRunReturning() throws InterruptedException {
+        for (int i = 0; i < 2000; i++) {
+            final RunningJob job = new RunningJob("job", "com.acme.sync", "Caesium-1", Thread.currentThread(), 1L);
+            final HangEvent[] event = new HangEvent[1];
+            final Thread watchdog = new Thread(() -> event[0] = job.hang());
+            watchdog.start();
+            final boolean hung = job.finished();
+            watchdog.join();
+            // Whichever side won, the interrupt has either been cleared or was never sent.
+            assertFalse(Thread.interrupted());
+            assertEquals(hung, event[0] != null);
+            if (hung) {
+                assertEquals("RECOVERED", event[0].getState());
+            }
+        }
+    }
+}